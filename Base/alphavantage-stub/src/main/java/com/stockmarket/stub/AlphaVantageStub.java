@@ -0,0 +1,306 @@
+package com.stockmarket.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servidor local que imita a Alpha Vantage (GET /query?function=TIME_SERIES_...)
+ * y a Yahoo Finance (GET /v8/finance/chart/{symbol}?interval=1d&range=6mo)
+ *
+ * Sirve para medir el gateway sin red, sin cuota de 5 llamadas/minuto y con
+ * latencias controladas (ver StubOptions y README.md de este módulo)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Sin dependencias: com.sun.net.httpserver (incluido en el JDK)
+ * - Un hilo virtual por petición: la demora inyectada (Thread.sleep) no ocupa un hilo
+ *   de plataforma; miles de peticiones pueden estar "esperando a la API" a la vez
+ * - Inyección de fallas: notas de cuota (aleatorias o por cuota por minuto) y HTTP 500
+ *   con la misma forma que la API real, para probar los caminos de error del gateway
+ *   (en el formato de Yahoo la cuota excedida es HTTP 429, como en su API)
+ * - Dos proveedores: con dos stubs en distintos puertos (uno como Alpha Vantage y otro
+ *   como Yahoo), cada uno con su latencia y su cuota, se prueba el failover del gateway
+ * - Observabilidad: GET /stats cuenta peticiones, fallas inyectadas y conexiones TCP
+ *   distintas (permite verificar que el cliente reutiliza conexiones)
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden otra función de la API (SeriesGenerator)
+ * - Te piden otro tipo de falla (handleQuery / handleChart)
+ * ============================================
+ */
+public class AlphaVantageStub {
+
+    /** Nota de cuota, igual a la de la API gratuita */
+    static final String THROTTLE_NOTE = "{\n    \"Note\": \"Thank you for using Alpha Vantage! Our standard API call "
+        + "frequency is 5 calls per minute and 500 calls per day. Please visit "
+        + "https://www.alphavantage.co/premium/ if you would like to target a higher API call frequency.\"\n}";
+
+    /** Error de Yahoo para parámetros inválidos (HTTP 422) */
+    private static final String INVALID_CHART = "{\"chart\":{\"result\":null,\"error\":{\"code\":\"Unprocessable Entity\","
+        + "\"description\":\"Invalid input - interval and range must be valid\"}}}";
+
+    private static final String INVALID_CALL = "{\n    \"Error Message\": \"Invalid API call. Please retry or visit "
+        + "the documentation (https://www.alphavantage.co/documentation/) for TIME_SERIES_DAILY.\"\n}";
+
+    private final StubOptions options;
+    private final SeriesGenerator generator;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private HttpServer server;
+
+    // Token bucket de la cuota por minuto (solo si quotaPerMinute > 0)
+    private double quotaTokens;
+    private long quotaRefilledAt = System.nanoTime();
+
+    // Estadísticas (GET /stats)
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+    public AlphaVantageStub(StubOptions options) {
+        this.options = options;
+        this.generator = new SeriesGenerator(options);
+        this.quotaTokens = options.quotaPerMinute();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 1 && ("--help".equals(args[0]) || "-h".equals(args[0]))) {
+            System.out.println(StubOptions.USAGE);
+            return;
+        }
+        StubOptions options;
+        try {
+            options = StubOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("❌ " + e.getMessage());
+            System.err.println(StubOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        AlphaVantageStub stub = new AlphaVantageStub(options);
+        stub.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::stop));
+        System.out.println("🧪 Stub de Alpha Vantage en http://localhost:" + stub.port() + "/query");
+        System.out.println("   - Formato Yahoo en http://localhost:" + stub.port() + "/v8/finance/chart/{symbol}");
+        System.out.println("   - Latencia: " + options.latency());
+        System.out.println("   - Notas de cuota: " + options.throttleRate() + " | Errores 500: " + options.errorRate()
+            + " | Cuota/min: " + (options.quotaPerMinute() == 0 ? "sin cuota" : options.quotaPerMinute()));
+        System.out.println("   - Barras full: intraday " + options.intradayBars() + ", daily " + options.dailyBars()
+            + ", weekly " + options.weeklyBars() + ", monthly " + options.monthlyBars());
+    }
+
+    /**
+     * Abre el puerto y empieza a atender (no bloquea)
+     */
+    public void start() throws IOException {
+        // Sin esto, en conexiones keep-alive Nagle + ACK demorado agregan ~40 ms a
+        // cada respuesta chica (cabeceras y cuerpo van en escrituras separadas)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(options.port()), 1024);
+        server.setExecutor(executor);
+        server.createContext("/query", this::handleQuery);
+        server.createContext("/v8/finance/chart/", this::handleChart);
+        server.createContext("/stats", this::handleStats);
+        server.start();
+    }
+
+    /**
+     * @return Puerto en el que escucha (útil con --port=0)
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return Peticiones a /query y /v8/finance/chart recibidas
+     */
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return Conexiones TCP distintas que hicieron peticiones a /query o /v8/finance/chart
+     */
+    public int connections() {
+        return connections.size();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * GET /query?function=...&symbol=...&outputsize=...
+     * 1. Demora según el modelo de latencia
+     * 2. Error 500 o nota de cuota según las tasas configuradas
+     * 3. Serie generada (o "Error Message" si falta el símbolo o la función no existe)
+     */
+    private void handleQuery(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            Failure failure = simulate(exchange);
+            if (failure == Failure.INTERRUPTED) {
+                return;
+            }
+            if (failure == Failure.ERROR) {
+                send(exchange, 500, "Internal Server Error".getBytes(StandardCharsets.UTF_8), "text/plain");
+                return;
+            }
+            if (failure == Failure.THROTTLED) {
+                send(exchange, 200, THROTTLE_NOTE.getBytes(StandardCharsets.UTF_8), "application/json");
+                return;
+            }
+
+            String function = query.getOrDefault("function", "");
+            String symbol = query.get("symbol");
+            byte[] payload = symbol == null || symbol.isBlank()
+                ? null
+                : generator.payload(function, symbol, "full".equals(query.get("outputsize")));
+            send(exchange, 200, payload != null ? payload : INVALID_CALL.getBytes(StandardCharsets.UTF_8),
+                "application/json");
+        }
+    }
+
+    /**
+     * GET /v8/finance/chart/{symbol}?interval=1d&range=6mo (formato Yahoo Finance)
+     * - Mismas demoras y fallas que /query; la cuota excedida es HTTP 429 (como Yahoo)
+     * - interval o range inválidos: HTTP 422 con el error de Yahoo
+     */
+    private void handleChart(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String symbol = URLDecoder.decode(
+                exchange.getRequestURI().getRawPath().substring("/v8/finance/chart/".length()), StandardCharsets.UTF_8);
+            Failure failure = simulate(exchange);
+            if (failure == Failure.INTERRUPTED) {
+                return;
+            }
+            if (failure == Failure.ERROR) {
+                send(exchange, 500, "Internal Server Error".getBytes(StandardCharsets.UTF_8), "text/plain");
+                return;
+            }
+            if (failure == Failure.THROTTLED) {
+                send(exchange, 429, "Too Many Requests".getBytes(StandardCharsets.UTF_8), "text/plain");
+                return;
+            }
+
+            byte[] payload = symbol.isBlank()
+                ? null
+                : generator.chartPayload(query.getOrDefault("interval", "1d"), query.getOrDefault("range", "1mo"), symbol);
+            if (payload == null) {
+                send(exchange, 422, INVALID_CHART.getBytes(StandardCharsets.UTF_8), "application/json");
+                return;
+            }
+            send(exchange, 200, payload, "application/json");
+        }
+    }
+
+    /**
+     * Falla simulada de una petición (común a ambos formatos)
+     */
+    private enum Failure { NONE, ERROR, THROTTLED, INTERRUPTED }
+
+    /**
+     * Cuenta la petición, aplica la demora y sortea la falla según las tasas y la cuota
+     */
+    private Failure simulate(HttpExchange exchange) throws IOException {
+        requests.increment();
+        connections.add(exchange.getRemoteAddress());
+        exchange.getRequestBody().readAllBytes();
+
+        long delayNanos = options.latency().sample().toNanos();
+        if (delayNanos > 0) {
+            try {
+                Thread.sleep(delayNanos / 1_000_000, (int) (delayNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Failure.INTERRUPTED;
+            }
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (options.errorRate() > 0 && random.nextDouble() < options.errorRate()) {
+            errors.increment();
+            return Failure.ERROR;
+        }
+        if ((options.throttleRate() > 0 && random.nextDouble() < options.throttleRate()) || !acquireQuota()) {
+            throttled.increment();
+            return Failure.THROTTLED;
+        }
+        return Failure.NONE;
+    }
+
+    /**
+     * GET /stats → {"requests":..,"throttled":..,"errors":..,"bytes":..,"connections":..}
+     */
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String json = "{\"requests\":" + requests.sum()
+                + ",\"throttled\":" + throttled.sum()
+                + ",\"errors\":" + errors.sum()
+                + ",\"bytes\":" + bytes.sum()
+                + ",\"connections\":" + connections.size() + "}";
+            send(exchange, 200, json.getBytes(StandardCharsets.UTF_8), "application/json");
+        }
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body, String contentType) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        bytes.add(body.length);
+    }
+
+    /**
+     * Token bucket: quotaPerMinute llamadas por minuto, con ráfaga del mismo tamaño
+     */
+    private synchronized boolean acquireQuota() {
+        if (options.quotaPerMinute() <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        quotaTokens = Math.min(options.quotaPerMinute(),
+            quotaTokens + (now - quotaRefilledAt) * options.quotaPerMinute() / 60e9);
+        quotaRefilledAt = now;
+        if (quotaTokens < 1) {
+            return false;
+        }
+        quotaTokens -= 1;
+        return true;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+}
@@ -0,0 +1,85 @@
+package com.stockmarket.stub;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribución de la demora que el stub agrega a cada respuesta
+ *
+ * FORMATOS (opción --latency):
+ * - none                 → sin demora
+ * - fixed:200ms          → siempre 200 ms
+ * - uniform:50ms:400ms   → entre 50 y 400 ms
+ * - lognormal:150ms:0.6  → mediana 150 ms, sigma 0.6 (cola larga como una API real:
+ *                          con sigma 0.6 el p99 es ~4x la mediana)
+ *
+ * Los tiempos aceptan "ms" o "s" (ej: 1.5s)
+ */
+public final class LatencyModel {
+
+    private final String kind;
+    private final double a;
+    private final double b;
+
+    private LatencyModel(String kind, double a, double b) {
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+    }
+
+    /**
+     * @param spec Especificación (ver formatos arriba)
+     * @return Modelo de latencia
+     * @throws IllegalArgumentException Si el formato no es válido
+     */
+    public static LatencyModel parse(String spec) {
+        String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+        try {
+            return switch (parts[0]) {
+                case "none" -> new LatencyModel("none", 0, 0);
+                case "fixed" -> new LatencyModel("fixed", millis(parts[1]), 0);
+                case "uniform" -> new LatencyModel("uniform", millis(parts[1]), millis(parts[2]));
+                case "lognormal" -> new LatencyModel("lognormal", millis(parts[1]), Double.parseDouble(parts[2]));
+                default -> throw new IllegalArgumentException("Latencia desconocida: " + spec);
+            };
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Latencia inválida: " + spec
+                + " (usa none, fixed:200ms, uniform:50ms:400ms o lognormal:150ms:0.6)");
+        }
+    }
+
+    /**
+     * @return Demora de la siguiente respuesta
+     */
+    public Duration sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double millis = switch (kind) {
+            case "fixed" -> a;
+            case "uniform" -> a + random.nextDouble() * (b - a);
+            case "lognormal" -> a * Math.exp(b * random.nextGaussian());
+            default -> 0;
+        };
+        return Duration.ofNanos((long) (millis * 1_000_000));
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case "fixed" -> "fixed " + a + "ms";
+            case "uniform" -> "uniform " + a + "-" + b + "ms";
+            case "lognormal" -> "lognormal mediana " + a + "ms sigma " + b;
+            default -> "none";
+        };
+    }
+
+    private static double millis(String value) {
+        if (value.endsWith("ms")) {
+            return Double.parseDouble(value.substring(0, value.length() - 2));
+        }
+        if (value.endsWith("s")) {
+            return Double.parseDouble(value.substring(0, value.length() - 1)) * 1000;
+        }
+        return Double.parseDouble(value);
+    }
+}
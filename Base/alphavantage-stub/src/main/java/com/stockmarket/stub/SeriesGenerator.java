@@ -0,0 +1,332 @@
+package com.stockmarket.stub;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Genera respuestas TIME_SERIES_* con el mismo formato que Alpha Vantage, y las
+ * mismas series con el formato de Yahoo Finance (/v8/finance/chart)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Determinismo: Los precios son un paseo aleatorio con semilla = símbolo, así
+ *   "IBM" siempre tiene la misma historia (corridas reproducibles) y "compact"
+ *   son exactamente las últimas 100 barras de "full" (como en la API real)
+ * - Memorización: Cada (función, símbolo, tamaño) se genera una sola vez y se guarda
+ *   en bytes UTF-8; el stub no debe ser el cuello de botella de la prueba
+ *
+ * FORMATO (igual que la API, más reciente primero, indentado con 4 espacios):
+ * {"Meta Data": {...}, "Time Series (Daily)": {"2025-01-15": {"1. open": "150.1200", ...}}}
+ *
+ * FORMATO YAHOO (columnar, más antiguo primero, segundos UTC del INICIO de cada barra):
+ * {"chart":{"result":[{"meta":{...},"timestamp":[...],"indicators":{"quote":[{"open":[...],...}]}}],"error":null}}
+ */
+public final class SeriesGenerator {
+
+    /** Barras de una respuesta "compact" */
+    public static final int COMPACT_BARS = 100;
+
+    private static final DateTimeFormatter INTRADAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** Zona de la bolsa (las fechas de Alpha Vantage están en US/Eastern) */
+    private static final ZoneId EXCHANGE_ZONE = ZoneId.of("America/New_York");
+
+    private final StubOptions options;
+    /** Última sesión de todas las series (fija al arrancar: respuestas estables) */
+    private final LocalDate lastSession;
+    private final ConcurrentHashMap<String, byte[]> payloads = new ConcurrentHashMap<>();
+
+    public SeriesGenerator(StubOptions options) {
+        this.options = options;
+        LocalDate today = LocalDate.now();
+        while (today.getDayOfWeek().getValue() > 5) {
+            today = today.minusDays(1);
+        }
+        this.lastSession = today;
+    }
+
+    /**
+     * @param function TIME_SERIES_INTRADAY, TIME_SERIES_DAILY, TIME_SERIES_WEEKLY o TIME_SERIES_MONTHLY
+     * @param symbol Símbolo pedido
+     * @param full true si outputsize=full
+     * @return JSON en UTF-8, o null si la función no existe
+     */
+    public byte[] payload(String function, String symbol, boolean full) {
+        if (!isSupported(function)) {
+            return null;
+        }
+        String upper = symbol.toUpperCase(Locale.ROOT);
+        return payloads.computeIfAbsent(function + "|" + upper + "|" + full,
+            key -> generate(function, upper, full).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static boolean isSupported(String function) {
+        return switch (function) {
+            case "TIME_SERIES_INTRADAY", "TIME_SERIES_DAILY", "TIME_SERIES_WEEKLY", "TIME_SERIES_MONTHLY" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Misma serie que payload() con el formato de Yahoo Finance
+     *
+     * @param barSize interval de Yahoo: 5m, 1d, 1wk o 1mo
+     * @param range range de Yahoo: 1d, 5d, 1mo, 3mo, 6mo, 1y, 2y, 5y, 10y, ytd o max
+     * @param symbol Símbolo pedido
+     * @return JSON en UTF-8, o null si barSize o range no existen
+     */
+    public byte[] chartPayload(String barSize, String range, String symbol) {
+        String function = switch (barSize) {
+            case "5m" -> "TIME_SERIES_INTRADAY";
+            case "1d" -> "TIME_SERIES_DAILY";
+            case "1wk" -> "TIME_SERIES_WEEKLY";
+            case "1mo" -> "TIME_SERIES_MONTHLY";
+            default -> null;
+        };
+        int sessions = switch (range) {
+            case "1d" -> 1;
+            case "5d" -> 5;
+            case "1mo" -> 21;
+            case "3mo" -> 63;
+            case "6mo" -> 126;
+            case "1y", "ytd" -> 252;
+            case "2y" -> 504;
+            case "5y" -> 1260;
+            case "10y" -> 2520;
+            case "max" -> Integer.MAX_VALUE;
+            default -> -1;
+        };
+        if (function == null || sessions < 0) {
+            return null;
+        }
+        String upper = symbol.toUpperCase(Locale.ROOT);
+        return payloads.computeIfAbsent("CHART|" + function + "|" + upper + "|" + range,
+            key -> generateChart(function, upper, sessions).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int fullBars(String function) {
+        return switch (function) {
+            case "TIME_SERIES_INTRADAY" -> options.intradayBars();
+            case "TIME_SERIES_DAILY" -> options.dailyBars();
+            case "TIME_SERIES_WEEKLY" -> options.weeklyBars();
+            default -> options.monthlyBars();
+        };
+    }
+
+    private String generate(String function, String symbol, boolean full) {
+        int fullBars = fullBars(function);
+        // WEEKLY y MONTHLY no tienen outputsize: siempre la historia completa
+        boolean compact = !full && ("TIME_SERIES_INTRADAY".equals(function) || "TIME_SERIES_DAILY".equals(function));
+        int bars = compact ? Math.min(COMPACT_BARS, fullBars) : fullBars;
+
+        String[] times = times(function, fullBars);
+        double[][] prices = prices(symbol, fullBars);
+
+        StringBuilder json = new StringBuilder(bars * 190 + 512);
+        json.append("{\n    \"Meta Data\": {\n");
+        String lastRefreshed = times[fullBars - 1];
+        switch (function) {
+            case "TIME_SERIES_INTRADAY" -> meta(json,
+                "1. Information", "Intraday (5min) open, high, low, close prices and volume",
+                "2. Symbol", symbol,
+                "3. Last Refreshed", lastRefreshed,
+                "4. Interval", "5min",
+                "5. Output Size", compact ? "Compact" : "Full size",
+                "6. Time Zone", "US/Eastern");
+            case "TIME_SERIES_DAILY" -> meta(json,
+                "1. Information", "Daily Prices (open, high, low, close) and Volumes",
+                "2. Symbol", symbol,
+                "3. Last Refreshed", lastRefreshed,
+                "4. Output Size", compact ? "Compact" : "Full size",
+                "5. Time Zone", "US/Eastern");
+            case "TIME_SERIES_WEEKLY" -> meta(json,
+                "1. Information", "Weekly Prices (open, high, low, close) and Volumes",
+                "2. Symbol", symbol,
+                "3. Last Refreshed", lastRefreshed,
+                "4. Time Zone", "US/Eastern");
+            default -> meta(json,
+                "1. Information", "Monthly Prices (open, high, low, close) and Volumes",
+                "2. Symbol", symbol,
+                "3. Last Refreshed", lastRefreshed,
+                "4. Time Zone", "US/Eastern");
+        }
+        json.append("    },\n    \"").append(seriesName(function)).append("\": {\n");
+        for (int i = fullBars - 1; i >= fullBars - bars; i--) {
+            json.append("        \"").append(times[i]).append("\": {\n")
+                .append("            \"1. open\": \"").append(price(prices[0][i])).append("\",\n")
+                .append("            \"2. high\": \"").append(price(prices[1][i])).append("\",\n")
+                .append("            \"3. low\": \"").append(price(prices[2][i])).append("\",\n")
+                .append("            \"4. close\": \"").append(price(prices[3][i])).append("\",\n")
+                .append("            \"5. volume\": \"").append((long) prices[4][i]).append("\"\n")
+                .append(i == fullBars - bars ? "        }\n" : "        },\n");
+        }
+        return json.append("    }\n}").toString();
+    }
+
+    /**
+     * Las últimas barras que caben en "sessions" sesiones, en el formato de Yahoo
+     * - Fechas: segundos UTC del inicio de la barra (5min → 5 minutos antes del rótulo de
+     *   Alpha Vantage; diaria 09:30; semanal el lunes; mensual el día 1)
+     */
+    private String generateChart(String function, String symbol, int sessions) {
+        int fullBars = fullBars(function);
+        long rangeBars = switch (function) {
+            case "TIME_SERIES_INTRADAY" -> sessions * 78L;
+            case "TIME_SERIES_DAILY" -> sessions;
+            case "TIME_SERIES_WEEKLY" -> (sessions + 4) / 5;
+            default -> (sessions + 20) / 21;
+        };
+        int bars = (int) Math.min(fullBars, rangeBars);
+        int first = fullBars - bars;
+
+        String[] times = times(function, fullBars);
+        double[][] prices = prices(symbol, fullBars);
+        long marketTime = lastSession.atTime(16, 0).atZone(EXCHANGE_ZONE).toEpochSecond();
+
+        StringBuilder json = new StringBuilder(bars * 80 + 512);
+        json.append("{\"chart\":{\"result\":[{\"meta\":{\"currency\":\"USD\",\"symbol\":\"").append(symbol)
+            .append("\",\"exchangeName\":\"NYQ\",\"instrumentType\":\"EQUITY\",\"regularMarketTime\":")
+            .append(marketTime)
+            .append(",\"exchangeTimezoneName\":\"America/New_York\",\"regularMarketPrice\":")
+            .append(price(prices[3][fullBars - 1]))
+            .append("},\"timestamp\":[");
+        for (int i = first; i < fullBars; i++) {
+            json.append(i > first ? "," : "").append(barStart(function, times[i]));
+        }
+        json.append("],\"indicators\":{\"quote\":[{");
+        String[] columns = {"open", "high", "low", "close"};
+        for (int c = 0; c < columns.length; c++) {
+            json.append('"').append(columns[c]).append("\":[");
+            for (int i = first; i < fullBars; i++) {
+                json.append(i > first ? "," : "").append(price(prices[c][i]));
+            }
+            json.append("],");
+        }
+        json.append("\"volume\":[");
+        for (int i = first; i < fullBars; i++) {
+            json.append(i > first ? "," : "").append((long) prices[4][i]);
+        }
+        return json.append("]}]}}],\"error\":null}}").toString();
+    }
+
+    /**
+     * Segundos UTC del inicio de la barra que Alpha Vantage rotula con "time"
+     */
+    private static long barStart(String function, String time) {
+        LocalDateTime start = switch (function) {
+            case "TIME_SERIES_INTRADAY" -> LocalDateTime.parse(time, INTRADAY_FORMAT);
+            case "TIME_SERIES_DAILY" -> LocalDate.parse(time).atTime(9, 30);
+            case "TIME_SERIES_WEEKLY" -> LocalDate.parse(time)
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atTime(9, 30);
+            default -> LocalDate.parse(time).withDayOfMonth(1).atTime(9, 30);
+        };
+        return start.atZone(EXCHANGE_ZONE).toEpochSecond();
+    }
+
+    private static void meta(StringBuilder json, String... keyValues) {
+        for (int i = 0; i < keyValues.length; i += 2) {
+            json.append("        \"").append(keyValues[i]).append("\": \"").append(keyValues[i + 1])
+                .append(i + 2 < keyValues.length ? "\",\n" : "\"\n");
+        }
+    }
+
+    private static String seriesName(String function) {
+        return switch (function) {
+            case "TIME_SERIES_INTRADAY" -> "Time Series (5min)";
+            case "TIME_SERIES_DAILY" -> "Time Series (Daily)";
+            case "TIME_SERIES_WEEKLY" -> "Weekly Time Series";
+            default -> "Monthly Time Series";
+        };
+    }
+
+    /**
+     * Fechas de las barras, de la más antigua a la más reciente
+     * - INTRADAY: barras de 5 min de 09:30 a 15:55 (78 por sesión; rotuladas por su inicio, como la API)
+     * - DAILY: lunes a viernes
+     * - WEEKLY: viernes de cada semana; MONTHLY: último día hábil de cada mes
+     */
+    private String[] times(String function, int bars) {
+        String[] times = new String[bars];
+        switch (function) {
+            case "TIME_SERIES_INTRADAY" -> {
+                LocalDateTime time = lastSession.atTime(15, 55);
+                for (int i = bars - 1; i >= 0; i--) {
+                    times[i] = time.format(INTRADAY_FORMAT);
+                    time = time.minusMinutes(5);
+                    if (time.toLocalTime().isBefore(LocalTime.of(9, 30))) {
+                        time = previousSession(time.toLocalDate()).atTime(15, 55);
+                    }
+                }
+            }
+            case "TIME_SERIES_DAILY" -> {
+                LocalDate day = lastSession;
+                for (int i = bars - 1; i >= 0; i--) {
+                    times[i] = day.toString();
+                    day = previousSession(day);
+                }
+            }
+            case "TIME_SERIES_WEEKLY" -> {
+                // Viernes anteriores a la semana en curso (un viernes, la semana en curso ya es lastSession)
+                LocalDate friday = lastSession.minusDays(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.FRIDAY));
+                times[bars - 1] = lastSession.toString();
+                for (int i = bars - 2; i >= 0; i--) {
+                    times[i] = friday.toString();
+                    friday = friday.minusWeeks(1);
+                }
+            }
+            default -> {
+                times[bars - 1] = lastSession.toString();
+                LocalDate month = lastSession.withDayOfMonth(1);
+                for (int i = bars - 2; i >= 0; i--) {
+                    month = month.minusMonths(1);
+                    LocalDate last = month.with(TemporalAdjusters.lastDayOfMonth());
+                    while (last.getDayOfWeek().getValue() > 5) {
+                        last = last.minusDays(1);
+                    }
+                    times[i] = last.toString();
+                }
+            }
+        }
+        return times;
+    }
+
+    private static LocalDate previousSession(LocalDate day) {
+        LocalDate previous = day.minusDays(1);
+        while (previous.getDayOfWeek().getValue() > 5) {
+            previous = previous.minusDays(1);
+        }
+        return previous;
+    }
+
+    /**
+     * Paseo aleatorio con semilla fija por símbolo: [open, high, low, close, volume][barra]
+     */
+    private static double[][] prices(String symbol, int bars) {
+        SplittableRandom random = new SplittableRandom(symbol.hashCode());
+        double[][] columns = new double[5][bars];
+        double price = 50 + random.nextDouble(250);
+        for (int i = 0; i < bars; i++) {
+            double open = price;
+            double close = Math.max(1, open * (1 + random.nextDouble(-0.02, 0.02)));
+            columns[0][i] = open;
+            columns[1][i] = Math.max(open, close) * (1 + random.nextDouble(0, 0.01));
+            columns[2][i] = Math.min(open, close) * (1 - random.nextDouble(0, 0.01));
+            columns[3][i] = close;
+            columns[4][i] = 100_000 + random.nextLong(10_000_000);
+            price = close;
+        }
+        return columns;
+    }
+
+    private static String price(double value) {
+        return String.format(Locale.ROOT, "%.4f", value);
+    }
+}
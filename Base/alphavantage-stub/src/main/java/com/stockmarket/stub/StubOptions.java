@@ -0,0 +1,94 @@
+package com.stockmarket.stub;
+
+/**
+ * Opciones del stub (leídas de la línea de comandos, formato --nombre=valor)
+ *
+ * @param port Puerto HTTP
+ * @param latency Demora agregada a cada respuesta
+ * @param throttleRate Fracción de respuestas que son una nota de cuota ({"Note": ...})
+ * @param errorRate Fracción de respuestas HTTP 500
+ * @param quotaPerMinute Llamadas por minuto antes de responder notas de cuota (0 = sin cuota)
+ * @param intradayBars Barras de INTRADAY con outputsize=full
+ * @param dailyBars Barras de DAILY con outputsize=full
+ * @param weeklyBars Barras de WEEKLY
+ * @param monthlyBars Barras de MONTHLY
+ */
+public record StubOptions(
+        int port,
+        LatencyModel latency,
+        double throttleRate,
+        double errorRate,
+        int quotaPerMinute,
+        int intradayBars,
+        int dailyBars,
+        int weeklyBars,
+        int monthlyBars) {
+
+    public static final String USAGE = String.join("\n",
+        "Uso: java -jar target/alphavantage-stub.jar [opciones]",
+        "  --port=8099",
+        "  --latency=none              (fixed:200ms | uniform:50ms:400ms | lognormal:150ms:0.6)",
+        "  --throttle-rate=0.0         (fracción de respuestas {\"Note\": ...})",
+        "  --error-rate=0.0            (fracción de respuestas HTTP 500)",
+        "  --quota-per-minute=0        (0 = sin cuota; 5 = como la API gratuita)",
+        "  --intraday-bars=1638        (outputsize=full; compact = últimas 100)",
+        "  --daily-bars=5040           (20 años)",
+        "  --weekly-bars=1040",
+        "  --monthly-bars=240");
+
+    /**
+     * @param args Argumentos de la línea de comandos
+     * @return Opciones (valores por defecto para las que no aparecen)
+     * @throws IllegalArgumentException Si una opción no existe o su valor no es válido
+     */
+    public static StubOptions parse(String[] args) {
+        int port = 8099;
+        LatencyModel latency = LatencyModel.parse("none");
+        double throttleRate = 0;
+        double errorRate = 0;
+        int quotaPerMinute = 0;
+        int intradayBars = 21 * 78;
+        int dailyBars = 20 * 252;
+        int weeklyBars = 20 * 52;
+        int monthlyBars = 20 * 12;
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Opción inválida: " + arg);
+            }
+            String name = arg.substring(2, equals);
+            String value = arg.substring(equals + 1).trim();
+            switch (name) {
+                case "port" -> port = Integer.parseInt(value);
+                case "latency" -> latency = LatencyModel.parse(value);
+                case "throttle-rate" -> throttleRate = fraction(name, value);
+                case "error-rate" -> errorRate = fraction(name, value);
+                case "quota-per-minute" -> quotaPerMinute = Integer.parseInt(value);
+                case "intraday-bars" -> intradayBars = bars(name, value);
+                case "daily-bars" -> dailyBars = bars(name, value);
+                case "weekly-bars" -> weeklyBars = bars(name, value);
+                case "monthly-bars" -> monthlyBars = bars(name, value);
+                default -> throw new IllegalArgumentException("Opción desconocida: --" + name);
+            }
+        }
+        return new StubOptions(port, latency, throttleRate, errorRate, quotaPerMinute,
+            intradayBars, dailyBars, weeklyBars, monthlyBars);
+    }
+
+    private static double fraction(String name, String value) {
+        double fraction = Double.parseDouble(value);
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("--" + name + " debe estar entre 0 y 1");
+        }
+        return fraction;
+    }
+
+    private static int bars(String name, String value) {
+        int bars = Integer.parseInt(value);
+        if (bars < 1) {
+            throw new IllegalArgumentException("--" + name + " debe ser al menos 1");
+        }
+        return bars;
+    }
+}
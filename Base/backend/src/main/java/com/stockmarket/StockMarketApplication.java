@@ -2,6 +2,7 @@ package com.stockmarket;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Clase principal de la aplicación Spring Boot
@@ -15,6 +16,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * - @EnableAutoConfiguration: Configura Spring automáticamente
  * - @ComponentScan: Escanea paquetes buscando componentes
  * 
+ * @EnableScheduling activa las tareas periódicas (@Scheduled),
+ * por ejemplo el snapshot del cache (CacheSnapshotter)
+ * 
  * ============================================
  * MODIFICAR SI:
  * - Te piden cambiar el nombre del paquete base
@@ -22,6 +26,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * ============================================
  */
 @SpringBootApplication
+@EnableScheduling
 public class StockMarketApplication {
     
     /**
@@ -0,0 +1,285 @@
+package com.stockmarket.accesslog;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log de accesos al cache: asíncrono, muestreado y estructurado (una línea JSON por evento)
+ *
+ * Ejemplo de línea:
+ * {"ts":"2024-06-14T15:30:00.123Z","key":"DAILY_IBM","result":"HIT","latencyMicros":4,"bytes":18234}
+ *
+ * CONCEPTOS APLICADOS:
+ * - Ring buffer sin locks (cola acotada MPSC de Vyukov): Cada hilo de petición reserva
+ *   una posición con un CAS y copia los campos en arreglos preasignados; no hay
+ *   synchronized, ni String nuevos, ni objetos por evento
+ * - Escritor en segundo plano: Un solo hilo (access-log-writer) arma el JSON y escribe
+ *   a disco; la petición nunca espera al disco
+ * - Nunca bloquear: Si el buffer está lleno (disco lento) el evento se descarta y se
+ *   cuenta en dropped(); perder una línea de log es mejor que frenar una respuesta
+ * - Muestreo: Solo se registra una fracción de los HIT (access-log.sample-rate);
+ *   STALE, MISS, ERROR y FALLBACK son raros y caros, se registran siempre
+ *
+ * CICLO DE VIDA:
+ * - Publicación: el productor escribe los campos y luego la secuencia del slot
+ *   (escritura volatile); el escritor lee la secuencia y luego los campos
+ * - Al apagar se vacía el buffer y se cierra el archivo
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden más campos (agrega un arreglo paralelo y escríbelo en appendJson)
+ * - Necesitas registrar todos los HIT (access-log.sample-rate=1.0)
+ * ============================================
+ */
+@Component
+public class AccessLog {
+
+    /**
+     * Resultado de la consulta al cache (ERROR = MISS cuya llamada a la API falló;
+     * FALLBACK = falló, pero se respondió la última versión guardada)
+     */
+    public enum Result { HIT, STALE, MISS, ERROR, FALLBACK }
+
+    private static final Result[] RESULTS = Result.values();
+
+    /** Pausa del escritor cuando el buffer está vacío */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final int mask;
+
+    // Slots del ring buffer (arreglos paralelos, un evento por índice)
+    private final AtomicLongArray sequences;
+    private final String[] keys;
+    private final byte[] results;
+    private final long[] timestamps;
+    private final long[] latencies;
+    private final int[] sizes;
+
+    /** Próxima posición a reservar por los productores */
+    private final AtomicLong tail = new AtomicLong();
+    /** Próxima posición a leer (solo la toca el escritor) */
+    private long head;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private final Writer out;
+    /** true si se escribe en un archivo (la consola no se cierra al apagar) */
+    private final boolean toFile;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    /**
+     * @param enabled Si es false no se registra nada (access-log.enabled)
+     * @param sampleRate Fracción de HIT registrados, entre 0 y 1 (access-log.sample-rate)
+     * @param capacity Eventos en espera; se redondea a potencia de 2 (access-log.buffer-size)
+     * @param path Archivo de salida (se agrega al final); vacío = consola (access-log.path)
+     */
+    public AccessLog(
+            @Value("${access-log.enabled:true}") boolean enabled,
+            @Value("${access-log.sample-rate:0.1}") double sampleRate,
+            @Value("${access-log.buffer-size:8192}") int capacity,
+            @Value("${access-log.path:}") String path) {
+        this.enabled = enabled;
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.keys = new String[size];
+        this.results = new byte[size];
+        this.timestamps = new long[size];
+        this.latencies = new long[size];
+        this.sizes = new int[size];
+
+        this.toFile = path != null && !path.isBlank();
+        this.out = enabled ? openWriter(toFile ? path : null) : null;
+        this.writerThread = new Thread(this::runWriter, "access-log-writer");
+        writerThread.setDaemon(true);
+        if (enabled) {
+            writerThread.start();
+        }
+    }
+
+    /**
+     * Registra una consulta (no bloquea ni asigna memoria)
+     *
+     * @param key Clave de cache (ej: "DAILY_IBM")
+     * @param result Resultado de la consulta
+     * @param latencyNanos Tiempo hasta tener la respuesta
+     * @param bytes Tamaño del JSON respondido
+     */
+    public void record(String key, Result result, long latencyNanos, int bytes) {
+        if (!enabled) {
+            return;
+        }
+        if (result == Result.HIT && sampleRate < 1
+                && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // El escritor todavía no liberó este slot: buffer lleno
+                dropped.increment();
+                return;
+            } else {
+                position = tail.get();
+            }
+        }
+
+        keys[index] = key;
+        results[index] = (byte) result.ordinal();
+        timestamps[index] = System.currentTimeMillis();
+        latencies[index] = latencyNanos;
+        sizes[index] = bytes;
+        sequences.set(index, position + 1);  // Publica el evento al escritor
+    }
+
+    /**
+     * @return Eventos escritos desde el arranque
+     */
+    public long written() {
+        return written.sum();
+    }
+
+    /**
+     * @return Eventos descartados por buffer lleno desde el arranque
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ============================================
+    // Hilo escritor
+    // ============================================
+
+    private void runWriter() {
+        StringBuilder line = new StringBuilder(256);
+        while (running) {
+            if (drain(line) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        drain(line);
+        try {
+            if (toFile) {
+                out.close();
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ No se pudo cerrar el access log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe todos los eventos publicados y hace flush
+     *
+     * @return Eventos escritos
+     */
+    private int drain(StringBuilder line) {
+        int count = 0;
+        try {
+            while (true) {
+                int index = (int) (head & mask);
+                if (sequences.get(index) != head + 1) {
+                    break;
+                }
+                line.setLength(0);
+                appendJson(line, index);
+                keys[index] = null;
+                sequences.set(index, head + mask + 1);  // Libera el slot para la siguiente vuelta
+                head++;
+                out.append(line);
+                count++;
+            }
+            if (count > 0) {
+                out.flush();
+                written.add(count);
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ Error escribiendo el access log: " + e.getMessage());
+        }
+        return count;
+    }
+
+    private void appendJson(StringBuilder line, int index) {
+        line.append("{\"ts\":\"").append(Instant.ofEpochMilli(timestamps[index]))
+            .append("\",\"key\":\"");
+        appendEscaped(line, keys[index]);
+        line.append("\",\"result\":\"").append(RESULTS[results[index]])
+            .append("\",\"latencyMicros\":").append(TimeUnit.NANOSECONDS.toMicros(latencies[index]))
+            .append(",\"bytes\":").append(sizes[index])
+            .append("}\n");
+    }
+
+    /**
+     * La clave incluye el símbolo tal como llegó en la URL: se escapan comillas y barras
+     */
+    private static void appendEscaped(StringBuilder line, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\');
+            } else if (c < 0x20) {
+                continue;
+            }
+            line.append(c);
+        }
+    }
+
+    private static Writer openWriter(String path) {
+        try {
+            if (path == null) {
+                return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024);
+            }
+            return Files.newBufferedWriter(Path.of(path), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo abrir el access log: " + path, e);
+        }
+    }
+}
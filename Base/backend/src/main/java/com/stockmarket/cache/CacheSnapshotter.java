@@ -0,0 +1,274 @@
+package com.stockmarket.cache;
+
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.TimeSeries;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Guarda el contenido del cache en disco y lo restaura al arrancar
+ *
+ * CONCEPTOS APLICADOS:
+ * - Reinicio en caliente: Tras un despliegue el servicio arranca con el cache lleno,
+ *   sin volver a gastar la cuota de Alpha Vantage (5 peticiones/minuto en plan gratis)
+ * - Formato binario compacto: Las columnas de cada TimeSeries se escriben tal cual
+ *   (long/double de 8 bytes), sin convertir a texto
+ * - Memory-mapped I/O: Al arrancar el archivo se mapea en memoria y los arreglos
+ *   se copian en bloque (LongBuffer/DoubleBuffer), sin parsear
+ * - También se guarda la respuesta ya comprimida (gzip + ETag): restaurar no
+ *   necesita volver a generar ni comprimir el JSON
+ * - Escritura atómica: Se escribe a un archivo temporal y luego se renombra, así
+ *   un corte a mitad de escritura nunca deja un snapshot corrupto
+ *
+ * CUÁNDO SE GUARDA:
+ * - Periódicamente (cache.snapshot.interval)
+ * - Al apagar la aplicación (@PreDestroy)
+ *
+ * FORMATO DEL ARCHIVO (big-endian):
+ * [MAGIC int][VERSION int]
+ * por cada entrada: [1 byte][clave][expira epoch-millis long][nombre serie][intradía byte][proveedor]
+ *                   [n meta int][(clave, valor) x n][n barras int][times][open][high][low][close][volume]
+ *                   [ETag][largo JSON int][largo gzip int][bytes gzip]
+ * [0 byte] = fin
+ * Textos: [largo int][bytes UTF-8] (proveedor vacío = desconocido)
+ *
+ * TTL: Se guarda el momento de expiración absoluto en hora de pared (epoch-millis).
+ * También se guardan las entradas ya expiradas que el cache conserva (ventana stale
+ * y respaldo, cache.fallback-retention): tras un reinicio con la API caída siguen
+ * sirviéndose como desactualizadas. Al restaurar cada una vuelve con su expiración
+ * original (vigente, stale o de respaldo); las que pasaron su respaldo se descartan
+ */
+@Component
+public class CacheSnapshotter {
+
+    /** "SCS1": identifica el archivo como snapshot del cache */
+    private static final int MAGIC = 0x53435331;
+    private static final int VERSION = 3;
+
+    private final ConcurrentCache cache;
+    private final boolean enabled;
+    private final Path path;
+
+    /**
+     * @param cache Cache a guardar/restaurar
+     * @param enabled Activa los snapshots (cache.snapshot.enabled)
+     * @param path Archivo del snapshot (cache.snapshot.path)
+     */
+    public CacheSnapshotter(
+            ConcurrentCache cache,
+            @Value("${cache.snapshot.enabled:true}") boolean enabled,
+            @Value("${cache.snapshot.path:cache-snapshot.bin}") Path path) {
+        this.cache = cache;
+        this.enabled = enabled;
+        this.path = path;
+    }
+
+    /**
+     * Restaura el snapshot al arrancar
+     *
+     * NOTA: @PostConstruct se ejecuta antes de que Tomcat acepte peticiones,
+     * así la primera petición ya encuentra el cache lleno
+     */
+    @PostConstruct
+    public void restore() {
+        if (!enabled || !Files.isRegularFile(path)) {
+            return;
+        }
+        long start = System.nanoTime();
+        int restored = 0;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                System.out.println("⚠️ Snapshot ignorado (formato desconocido): " + path);
+                return;
+            }
+
+            while (buffer.get() == 1) {
+                String key = readString(buffer);
+                long expiresAtMillis = buffer.getLong();
+                TimeSeries series = readSeries(buffer);
+                EncodedResponse encoded = readEncoded(buffer);
+                if (cache.restore(key, series, encoded, Instant.ofEpochMilli(expiresAtMillis))) {
+                    restored++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Snapshot truncado o ilegible: se conserva lo restaurado hasta ese punto
+            System.out.println("⚠️ Snapshot incompleto (" + e + "): " + path);
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("♻️ Cache restaurado: " + restored + " entradas en " + millis + "ms");
+    }
+
+    /**
+     * Guarda el snapshot periódicamente
+     *
+     * NOTA: El intervalo usa formato ISO-8601 (PT5M = 5 minutos)
+     */
+    @Scheduled(
+        initialDelayString = "${cache.snapshot.interval:PT5M}",
+        fixedDelayString = "${cache.snapshot.interval:PT5M}")
+    public void scheduledSnapshot() {
+        snapshot();
+    }
+
+    /**
+     * Guarda el snapshot al apagar la aplicación
+     */
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    /**
+     * Escribe todas las entradas que conserva el cache (vigentes, stale o de respaldo) en el archivo de snapshot
+     *
+     * - synchronized: el guardado periódico y el del apagado no se pisan
+     */
+    public synchronized void snapshot() {
+        if (!enabled) {
+            return;
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        int[] written = {0};
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            IOException[] failure = {null};
+            cache.forEachEntry((key, series, encoded, expiresAt) -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    out.writeByte(1);
+                    writeString(out, key);
+                    out.writeLong(expiresAt.toEpochMilli());
+                    writeSeries(out, series);
+                    writeEncoded(out, encoded);
+                    written[0]++;
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            out.writeByte(0);
+        } catch (IOException e) {
+            System.out.println("❌ No se pudo guardar el snapshot del cache: " + e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("💾 Snapshot del cache guardado: " + written[0] + " entradas");
+        } catch (IOException e) {
+            System.out.println("❌ No se pudo guardar el snapshot del cache: " + e.getMessage());
+        }
+    }
+
+    private static void writeSeries(DataOutputStream out, TimeSeries series) throws IOException {
+        writeString(out, series.seriesName());
+        out.writeByte(series.isIntraday() ? 1 : 0);
+        writeString(out, series.source() == null ? "" : series.source());
+        out.writeInt(series.metaSize());
+        for (int i = 0; i < series.metaSize(); i++) {
+            writeString(out, series.metaKey(i));
+            writeString(out, series.metaValue(i));
+        }
+        int size = series.size();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) out.writeLong(series.time(i));
+        for (int i = 0; i < size; i++) out.writeDouble(series.open(i));
+        for (int i = 0; i < size; i++) out.writeDouble(series.high(i));
+        for (int i = 0; i < size; i++) out.writeDouble(series.low(i));
+        for (int i = 0; i < size; i++) out.writeDouble(series.close(i));
+        for (int i = 0; i < size; i++) out.writeLong(series.volume(i));
+    }
+
+    private static void writeEncoded(DataOutputStream out, EncodedResponse encoded) throws IOException {
+        writeString(out, encoded.etag());
+        out.writeInt(encoded.identityLength());
+        out.writeInt(encoded.gzipBytes().length);
+        out.write(encoded.gzipBytes());
+    }
+
+    private static EncodedResponse readEncoded(MappedByteBuffer buffer) {
+        String etag = readString(buffer);
+        int identityLength = buffer.getInt();
+        byte[] gzip = new byte[buffer.getInt()];
+        buffer.get(gzip);
+        return EncodedResponse.of(gzip, etag, identityLength);
+    }
+
+    /**
+     * Lee una serie copiando cada columna en bloque desde el archivo mapeado
+     */
+    private static TimeSeries readSeries(MappedByteBuffer buffer) {
+        String seriesName = readString(buffer);
+        boolean intraday = buffer.get() == 1;
+        String source = readString(buffer);
+        int metaSize = buffer.getInt();
+        String[] metaKeys = new String[metaSize];
+        String[] metaValues = new String[metaSize];
+        for (int i = 0; i < metaSize; i++) {
+            metaKeys[i] = readString(buffer);
+            metaValues[i] = readString(buffer);
+        }
+        int size = buffer.getInt();
+        long[] times = readLongs(buffer, size);
+        double[] open = readDoubles(buffer, size);
+        double[] high = readDoubles(buffer, size);
+        double[] low = readDoubles(buffer, size);
+        double[] close = readDoubles(buffer, size);
+        long[] volume = readLongs(buffer, size);
+        return TimeSeries.fromColumns(metaKeys, metaValues, seriesName, intraday,
+            times, open, high, low, close, volume).withSource(source.isEmpty() ? null : source);
+    }
+
+    private static long[] readLongs(MappedByteBuffer buffer, int size) {
+        long[] values = new long[size];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + size * Long.BYTES);
+        return values;
+    }
+
+    private static double[] readDoubles(MappedByteBuffer buffer, int size) {
+        double[] values = new double[size];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + size * Double.BYTES);
+        return values;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
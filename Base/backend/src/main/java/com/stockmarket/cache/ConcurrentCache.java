@@ -1,117 +1,605 @@
 package com.stockmarket.cache;
 
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.TimeSeries;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Cache thread-safe para almacenar respuestas de APIs externas
- * 
+ * Cache thread-safe para almacenar las series de tiempo de APIs externas
+ *
  * CONCEPTOS APLICADOS:
  * - Concurrencia: Usa ConcurrentHashMap para acceso seguro desde múltiples hilos
- * - Genéricos: ConcurrentHashMap<String, String> garantiza tipo seguro
+ * - Genéricos: ConcurrentHashMap<String, CacheEntry> garantiza tipo seguro
+ * - Formato compacto: Guarda TimeSeries (arreglos primitivos), no el JSON original
+ * - Respuesta pre-codificada: Junto a la serie guarda su JSON ya comprimido
+ *   con gzip y su ETag (EncodedResponse), listo para escribirse en el socket
  * - Inmutabilidad: El campo cache es final (no puede reasignarse)
  * - Patrón Cache: Evita operaciones costosas repetidas
- * 
+ * - Expiración (TTL): Cada intervalo tiene su propio tiempo de vida
+ * - Cache acotado: El total de bytes almacenados no supera un máximo
+ * - Desalojo por frecuencia (TinyLFU): Cuando falta espacio se elimina la
+ *   entrada menos usada, y una clave nueva solo entra si es más popular
+ *   que la que tendría que salir
+ * - Stale-while-revalidate: Una entrada expirada se conserva un tiempo más
+ *   (cache.stale-while-revalidate) para responder al instante mientras se refresca
+ * - Respaldo ante fallas: Pasada la ventana stale, la entrada se conserva todavía
+ *   cache.fallback-retention (no se sirve como HIT, pero lastKnown() la retorna)
+ *   para responder algo si la API falla; bajo presión de memoria es lo primero que sale
+ *
  * ¿POR QUÉ ConcurrentHashMap Y NO HashMap?
  * - HashMap NO es thread-safe (puede corromperse con múltiples hilos)
  * - ConcurrentHashMap permite lecturas concurrentes sin bloqueo
  * - Escrituras usan lock granular (solo bloquea segmento afectado)
- * 
+ *
+ * CAMINO CALIENTE:
+ * - get() nunca toma locks: lectura del mapa + incremento del FrequencySketch
+ * - Solo put() con el cache lleno sincroniza (para elegir a quién desalojar)
+ *
  * ============================================
  * MODIFICAR SI:
- * - Te piden implementar expiración de cache (TTL)
+ * - Te piden cambiar los TTL o el tamaño máximo (application.properties)
  * - Necesitas cache con tipos diferentes (usa genéricos)
- * - Te piden estadísticas (hits/misses)
+ * - Agregas un intervalo nuevo (agrégalo a INTERVALS para sus estadísticas)
  * ============================================
  */
 @Component  // Spring gestiona esta clase como un bean singleton
 public class ConcurrentCache {
-    
+
     /**
      * Almacenamiento interno del cache
      * - final: No puede reasignarse (inmutabilidad)
      * - ConcurrentHashMap: Thread-safe para múltiples hilos
-     * - <String, String>: Genéricos para tipo seguro
+     * - <String, CacheEntry>: Valor + peso + momento de expiración
+     */
+    private final ConcurrentHashMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+
+    /** Frecuencia de acceso aproximada por clave (incluye claves que no están en cache) */
+    private final FrequencySketch sketch;
+
+    /** Suma de los pesos (bytes) de todas las entradas */
+    private final AtomicLong totalWeight = new AtomicLong();
+
+    /** Peso máximo permitido (bytes) */
+    private final long maxWeightBytes;
+
+    /** TTL por prefijo de clave: "INTRADAY" → 5 minutos, "MONTHLY" → 1 día... */
+    private final Map<String, Long> ttlNanosByInterval;
+
+    /** Tiempo que una entrada expirada todavía puede servirse (mientras se refresca) */
+    private final long staleNanos;
+
+    /** Tiempo tras expirar en que una entrada se conserva (ventana stale + respaldo) */
+    private final long retainNanos;
+
+    /** Serializa el desalojo (solo se usa en put() con el cache lleno) */
+    private final Object evictionLock = new Object();
+
+    /** Prefijos de clave con estadísticas propias; el resto se cuenta como "OTHER" */
+    public static final List<String> INTERVALS = List.of("INTRADAY", "DAILY", "WEEKLY", "MONTHLY");
+
+    /**
+     * Contadores por intervalo y estadística: [intervalo][Statistic.ordinal()]
+     * - LongAdder: incrementar no asigna memoria ni compite entre hilos
+     *   (cada hilo suma en su propia celda; sum() las junta al leer)
+     */
+    private final LongAdder[][] statistics = new LongAdder[INTERVALS.size() + 1][Statistic.values().length];
+
+    /**
+     * Constructor con valores desde application.properties
+     *
+     * @param maxWeightBytes Máximo de bytes almacenados (cache.max-weight-bytes)
+     * @param intradayTtl TTL de datos intradiarios (cache.ttl.intraday)
+     * @param dailyTtl TTL de datos diarios (cache.ttl.daily)
+     * @param weeklyTtl TTL de datos semanales (cache.ttl.weekly)
+     * @param monthlyTtl TTL de datos mensuales (cache.ttl.monthly)
+     * @param staleWindow Tiempo extra en que una entrada expirada aún se sirve (cache.stale-while-revalidate)
+     * @param fallbackRetention Tiempo extra, tras la ventana stale, en que se conserva como respaldo (cache.fallback-retention)
      */
-    private final ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
-    
+    public ConcurrentCache(
+            @Value("${cache.max-weight-bytes:67108864}") long maxWeightBytes,
+            @Value("${cache.ttl.intraday:5m}") Duration intradayTtl,
+            @Value("${cache.ttl.daily:1h}") Duration dailyTtl,
+            @Value("${cache.ttl.weekly:12h}") Duration weeklyTtl,
+            @Value("${cache.ttl.monthly:1d}") Duration monthlyTtl,
+            @Value("${cache.stale-while-revalidate:30m}") Duration staleWindow,
+            @Value("${cache.fallback-retention:24h}") Duration fallbackRetention) {
+        this.maxWeightBytes = maxWeightBytes;
+        this.staleNanos = staleWindow.toNanos();
+        this.retainNanos = staleNanos + fallbackRetention.toNanos();
+        this.ttlNanosByInterval = Map.of(
+            "INTRADAY", intradayTtl.toNanos(),
+            "DAILY", dailyTtl.toNanos(),
+            "WEEKLY", weeklyTtl.toNanos(),
+            "MONTHLY", monthlyTtl.toNanos());
+        // Se asume una respuesta típica de ~16KB para dimensionar el sketch
+        int expectedEntries = (int) Math.min(1 << 20, Math.max(256, maxWeightBytes / 16_384));
+        this.sketch = new FrequencySketch(expectedEntries);
+        for (LongAdder[] byStatistic : statistics) {
+            for (int i = 0; i < byStatistic.length; i++) {
+                byStatistic[i] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * Eventos que se cuentan por intervalo
+     */
+    public enum Statistic {
+        /** Entrada vigente encontrada */
+        HIT,
+        /** Entrada expirada servida dentro de la ventana stale */
+        STALE_HIT,
+        /** Clave ausente o expirada */
+        MISS,
+        /** Entrada desalojada por falta de espacio (o clave nueva no admitida) */
+        EVICTION,
+        /** Entrada expirada eliminada (al terminar su tiempo de respaldo, o antes por falta de espacio) */
+        EXPIRATION
+    }
+
+    /**
+     * Total acumulado de una estadística
+     *
+     * @param interval Prefijo de clave (ej: "DAILY", ver INTERVALS) u "OTHER"
+     * @param statistic Estadística
+     * @return Eventos contados desde el arranque
+     */
+    public long statistic(String interval, Statistic statistic) {
+        int slot = INTERVALS.indexOf(interval);
+        return statistics[slot < 0 ? INTERVALS.size() : slot][statistic.ordinal()].sum();
+    }
+
+    private void count(String key, Statistic statistic) {
+        statistics[intervalSlot(key)][statistic.ordinal()].increment();
+    }
+
+    /**
+     * Posición del intervalo de una clave ("DAILY_IBM" → 1) sin crear substrings
+     */
+    private static int intervalSlot(String key) {
+        for (int i = 0; i < INTERVALS.size(); i++) {
+            String interval = INTERVALS.get(i);
+            if (key.startsWith(interval) && key.length() > interval.length() && key.charAt(interval.length()) == '_') {
+                return i;
+            }
+        }
+        return INTERVALS.size();
+    }
+
     /**
      * Obtiene un valor del cache
-     * 
+     *
+     * NOTA: Sin locks. Las entradas expiradas se eliminan aquí mismo (de forma perezosa)
+     *
      * @param key Clave de búsqueda (ej: "DAILY_IBM")
-     * @return Valor almacenado o null si no existe
+     * @return Serie almacenada o null si no existe o expiró
+     */
+    public TimeSeries get(String key) {
+        CacheEntry entry = getEntry(key, false);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Obtiene la respuesta ya codificada (gzip + ETag) de una clave
+     *
+     * NOTA: Sin locks, igual que get()
+     *
+     * @param key Clave de búsqueda (ej: "DAILY_IBM")
+     * @return Respuesta codificada o null si no existe o expiró
+     */
+    public EncodedResponse getEncoded(String key) {
+        CacheEntry entry = getEntry(key, false);
+        return entry != null ? entry.encoded : null;
+    }
+
+    /**
+     * Obtiene la respuesta codificada aunque haya expirado (stale-while-revalidate)
+     *
+     * NOTA: Sin locks, igual que get(). Quien recibe una respuesta "stale"
+     * debe responder con ella y lanzar el refresco en segundo plano
+     *
+     * @param key Clave de búsqueda (ej: "DAILY_IBM")
+     * @return Respuesta + si está expirada, o null si no existe o pasó la ventana stale
+     */
+    public Lookup lookup(String key) {
+        CacheEntry entry = getEntry(key, true);
+        return entry != null ? toLookup(entry) : null;
+    }
+
+    /**
+     * Consulta una entrada (vigente o stale) SIN contarla como acceso
+     *
+     * NOTA: Para uso interno del servicio (ej: tomar la serie actual como base
+     * de un refresco incremental); no altera la frecuencia de TinyLFU
+     *
+     * @param key Clave de búsqueda (ej: "DAILY_IBM")
+     * @return Serie + respuesta + si está expirada, o null si no existe o pasó la ventana stale
+     */
+    public Lookup peek(String key) {
+        CacheEntry entry = cache.get(key);
+        if (entry == null || System.nanoTime() - entry.expiresAtNanos - staleNanos > 0) {
+            return null;
+        }
+        return toLookup(entry);
+    }
+
+    /**
+     * Última versión guardada de una clave, aunque ya haya pasado su ventana stale
+     *
+     * NOTA: Respaldo para cuando la API falla (el servicio la responde marcada
+     * como desactualizada). No cuenta como acceso, igual que peek()
+     *
+     * @param key Clave de búsqueda (ej: "DAILY_IBM")
+     * @return Serie + respuesta + tiempo expirada, o null si no se conserva nada
+     */
+    public Lookup lastKnown(String key) {
+        CacheEntry entry = cache.get(key);
+        if (entry == null || System.nanoTime() - entry.expiresAtNanos - retainNanos > 0) {
+            return null;
+        }
+        return toLookup(entry);
+    }
+
+    private static Lookup toLookup(CacheEntry entry) {
+        return new Lookup(entry.value, entry.encoded, Math.max(0, System.nanoTime() - entry.expiresAtNanos));
+    }
+
+    /**
+     * Resultado de lookup(), peek() y lastKnown()
+     *
+     * @param value Serie almacenada
+     * @param encoded Respuesta codificada
+     * @param expiredNanos Tiempo desde que pasó su TTL (0 si sigue vigente)
+     */
+    public record Lookup(TimeSeries value, EncodedResponse encoded, long expiredNanos) {
+
+        /**
+         * @return true si ya pasó su TTL (hay que refrescarla)
+         */
+        public boolean stale() {
+            return expiredNanos > 0;
+        }
+    }
+
+    private CacheEntry getEntry(String key, boolean allowStale) {
+        sketch.increment(key);  // Cuenta también los MISS: así TinyLFU conoce claves nuevas
+        CacheEntry entry = cache.get(key);
+        if (entry == null) {
+            count(key, Statistic.MISS);
+            return null;
+        }
+        long now = System.nanoTime();
+        if (entry.isExpired(now)) {
+            // Fuera de la ventana stale es un MISS; se elimina (de forma perezosa)
+            // recién al terminar también el tiempo de respaldo
+            if (now - entry.expiresAtNanos - staleNanos > 0) {
+                if (now - entry.expiresAtNanos - retainNanos > 0 && removeEntry(key, entry)) {
+                    count(key, Statistic.EXPIRATION);
+                }
+                count(key, Statistic.MISS);
+                return null;
+            }
+            count(key, allowStale ? Statistic.STALE_HIT : Statistic.MISS);
+            return allowStale ? entry : null;
+        }
+        count(key, Statistic.HIT);
+        return entry;
+    }
+
+    /**
+     * Frecuencia de acceso estimada de una clave (0-15, se reduce a la mitad periódicamente)
+     *
+     * @param key Clave (ej: "DAILY_IBM")
+     * @return Frecuencia aproximada según el FrequencySketch
+     */
+    public int frequency(String key) {
+        return sketch.frequency(key);
+    }
+
+    /**
+     * Claves populares a punto de expirar (o ya en ventana stale): candidatas a refresh-ahead
+     *
+     * @param refreshRatio Fracción del TTL a partir de la cual se refresca (ej: 0.8 = al 80%)
+     * @param minFrequency Frecuencia mínima para considerar "popular" una clave
+     * @return Claves ordenadas de la más a la menos popular
+     */
+    public List<String> hotKeysNearExpiry(double refreshRatio, int minFrequency) {
+        long now = System.nanoTime();
+        List<HotKey> candidates = new ArrayList<>();
+        cache.forEach((key, entry) -> {
+            long refreshAt = entry.expiresAtNanos - (long) (entry.ttlNanos * (1 - refreshRatio));
+            if (now - refreshAt >= 0) {
+                // La frecuencia se lee una sola vez: el sketch cambia mientras se ordena
+                int frequency = sketch.frequency(key);
+                if (frequency >= minFrequency) {
+                    candidates.add(new HotKey(key, frequency));
+                }
+            }
+        });
+        candidates.sort((a, b) -> Integer.compare(b.frequency, a.frequency));
+        List<String> keys = new ArrayList<>(candidates.size());
+        candidates.forEach(candidate -> keys.add(candidate.key));
+        return keys;
+    }
+
+    /**
+     * Claves más pedidas entre las que conserva el cache (vigentes, stale o de respaldo)
+     *
+     * NOTA: Usa la misma frecuencia que TinyLFU (FrequencySketch, se reduce a la mitad
+     * periódicamente): refleja la popularidad reciente, no la histórica. Recorre el mapa
+     * (O(n log n)); pensado para tareas periódicas, no para el camino de una petición
+     *
+     * @param limit Máximo de claves
+     * @return Claves con su frecuencia, de la más a la menos popular (frecuencia >= 1)
      */
-    public String get(String key) {
-        return cache.get(key);
+    public List<HotKey> popularKeys(int limit) {
+        List<HotKey> candidates = new ArrayList<>();
+        cache.forEach((key, entry) -> {
+            int frequency = sketch.frequency(key);
+            if (frequency > 0) {
+                candidates.add(new HotKey(key, frequency));
+            }
+        });
+        candidates.sort((a, b) -> Integer.compare(b.frequency, a.frequency));
+        return candidates.size() > limit ? List.copyOf(candidates.subList(0, limit)) : candidates;
     }
-    
+
     /**
      * Almacena un valor en el cache
-     * 
+     *
      * NOTA: Este método es thread-safe gracias a ConcurrentHashMap
-     * Múltiples hilos pueden llamarlo simultáneamente sin problemas
-     * 
+     * Si el cache supera el peso máximo se desalojan entradas (ver evictIfNeeded)
+     *
+     * @param key Clave (ej: "DAILY_IBM")
+     * @param value Serie a almacenar (ya parseada desde el JSON de la API)
+     * @param encoded JSON de la serie ya codificado (gzip + ETag)
+     */
+    public void put(String key, TimeSeries value, EncodedResponse encoded) {
+        put(key, value, encoded, ttlNanosFor(key));
+    }
+
+    /**
+     * Almacena un valor con un TTL explícito (ej: la réplica corta de una
+     * clave caliente recibida de otro nodo)
+     *
      * @param key Clave (ej: "DAILY_IBM")
-     * @param value Valor a almacenar (JSON de la API)
+     * @param value Serie a almacenar
+     * @param encoded JSON de la serie ya codificado (gzip + ETag)
+     * @param ttl Tiempo de vida
      */
-    public void put(String key, String value) {
-        cache.put(key, value);
+    public void put(String key, TimeSeries value, EncodedResponse encoded, Duration ttl) {
+        put(key, value, encoded, ttl.toNanos());
     }
-    
+
+    private void put(String key, TimeSeries value, EncodedResponse encoded, long ttlNanos) {
+        put(new CacheEntry(key, value, encoded, ttlNanos, System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * Restaura una entrada con su momento de expiración original (ej: desde un snapshot)
+     *
+     * NOTA: Si ya expiró entra como stale o de respaldo, igual que si nunca se
+     * hubiera reiniciado el servicio; conserva el TTL completo de su intervalo
+     * para que el refresh-ahead la siga tratando como cualquier otra
+     *
+     * @param key Clave (ej: "DAILY_IBM")
+     * @param value Serie a almacenar
+     * @param encoded JSON de la serie ya codificado (gzip + ETag)
+     * @param expiresAt Momento de expiración en hora de pared
+     * @return false si ya pasó también su tiempo de respaldo (no se guarda)
+     */
+    public boolean restore(String key, TimeSeries value, EncodedResponse encoded, Instant expiresAt) {
+        long now = System.nanoTime();
+        long remainingNanos = (expiresAt.toEpochMilli() - System.currentTimeMillis()) * 1_000_000;
+        if (-remainingNanos - retainNanos > 0) {
+            return false;
+        }
+        put(new CacheEntry(key, value, encoded, ttlNanosFor(key), now + remainingNanos));
+        return true;
+    }
+
+    private void put(CacheEntry entry) {
+        String key = entry.key;
+        if (entry.weight > maxWeightBytes) {
+            return;  // Nunca cabría: no vale la pena vaciar el cache por ella
+        }
+        CacheEntry previous = cache.put(key, entry);
+        totalWeight.addAndGet(entry.weight - (previous == null ? 0 : previous.weight));
+
+        if (totalWeight.get() > maxWeightBytes) {
+            evictIfNeeded(key, entry, previous != null);
+        }
+    }
+
     /**
-     * Verifica si existe una clave en el cache
-     * 
+     * Verifica si existe una clave (no expirada) en el cache
+     *
      * @param key Clave a verificar
      * @return true si existe, false en caso contrario
      */
     public boolean containsKey(String key) {
-        return cache.containsKey(key);
+        CacheEntry entry = cache.get(key);
+        return entry != null && !entry.isExpired(System.nanoTime());
     }
-    
+
     /**
      * Limpia todo el cache
-     * 
-     * ============================================
-     * MODIFICAR SI:
-     * Te piden agregar funcionalidad para limpiar cache
-     * ============================================
      */
     public void clear() {
-        cache.clear();
+        synchronized (evictionLock) {
+            cache.forEach(this::removeEntry);
+        }
     }
-    
+
     /**
      * Obtiene el tamaño del cache
-     * 
+     *
      * @return Número de entradas en el cache
      */
     public int size() {
         return cache.size();
     }
-    
-    /* ============================================
-     * EXTENSIÓN OPCIONAL: Cache con expiración (TTL)
-     * ============================================
-     * 
-     * Si te piden implementar expiración:
-     * 
-     * 1. Cambiar a: ConcurrentHashMap<String, CacheEntry>
-     * 2. Crear clase interna:
-     * 
-     * private static class CacheEntry {
-     *     final String value;
-     *     final long timestamp;
-     *     
-     *     CacheEntry(String value) {
-     *         this.value = value;
-     *         this.timestamp = System.currentTimeMillis();
-     *     }
-     *     
-     *     boolean isExpired(long ttlMillis) {
-     *         return System.currentTimeMillis() - timestamp > ttlMillis;
-     *     }
-     * }
-     * 
-     * 3. Modificar get() para verificar expiración
+
+    /**
+     * Obtiene el peso total del cache
+     *
+     * @return Bytes aproximados ocupados por las entradas
+     */
+    public long weightBytes() {
+        return totalWeight.get();
+    }
+
+    /**
+     * Clave y su frecuencia de acceso estimada (0-15)
+     */
+    public record HotKey(String key, int frequency) {
+    }
+
+    /**
+     * Recorre las entradas que conserva el cache (vigentes, stale o de respaldo)
+     *
+     * NOTA: Sin locks. Las entradas son inmutables, así que el recorrido
+     * ve un estado consistente de cada una aunque haya put() concurrentes
+     *
+     * @param consumer Recibe clave, serie, respuesta codificada y momento de expiración de cada entrada
+     */
+    public void forEachEntry(EntryConsumer consumer) {
+        long now = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        cache.forEach((key, entry) -> {
+            long remainingNanos = entry.expiresAtNanos - now;
+            if (-remainingNanos - retainNanos <= 0) {
+                Instant expiresAt = Instant.ofEpochMilli(nowMillis + remainingNanos / 1_000_000);
+                consumer.accept(key, entry.value, entry.encoded, expiresAt);
+            }
+        });
+    }
+
+    /**
+     * Recibe cada entrada en forEachEntry()
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * @param expiresAt Momento de expiración en hora de pared (en el pasado si es stale o de respaldo)
+         */
+        void accept(String key, TimeSeries value, EncodedResponse encoded, Instant expiresAt);
+    }
+
+    /**
+     * Desaloja entradas hasta volver a estar bajo el peso máximo
+     *
+     * POLÍTICA (estilo TinyLFU):
+     * 1. Primero salen las entradas ya expiradas (en ventana stale o conservadas como respaldo)
+     * 2. Luego la entrada con menor frecuencia estimada (empate → la que expira antes)
+     * 3. Admisión: si la víctima es más popular que la clave recién insertada,
+     *    sale la recién insertada (un escaneo de claves raras no vacía el cache)
+     * 4. Un refresco de una clave que ya estaba en cache se admite siempre:
+     *    la admisión solo filtra claves NUEVAS (si no, refrescar una entrada
+     *    caliente con poca frecuencia reciente la sacaría del cache)
+     *
+     * El recorrido es O(n), pero solo ocurre en put() con el cache lleno,
+     * y put() solo se llama tras una llamada a la API externa (lenta y con cuota)
+     *
+     * @param newKey Clave recién insertada
+     * @param newEntry Entrada recién insertada
+     * @param update true si reemplazó una entrada existente de la misma clave
+     */
+    private void evictIfNeeded(String newKey, CacheEntry newEntry, boolean update) {
+        synchronized (evictionLock) {
+            long now = System.nanoTime();
+            int newFrequency = sketch.frequency(newKey);
+
+            while (totalWeight.get() > maxWeightBytes) {
+                CacheEntry victim = null;
+                int victimFrequency = Integer.MAX_VALUE;
+                for (CacheEntry candidate : cache.values()) {
+                    if (candidate == newEntry) {
+                        continue;
+                    }
+                    if (candidate.isExpired(now)) {
+                        victim = candidate;
+                        break;
+                    }
+                    int frequency = sketch.frequency(candidate.key);
+                    if (frequency < victimFrequency
+                            || (frequency == victimFrequency && candidate.expiresAtNanos < victim.expiresAtNanos)) {
+                        victim = candidate;
+                        victimFrequency = frequency;
+                    }
+                }
+
+                if (victim == null
+                        || (!update && !victim.isExpired(now) && victimFrequency >= newFrequency)) {
+                    // La clave nueva es la menos popular: no se admite
+                    if (removeEntry(newKey, newEntry)) {
+                        count(newKey, Statistic.EVICTION);
+                    }
+                    return;
+                }
+                if (removeEntry(victim.key, victim)) {
+                    count(victim.key, victim.isExpired(now) ? Statistic.EXPIRATION : Statistic.EVICTION);
+                }
+            }
+        }
+    }
+
+    /**
+     * Elimina una entrada solo si sigue siendo la misma (no pisa un put concurrente)
+     *
+     * @return true si se eliminó
+     */
+    private boolean removeEntry(String key, CacheEntry entry) {
+        if (cache.remove(key, entry)) {
+            totalWeight.addAndGet(-entry.weight);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * TTL según el intervalo, tomado del prefijo de la clave ("DAILY_IBM" → "DAILY")
+     */
+    private long ttlNanosFor(String key) {
+        int separator = key.indexOf('_');
+        String interval = separator < 0 ? key : key.substring(0, separator);
+        return ttlNanosByInterval.getOrDefault(interval, ttlNanosByInterval.get("DAILY"));
+    }
+
+    /**
+     * Entrada del cache: serie + respuesta codificada + peso + momento de expiración
+     * - Inmutable: se reemplaza completa en cada put()
      */
+    private static final class CacheEntry {
+        final String key;
+        final TimeSeries value;
+        final EncodedResponse encoded;
+        final long weight;
+        final long ttlNanos;
+        final long expiresAtNanos;
+
+        CacheEntry(String key, TimeSeries value, EncodedResponse encoded, long ttlNanos, long expiresAtNanos) {
+            this.key = key;
+            this.value = value;
+            this.encoded = encoded;
+            // Peso aproximado: arreglos de la serie + gzip + clave (UTF-16) + cabeceras de objetos
+            this.weight = value.weightBytes() + encoded.weightBytes() + 2L * key.length() + 96;
+            this.ttlNanos = ttlNanos;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos > 0;
+        }
+    }
 }
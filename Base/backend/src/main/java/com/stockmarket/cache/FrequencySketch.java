@@ -0,0 +1,109 @@
+package com.stockmarket.cache;
+
+/**
+ * Estimador aproximado de frecuencia de acceso por clave (Count-Min Sketch)
+ *
+ * CONCEPTOS APLICADOS:
+ * - TinyLFU: Recuerda cuántas veces se pidió una clave, incluso si no está en cache
+ * - Memoria constante: Un arreglo de contadores, sin importar cuántas claves existan
+ * - Envejecimiento: Cada cierto número de incrementos todos los contadores se
+ *   dividen entre 2, así las claves que fueron populares hace horas pierden peso
+ *
+ * ¿POR QUÉ SIN LOCKS?
+ * - increment() se llama en cada get() del cache (camino caliente)
+ * - Los contadores se actualizan sin sincronización: si dos hilos incrementan
+ *   a la vez se puede perder un incremento, lo cual es aceptable para una estimación
+ * - Solo el envejecimiento (poco frecuente) usa synchronized
+ */
+final class FrequencySketch {
+
+    /** Valor máximo de cada contador (4 bits, igual que TinyLFU) */
+    private static final int MAX_COUNT = 15;
+
+    /** Semillas para las 4 funciones hash (números impares grandes) */
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private final int[] table;
+    private final int mask;
+
+    /** Número de incrementos tras el cual se envejecen los contadores */
+    private final int sampleSize;
+
+    /** Incrementos desde el último envejecimiento (aproximado, sin sincronizar) */
+    private int additions;
+
+    /**
+     * @param expectedEntries Número aproximado de claves distintas a distinguir
+     */
+    FrequencySketch(int expectedEntries) {
+        // ~16 contadores por clave: con 4 hashes por acceso, cada contador recibe en promedio
+        // ~2.5 incrementos entre envejecimientos y no se satura en 15 (todas las claves empatarían)
+        int size = Integer.highestOneBit(Math.max(64, expectedEntries * 16) - 1) << 1;
+        this.table = new int[size];
+        this.mask = size - 1;
+        // Envejecer cada 10 accesos por clave (muestra W = 10 x entradas, como TinyLFU)
+        this.sampleSize = Math.max(64, expectedEntries) * 10;
+    }
+
+    /**
+     * Registra un acceso a la clave
+     *
+     * @param key Clave accedida
+     */
+    void increment(String key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hash, i);
+            if (table[index] < MAX_COUNT) {
+                table[index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            age();
+        }
+    }
+
+    /**
+     * Estima cuántas veces se accedió a la clave (mínimo de los 4 contadores)
+     *
+     * @param key Clave a consultar
+     * @return Frecuencia estimada entre 0 y 15
+     */
+    int frequency(String key) {
+        int hash = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            min = Math.min(min, table[indexOf(hash, i)]);
+        }
+        return min;
+    }
+
+    /**
+     * Divide todos los contadores entre 2 (las frecuencias antiguas pierden peso)
+     */
+    private synchronized void age() {
+        if (additions < sampleSize) {
+            return;  // Otro hilo ya envejeció la tabla
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] >>>= 1;
+        }
+        additions = 0;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & mask;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        return hash ^ (hash >>> 16);
+    }
+}
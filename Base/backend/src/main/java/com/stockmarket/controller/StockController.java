@@ -1,8 +1,32 @@
 package com.stockmarket.controller;
 
-import com.stockmarket.service.StockService;
+import com.stockmarket.indicator.IndicatorEngine;
+import com.stockmarket.indicator.IndicatorSpec;
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.SeriesResponse;
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.model.TimeSeriesWindow;
+import com.stockmarket.service.Interval;
+import com.stockmarket.service.ReactiveStockService;
+import com.stockmarket.stream.IntradayStreamHub;
+import com.stockmarket.upstream.RequestPriority;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.function.client.WebClientException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Controlador REST que expone endpoints para consultar acciones
@@ -11,10 +35,31 @@ import org.springframework.web.bind.annotation.*;
  * - Patrón Gateway/Fachada: Punto único de entrada para el cliente
  * - REST: Arquitectura basada en recursos y verbos HTTP
  * - Dependency Injection: Spring inyecta StockService
- * - Bajo Acoplamiento: Depende de interfaz (StockService), no de implementación
+ * - Bajo Acoplamiento: Depende de interfaz (ReactiveStockService), no de implementación
+ * - No bloqueante: Los endpoints retornan Mono, el hilo de Tomcat se libera
+ *   mientras se espera a la API externa y la respuesta se escribe al llegar
+ * - Hilos virtuales (Java 21): Modo alternativo que espera la respuesta de forma
+ *   bloqueante; esperar en un hilo virtual casi no cuesta memoria ni CPU
+ * - Respuestas pre-codificadas: El cuerpo se escribe tal cual desde el cache
+ *   (bytes gzip), sin volver a convertir el JSON en cada petición
+ * - GET condicional: Con If-None-Match y el ETag vigente se responde 304 sin cuerpo
+ * - Server-Sent Events: /intraday/stream envía las barras nuevas en vez de que
+ *   el cliente consulte /intraday en un ciclo
+ * - Indicadores en el servidor: /indicators calcula SMA, RSI, MACD... sobre la serie
+ *   en cache; el cliente no necesita descargar la serie completa
+ * - Respuestas de respaldo: Si la API falló y el servicio respondió la última versión
+ *   guardada, se avisa con "Warning: 110" y X-Stale-Seconds (segundos desde que venció)
+ * 
+ * MODOS DE EJECUCIÓN (spring.threads.virtual.enabled y controller.blocking en application.properties):
+ * - false / false (por defecto) → camino reactivo: el hilo de Tomcat se libera
+ * - true → Tomcat atiende cada petición en un hilo virtual y el controlador
+ *   espera (block) la respuesta del servicio en ese mismo hilo
+ * - false / true → el mismo block() en los hilos de plataforma de Tomcat
+ *   (pool acotado, server.tomcat.threads.max): el modelo clásico de un hilo
+ *   por petición, para comparar contra los hilos virtuales
  * 
  * ARQUITECTURA:
- * Cliente (React) → HTTP/JSON → Este Controlador → StockService → API Externa
+ * Cliente (React) → HTTP/JSON → Este Controlador → ReactiveStockService → API Externa
  * 
  * MEJORES PRÁCTICAS REST:
  * ✅ Recursos en plural: /stocks (no /stock)
@@ -37,35 +82,79 @@ import org.springframework.web.bind.annotation.*;
 public class StockController {
     
     /**
-     * Servicio de acciones inyectado por Spring
+     * Servicio de acciones (reactivo) inyectado por Spring
      * 
      * CONCEPTO: Dependency Injection + Polimorfismo
-     * - Spring inyecta automáticamente una implementación de StockService
-     * - Puede ser AlphaVantageService, YahooFinanceService, MockService, etc.
+     * - Spring inyecta automáticamente una implementación de ReactiveStockService
+     * - Puede ser MarketDataService, MockService, etc.
      * - El controlador NO sabe ni le importa cuál implementación es
      * 
      * VENTAJA: Cambiar proveedor sin modificar este código
      */
-    private final StockService stockService;
+    private final ReactiveStockService stockService;
+    
+    /**
+     * Difusión de barras intradiarias por SSE (un sondeo por símbolo)
+     */
+    private final IntradayStreamHub streamHub;
+    
+    /**
+     * Cálculo (memorizado) de indicadores técnicos
+     */
+    private final IndicatorEngine indicatorEngine;
+    
+    /**
+     * true si el controlador espera (block) la respuesta en el hilo de la petición
+     * - Siempre con hilos virtuales (spring.threads.virtual.enabled, la misma
+     *   propiedad con la que Spring Boot configura Tomcat)
+     * - Con hilos de plataforma solo si se pide (controller.blocking)
+     */
+    private final boolean blocking;
+    
+    /**
+     * Máximo de símbolos que se consultan a la vez en /batch (batch.max-concurrency)
+     */
+    private final int batchConcurrency;
+    
+    /**
+     * Máximo de símbolos por petición a /batch (batch.max-symbols)
+     */
+    private final int batchMaxSymbols;
     
     /**
      * Constructor con inyección de dependencias
      * 
-     * Spring busca un bean que implemente StockService y lo inyecta aquí
+     * Spring busca un bean que implemente ReactiveStockService y lo inyecta aquí
      * 
      * ============================================
      * MODIFICAR SI:
      * Tienes múltiples implementaciones y quieres elegir una específica:
      * 
      * public StockController(
-     *     @Qualifier("alphaVantageService") StockService stockService
+     *     @Qualifier("marketDataService") ReactiveStockService stockService
      * ) { ... }
      * ============================================
      * 
-     * @param stockService Servicio inyectado por Spring
+     * @param stockService Servicio reactivo inyectado por Spring
+     * @param streamHub Difusión de barras intradiarias (SSE)
+     * @param indicatorEngine Cálculo de indicadores técnicos
+     * @param blocking Modo de ejecución (spring.threads.virtual.enabled o controller.blocking)
+     * @param batchConcurrency Consultas simultáneas en /batch (batch.max-concurrency)
+     * @param batchMaxSymbols Símbolos permitidos por petición a /batch (batch.max-symbols)
      */
-    public StockController(StockService stockService) {
+    public StockController(
+            ReactiveStockService stockService,
+            IntradayStreamHub streamHub,
+            IndicatorEngine indicatorEngine,
+            @Value("#{${spring.threads.virtual.enabled:false} or ${controller.blocking:false}}") boolean blocking,
+            @Value("${batch.max-concurrency:8}") int batchConcurrency,
+            @Value("${batch.max-symbols:200}") int batchMaxSymbols) {
         this.stockService = stockService;
+        this.streamHub = streamHub;
+        this.indicatorEngine = indicatorEngine;
+        this.blocking = blocking;
+        this.batchConcurrency = batchConcurrency;
+        this.batchMaxSymbols = batchMaxSymbols;
     }
     
     /**
@@ -77,17 +166,52 @@ public class StockController {
      * FLUJO:
      * 1. Cliente hace petición HTTP GET
      * 2. Spring extrae "symbol" de la URL
-     * 3. Llama a stockService.getIntradayData(symbol)
-     * 4. Retorna JSON con código 200 OK
+     * 3. Llama a stockService.getResponse(INTRADAY, symbol) → Mono
+     * 4. Spring libera el hilo y, cuando el Mono emite, retorna JSON con código 200 OK
+     *    (o 304 Not Modified si el cliente ya tiene esa versión)
+     * 
+     * VENTANA VISIBLE (opcional, igual en daily/weekly/monthly):
+     * - ?from=2025-01-15 09:30:00&to=2025-01-15 16:00:00 → solo ese rango
+     * - ?maxPoints=800 → como mucho 800 barras, elegidas con LTTB (conserva la forma)
      * 
      * @param symbol Símbolo de la acción (extraído de la URL)
-     * @return ResponseEntity con JSON y código HTTP 200
+     * @param from Desde (yyyy-MM-dd o yyyy-MM-dd HH:mm:ss, opcional)
+     * @param to Hasta, inclusivo (opcional)
+     * @param maxPoints Máximo de barras en la respuesta (opcional, >= 3)
+     * @param headers Cabeceras de la petición (If-None-Match, Accept-Encoding)
+     * @return Mono con ResponseEntity (JSON y código HTTP 200/304)
      */
     @GetMapping("/{symbol}/intraday")
-    public ResponseEntity<String> getIntraday(@PathVariable String symbol) {
-        String data = stockService.getIntradayData(symbol);
-        return ResponseEntity.ok(data);
-        // ResponseEntity.ok() = código 200 + body
+    public Mono<ResponseEntity<byte[]>> getIntraday(
+            @PathVariable String symbol,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestHeader HttpHeaders headers) {
+        return respond(Interval.INTRADAY, symbol, parseWindow(from, to, maxPoints), headers);
+    }
+    
+    /**
+     * Endpoint de streaming: barras intradiarias nuevas en tiempo real (Server-Sent Events)
+     * 
+     * URL: GET /api/stocks/{symbol}/intraday/stream
+     * Ejemplo (navegador): new EventSource("/api/stocks/IBM/intraday/stream")
+     * Ejemplo (curl): curl -N http://localhost:8080/api/stocks/IBM/intraday/stream
+     * 
+     * EVENTOS:
+     * event: bar
+     * id: 1736956800
+     * data: {"symbol":"IBM","time":"2025-01-15 16:00:00","open":"150.0000",...}
+     * 
+     * VENTAJA: En vez de que cada cliente consulte /intraday en un ciclo, el servidor
+     * sondea UNA vez por símbolo y envía a todos los suscriptores (ver IntradayStreamHub)
+     * 
+     * @param symbol Símbolo de la acción
+     * @return Flux infinito de eventos SSE (termina cuando el cliente se desconecta)
+     */
+    @GetMapping(value = "/{symbol}/intraday/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamIntraday(@PathVariable String symbol) {
+        return streamHub.subscribe(symbol);
     }
     
     /**
@@ -95,14 +219,23 @@ public class StockController {
      * 
      * URL: GET /api/stocks/{symbol}/daily
      * Ejemplo: GET /api/stocks/MSFT/daily
+     * Ejemplo: GET /api/stocks/MSFT/daily?from=2024-01-01&maxPoints=800
      * 
      * @param symbol Símbolo de la acción
-     * @return ResponseEntity con JSON
+     * @param from Desde (opcional)
+     * @param to Hasta, inclusivo (opcional)
+     * @param maxPoints Máximo de barras (opcional)
+     * @param headers Cabeceras de la petición
+     * @return Mono con ResponseEntity (JSON)
      */
     @GetMapping("/{symbol}/daily")
-    public ResponseEntity<String> getDaily(@PathVariable String symbol) {
-        String data = stockService.getDailyData(symbol);
-        return ResponseEntity.ok(data);
+    public Mono<ResponseEntity<byte[]>> getDaily(
+            @PathVariable String symbol,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestHeader HttpHeaders headers) {
+        return respond(Interval.DAILY, symbol, parseWindow(from, to, maxPoints), headers);
     }
     
     /**
@@ -112,9 +245,13 @@ public class StockController {
      * Ejemplo: GET /api/stocks/AAPL/weekly
      */
     @GetMapping("/{symbol}/weekly")
-    public ResponseEntity<String> getWeekly(@PathVariable String symbol) {
-        String data = stockService.getWeeklyData(symbol);
-        return ResponseEntity.ok(data);
+    public Mono<ResponseEntity<byte[]>> getWeekly(
+            @PathVariable String symbol,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestHeader HttpHeaders headers) {
+        return respond(Interval.WEEKLY, symbol, parseWindow(from, to, maxPoints), headers);
     }
     
     /**
@@ -124,9 +261,305 @@ public class StockController {
      * Ejemplo: GET /api/stocks/GOOGL/monthly
      */
     @GetMapping("/{symbol}/monthly")
-    public ResponseEntity<String> getMonthly(@PathVariable String symbol) {
-        String data = stockService.getMonthlyData(symbol);
-        return ResponseEntity.ok(data);
+    public Mono<ResponseEntity<byte[]>> getMonthly(
+            @PathVariable String symbol,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestHeader HttpHeaders headers) {
+        return respond(Interval.MONTHLY, symbol, parseWindow(from, to, maxPoints), headers);
+    }
+    
+    /**
+     * Endpoint de indicadores técnicos calculados sobre la serie en cache
+     * 
+     * URL: GET /api/stocks/{symbol}/{interval}/indicators?sma=50,200&rsi=14
+     * Ejemplos:
+     * - /api/stocks/IBM/daily/indicators?sma=50,200&rsi=14
+     * - /api/stocks/IBM/intraday/indicators?ema=12,26&vwap=20
+     * - /api/stocks/IBM/daily/indicators?macd&bbands=20:2
+     * 
+     * INDICADORES: sma, ema, rsi, macd (fast:slow:signal), vwap, bbands (período:desviaciones)
+     * 
+     * RESPUESTA:
+     * {"Meta Data":{...},"Technical Analysis":{"2025-01-15":{"SMA(50)":"150.1234","RSI(14)":"55.4321"},...}}
+     * 
+     * NOTA: Los resultados se memorizan por versión de la serie; si la serie no
+     * cambió no se recalcula nada, y si ganó barras solo se calculan las nuevas
+     * 
+     * @param symbol Símbolo de la acción
+     * @param interval Intervalo (intraday, daily, weekly, monthly)
+     * @param query Indicadores pedidos (nombre → parámetros)
+     * @return Mono con el JSON de indicadores (400 si la query no es válida, 404 si no hay serie)
+     */
+    @GetMapping("/{symbol}/{interval}/indicators")
+    public Mono<ResponseEntity<String>> getIndicators(
+            @PathVariable String symbol,
+            @PathVariable String interval,
+            @RequestParam MultiValueMap<String, String> query) {
+        Interval parsedInterval = parseInterval(interval);
+        List<IndicatorSpec> specs;
+        try {
+            specs = IndicatorSpec.parseAll(query);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        
+        Mono<TimeSeries> series = stockService.getSeries(parsedInterval, symbol);
+        if (blocking) {
+            series = Mono.justOrEmpty(series.block());
+        }
+        return series
+            .map(data -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(indicatorEngine.toJson(symbol, parsedInterval.path(),
+                    parsedInterval.cacheKey(symbol), data, specs)))
+            .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                "No hay serie " + parsedInterval.path() + " para " + symbol)));
+    }
+    
+    /**
+     * Endpoint para consultar muchos símbolos en una sola petición
+     * 
+     * URL: GET /api/stocks/batch?symbols=IBM,MSFT,AAPL&interval=daily
+     * 
+     * RESPUESTA (NDJSON: un objeto JSON por línea, en orden de llegada):
+     * {"symbol":"MSFT","status":200,"data":{...JSON de la serie...}}
+     * {"symbol":"IBM","status":200,"staleSeconds":3600,"data":{...}}  (respaldo: la API falló)
+     * {"symbol":"XXXX","status":502,"error":"..."}
+     * 
+     * CONCEPTOS APLICADOS:
+     * - Fan-out acotado: flatMap con concurrencia máxima (batch.max-concurrency),
+     *   así 200 símbolos no disparan 200 llamadas a la API a la vez
+     * - Prioridad BATCH: los MISS esperan en cola detrás de las peticiones
+     *   individuales de usuarios (UpstreamScheduler)
+     * - Streaming: Cada línea se envía apenas su símbolo termina; los HIT del cache
+     *   salen de inmediato y el símbolo más lento no retrasa a los demás
+     * - Fallos parciales: Un error en un símbolo se reporta en su línea
+     *   y no cancela el resto
+     * 
+     * @param symbols Símbolos separados por coma
+     * @param interval Intervalo (intraday, daily, weekly, monthly)
+     * @return Flux de líneas JSON, una por símbolo
+     */
+    @GetMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<String> getBatch(
+            @RequestParam String symbols,
+            @RequestParam(defaultValue = "daily") String interval) {
+        Interval parsedInterval = parseInterval(interval);
+        Set<String> uniqueSymbols = parseSymbols(symbols);
+        
+        return Flux.fromIterable(uniqueSymbols)
+            .flatMap(symbol -> stockService.getResponse(parsedInterval, symbol, RequestPriority.BATCH)
+                .map(response -> batchLine(symbol, response))
+                .onErrorResume(e -> Mono.just(batchError(symbol, e))),
+                batchConcurrency);
+    }
+    
+    /**
+     * Obtiene los datos según el modo de ejecución y arma la respuesta
+     * 
+     * - Modo reactivo: retorna el Mono del servicio (el hilo se libera)
+     * - Modo bloqueante: espera (block) en el hilo actual (virtual, o de
+     *   plataforma con controller.blocking); el Mono resultante ya está completo
+     * - Sin ventana: se envía la respuesta pre-codificada del cache
+     * - Con ventana (from/to/maxPoints): se escribe solo el tramo pedido
+     *   desde la serie columnar (ver TimeSeriesWindow)
+     * 
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @param window Ventana pedida, o null para la serie completa
+     * @param headers Cabeceras de la petición
+     * @return Mono con ResponseEntity (200 con JSON o 304 sin cuerpo)
+     */
+    private Mono<ResponseEntity<byte[]>> respond(Interval interval, String symbol,
+                                                 TimeSeriesWindow window, HttpHeaders headers) {
+        if (window != null) {
+            Mono<SeriesResponse> series = stockService.getSeriesResponse(interval, symbol);
+            if (blocking) {
+                series = Mono.justOrEmpty(series.block());
+            }
+            return series
+                .map(data -> toWindowResponse(window, data, headers))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "No hay serie " + interval.path() + " para " + symbol)));
+        }
+        
+        Mono<EncodedResponse> data = stockService.getResponse(interval, symbol);
+        if (blocking) {
+            data = Mono.justOrEmpty(data.block());
+        }
+        return data.map(response -> toResponseEntity(response, headers));
+    }
+    
+    /**
+     * Respuesta de una ventana: JSON sin pre-codificar (es chico)
+     *
+     * - ETag débil derivado del de la serie completa + from/to/maxPoints
+     *   (TimeSeriesWindow.etag): un 304 no necesita escribir el JSON de la ventana
+     * - Mismas cabeceras de respaldo que la serie completa (Warning 110, X-Stale-Seconds)
+     */
+    private static ResponseEntity<byte[]> toWindowResponse(TimeSeriesWindow window, SeriesResponse data,
+                                                           HttpHeaders headers) {
+        EncodedResponse response = data.response();
+        String etag = window.etag(response.etag());
+        if (headers.getIfNoneMatch().contains(etag) || headers.getIfNoneMatch().contains("*")) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .headers(staleHeaders(response))
+                .build();
+        }
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .contentType(MediaType.APPLICATION_JSON)
+            .headers(staleHeaders(response))
+            .body(window.toJson(data.series()).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Convierte la respuesta codificada en ResponseEntity
+     * 
+     * RESPALDO:
+     * - Si la respuesta está desactualizada (la API falló) se agregan las cabeceras
+     *   Warning: 110 - "Response is Stale" y X-Stale-Seconds
+     * 
+     * GET CONDICIONAL:
+     * - Si If-None-Match contiene el ETag actual → 304 Not Modified, sin cuerpo
+     *   (el cliente usa la copia que ya tiene)
+     * 
+     * COMPRESIÓN:
+     * - Si el cliente acepta gzip (Accept-Encoding) → se envían los bytes gzip
+     *   guardados en cache, sin comprimir de nuevo
+     * - Si no → se descomprime al vuelo (caso poco frecuente)
+     * 
+     * @param response Respuesta codificada (gzip + ETag)
+     * @param headers Cabeceras de la petición
+     * @return ResponseEntity con código 200 o 304
+     */
+    private static ResponseEntity<byte[]> toResponseEntity(EncodedResponse response, HttpHeaders headers) {
+        if (headers.getIfNoneMatch().contains(response.etag()) || headers.getIfNoneMatch().contains("*")) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(response.etag())
+                .headers(staleHeaders(response))
+                .build();
+        }
+        
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .eTag(response.etag())
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .headers(staleHeaders(response));
+        if (acceptsGzip(headers)) {
+            return builder
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(response.gzipBytes());
+        }
+        return builder.body(response.identityBytes());
+        // ResponseEntity.ok() = código 200 + body
+    }
+    
+    /**
+     * Cabeceras de una respuesta de respaldo (vacías si la respuesta está vigente)
+     */
+    private static HttpHeaders staleHeaders(EncodedResponse response) {
+        HttpHeaders stale = new HttpHeaders();
+        if (response.isStale()) {
+            stale.set(HttpHeaders.WARNING, "110 - \"Response is Stale\"");
+            stale.set("X-Stale-Seconds", Long.toString(response.staleSeconds()));
+        }
+        return stale;
+    }
+    
+    /**
+     * Convierte el parámetro interval en Interval (400 Bad Request si no existe)
+     */
+    private static Interval parseInterval(String interval) {
+        try {
+            return Interval.fromPath(interval);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    /**
+     * Lee from/to/maxPoints (400 Bad Request si no son válidos)
+     */
+    private static TimeSeriesWindow parseWindow(String from, String to, Integer maxPoints) {
+        try {
+            return TimeSeriesWindow.parse(from, to, maxPoints);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    /**
+     * Separa los símbolos por coma, quita espacios y repetidos (conserva el orden)
+     */
+    private Set<String> parseSymbols(String symbols) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String symbol : symbols.split(",")) {
+            if (!symbol.isBlank()) {
+                unique.add(symbol.trim());
+            }
+        }
+        if (unique.isEmpty() || unique.size() > batchMaxSymbols) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Se esperan entre 1 y " + batchMaxSymbols + " símbolos");
+        }
+        return unique;
+    }
+    
+    /**
+     * Línea NDJSON de un símbolo que respondió correctamente (con staleSeconds si es un respaldo)
+     */
+    private static String batchLine(String symbol, EncodedResponse response) {
+        String stale = response.isStale() ? ",\"staleSeconds\":" + response.staleSeconds() : "";
+        return "{\"symbol\":" + jsonString(symbol) + ",\"status\":200" + stale + ",\"data\":" + response.toJson() + "}\n";
+    }
+    
+    /**
+     * Línea NDJSON de un símbolo que falló (502 si la API falló o no respondió)
+     */
+    private static String batchError(String symbol, Throwable error) {
+        int status = error instanceof WebClientException ? HttpStatus.BAD_GATEWAY.value()
+            : error instanceof ResponseStatusException rse ? rse.getStatusCode().value()
+            : HttpStatus.INTERNAL_SERVER_ERROR.value();
+        return "{\"symbol\":" + jsonString(symbol) + ",\"status\":" + status
+            + ",\"error\":" + jsonString(String.valueOf(error.getMessage())) + "}\n";
+    }
+    
+    /**
+     * Escribe un texto como string JSON (escapa comillas, barras y caracteres de control)
+     */
+    private static String jsonString(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+    
+    /**
+     * @return true si Accept-Encoding incluye gzip (y no lo excluye con q=0)
+     */
+    private static boolean acceptsGzip(HttpHeaders headers) {
+        for (String value : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String trimmed = coding.trim();
+                if (trimmed.regionMatches(true, 0, "gzip", 0, 4)
+                        && !trimmed.replace(" ", "").endsWith(";q=0")) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
     
     /* ============================================
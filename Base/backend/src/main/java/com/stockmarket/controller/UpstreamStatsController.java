@@ -0,0 +1,38 @@
+package com.stockmarket.controller;
+
+import com.stockmarket.provider.ProviderRouter;
+import com.stockmarket.provider.ProviderRouter.ProviderStats;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Expone el estado de cada proveedor y de su cola de llamadas a la API externa
+ *
+ * URL: GET /api/upstream/stats
+ * Ejemplo de respuesta:
+ * [{"name":"alphavantage","latencyMillis":412.3,"errorRate":0.0,"quotaWaitMillis":11950.0,
+ *   "circuit":"CLOSED","selected":42,"failovers":3,
+ *   "queue":{"queueDepth":3,"dispatched":42,"throttled":0,"avgWaitMillis":812.5,"maxWaitMillis":11950.0}},
+ *  {"name":"yahoo",...}]
+ */
+@RestController
+@RequestMapping("/api/upstream")
+public class UpstreamStatsController {
+
+    private final ProviderRouter router;
+
+    public UpstreamStatsController(ProviderRouter router) {
+        this.router = router;
+    }
+
+    /**
+     * @return Latencia, errores, espera por cuota y métricas de la cola de cada proveedor
+     */
+    @GetMapping("/stats")
+    public List<ProviderStats> getStats() {
+        return router.stats();
+    }
+}
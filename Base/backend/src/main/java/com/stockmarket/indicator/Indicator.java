@@ -0,0 +1,156 @@
+package com.stockmarket.indicator;
+
+import com.stockmarket.model.TechnicalIndicators;
+import com.stockmarket.model.TimeSeries;
+
+/**
+ * Indicadores técnicos disponibles en /api/stocks/{symbol}/{interval}/indicators
+ *
+ * Cada indicador define:
+ * - Su nombre en la query (?sma=50) y sus parámetros por defecto
+ * - Sus columnas de resultado: primero las visibles (se envían en el JSON),
+ *   luego las de estado (ej: ganancia/pérdida promedio del RSI), que se guardan
+ *   para continuar el cálculo cuando la serie gana barras
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden otro indicador: agrega una constante aquí y su cálculo en TechnicalIndicators
+ * ============================================
+ */
+public enum Indicator {
+
+    /** Media móvil simple: ?sma=50,200 */
+    SMA("sma", "SMA", new double[] {20}, 1) {
+        @Override
+        String[] labels(String params) {
+            return new String[] {"SMA" + params};
+        }
+
+        @Override
+        void compute(TimeSeries series, double[] p, double[][] out, int from) {
+            TechnicalIndicators.sma(series, (int) p[0], out[0], from);
+        }
+    },
+
+    /** Media móvil exponencial: ?ema=12,26 */
+    EMA("ema", "EMA", new double[] {20}, 1) {
+        @Override
+        String[] labels(String params) {
+            return new String[] {"EMA" + params};
+        }
+
+        @Override
+        void compute(TimeSeries series, double[] p, double[][] out, int from) {
+            TechnicalIndicators.ema(series, (int) p[0], out[0], from);
+        }
+    },
+
+    /** RSI de Wilder: ?rsi=14 (estado: ganancia y pérdida promedio) */
+    RSI("rsi", "RSI", new double[] {14}, 3) {
+        @Override
+        String[] labels(String params) {
+            return new String[] {"RSI" + params};
+        }
+
+        @Override
+        void compute(TimeSeries series, double[] p, double[][] out, int from) {
+            TechnicalIndicators.rsi(series, (int) p[0], out[0], out[1], out[2], from);
+        }
+    },
+
+    /** MACD: ?macd o ?macd=12:26:9 (estado: EMA rápida y lenta) */
+    MACD("macd", "MACD", new double[] {12, 26, 9}, 5) {
+        @Override
+        String[] labels(String params) {
+            return new String[] {"MACD" + params, "MACD_Signal" + params, "MACD_Hist" + params};
+        }
+
+        @Override
+        void compute(TimeSeries series, double[] p, double[][] out, int from) {
+            TechnicalIndicators.macd(series, (int) p[0], (int) p[1], (int) p[2],
+                out[3], out[4], out[0], out[1], out[2], from);
+        }
+    },
+
+    /** VWAP móvil: ?vwap=20 */
+    VWAP("vwap", "VWAP", new double[] {20}, 1) {
+        @Override
+        String[] labels(String params) {
+            return new String[] {"VWAP" + params};
+        }
+
+        @Override
+        void compute(TimeSeries series, double[] p, double[][] out, int from) {
+            TechnicalIndicators.vwap(series, (int) p[0], out[0], from);
+        }
+    },
+
+    /** Bandas de Bollinger: ?bbands o ?bbands=20:2 (período : desviaciones) */
+    BBANDS("bbands", "BBANDS", new double[] {20, 2}, 3) {
+        @Override
+        String[] labels(String params) {
+            return new String[] {"BBANDS_Upper" + params, "BBANDS_Middle" + params, "BBANDS_Lower" + params};
+        }
+
+        @Override
+        void compute(TimeSeries series, double[] p, double[][] out, int from) {
+            TechnicalIndicators.bollinger(series, (int) p[0], p[1], out[1], out[0], out[2], from);
+        }
+    };
+
+    private final String queryName;
+    private final String label;
+    private final double[] defaults;
+    private final int columns;
+
+    Indicator(String queryName, String label, double[] defaults, int columns) {
+        this.queryName = queryName;
+        this.label = label;
+        this.defaults = defaults;
+        this.columns = columns;
+    }
+
+    /** @return Nombre del parámetro en la query (ej: "sma") */
+    public String queryName() {
+        return queryName;
+    }
+
+    /** @return Nombre en el JSON (ej: "SMA") */
+    public String label() {
+        return label;
+    }
+
+    /** @return Copia de los parámetros por defecto */
+    double[] defaults() {
+        return defaults.clone();
+    }
+
+    /** @return Columnas de resultado (visibles + estado) */
+    int columns() {
+        return columns;
+    }
+
+    /**
+     * @param params Parámetros ya formateados (ej: "(12,26,9)")
+     * @return Nombre de cada columna visible
+     */
+    abstract String[] labels(String params);
+
+    /**
+     * Calcula las columnas desde la barra "from"; las anteriores ya están calculadas
+     */
+    abstract void compute(TimeSeries series, double[] params, double[][] out, int from);
+
+    /**
+     * @param queryName Nombre como "sma" o "MACD" (sin distinguir mayúsculas)
+     * @return Indicador, o null si no existe
+     */
+    static Indicator fromQueryName(String queryName) {
+        for (Indicator indicator : values()) {
+            if (indicator.queryName.equalsIgnoreCase(queryName)) {
+                return indicator;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,133 @@
+package com.stockmarket.indicator;
+
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.model.TimeSeriesJsonWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calcula indicadores técnicos sobre las series del cache y memoriza los resultados
+ *
+ * CONCEPTOS APLICADOS:
+ * - Memoización por (serie, indicador, parámetros): La serie guardada en cache es
+ *   inmutable y mergeNewer devuelve la MISMA instancia si nada cambió, así la
+ *   identidad de la instancia sirve como "versión": misma instancia → mismo resultado
+ * - Cálculo incremental: Si la serie cambió (ej: llegó una barra nueva), se busca la
+ *   primera barra distinta (TimeSeries.firstDifference), se copia el resultado
+ *   anterior hasta ahí y solo se calcula el resto
+ * - Resultados inmutables: Cada versión tiene sus propios arreglos; un cálculo nuevo
+ *   nunca modifica arreglos que otro hilo puede estar leyendo
+ * - Memoria acotada: Máximo indicators.memo.max-entries resultados (se descarta uno
+ *   cualquiera al llenarse; recalcular es barato comparado con la API)
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden más indicadores (ver Indicator)
+ * - Los resultados ocupan demasiada memoria (baja indicators.memo.max-entries)
+ * ============================================
+ */
+@Component
+public class IndicatorEngine {
+
+    /** Resultado calculado para una versión de la serie */
+    private record Memo(TimeSeries series, double[][] columns) {}
+
+    private final ConcurrentHashMap<String, Memo> memos = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder incremental = new LongAdder();
+    private final LongAdder full = new LongAdder();
+
+    /**
+     * @param maxEntries Resultados memorizados como máximo (indicators.memo.max-entries)
+     */
+    public IndicatorEngine(@Value("${indicators.memo.max-entries:2000}") int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Calcula los indicadores y genera el JSON de respuesta
+     *
+     * @param symbol Símbolo de la acción
+     * @param interval Intervalo (ej: "daily")
+     * @param cacheKey Clave de la serie en cache (ej: "DAILY_IBM")
+     * @param series Serie actual
+     * @param specs Indicadores pedidos
+     * @return JSON con un valor por indicador y fecha
+     */
+    public String toJson(String symbol, String interval, String cacheKey, TimeSeries series, List<IndicatorSpec> specs) {
+        int totalColumns = 0;
+        for (IndicatorSpec spec : specs) {
+            totalColumns += spec.labels().length;
+        }
+        String[] labels = new String[totalColumns];
+        double[][] columns = new double[totalColumns][];
+        int next = 0;
+        for (IndicatorSpec spec : specs) {
+            double[][] computed = columns(cacheKey, series, spec);
+            String[] specLabels = spec.labels();
+            for (int i = 0; i < specLabels.length; i++) {
+                labels[next] = specLabels[i];
+                columns[next++] = computed[i];
+            }
+        }
+        return TimeSeriesJsonWriter.toIndicatorJson(symbol, interval, series, labels, columns);
+    }
+
+    /**
+     * Columnas de un indicador para una versión de la serie (memorizadas)
+     *
+     * @return Columnas (visibles + estado); NO modificar
+     */
+    double[][] columns(String cacheKey, TimeSeries series, IndicatorSpec spec) {
+        String memoKey = cacheKey + '|' + spec.key();
+        Memo memo = memos.get(memoKey);
+        if (memo != null && memo.series() == series) {
+            hits.increment();
+            return memo.columns();
+        }
+
+        int size = series.size();
+        double[][] columns = new double[spec.indicator().columns()][size];
+        int from = 0;
+        if (memo != null) {
+            int difference = series.firstDifference(memo.series());
+            from = difference < 0 ? size : difference;
+            for (int c = 0; c < columns.length; c++) {
+                System.arraycopy(memo.columns()[c], 0, columns[c], 0, from);
+            }
+        }
+        spec.indicator().compute(series, spec.params(), columns, from);
+        (from > 0 ? incremental : full).increment();
+
+        if (memos.size() >= maxEntries && !memos.containsKey(memoKey)) {
+            Iterator<String> any = memos.keySet().iterator();
+            if (any.hasNext()) {
+                memos.remove(any.next());
+            }
+        }
+        memos.put(memoKey, new Memo(series, columns));
+        return columns;
+    }
+
+    /** @return Resultados servidos sin calcular (misma versión de la serie) */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /** @return Cálculos que reutilizaron el resultado anterior (solo barras nuevas) */
+    public long incrementalComputations() {
+        return incremental.sum();
+    }
+
+    /** @return Cálculos desde cero */
+    public long fullComputations() {
+        return full.sum();
+    }
+}
@@ -0,0 +1,99 @@
+package com.stockmarket.indicator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Un indicador con sus parámetros (ej: SMA de 50 barras)
+ *
+ * SINTAXIS EN LA QUERY:
+ * - Varias instancias separadas por coma: ?sma=50,200
+ * - Varios parámetros separados por dos puntos: ?macd=12:26:9, ?bbands=20:2.5
+ * - Sin valor o con parámetros faltantes → valores por defecto: ?macd, ?bbands=20
+ *
+ * @param indicator Indicador
+ * @param params Parámetros (períodos y, en Bollinger, las desviaciones)
+ * @param key Clave estable (ej: "SMA(50)"), usada en la memoización
+ */
+public record IndicatorSpec(Indicator indicator, double[] params, String key) {
+
+    /** Máximo de indicadores por petición */
+    public static final int MAX_SPECS = 16;
+
+    /** Período máximo (barras) */
+    public static final int MAX_PERIOD = 5000;
+
+    /**
+     * @return Nombre de cada columna visible (ej: "MACD(12,26,9)", "MACD_Signal(12,26,9)"...)
+     */
+    public String[] labels() {
+        return indicator.labels(key.substring(indicator.label().length()));
+    }
+
+    /**
+     * Lee los indicadores pedidos en la query
+     *
+     * @param query Parámetros de la petición (nombre → valores)
+     * @return Indicadores en el orden de la query, sin repetidos
+     * @throws IllegalArgumentException Si un nombre o parámetro no es válido
+     */
+    public static List<IndicatorSpec> parseAll(Map<String, List<String>> query) {
+        List<IndicatorSpec> specs = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : query.entrySet()) {
+            Indicator indicator = Indicator.fromQueryName(entry.getKey());
+            if (indicator == null) {
+                throw new IllegalArgumentException("Indicador no soportado: " + entry.getKey());
+            }
+            for (String value : entry.getValue()) {
+                for (String instance : value.split(",", -1)) {
+                    IndicatorSpec spec = parse(indicator, instance.trim());
+                    if (specs.stream().noneMatch(existing -> existing.key.equals(spec.key))) {
+                        specs.add(spec);
+                    }
+                }
+            }
+        }
+        if (specs.isEmpty() || specs.size() > MAX_SPECS) {
+            throw new IllegalArgumentException("Se esperan entre 1 y " + MAX_SPECS + " indicadores");
+        }
+        return specs;
+    }
+
+    private static IndicatorSpec parse(Indicator indicator, String instance) {
+        double[] params = indicator.defaults();
+        if (!instance.isEmpty()) {
+            String[] parts = instance.split(":");
+            if (parts.length > params.length) {
+                throw new IllegalArgumentException("Demasiados parámetros para " + indicator.queryName() + ": " + instance);
+            }
+            for (int i = 0; i < parts.length; i++) {
+                try {
+                    params[i] = Double.parseDouble(parts[i].trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Parámetro inválido para " + indicator.queryName() + ": " + instance);
+                }
+            }
+        }
+
+        // Todos los parámetros son períodos enteros, salvo las desviaciones de Bollinger
+        int periods = indicator == Indicator.BBANDS ? 1 : params.length;
+        for (int i = 0; i < periods; i++) {
+            if (params[i] != Math.rint(params[i]) || params[i] < 1 || params[i] > MAX_PERIOD) {
+                throw new IllegalArgumentException("El período debe ser un entero entre 1 y " + MAX_PERIOD + ": " + instance);
+            }
+        }
+        if (indicator == Indicator.BBANDS && !(params[1] > 0 && params[1] <= 10)) {
+            throw new IllegalArgumentException("Las desviaciones de Bollinger deben estar entre 0 y 10: " + instance);
+        }
+
+        StringBuilder key = new StringBuilder(indicator.label()).append('(');
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) {
+                key.append(',');
+            }
+            key.append(params[i] == Math.rint(params[i]) ? Long.toString((long) params[i]) : Double.toString(params[i]));
+        }
+        return new IndicatorSpec(indicator, params, key.append(')').toString());
+    }
+}
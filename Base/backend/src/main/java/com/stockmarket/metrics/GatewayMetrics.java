@@ -0,0 +1,236 @@
+package com.stockmarket.metrics;
+
+import com.stockmarket.accesslog.AccessLog;
+import com.stockmarket.cache.ConcurrentCache;
+import com.stockmarket.cache.ConcurrentCache.Statistic;
+import com.stockmarket.indicator.IndicatorEngine;
+import com.stockmarket.peer.PeerClient;
+import com.stockmarket.peer.PeerRing;
+import com.stockmarket.provider.MarketDataProvider;
+import com.stockmarket.provider.ProviderRouter;
+import com.stockmarket.provider.ProviderRouter.ProviderStats;
+import com.stockmarket.stream.IntradayStreamHub;
+import com.stockmarket.upstream.UpstreamCircuitBreaker;
+import com.stockmarket.upstream.UpstreamScheduler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publica en Micrometer los contadores internos del gateway
+ *
+ * URL: GET /actuator/prometheus (formato Prometheus, ver application.properties)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Lectura al exportar (FunctionCounter / Gauge): Las clases medidas solo
+ *   incrementan sus propios LongAdder (sin asignar memoria ni tomar locks);
+ *   Micrometer los lee recién cuando Prometheus consulta el endpoint.
+ *   Así el camino de un HIT no paga nada extra por las métricas
+ * - Etiquetas de baja cardinalidad: Por intervalo (4 + "OTHER"), por proveedor
+ *   y por evento, nunca por símbolo (serían miles de series en Prometheus)
+ *
+ * MÉTRICAS:
+ * - cache_requests_total{interval,result=hit|stale_hit|miss}
+ * - cache_removals_total{interval,cause=eviction|expiration}
+ * - cache_entries, cache_weight_bytes
+ * - Por proveedor ({provider=alphavantage|yahoo}):
+ *   upstream_queue_depth, upstream_dispatched_total, upstream_throttled_total,
+ *   upstream_circuit_state (0 = cerrado, 1 = abierto, 2 = semiabierto),
+ *   upstream_circuit_opened_total, upstream_circuit_rejected_total,
+ *   provider_routed_total{result=selected|failover} (ProviderRouter)
+ * - stream_symbols, stream_subscribers, stream_dropped_events_total
+ * - indicator_computations_total{type=memo_hit|incremental|full}
+ * - access_log_events_total{status=written|dropped}
+ * - peer_nodes_up, peer_requests_total{result=ok|error|unreachable} (cache distribuido)
+ *
+ * Las definidas en otras clases:
+ * - upstream_request_seconds{provider,outcome} y
+ *   upstream_hedges_total{provider,result=sent|won|skipped} (HttpMarketDataProvider)
+ * - upstream_inflight (MarketDataService)
+ * - http_server_requests_seconds{uri,...} y http_server_requests_active_seconds
+ *   (Spring Boot, una serie por endpoint del StockController)
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Agregas un contador a alguna de estas clases (regístralo aquí)
+ * - Te piden un intervalo nuevo (ConcurrentCache.INTERVALS)
+ * ============================================
+ */
+@Component
+public class GatewayMetrics implements MeterBinder {
+
+    private final ConcurrentCache cache;
+    private final ProviderRouter router;
+    private final IntradayStreamHub streamHub;
+    private final IndicatorEngine indicatorEngine;
+    private final AccessLog accessLog;
+    private final PeerRing peers;
+    private final PeerClient peerClient;
+
+    public GatewayMetrics(
+            ConcurrentCache cache,
+            ProviderRouter router,
+            IntradayStreamHub streamHub,
+            IndicatorEngine indicatorEngine,
+            AccessLog accessLog,
+            PeerRing peers,
+            PeerClient peerClient) {
+        this.cache = cache;
+        this.router = router;
+        this.streamHub = streamHub;
+        this.indicatorEngine = indicatorEngine;
+        this.accessLog = accessLog;
+        this.peers = peers;
+        this.peerClient = peerClient;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCache(registry);
+        bindUpstream(registry);
+        bindStream(registry);
+        bindIndicators(registry);
+        bindAccessLog(registry);
+        bindPeers(registry);
+    }
+
+    private void bindCache(MeterRegistry registry) {
+        List<String> intervals = new ArrayList<>(ConcurrentCache.INTERVALS);
+        intervals.add("OTHER");
+
+        for (String interval : intervals) {
+            String tag = interval.toLowerCase(Locale.ROOT);
+            for (Statistic statistic : Statistic.values()) {
+                boolean removal = statistic == Statistic.EVICTION || statistic == Statistic.EXPIRATION;
+                FunctionCounter.builder(removal ? "cache.removals" : "cache.requests", cache,
+                        c -> c.statistic(interval, statistic))
+                    .description(removal ? "Entradas eliminadas del cache" : "Consultas al cache")
+                    .tag("interval", tag)
+                    .tag(removal ? "cause" : "result", statistic.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+            }
+        }
+
+        Gauge.builder("cache.entries", cache, ConcurrentCache::size)
+            .description("Entradas en el cache")
+            .register(registry);
+        Gauge.builder("cache.weight", cache, ConcurrentCache::weightBytes)
+            .description("Peso estimado del cache")
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    private void bindUpstream(MeterRegistry registry) {
+        for (MarketDataProvider provider : router.providers()) {
+            String name = provider.name();
+            UpstreamScheduler scheduler = provider.scheduler();
+            UpstreamCircuitBreaker circuitBreaker = provider.circuitBreaker();
+            Gauge.builder("upstream.queue.depth", scheduler, s -> s.stats().queueDepth())
+                .description("Llamadas a la API esperando cuota")
+                .tag("provider", name)
+                .register(registry);
+            FunctionCounter.builder("upstream.dispatched", scheduler, s -> s.stats().dispatched())
+                .description("Llamadas enviadas a la API")
+                .tag("provider", name)
+                .register(registry);
+            FunctionCounter.builder("upstream.throttled", scheduler, s -> s.stats().throttled())
+                .description("Respuestas de cuota excedida recibidas de la API")
+                .tag("provider", name)
+                .register(registry);
+            Gauge.builder("upstream.circuit.state", circuitBreaker, c -> c.state().ordinal())
+                .description("Estado del circuit breaker: 0 = cerrado, 1 = abierto, 2 = semiabierto")
+                .tag("provider", name)
+                .register(registry);
+            FunctionCounter.builder("upstream.circuit.opened", circuitBreaker, UpstreamCircuitBreaker::opened)
+                .description("Veces que se abrió el circuito hacia la API")
+                .tag("provider", name)
+                .register(registry);
+            FunctionCounter.builder("upstream.circuit.rejected", circuitBreaker, UpstreamCircuitBreaker::rejected)
+                .description("Llamadas a la API rechazadas con el circuito abierto")
+                .tag("provider", name)
+                .register(registry);
+            FunctionCounter.builder("provider.routed", router, r -> routed(r, name, ProviderStats::selected))
+                .description("Llamadas asignadas a cada proveedor")
+                .tag("provider", name)
+                .tag("result", "selected")
+                .register(registry);
+            FunctionCounter.builder("provider.routed", router, r -> routed(r, name, ProviderStats::failovers))
+                .description("Llamadas asignadas a cada proveedor")
+                .tag("provider", name)
+                .tag("result", "failover")
+                .register(registry);
+        }
+    }
+
+    /**
+     * Lee un contador del enrutador para un proveedor (solo al exportar)
+     */
+    private static double routed(ProviderRouter router, String name, ToLongFunction<ProviderStats> counter) {
+        for (ProviderStats stats : router.stats()) {
+            if (stats.name().equals(name)) {
+                return counter.applyAsLong(stats);
+            }
+        }
+        return 0;
+    }
+
+    private void bindStream(MeterRegistry registry) {
+        Gauge.builder("stream.symbols", streamHub, IntradayStreamHub::activeSymbols)
+            .description("Símbolos con sondeo SSE activo")
+            .register(registry);
+        Gauge.builder("stream.subscribers", streamHub, IntradayStreamHub::subscribers)
+            .description("Clientes SSE conectados")
+            .register(registry);
+        FunctionCounter.builder("stream.dropped.events", streamHub, IntradayStreamHub::droppedEvents)
+            .description("Eventos descartados por clientes lentos")
+            .register(registry);
+    }
+
+    private void bindIndicators(MeterRegistry registry) {
+        FunctionCounter.builder("indicator.computations", indicatorEngine, IndicatorEngine::hits)
+            .tag("type", "memo_hit")
+            .register(registry);
+        FunctionCounter.builder("indicator.computations", indicatorEngine, IndicatorEngine::incrementalComputations)
+            .tag("type", "incremental")
+            .register(registry);
+        FunctionCounter.builder("indicator.computations", indicatorEngine, IndicatorEngine::fullComputations)
+            .tag("type", "full")
+            .register(registry);
+    }
+
+    private void bindAccessLog(MeterRegistry registry) {
+        FunctionCounter.builder("access.log.events", accessLog, AccessLog::written)
+            .description("Líneas del access log")
+            .tag("status", "written")
+            .register(registry);
+        FunctionCounter.builder("access.log.events", accessLog, AccessLog::dropped)
+            .description("Líneas del access log")
+            .tag("status", "dropped")
+            .register(registry);
+    }
+
+    private void bindPeers(MeterRegistry registry) {
+        Gauge.builder("peer.nodes.up", peers, PeerRing::nodesUp)
+            .description("Nodos del cluster disponibles (incluido este)")
+            .register(registry);
+        FunctionCounter.builder("peer.requests", peerClient, PeerClient::succeeded)
+            .description("Claves pedidas al nodo dueño")
+            .tag("result", "ok")
+            .register(registry);
+        FunctionCounter.builder("peer.requests", peerClient, PeerClient::failed)
+            .description("Claves pedidas al nodo dueño")
+            .tag("result", "error")
+            .register(registry);
+        FunctionCounter.builder("peer.requests", peerClient, PeerClient::unreachable)
+            .description("Claves pedidas al nodo dueño")
+            .tag("result", "unreachable")
+            .register(registry);
+    }
+}
@@ -0,0 +1,162 @@
+package com.stockmarket.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Respuesta JSON ya codificada: bytes comprimidos con gzip + ETag
+ *
+ * CONCEPTOS APLICADOS:
+ * - Pre-codificación: El JSON se convierte a UTF-8 y se comprime UNA vez (al guardar
+ *   en cache), no en cada petición
+ * - ETag: Hash del contenido; si el cliente ya tiene esa versión (If-None-Match),
+ *   el servidor responde 304 sin enviar el cuerpo
+ * - Inmutabilidad: Se comparte entre hilos sin sincronización
+ * - Respuesta de respaldo: asStale() crea una vista (mismos bytes, sin copiar) marcada
+ *   con el tiempo que lleva desactualizada; el controlador la informa en las cabeceras
+ *
+ * ¿POR QUÉ SOLO GUARDAR LA VERSIÓN GZIP?
+ * - El JSON de una serie comprime ~5x; guardar también los bytes sin comprimir
+ *   anularía buena parte del ahorro de memoria de TimeSeries
+ * - Navegadores, curl --compressed y WebClient aceptan gzip; para el resto
+ *   (poco frecuente) se descomprime al vuelo con identityBytes()
+ */
+public final class EncodedResponse {
+
+    private final byte[] gzip;
+    private final String etag;
+    private final int identityLength;
+    private final long staleSeconds;
+
+    private EncodedResponse(byte[] gzip, String etag, int identityLength, long staleSeconds) {
+        this.gzip = gzip;
+        this.etag = etag;
+        this.identityLength = identityLength;
+        this.staleSeconds = staleSeconds;
+    }
+
+    /**
+     * Codifica un JSON: UTF-8 → hash (ETag) → gzip
+     *
+     * @param json JSON a codificar
+     * @return Respuesta lista para escribirse en el socket
+     */
+    public static EncodedResponse encode(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed, 8192)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // No ocurre al escribir en memoria
+        }
+        return new EncodedResponse(compressed.toByteArray(), etagOf(bytes), bytes.length, 0);
+    }
+
+    /**
+     * Reconstruye una respuesta ya codificada (ej: al restaurar un snapshot)
+     *
+     * @param gzip Bytes comprimidos (la respuesta pasa a ser dueña del arreglo)
+     * @param etag ETag con comillas (ej: "\"a1b2...\"")
+     * @param identityLength Largo del JSON sin comprimir
+     */
+    public static EncodedResponse of(byte[] gzip, String etag, int identityLength) {
+        return new EncodedResponse(gzip, etag, identityLength, 0);
+    }
+
+    /**
+     * La misma respuesta marcada como desactualizada (la API falló y se responde
+     * la última versión guardada)
+     *
+     * @param expiredNanos Tiempo desde que expiró en el cache
+     * @return Respuesta que comparte los bytes con esta
+     */
+    public EncodedResponse asStale(long expiredNanos) {
+        long seconds = Math.max(1, (expiredNanos + 999_999_999L) / 1_000_000_000L);
+        return new EncodedResponse(gzip, etag, identityLength, seconds);
+    }
+
+    /**
+     * @return true si es una respuesta de respaldo (ver asStale)
+     */
+    public boolean isStale() {
+        return staleSeconds > 0;
+    }
+
+    /**
+     * @return Segundos desde que expiró (0 si está vigente)
+     */
+    public long staleSeconds() {
+        return staleSeconds;
+    }
+
+    /**
+     * @return ETag con comillas, listo para la cabecera HTTP
+     */
+    public String etag() {
+        return etag;
+    }
+
+    /**
+     * Bytes comprimidos con gzip
+     *
+     * IMPORTANTE: Retorna el arreglo interno (sin copia) para escribirlo directo
+     * en la respuesta; NO debe modificarse
+     */
+    public byte[] gzipBytes() {
+        return gzip;
+    }
+
+    /**
+     * @return Largo del JSON sin comprimir (bytes UTF-8)
+     */
+    public int identityLength() {
+        return identityLength;
+    }
+
+    /**
+     * Descomprime el JSON (para clientes que no aceptan gzip)
+     *
+     * @return Bytes UTF-8 del JSON
+     */
+    public byte[] identityBytes() {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip), 8192)) {
+            return in.readNBytes(identityLength);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return El JSON como String (para la API bloqueante/reactiva que retorna String)
+     */
+    public String toJson() {
+        return new String(identityBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Memoria aproximada ocupada (para el peso del cache)
+     */
+    public long weightBytes() {
+        return gzip.length + 2L * etag.length() + 96;
+    }
+
+    /**
+     * ETag fuerte: primeros 16 bytes del SHA-256 del contenido, en hexadecimal
+     */
+    private static String etagOf(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return '"' + HexFormat.of().formatHex(digest, 0, 16) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);  // Toda JVM lo incluye
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.stockmarket.model;
+
+/**
+ * Serie parseada junto con la respuesta codificada de la que salió
+ *
+ * - La ventana (from/to/maxPoints) se escribe desde la serie, pero su ETag y las
+ *   cabeceras de respaldo (Warning 110, X-Stale-Seconds) salen de la respuesta
+ *
+ * @param response Respuesta codificada (ETag de la serie completa, marca de desactualizada)
+ * @param series Misma versión de la serie, en formato columnar
+ */
+public record SeriesResponse(EncodedResponse response, TimeSeries series) {
+}
@@ -0,0 +1,198 @@
+package com.stockmarket.model;
+
+/**
+ * Cálculo de indicadores técnicos sobre las columnas de una TimeSeries
+ *
+ * CONCEPTOS APLICADOS:
+ * - Bucles sobre arreglos primitivos: Se leen directamente las columnas double[]
+ *   de la serie (sin copiarlas, sin boxing, sin objetos por barra)
+ * - Ventanas deslizantes: SMA, VWAP y Bollinger mantienen sumas acumuladas,
+ *   O(n) en total sin importar el período
+ * - Cálculo incremental: Cada método recibe "from"; las posiciones anteriores de
+ *   los arreglos de salida ya están calculadas (se copian del resultado anterior)
+ *   y solo se calcula desde "from". Así, cuando la serie gana una barra, solo se
+ *   calcula esa barra
+ *
+ * CONVENCIONES:
+ * - Los arreglos de salida tienen el largo de la serie; la posición i corresponde a la barra i
+ * - Double.NaN = todavía no hay suficientes barras (período de calentamiento)
+ * - Todos los indicadores se calculan sobre el precio de cierre, salvo VWAP
+ *   (precio típico (high + low + close) / 3 ponderado por volumen)
+ */
+public final class TechnicalIndicators {
+
+    private TechnicalIndicators() {
+        // Clase utilitaria: no se instancia
+    }
+
+    /**
+     * Media móvil simple: promedio de los últimos "period" cierres
+     */
+    public static void sma(TimeSeries series, int period, double[] out, int from) {
+        double[] close = series.closeColumn();
+        int size = close.length;
+        double sum = 0;
+        for (int j = Math.max(0, from - period); j < from; j++) {
+            sum += close[j];
+        }
+        for (int i = from; i < size; i++) {
+            sum += close[i];
+            if (i >= period) {
+                sum -= close[i - period];
+            }
+            out[i] = i >= period - 1 ? sum / period : Double.NaN;
+        }
+    }
+
+    /**
+     * Media móvil exponencial: k = 2 / (period + 1); arranca con la SMA de los primeros "period" cierres
+     */
+    public static void ema(TimeSeries series, int period, double[] out, int from) {
+        emaOver(series.closeColumn(), 0, period, out, from);
+    }
+
+    /**
+     * RSI de Wilder: 100 - 100 / (1 + ganancia promedio / pérdida promedio)
+     *
+     * @param avgGain Estado: ganancia promedio en cada barra (para continuar de forma incremental)
+     * @param avgLoss Estado: pérdida promedio en cada barra
+     */
+    public static void rsi(TimeSeries series, int period, double[] out, double[] avgGain, double[] avgLoss, int from) {
+        double[] close = series.closeColumn();
+        int size = close.length;
+        if (from <= period) {
+            from = 0;  // Dentro del calentamiento: más simple recalcular desde el inicio
+        }
+        for (int i = from; i < size; i++) {
+            if (i < period) {
+                out[i] = avgGain[i] = avgLoss[i] = Double.NaN;
+                continue;
+            }
+            if (i == period) {
+                double gains = 0;
+                double losses = 0;
+                for (int j = 1; j <= period; j++) {
+                    double change = close[j] - close[j - 1];
+                    if (change > 0) {
+                        gains += change;
+                    } else {
+                        losses -= change;
+                    }
+                }
+                avgGain[i] = gains / period;
+                avgLoss[i] = losses / period;
+            } else {
+                double change = close[i] - close[i - 1];
+                avgGain[i] = (avgGain[i - 1] * (period - 1) + Math.max(change, 0)) / period;
+                avgLoss[i] = (avgLoss[i - 1] * (period - 1) + Math.max(-change, 0)) / period;
+            }
+            out[i] = avgLoss[i] == 0 ? 100 : 100 - 100 / (1 + avgGain[i] / avgLoss[i]);
+        }
+    }
+
+    /**
+     * MACD: EMA(fast) - EMA(slow); señal = EMA(signal) del MACD; histograma = MACD - señal
+     *
+     * @param emaFast Estado: EMA rápida
+     * @param emaSlow Estado: EMA lenta
+     */
+    public static void macd(TimeSeries series, int fast, int slow, int signal,
+                            double[] emaFast, double[] emaSlow,
+                            double[] macd, double[] signalLine, double[] histogram, int from) {
+        double[] close = series.closeColumn();
+        int size = close.length;
+        emaOver(close, 0, fast, emaFast, from);
+        emaOver(close, 0, slow, emaSlow, from);
+        for (int i = from; i < size; i++) {
+            macd[i] = emaFast[i] - emaSlow[i];  // NaN mientras alguna EMA esté en calentamiento
+        }
+        emaOver(macd, Math.max(fast, slow) - 1, signal, signalLine, from);
+        for (int i = from; i < size; i++) {
+            histogram[i] = macd[i] - signalLine[i];
+        }
+    }
+
+    /**
+     * VWAP móvil: Σ(precio típico × volumen) / Σ volumen en las últimas "period" barras
+     */
+    public static void vwap(TimeSeries series, int period, double[] out, int from) {
+        double[] high = series.highColumn();
+        double[] low = series.lowColumn();
+        double[] close = series.closeColumn();
+        long[] volume = series.volumeColumn();
+        int size = close.length;
+        double priceVolume = 0;
+        double totalVolume = 0;
+        for (int j = Math.max(0, from - period); j < from; j++) {
+            priceVolume += (high[j] + low[j] + close[j]) / 3 * volume[j];
+            totalVolume += volume[j];
+        }
+        for (int i = from; i < size; i++) {
+            priceVolume += (high[i] + low[i] + close[i]) / 3 * volume[i];
+            totalVolume += volume[i];
+            if (i >= period) {
+                int old = i - period;
+                priceVolume -= (high[old] + low[old] + close[old]) / 3 * volume[old];
+                totalVolume -= volume[old];
+            }
+            out[i] = i >= period - 1 && totalVolume > 0 ? priceVolume / totalVolume : Double.NaN;
+        }
+    }
+
+    /**
+     * Bandas de Bollinger: SMA(period) ± k desviaciones estándar (poblacional)
+     */
+    public static void bollinger(TimeSeries series, int period, double k,
+                                 double[] middle, double[] upper, double[] lower, int from) {
+        double[] close = series.closeColumn();
+        int size = close.length;
+        double sum = 0;
+        double sumSquares = 0;
+        for (int j = Math.max(0, from - period); j < from; j++) {
+            sum += close[j];
+            sumSquares += close[j] * close[j];
+        }
+        for (int i = from; i < size; i++) {
+            sum += close[i];
+            sumSquares += close[i] * close[i];
+            if (i >= period) {
+                double old = close[i - period];
+                sum -= old;
+                sumSquares -= old * old;
+            }
+            if (i < period - 1) {
+                middle[i] = upper[i] = lower[i] = Double.NaN;
+                continue;
+            }
+            double mean = sum / period;
+            double deviation = Math.sqrt(Math.max(0, sumSquares / period - mean * mean));
+            middle[i] = mean;
+            upper[i] = mean + k * deviation;
+            lower[i] = mean - k * deviation;
+        }
+    }
+
+    /**
+     * EMA sobre cualquier columna cuyos valores son válidos desde "firstValid"
+     * - El primer valor (firstValid + period - 1) es la SMA de los primeros "period" valores
+     * - Luego: ema[i] = src[i] × k + ema[i-1] × (1 - k)
+     */
+    private static void emaOver(double[] src, int firstValid, int period, double[] out, int from) {
+        int size = src.length;
+        int seed = firstValid + period - 1;
+        double k = 2.0 / (period + 1);
+        for (int i = from; i < size; i++) {
+            if (i < seed) {
+                out[i] = Double.NaN;
+            } else if (i == seed) {
+                double sum = 0;
+                for (int j = firstValid; j <= seed; j++) {
+                    sum += src[j];
+                }
+                out[i] = sum / period;
+            } else {
+                out[i] = src[i] * k + out[i - 1] * (1 - k);
+            }
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package com.stockmarket.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Serie de tiempo OHLCV almacenada en formato columnar (arreglos primitivos)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Formato columnar: Un arreglo por campo (fechas, open, high, low, close, volumen)
+ *   en vez de un objeto por barra → sin cabeceras de objeto ni referencias
+ * - Tipos primitivos: long[] y double[] no crean objetos Long/Double (sin boxing)
+ * - Inmutabilidad: Los arreglos nunca se modifican después de construir la serie,
+ *   así varios hilos pueden leerla sin sincronización
+ *
+ * ¿POR QUÉ NO GUARDAR EL JSON?
+ * - El JSON repite "1. open", "2. high"... en cada barra y guarda los números como texto
+ * - Una barra diaria ocupa ~118 bytes en JSON y 48 bytes aquí (benchmarks: CacheFootprint)
+ *
+ * ORDEN: Las barras se guardan de la más antigua a la más reciente
+ * (Alpha Vantage las envía al revés; el orden ascendente permite agregar barras al final)
+ *
+ * UNIDAD DE TIEMPO:
+ * - Series diarias/semanales/mensuales: día desde 1970-01-01 (epoch-day)
+ * - Series intradiarias: segundos desde 1970-01-01 00:00:00 (epoch-second, hora de la bolsa)
+ *
+ * ORIGEN (source): Nombre del proveedor que la descargó (ProviderRouter la etiqueta)
+ * - Los proveedores no entregan los mismos precios (ej: Yahoo ajusta por splits y
+ *   Alpha Vantage no), así que mergeNewer nunca combina series de distinto origen
+ * - null = origen desconocido (ej: réplicas de otro nodo); tampoco se combina con
+ *   una serie etiquetada: el refresco siguiente vuelve a descargarla entera
+ */
+public final class TimeSeries {
+
+    /** Bytes de cabecera de un arreglo en la JVM (aproximado) */
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final String[] metaKeys;
+    private final String[] metaValues;
+    private final String seriesName;
+    private final boolean intraday;
+    private final String source;
+
+    private final long[] times;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final long[] volume;
+
+    private TimeSeries(Builder builder) {
+        int size = builder.size;
+        this.metaKeys = builder.metaKeys;
+        this.metaValues = builder.metaValues;
+        this.seriesName = builder.seriesName;
+        this.intraday = builder.intraday;
+        this.source = null;
+        this.times = Arrays.copyOf(builder.times, size);
+        this.open = Arrays.copyOf(builder.open, size);
+        this.high = Arrays.copyOf(builder.high, size);
+        this.low = Arrays.copyOf(builder.low, size);
+        this.close = Arrays.copyOf(builder.close, size);
+        this.volume = Arrays.copyOf(builder.volume, size);
+    }
+
+    private TimeSeries(String[] metaKeys, String[] metaValues, String seriesName, boolean intraday, String source,
+                       long[] times, double[] open, double[] high, double[] low, double[] close, long[] volume) {
+        this.metaKeys = metaKeys;
+        this.metaValues = metaValues;
+        this.seriesName = seriesName;
+        this.intraday = intraday;
+        this.source = source;
+        this.times = times;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+    }
+
+    /**
+     * Crea una serie directamente a partir de sus columnas (sin copiarlas)
+     *
+     * IMPORTANTE: La serie pasa a ser dueña de los arreglos; quien llama no debe
+     * modificarlos después. Las fechas deben estar en orden ascendente.
+     *
+     * @throws IllegalArgumentException si las columnas no tienen el mismo largo
+     */
+    public static TimeSeries fromColumns(String[] metaKeys, String[] metaValues, String seriesName, boolean intraday,
+                                         long[] times, double[] open, double[] high, double[] low,
+                                         double[] close, long[] volume) {
+        int size = times.length;
+        if (open.length != size || high.length != size || low.length != size
+                || close.length != size || volume.length != size || metaKeys.length != metaValues.length) {
+            throw new IllegalArgumentException("Las columnas de la serie no tienen el mismo largo");
+        }
+        return new TimeSeries(metaKeys, metaValues, seriesName, intraday, null, times, open, high, low, close, volume);
+    }
+
+    /**
+     * Crea un builder para armar una serie barra por barra
+     *
+     * @param seriesName Nombre de la serie en el JSON (ej: "Time Series (Daily)")
+     * @param intraday true si las fechas son epoch-second, false si son epoch-day
+     * @return Builder vacío
+     */
+    public static Builder builder(String seriesName, boolean intraday) {
+        return new Builder(seriesName, intraday);
+    }
+
+    /** @return Número de barras */
+    public int size() {
+        return times.length;
+    }
+
+    /** @return Nombre de la serie en el JSON (ej: "Time Series (Daily)") */
+    public String seriesName() {
+        return seriesName;
+    }
+
+    /** @return true si las fechas son epoch-second, false si son epoch-day */
+    public boolean isIntraday() {
+        return intraday;
+    }
+
+    /** @return Proveedor que descargó la serie, o null si no se sabe */
+    public String source() {
+        return source;
+    }
+
+    /**
+     * La misma serie etiquetada con su proveedor (comparte los arreglos, sin copiarlos)
+     *
+     * @param source Nombre del proveedor (MarketDataProvider.name())
+     * @return Serie con ese origen (this si ya lo tenía)
+     */
+    public TimeSeries withSource(String source) {
+        if (Objects.equals(this.source, source)) {
+            return this;
+        }
+        return new TimeSeries(metaKeys, metaValues, seriesName, intraday, source,
+            times, open, high, low, close, volume);
+    }
+
+    /** @return Número de entradas de "Meta Data" */
+    public int metaSize() {
+        return metaKeys.length;
+    }
+
+    public String metaKey(int index) {
+        return metaKeys[index];
+    }
+
+    public String metaValue(int index) {
+        return metaValues[index];
+    }
+
+    /**
+     * Indica si la serie es la historia completa del proveedor ("Output Size": "Full size")
+     *
+     * NOTA: Alpha Vantage, Yahoo (YahooChartParser) y el stub escriben "Compact" o
+     * "Full size" según el outputsize pedido; una serie combinada con mergeNewer
+     * conserva el valor de la serie base
+     *
+     * @return true solo si la serie trae "Output Size" = "Full size"
+     */
+    public boolean isFullHistory() {
+        for (int i = 0; i < metaKeys.length; i++) {
+            if (metaKeys[i].endsWith(". Output Size")) {
+                return metaValues[i].regionMatches(true, 0, "Full", 0, 4);
+            }
+        }
+        return false;
+    }
+
+    public long time(int index) {
+        return times[index];
+    }
+
+    public double open(int index) {
+        return open[index];
+    }
+
+    public double high(int index) {
+        return high[index];
+    }
+
+    public double low(int index) {
+        return low[index];
+    }
+
+    public double close(int index) {
+        return close[index];
+    }
+
+    public long volume(int index) {
+        return volume[index];
+    }
+
+    /**
+     * Primera barra con fecha >= time (búsqueda binaria: las fechas están ordenadas)
+     *
+     * @param time Fecha en la unidad de la serie (epoch-day o epoch-second)
+     * @return Índice de esa barra, o size() si todas son anteriores
+     */
+    public int indexAtOrAfter(long time) {
+        int index = Arrays.binarySearch(times, time);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // ---- Columnas completas para los cálculos del paquete (TechnicalIndicators) ----
+    // Se entregan sin copiar: quien las usa NUNCA debe modificarlas
+
+    double[] highColumn() {
+        return high;
+    }
+
+    double[] lowColumn() {
+        return low;
+    }
+
+    double[] closeColumn() {
+        return close;
+    }
+
+    long[] volumeColumn() {
+        return volume;
+    }
+
+    /**
+     * Primera barra en la que esta serie y "other" difieren
+     *
+     * - Sirve para recalcular solo la parte que cambió (ej: indicadores tras mergeNewer,
+     *   donde el prefijo se copió tal cual y solo cambian las últimas barras)
+     * - Arrays.mismatch compara en bloque (vectorizado por la JVM)
+     *
+     * @param other Otra versión de la misma serie
+     * @return Índice de la primera barra distinta; el largo menor si una es prefijo de la otra;
+     *         -1 si son idénticas
+     */
+    public int firstDifference(TimeSeries other) {
+        int first = Integer.MAX_VALUE;
+        first = minMismatch(first, Arrays.mismatch(times, other.times));
+        first = minMismatch(first, Arrays.mismatch(open, other.open));
+        first = minMismatch(first, Arrays.mismatch(high, other.high));
+        first = minMismatch(first, Arrays.mismatch(low, other.low));
+        first = minMismatch(first, Arrays.mismatch(close, other.close));
+        first = minMismatch(first, Arrays.mismatch(volume, other.volume));
+        return first == Integer.MAX_VALUE ? -1 : first;
+    }
+
+    private static int minMismatch(int current, int mismatch) {
+        return mismatch < 0 ? current : Math.min(current, mismatch);
+    }
+
+    /**
+     * Combina esta serie con una descarga más reciente, sin límite de barras
+     *
+     * @see #mergeNewer(TimeSeries, int)
+     */
+    public TimeSeries mergeNewer(TimeSeries newer) {
+        return mergeNewer(newer, 0);
+    }
+
+    /**
+     * Combina esta serie con una descarga más reciente (ej: "compact", las últimas 100 barras)
+     *
+     * REGLAS:
+     * - Las barras anteriores a la primera de "newer" se conservan tal cual
+     * - Desde la primera barra de "newer" en adelante manda "newer": se agregan
+     *   las barras nuevas y se sobrescribe la barra abierta (la del día/intervalo en curso)
+     * - Si "newer" no se solapa con esta serie hay un hueco (faltan barras en medio)
+     *   y no se puede combinar
+     * - Si "newer" viene de otro proveedor (source) tampoco: los precios pueden estar
+     *   ajustados distinto y la serie quedaría con dos escalas mezcladas
+     * - Si el resultado pasa de maxBars se descartan las barras más viejas: una clave
+     *   que se refresca siempre (refresh-ahead, stream) no crece sin límite. La serie
+     *   recortada deja de ser la historia completa ("Output Size" de "newer")
+     *
+     * NOTA: La serie es inmutable (la leen varios hilos), así que el resultado
+     * es una serie nueva; las columnas se copian en bloque (System.arraycopy)
+     *
+     * @param newer Serie descargada más reciente
+     * @param maxBars Máximo de barras del resultado (0 = sin límite)
+     * @return Serie combinada, this si nada cambió, o null si hay un hueco o cambió el proveedor
+     */
+    public TimeSeries mergeNewer(TimeSeries newer, int maxBars) {
+        int newerSize = newer.size();
+        if (newer.intraday != intraday || !Objects.equals(newer.source, source)) {
+            return null;
+        }
+        if (newerSize == 0) {
+            return this;
+        }
+        if (times.length == 0 || newer.times[0] > times[times.length - 1]) {
+            return null;  // Hueco: la descarga empieza después de nuestra última barra
+        }
+
+        // Primera barra propia que "newer" reemplaza (las fechas están ordenadas)
+        int keep = Arrays.binarySearch(times, newer.times[0]);
+        if (keep < 0) {
+            keep = -keep - 1;
+        }
+        if (keep + newerSize == times.length && sameBars(keep, newer)) {
+            return this;  // Sin barras nuevas ni cambios: se conserva (y su ETag)
+        }
+
+        // Barras viejas que se descartan para no pasar de maxBars
+        int drop = maxBars > 0 ? Math.min(keep, Math.max(0, keep + newerSize - maxBars)) : 0;
+        int kept = keep - drop;
+        int size = kept + newerSize;
+        long[] mergedTimes = new long[size];
+        double[] mergedOpen = new double[size];
+        double[] mergedHigh = new double[size];
+        double[] mergedLow = new double[size];
+        double[] mergedClose = new double[size];
+        long[] mergedVolume = new long[size];
+        System.arraycopy(times, drop, mergedTimes, 0, kept);
+        System.arraycopy(open, drop, mergedOpen, 0, kept);
+        System.arraycopy(high, drop, mergedHigh, 0, kept);
+        System.arraycopy(low, drop, mergedLow, 0, kept);
+        System.arraycopy(close, drop, mergedClose, 0, kept);
+        System.arraycopy(volume, drop, mergedVolume, 0, kept);
+        System.arraycopy(newer.times, 0, mergedTimes, kept, newerSize);
+        System.arraycopy(newer.open, 0, mergedOpen, kept, newerSize);
+        System.arraycopy(newer.high, 0, mergedHigh, kept, newerSize);
+        System.arraycopy(newer.low, 0, mergedLow, kept, newerSize);
+        System.arraycopy(newer.close, 0, mergedClose, kept, newerSize);
+        System.arraycopy(newer.volume, 0, mergedVolume, kept, newerSize);
+
+        String[] metaValues = drop > 0 ? newer.metaValues : mergedMetaValues(newer);
+        return new TimeSeries(newer.metaKeys, metaValues, seriesName, intraday, source,
+            mergedTimes, mergedOpen, mergedHigh, mergedLow, mergedClose, mergedVolume);
+    }
+
+    /**
+     * Meta Data de "newer" (trae el "Last Refreshed" nuevo), conservando el
+     * "Output Size" propio: la serie combinada sigue teniendo toda la historia
+     */
+    private String[] mergedMetaValues(TimeSeries newer) {
+        String[] values = newer.metaValues.clone();
+        for (int i = 0; i < values.length; i++) {
+            if (newer.metaKeys[i].endsWith(". Output Size")) {
+                for (int j = 0; j < metaKeys.length; j++) {
+                    if (metaKeys[j].endsWith(". Output Size")) {
+                        values[i] = metaValues[j];
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return true si las barras desde "from" son idénticas a las de "newer"
+     */
+    private boolean sameBars(int from, TimeSeries newer) {
+        return Arrays.equals(times, from, times.length, newer.times, 0, newer.times.length)
+            && Arrays.equals(open, from, open.length, newer.open, 0, newer.open.length)
+            && Arrays.equals(high, from, high.length, newer.high, 0, newer.high.length)
+            && Arrays.equals(low, from, low.length, newer.low, 0, newer.low.length)
+            && Arrays.equals(close, from, close.length, newer.close, 0, newer.close.length)
+            && Arrays.equals(volume, from, volume.length, newer.volume, 0, newer.volume.length);
+    }
+
+    /**
+     * Estima la memoria ocupada por la serie (para el peso del cache)
+     *
+     * @return Bytes aproximados
+     */
+    public long weightBytes() {
+        long bytes = 6L * ARRAY_HEADER_BYTES + 48L * times.length;
+        for (int i = 0; i < metaKeys.length; i++) {
+            bytes += 2L * (metaKeys[i].length() + metaValues[i].length()) + 2 * 48;
+        }
+        return bytes + 2L * seriesName.length() + (source == null ? 0 : 2L * source.length()) + 64;
+    }
+
+    /**
+     * Construye una TimeSeries barra por barra
+     *
+     * - Los arreglos crecen al doble cuando se llenan (como ArrayList)
+     * - Acepta las barras en cualquier orden; build() las deja de la más
+     *   antigua a la más reciente
+     * - NO es thread-safe: se usa desde un solo hilo (el que parsea)
+     */
+    public static final class Builder {
+
+        private final String seriesName;
+        private final boolean intraday;
+        private String[] metaKeys = new String[0];
+        private String[] metaValues = new String[0];
+
+        private long[] times = new long[64];
+        private double[] open = new double[64];
+        private double[] high = new double[64];
+        private double[] low = new double[64];
+        private double[] close = new double[64];
+        private long[] volume = new long[64];
+        private int size;
+
+        private Builder(String seriesName, boolean intraday) {
+            this.seriesName = seriesName;
+            this.intraday = intraday;
+        }
+
+        /**
+         * Define el bloque "Meta Data" (en el orden original)
+         */
+        public Builder meta(String[] keys, String[] values) {
+            this.metaKeys = keys;
+            this.metaValues = values;
+            return this;
+        }
+
+        /**
+         * Agrega una barra
+         */
+        public Builder add(long time, double o, double h, double l, double c, long v) {
+            if (size == times.length) {
+                int capacity = size * 2;
+                times = Arrays.copyOf(times, capacity);
+                open = Arrays.copyOf(open, capacity);
+                high = Arrays.copyOf(high, capacity);
+                low = Arrays.copyOf(low, capacity);
+                close = Arrays.copyOf(close, capacity);
+                volume = Arrays.copyOf(volume, capacity);
+            }
+            times[size] = time;
+            open[size] = o;
+            high[size] = h;
+            low[size] = l;
+            close[size] = c;
+            volume[size] = v;
+            size++;
+            return this;
+        }
+
+        /**
+         * Crea la serie inmutable (ordenada de la barra más antigua a la más reciente)
+         */
+        public TimeSeries build() {
+            sortAscending();
+            return new TimeSeries(this);
+        }
+
+        /**
+         * Alpha Vantage envía las barras de la más reciente a la más antigua:
+         * en ese caso basta invertir los arreglos (O(n)). Cualquier otro orden
+         * se resuelve con un ordenamiento por índice.
+         */
+        private void sortAscending() {
+            boolean ascending = true;
+            boolean descending = true;
+            for (int i = 1; i < size; i++) {
+                ascending &= times[i - 1] <= times[i];
+                descending &= times[i - 1] >= times[i];
+            }
+            if (ascending) {
+                return;
+            }
+            if (descending) {
+                for (int i = 0, j = size - 1; i < j; i++, j--) {
+                    swap(i, j);
+                }
+                return;
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(times[a], times[b]));
+            long[] t = new long[size];
+            double[] o = new double[size];
+            double[] h = new double[size];
+            double[] l = new double[size];
+            double[] c = new double[size];
+            long[] v = new long[size];
+            for (int i = 0; i < size; i++) {
+                int from = order[i];
+                t[i] = times[from];
+                o[i] = open[from];
+                h[i] = high[from];
+                l[i] = low[from];
+                c[i] = close[from];
+                v[i] = volume[from];
+            }
+            times = t;
+            open = o;
+            high = h;
+            low = l;
+            close = c;
+            volume = v;
+        }
+
+        private void swap(int i, int j) {
+            long t = times[i]; times[i] = times[j]; times[j] = t;
+            double d = open[i]; open[i] = open[j]; open[j] = d;
+            d = high[i]; high[i] = high[j]; high[j] = d;
+            d = low[i]; low[i] = low[j]; low[j] = d;
+            d = close[i]; close[i] = close[j]; close[j] = d;
+            long v = volume[i]; volume[i] = volume[j]; volume[j] = v;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.stockmarket.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Arma series de menor resolución a partir de otra ya descargada
+ *
+ * - Diaria → semanal / mensual (mismo formato que TIME_SERIES_WEEKLY / MONTHLY)
+ * - Intradiaria → intradiaria más gruesa (ej: 5min → 15min, 30min, 60min)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Una sola pasada lineal: Las barras ya están en orden ascendente, así que cada
+ *   "balde" (semana, mes, 15 minutos) es un tramo contiguo de la serie
+ * - Sin objetos por barra: Se escribe directo en arreglos primitivos; al final
+ *   solo se recortan al número de baldes
+ * - Se calcula el límite del balde solo al cambiar de balde (LocalDate una vez por mes,
+ *   no una vez por barra)
+ *
+ * REGLAS OHLCV (las mismas de Alpha Vantage):
+ * - open = open de la primera barra, close = close de la última
+ * - high = máximo, low = mínimo, volume = suma
+ * - Semanal/mensual: la barra lleva la fecha del ÚLTIMO día con datos del balde
+ *   (ej: el viernes, o el último día hábil del mes)
+ * - Intradiaria: la barra lleva la hora de inicio del balde
+ *
+ * PRIMER BALDE: La serie de origen puede empezar a mitad de semana/mes (ej: "compact"
+ * trae solo las últimas 100 barras), así que el primer balde se descarta cuando hay
+ * más de uno: nunca se entrega una barra incompleta como si fuera completa.
+ * Si la diaria es la historia completa (TimeSeries.isFullHistory) el primer balde
+ * se conserva: es el inicio real de la historia, igual que en la API
+ */
+public final class TimeSeriesAggregator {
+
+    private static final int SECONDS_PER_MINUTE = 60;
+
+    private TimeSeriesAggregator() {
+        // Clase utilitaria: no se instancia
+    }
+
+    /**
+     * Serie semanal (semanas de lunes a domingo) a partir de la diaria
+     *
+     * @param daily Serie diaria (fechas en epoch-day)
+     * @return Serie equivalente a TIME_SERIES_WEEKLY para el rango de la diaria
+     */
+    public static TimeSeries toWeekly(TimeSeries daily) {
+        requireDaily(daily);
+        // epoch-day 0 (1970-01-01) fue jueves: +3 alinea las semanas al lunes
+        return aggregate(daily, "Weekly Time Series",
+            metaFor(daily, "Weekly Prices (open, high, low, close) and Volumes"),
+            day -> (Math.floorDiv(day + 3, 7) + 1) * 7 - 3,
+            0, daily.isFullHistory());
+    }
+
+    /**
+     * Serie mensual a partir de la diaria
+     *
+     * @param daily Serie diaria (fechas en epoch-day)
+     * @return Serie equivalente a TIME_SERIES_MONTHLY para el rango de la diaria
+     */
+    public static TimeSeries toMonthly(TimeSeries daily) {
+        requireDaily(daily);
+        return aggregate(daily, "Monthly Time Series",
+            metaFor(daily, "Monthly Prices (open, high, low, close) and Volumes"),
+            day -> LocalDate.ofEpochDay(day).withDayOfMonth(1).plusMonths(1).toEpochDay(),
+            0, daily.isFullHistory());
+    }
+
+    /**
+     * Serie intradiaria más gruesa (ej: de 5min a 15min)
+     *
+     * @param intraday Serie intradiaria (fechas en epoch-second)
+     * @param minutes Minutos por barra de la serie resultante (múltiplo del intervalo de origen)
+     * @return Serie con barras de "minutes" minutos
+     */
+    public static TimeSeries toIntraday(TimeSeries intraday, int minutes) {
+        if (!intraday.isIntraday() || minutes <= 0) {
+            throw new IllegalArgumentException("Se requiere una serie intradiaria y minutos > 0");
+        }
+        long bucketSeconds = (long) minutes * SECONDS_PER_MINUTE;
+        String interval = minutes + "min";
+
+        String[] keys = new String[intraday.metaSize()];
+        String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = intraday.metaKey(i);
+            values[i] = intraday.metaValue(i);
+            if (keys[i].endsWith(". Information")) {
+                values[i] = "Intraday (" + interval + ") open, high, low, close prices and volume";
+            } else if (keys[i].endsWith(". Interval")) {
+                values[i] = interval;
+            }
+        }
+        return aggregate(intraday, "Time Series (" + interval + ")", new String[][] {keys, values},
+            second -> (Math.floorDiv(second, bucketSeconds) + 1) * bucketSeconds,
+            bucketSeconds, false);
+    }
+
+    /**
+     * Límite (exclusivo) del balde que contiene un instante
+     */
+    @FunctionalInterface
+    private interface BucketEnd {
+        long after(long time);
+    }
+
+    /**
+     * Recorre la serie una vez, cerrando un balde cada vez que una barra cruza su límite
+     *
+     * @param bucketSeconds Largo del balde intradiario (para etiquetar con su inicio); 0 en diarias
+     * @param keepFirst true si el primer balde está completo (la fuente es toda la historia)
+     */
+    private static TimeSeries aggregate(TimeSeries source, String seriesName, String[][] meta,
+                                        BucketEnd bucketEnd, long bucketSeconds, boolean keepFirst) {
+        boolean intraday = source.isIntraday();
+        int n = source.size();
+        long[] times = new long[n];
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        long[] volume = new long[n];
+
+        int out = -1;
+        long end = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            long time = source.time(i);
+            if (out < 0 || time >= end) {
+                // Nuevo balde
+                out++;
+                end = bucketEnd.after(time);
+                times[out] = intraday ? end - bucketSeconds : time;
+                open[out] = source.open(i);
+                high[out] = source.high(i);
+                low[out] = source.low(i);
+                volume[out] = 0;
+            } else {
+                high[out] = Math.max(high[out], source.high(i));
+                low[out] = Math.min(low[out], source.low(i));
+                if (!intraday) {
+                    times[out] = time;  // Semanal/mensual: fecha del último día del balde
+                }
+            }
+            close[out] = source.close(i);
+            volume[out] += source.volume(i);
+        }
+
+        int buckets = out + 1;
+        int from = buckets > 1 && !keepFirst ? 1 : 0;  // Primer balde posiblemente incompleto
+        return TimeSeries.fromColumns(meta[0], meta[1], seriesName, intraday,
+            Arrays.copyOfRange(times, from, buckets),
+            Arrays.copyOfRange(open, from, buckets),
+            Arrays.copyOfRange(high, from, buckets),
+            Arrays.copyOfRange(low, from, buckets),
+            Arrays.copyOfRange(close, from, buckets),
+            Arrays.copyOfRange(volume, from, buckets)).withSource(source.source());
+    }
+
+    /**
+     * Meta Data de la serie semanal/mensual: Information + Symbol, Last Refreshed
+     * y Time Zone copiados de la diaria (sin "Output Size", como en Alpha Vantage)
+     */
+    private static String[][] metaFor(TimeSeries daily, String information) {
+        String[] keys = {"1. Information", "2. Symbol", "3. Last Refreshed", "4. Time Zone"};
+        String[] values = {information, "", "", "US/Eastern"};
+        for (int i = 0; i < daily.metaSize(); i++) {
+            String key = daily.metaKey(i);
+            if (key.endsWith(". Symbol")) {
+                values[1] = daily.metaValue(i);
+            } else if (key.endsWith(". Last Refreshed")) {
+                values[2] = daily.metaValue(i);
+            } else if (key.endsWith(". Time Zone")) {
+                values[3] = daily.metaValue(i);
+            }
+        }
+        return new String[][] {keys, values};
+    }
+
+    private static void requireDaily(TimeSeries series) {
+        if (series.isIntraday()) {
+            throw new IllegalArgumentException("Se requiere una serie diaria");
+        }
+    }
+}
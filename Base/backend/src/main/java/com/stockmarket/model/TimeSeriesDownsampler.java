@@ -0,0 +1,91 @@
+package com.stockmarket.model;
+
+/**
+ * Reduce un tramo de la serie a un máximo de puntos conservando su forma
+ *
+ * ALGORITMO: LTTB (Largest-Triangle-Three-Buckets, Sveinn Steinarsson, 2013)
+ * - Siempre se conservan la primera y la última barra
+ * - El resto del tramo se divide en (maxPoints - 2) baldes contiguos
+ * - De cada balde se elige la barra que forma el triángulo de mayor área con
+ *   la barra elegida en el balde anterior y el promedio del balde siguiente
+ *   → se conservan picos y valles (un promedio o un muestreo cada N los aplanaría)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Una sola pasada lineal sobre el tramo, sin objetos por barra
+ * - Se eligen barras reales (no se inventan valores): el resultado son índices
+ *   de la serie original, que se escriben tal cual
+ *
+ * NOTA: La forma se calcula sobre el cierre (x = fecha, y = close), que es lo que
+ * dibuja el gráfico de líneas del frontend
+ */
+public final class TimeSeriesDownsampler {
+
+    private TimeSeriesDownsampler() {
+        // Clase utilitaria: no se instancia
+    }
+
+    /**
+     * @param series Serie completa
+     * @param from Primera barra del tramo (inclusiva)
+     * @param to Fin del tramo (exclusivo)
+     * @param maxPoints Máximo de barras del resultado (>= 3)
+     * @return Índices elegidos en orden ascendente (todo el tramo si cabe en maxPoints)
+     */
+    public static int[] lttb(TimeSeries series, int from, int to, int maxPoints) {
+        int count = to - from;
+        if (count <= maxPoints || maxPoints < 3) {
+            int[] all = new int[Math.max(0, count)];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = from + i;
+            }
+            return all;
+        }
+
+        double[] close = series.closeColumn();
+        int[] selected = new int[maxPoints];
+        selected[0] = from;
+        selected[maxPoints - 1] = to - 1;
+
+        // Baldes sobre las barras interiores (sin la primera ni la última)
+        double bucketSize = (double) (count - 2) / (maxPoints - 2);
+        int previous = from;
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int start = from + 1 + (int) (bucket * bucketSize);
+            int end = from + 1 + (int) ((bucket + 1) * bucketSize);
+
+            // Promedio del balde siguiente (o la última barra, en el último balde)
+            int nextStart = end;
+            int nextEnd = Math.min(from + 1 + (int) ((bucket + 2) * bucketSize), to - 1);
+            double avgX = 0;
+            double avgY = 0;
+            if (nextStart >= nextEnd) {
+                avgX = series.time(to - 1);
+                avgY = close[to - 1];
+            } else {
+                for (int j = nextStart; j < nextEnd; j++) {
+                    avgX += series.time(j);
+                    avgY += close[j];
+                }
+                avgX /= nextEnd - nextStart;
+                avgY /= nextEnd - nextStart;
+            }
+
+            // Barra del balde con el triángulo más grande
+            double prevX = series.time(previous);
+            double prevY = close[previous];
+            double maxArea = -1;
+            int chosen = start;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((prevX - avgX) * (close[j] - prevY)
+                    - (prevX - series.time(j)) * (avgY - prevY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = j;
+                }
+            }
+            selected[bucket + 1] = chosen;
+            previous = chosen;
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,260 @@
+package com.stockmarket.model;
+
+import java.time.LocalDate;
+
+/**
+ * Convierte una TimeSeries al JSON que espera el frontend (formato Alpha Vantage)
+ *
+ * FORMATO GENERADO:
+ * {
+ *   "Meta Data": {...},
+ *   "Time Series (Daily)": {
+ *     "2025-01-15": {"1. open":"150.0000","2. high":"151.0000",...,"5. volume":"1000000"},
+ *     ...
+ *   }
+ * }
+ *
+ * - Las barras se escriben de la más reciente a la más antigua (como Alpha Vantage),
+ *   el frontend toma las primeras 30
+ * - Se escribe a mano con StringBuilder: sin objetos intermedios ni reflexión
+ */
+public final class TimeSeriesJsonWriter {
+
+    /** Bytes aproximados por barra en el JSON (para dimensionar el StringBuilder) */
+    private static final int BYTES_PER_BAR = 130;
+
+    private TimeSeriesJsonWriter() {
+        // Clase utilitaria: no se instancia
+    }
+
+    /**
+     * Genera el JSON de la serie completa
+     *
+     * @param series Serie a convertir
+     * @return JSON en formato Alpha Vantage
+     */
+    public static String toJson(TimeSeries series) {
+        StringBuilder sb = new StringBuilder(256 + series.size() * BYTES_PER_BAR);
+        appendHeader(sb, series);
+        for (int i = series.size() - 1; i >= 0; i--) {
+            appendBar(sb, series, i);
+            if (i > 0) {
+                sb.append(',');
+            }
+        }
+        return sb.append("}}").toString();
+    }
+
+    /**
+     * Genera el JSON con solo algunas barras (rango de fechas y/o reducción de puntos)
+     *
+     * - El tamaño y el tiempo de escritura dependen de las barras elegidas,
+     *   no del largo de la serie
+     *
+     * @param series Serie completa
+     * @param indices Posiciones de las barras a escribir, en orden ascendente
+     * @return JSON en formato Alpha Vantage (mismo "Meta Data")
+     */
+    public static String toJson(TimeSeries series, int[] indices) {
+        StringBuilder sb = new StringBuilder(256 + indices.length * BYTES_PER_BAR);
+        appendHeader(sb, series);
+        for (int k = indices.length - 1; k >= 0; k--) {
+            appendBar(sb, series, indices[k]);
+            if (k > 0) {
+                sb.append(',');
+            }
+        }
+        return sb.append("}}").toString();
+    }
+
+    /**
+     * Escribe "Meta Data" y abre el objeto de la serie
+     */
+    private static void appendHeader(StringBuilder sb, TimeSeries series) {
+        sb.append("{\"Meta Data\":{");
+        for (int i = 0; i < series.metaSize(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendString(sb, series.metaKey(i));
+            sb.append(':');
+            appendString(sb, series.metaValue(i));
+        }
+        sb.append("},");
+
+        appendString(sb, series.seriesName());
+        sb.append(":{");
+    }
+
+    /**
+     * Escribe una barra: "2025-01-15":{"1. open":"150.0000",...,"5. volume":"1000000"}
+     */
+    private static void appendBar(StringBuilder sb, TimeSeries series, int i) {
+        sb.append('"');
+        appendTime(sb, series.time(i), series.isIntraday());
+        sb.append("\":{\"1. open\":\"");
+        appendPrice(sb, series.open(i));
+        sb.append("\",\"2. high\":\"");
+        appendPrice(sb, series.high(i));
+        sb.append("\",\"3. low\":\"");
+        appendPrice(sb, series.low(i));
+        sb.append("\",\"4. close\":\"");
+        appendPrice(sb, series.close(i));
+        sb.append("\",\"5. volume\":\"").append(series.volume(i)).append("\"}");
+    }
+
+    /**
+     * Genera el JSON de UNA barra (para eventos en streaming)
+     *
+     * Ejemplo: {"symbol":"IBM","time":"2025-01-15 16:00:00","open":"150.0000",
+     *           "high":"151.0000","low":"149.5000","close":"150.2500","volume":"12345"}
+     *
+     * @param symbol Símbolo de la acción
+     * @param series Serie que contiene la barra
+     * @param index Posición de la barra en la serie
+     * @return JSON de la barra
+     */
+    public static String toBarJson(String symbol, TimeSeries series, int index) {
+        StringBuilder sb = new StringBuilder(64 + BYTES_PER_BAR);
+        sb.append("{\"symbol\":");
+        appendString(sb, symbol);
+        sb.append(",\"time\":\"");
+        appendTime(sb, series.time(index), series.isIntraday());
+        sb.append("\",\"open\":\"");
+        appendPrice(sb, series.open(index));
+        sb.append("\",\"high\":\"");
+        appendPrice(sb, series.high(index));
+        sb.append("\",\"low\":\"");
+        appendPrice(sb, series.low(index));
+        sb.append("\",\"close\":\"");
+        appendPrice(sb, series.close(index));
+        sb.append("\",\"volume\":\"").append(series.volume(index)).append("\"}");
+        return sb.toString();
+    }
+
+    /**
+     * Genera el JSON de indicadores técnicos (formato parecido a los endpoints
+     * de indicadores de Alpha Vantage, pero con varios indicadores por fecha)
+     *
+     * Ejemplo:
+     * {"Meta Data":{"1: Symbol":"IBM","2: Interval":"daily","3: Indicators":"SMA(50), RSI(14)"},
+     *  "Technical Analysis":{"2025-01-15":{"SMA(50)":"150.1234","RSI(14)":"55.4321"},...}}
+     *
+     * - Los valores NaN (período de calentamiento) se omiten; una fecha sin
+     *   ningún valor no se escribe
+     * - De la más reciente a la más antigua, igual que las series
+     *
+     * @param symbol Símbolo de la acción
+     * @param interval Intervalo (ej: "daily")
+     * @param series Serie sobre la que se calcularon (aporta las fechas)
+     * @param labels Nombre de cada columna (ej: "SMA(50)")
+     * @param columns Valores de cada columna, alineados con las barras de la serie
+     * @return JSON de los indicadores
+     */
+    public static String toIndicatorJson(String symbol, String interval, TimeSeries series,
+                                         String[] labels, double[][] columns) {
+        StringBuilder sb = new StringBuilder(256 + series.size() * (32 + labels.length * 24));
+        sb.append("{\"Meta Data\":{\"1: Symbol\":");
+        appendString(sb, symbol);
+        sb.append(",\"2: Interval\":");
+        appendString(sb, interval);
+        sb.append(",\"3: Indicators\":");
+        appendString(sb, String.join(", ", labels));
+        sb.append("},\"Technical Analysis\":{");
+
+        boolean firstBar = true;
+        for (int i = series.size() - 1; i >= 0; i--) {
+            boolean firstValue = true;
+            for (int c = 0; c < columns.length; c++) {
+                double value = columns[c][i];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                if (firstValue) {
+                    if (!firstBar) {
+                        sb.append(',');
+                    }
+                    sb.append('"');
+                    appendTime(sb, series.time(i), series.isIntraday());
+                    sb.append("\":{");
+                    firstBar = false;
+                    firstValue = false;
+                } else {
+                    sb.append(',');
+                }
+                appendString(sb, labels[c]);
+                sb.append(":\"");
+                appendPrice(sb, value);
+                sb.append('"');
+            }
+            if (!firstValue) {
+                sb.append('}');
+            }
+        }
+        return sb.append("}}").toString();
+    }
+
+    /**
+     * Escribe la fecha como "yyyy-MM-dd" o "yyyy-MM-dd HH:mm:ss"
+     */
+    static void appendTime(StringBuilder sb, long time, boolean intraday) {
+        long epochDay = intraday ? Math.floorDiv(time, 86_400) : time;
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        sb.append(date.getYear()).append('-');
+        appendTwoDigits(sb, date.getMonthValue());
+        sb.append('-');
+        appendTwoDigits(sb, date.getDayOfMonth());
+        if (intraday) {
+            int secondOfDay = (int) Math.floorMod(time, 86_400);
+            sb.append(' ');
+            appendTwoDigits(sb, secondOfDay / 3600);
+            sb.append(':');
+            appendTwoDigits(sb, secondOfDay / 60 % 60);
+            sb.append(':');
+            appendTwoDigits(sb, secondOfDay % 60);
+        }
+    }
+
+    /**
+     * Escribe un precio con 4 decimales ("150.0000"), igual que Alpha Vantage
+     * - Sin String.format (lento y crea objetos)
+     */
+    static void appendPrice(StringBuilder sb, double value) {
+        long scaled = Math.round(value * 10_000);
+        if (scaled < 0) {
+            sb.append('-');
+            scaled = -scaled;
+        }
+        sb.append(scaled / 10_000).append('.');
+        long fraction = scaled % 10_000;
+        if (fraction < 1000) sb.append('0');
+        if (fraction < 100) sb.append('0');
+        if (fraction < 10) sb.append('0');
+        sb.append(fraction);
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+        sb.append(value);
+    }
+
+    /**
+     * Escribe un texto JSON escapando comillas, barras y caracteres de control
+     */
+    private static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
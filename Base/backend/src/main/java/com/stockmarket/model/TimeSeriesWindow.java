@@ -0,0 +1,114 @@
+package com.stockmarket.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Ventana visible de una serie: rango de fechas + máximo de puntos
+ *
+ * Ejemplos (query de los endpoints de series):
+ * - ?from=2024-01-01&to=2024-03-31 → solo el primer trimestre
+ * - ?from=2024-06-01&maxPoints=800 → desde junio, como mucho 800 barras (LTTB)
+ * - ?to=2024-06-14 15:30:00 → hasta esa hora (series intradiarias)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Búsqueda binaria: Los extremos del rango se ubican en O(log n) sobre las fechas
+ *   ordenadas (TimeSeries.indexAtOrAfter), sin recorrer la historia guardada
+ * - Reducción en el servidor: Si el rango tiene más barras que maxPoints se eligen
+ *   con LTTB (TimeSeriesDownsampler); el tamaño de la respuesta depende de la
+ *   ventana visible, no de la serie completa
+ *
+ * FECHAS: "yyyy-MM-dd" o "yyyy-MM-dd HH:mm:ss" (ambos extremos inclusivos)
+ * - Solo fecha en "to" → hasta el final de ese día
+ * - En series diarias/semanales/mensuales la hora se ignora
+ *
+ * @param from Desde (null = desde la primera barra)
+ * @param to Hasta (null = hasta la última barra)
+ * @param maxPoints Máximo de barras (0 = sin límite)
+ */
+public record TimeSeriesWindow(LocalDateTime from, LocalDateTime to, int maxPoints) {
+
+    /** Mínimo de puntos para LTTB (primera + última + al menos un balde) */
+    public static final int MIN_POINTS = 3;
+
+    /**
+     * Lee los parámetros de la query
+     *
+     * @param from Parámetro "from" (puede ser null)
+     * @param to Parámetro "to" (puede ser null)
+     * @param maxPoints Parámetro "maxPoints" (puede ser null)
+     * @return Ventana, o null si no se pidió ninguno (se responde la serie completa)
+     * @throws IllegalArgumentException Si una fecha o maxPoints no es válido
+     */
+    public static TimeSeriesWindow parse(String from, String to, Integer maxPoints) {
+        if (from == null && to == null && maxPoints == null) {
+            return null;
+        }
+        if (maxPoints != null && maxPoints < MIN_POINTS) {
+            throw new IllegalArgumentException("maxPoints debe ser al menos " + MIN_POINTS);
+        }
+        LocalDateTime start = from == null ? null : parseTime(from, LocalTime.MIN);
+        LocalDateTime end = to == null ? null : parseTime(to, LocalTime.MAX);
+        if (start != null && end != null && start.isAfter(end)) {
+            throw new IllegalArgumentException("from es posterior a to");
+        }
+        return new TimeSeriesWindow(start, end, maxPoints == null ? 0 : maxPoints);
+    }
+
+    /**
+     * Genera el JSON de la ventana (mismo formato que la serie completa)
+     *
+     * @param series Serie completa (en cache)
+     * @return JSON solo con las barras de la ventana
+     */
+    public String toJson(TimeSeries series) {
+        boolean intraday = series.isIntraday();
+        int start = from == null ? 0 : series.indexAtOrAfter(toSeriesTime(from, intraday));
+        int end = to == null ? series.size() : series.indexAtOrAfter(toSeriesTime(to, intraday) + 1);
+        end = Math.max(start, end);
+        int[] indices = TimeSeriesDownsampler.lttb(series, start, end,
+            maxPoints == 0 ? Integer.MAX_VALUE : maxPoints);
+        return TimeSeriesJsonWriter.toJson(series, indices);
+    }
+
+    /**
+     * ETag débil de la ventana: el de la serie completa + from/to/maxPoints
+     *
+     * - Misma serie y misma ventana → mismo ETag (304), sin escribir ni hashear el JSON
+     * - Cambia la serie (otro ETag) o la ventana → otro ETag
+     *
+     * @param seriesEtag ETag de la serie completa (EncodedResponse.etag(), con comillas)
+     * @return ETag débil con comillas (ej: W/"a1b2...-3f9c")
+     */
+    public String etag(String seriesEtag) {
+        String opaque = seriesEtag.startsWith("W/") ? seriesEtag.substring(2) : seriesEtag;
+        if (opaque.length() >= 2 && opaque.startsWith("\"") && opaque.endsWith("\"")) {
+            opaque = opaque.substring(1, opaque.length() - 1);
+        }
+        // String.hashCode está especificado: el mismo valor en todos los nodos y versiones de la JVM
+        int window = (from + "|" + to + "|" + maxPoints).hashCode();
+        return "W/\"" + opaque + "-" + Integer.toHexString(window) + "\"";
+    }
+
+    /**
+     * Fecha en la unidad de la serie (epoch-second o epoch-day)
+     */
+    private static long toSeriesTime(LocalDateTime time, boolean intraday) {
+        return intraday ? time.toEpochSecond(ZoneOffset.UTC) : time.toLocalDate().toEpochDay();
+    }
+
+    private static LocalDateTime parseTime(String value, LocalTime dateOnlyTime) {
+        String trimmed = value.trim();
+        try {
+            if (trimmed.length() == 10) {
+                return LocalDate.parse(trimmed).atTime(dateOnlyTime);
+            }
+            return LocalDateTime.parse(trimmed.replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha inválida (yyyy-MM-dd o yyyy-MM-dd HH:mm:ss): " + value);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.stockmarket.peer;
+
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.service.Interval;
+import com.stockmarket.upstream.RequestPriority;
+import com.stockmarket.upstream.UpstreamClientConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pide a otro nodo del cluster una respuesta de la que es dueño (ver PeerRing)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Sin recodificar: El dueño envía los bytes gzip de su cache tal cual, con el ETag
+ *   y el largo sin comprimir en cabeceras; aquí se rearma la EncodedResponse con
+ *   EncodedResponse.of (el ETag es el mismo en todos los nodos → 304 aunque el
+ *   balanceador mande al cliente a otro nodo)
+ * - Respaldo propagado: Si el dueño respondió una versión desactualizada
+ *   (X-Stale-Seconds), la respuesta llega marcada igual (asStale)
+ * - Pool propio ("peers"): las llamadas entre nodos no compiten con las de los
+ *   proveedores; connect-timeout corto para detectar enseguida un nodo caído
+ * - Falla abierta: Si el dueño no acepta la conexión se marca caído en el anillo y se
+ *   lanza PeerUnreachableException (el servicio descarga la serie localmente). Un
+ *   error HTTP del dueño (ej: 503 sin cuota, 504) se propaga: el dueño ya intentó la API
+ *
+ * PROTOCOLO (ver PeerController):
+ * GET {nodo}/internal/peer/{interval}/{symbol}
+ *   X-Request-Priority: INTERACTIVE|BATCH|BACKGROUND
+ * → 200 application/octet-stream (bytes gzip), ETag, X-Identity-Length[, X-Stale-Seconds]
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden autenticar las llamadas entre nodos (agrega la cabecera aquí y
+ *   valídala en PeerController)
+ * ============================================
+ */
+@Component
+public class PeerClient {
+
+    /** Ruta del endpoint interno (no debe exponerse a través del balanceador) */
+    public static final String PATH = "/internal/peer";
+
+    /** Prioridad de la petición original (el dueño la usa en la cola del proveedor) */
+    public static final String PRIORITY_HEADER = "X-Request-Priority";
+
+    /** Largo del JSON sin comprimir */
+    public static final String IDENTITY_LENGTH_HEADER = "X-Identity-Length";
+
+    /** Segundos desde que venció una respuesta de respaldo (igual que en StockController) */
+    public static final String STALE_HEADER = "X-Stale-Seconds";
+
+    private final PeerRing ring;
+    private final WebClient webClient;
+
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder unreachable = new LongAdder();
+
+    /**
+     * @param ring Anillo de nodos
+     * @param maxConnections Conexiones abiertas como máximo hacia cada nodo (peer.http.max-connections)
+     * @param connectTimeout Timeout de conexión; al vencer el nodo se da por caído (peer.http.connect-timeout)
+     * @param responseTimeout Espera máxima de la respuesta del dueño, cola del proveedor incluida
+     *                        (peer.http.response-timeout)
+     * @param maxInMemorySize Tamaño máximo del cuerpo (upstream.http.max-in-memory-size)
+     */
+    public PeerClient(
+            PeerRing ring,
+            @Value("${peer.http.max-connections:100}") int maxConnections,
+            @Value("${peer.http.connect-timeout:PT0.5S}") Duration connectTimeout,
+            @Value("${peer.http.response-timeout:PT1M}") Duration responseTimeout,
+            @Value("${upstream.http.max-in-memory-size:16MB}") DataSize maxInMemorySize) {
+        this.ring = ring;
+        ConnectionProvider pool = ConnectionProvider.builder("peers")
+            .maxConnections(maxConnections)
+            .maxIdleTime(Duration.ofSeconds(30))
+            .evictInBackground(Duration.ofSeconds(30))
+            .metrics(true)
+            .build();
+        // Sin URL base (cada llamada va a un nodo distinto) y sin compress: el cuerpo
+        // ya son los bytes gzip del cache del dueño y se guardan así
+        this.webClient = UpstreamClientConfig.create("", pool, connectTimeout, responseTimeout,
+            false, false, maxInMemorySize);
+    }
+
+    /**
+     * Pide al nodo dueño la respuesta de una clave
+     *
+     * @param owner URL del nodo dueño (PeerRing.remoteOwnerOf)
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @param priority Prioridad de la petición original
+     * @return Mono con la respuesta del dueño; PeerUnreachableException si no acepta la conexión
+     */
+    public Mono<EncodedResponse> fetch(String owner, Interval interval, String symbol, RequestPriority priority) {
+        URI uri = UriComponentsBuilder.fromHttpUrl(owner)
+            .path(PATH + "/{interval}/{symbol}")
+            .buildAndExpand(interval.path(), symbol)
+            .encode()
+            .toUri();
+        return webClient.get()
+            .uri(uri)
+            .header(PRIORITY_HEADER, priority.name())
+            .retrieve()
+            .toEntity(byte[].class)
+            .map(entity -> decode(owner, entity))
+            .doOnSuccess(response -> succeeded.increment())
+            .onErrorMap(error -> {
+                if (isUnreachable(error)) {
+                    unreachable.increment();
+                    ring.markDown(owner);
+                    return new PeerUnreachableException("Nodo " + owner + " no disponible", error);
+                }
+                failed.increment();
+                if (error instanceof WebClientResponseException e) {
+                    return new ResponseStatusException(e.getStatusCode(),
+                        "El nodo " + owner + " respondió " + e.getStatusCode().value(), e);
+                }
+                return error;
+            });
+    }
+
+    /**
+     * Rearma la respuesta codificada desde los bytes y cabeceras del dueño
+     */
+    private static EncodedResponse decode(String owner, ResponseEntity<byte[]> entity) {
+        HttpHeaders headers = entity.getHeaders();
+        String etag = headers.getETag();
+        String identityLength = headers.getFirst(IDENTITY_LENGTH_HEADER);
+        if (entity.getBody() == null || etag == null || identityLength == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY,
+                "Respuesta incompleta del nodo " + owner);
+        }
+        EncodedResponse response = EncodedResponse.of(entity.getBody(), etag, Integer.parseInt(identityLength));
+        String staleSeconds = headers.getFirst(STALE_HEADER);
+        return staleSeconds != null
+            ? response.asStale(Long.parseLong(staleSeconds) * 1_000_000_000L)
+            : response;
+    }
+
+    /**
+     * @return true si el nodo no aceptó la conexión (rechazada, timeout de conexión, host desconocido)
+     */
+    private static boolean isUnreachable(Throwable error) {
+        Throwable cause = error instanceof WebClientRequestException ? error.getCause() : null;
+        return cause instanceof ConnectException || cause instanceof UnknownHostException;
+    }
+
+    /**
+     * @return Respuestas recibidas de otros nodos
+     */
+    public long succeeded() {
+        return succeeded.sum();
+    }
+
+    /**
+     * @return Llamadas a otros nodos que fallaron con el nodo disponible (error HTTP, timeout)
+     */
+    public long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return Llamadas a nodos que no aceptaron la conexión (se descargó localmente)
+     */
+    public long unreachable() {
+        return unreachable.sum();
+    }
+}
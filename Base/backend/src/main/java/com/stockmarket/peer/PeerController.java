@@ -0,0 +1,83 @@
+package com.stockmarket.peer;
+
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.service.Interval;
+import com.stockmarket.service.MarketDataService;
+import com.stockmarket.upstream.RequestPriority;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Endpoint interno: otros nodos del cluster piden aquí las claves de las que este es dueño
+ *
+ * URL: GET /internal/peer/{interval}/{symbol} (ver PeerClient para el formato)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Solo el dueño llama a la API: Responde con MarketDataService.getOwnedResponse,
+ *   que pasa por el cache, el single-flight y la cola del proveedor de este nodo pero
+ *   NUNCA reenvía a otro nodo (si dos nodos no coinciden en quién es dueño, por un nodo
+ *   recién marcado caído, no se forma un ciclo)
+ * - Popularidad global: Cada petición de otro nodo cuenta en el FrequencySketch del
+ *   dueño, así su refresh-ahead y su lista de precarga ven el tráfico de todo el cluster
+ * - Sin recodificar: Se envían los bytes gzip guardados en cache
+ *
+ * SEGURIDAD:
+ * - Solo existe con peer.enabled=true; /internal/** debe bloquearse en el balanceador
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden autenticar a los nodos (valida aquí la cabecera que agregue PeerClient)
+ * ============================================
+ */
+@RestController
+@ConditionalOnProperty(name = "peer.enabled", havingValue = "true")
+public class PeerController {
+
+    private final MarketDataService stockService;
+
+    public PeerController(MarketDataService stockService) {
+        this.stockService = stockService;
+    }
+
+    /**
+     * @param interval Intervalo (intraday, daily, weekly, monthly)
+     * @param symbol Símbolo de la acción
+     * @param priority Prioridad de la petición original (INTERACTIVE si no viene)
+     * @return 200 con los bytes gzip, ETag, X-Identity-Length y X-Stale-Seconds si es un respaldo
+     */
+    @GetMapping(PeerClient.PATH + "/{interval}/{symbol}")
+    public Mono<ResponseEntity<byte[]>> get(
+            @PathVariable String interval,
+            @PathVariable String symbol,
+            @RequestHeader(name = PeerClient.PRIORITY_HEADER, defaultValue = "INTERACTIVE") String priority) {
+        Interval parsedInterval;
+        RequestPriority parsedPriority;
+        try {
+            parsedInterval = Interval.fromPath(interval);
+            parsedPriority = RequestPriority.valueOf(priority);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return stockService.getOwnedResponse(parsedInterval, symbol, parsedPriority)
+            .map(PeerController::toResponseEntity);
+    }
+
+    private static ResponseEntity<byte[]> toResponseEntity(EncodedResponse response) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .eTag(response.etag())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(PeerClient.IDENTITY_LENGTH_HEADER, Integer.toString(response.identityLength()));
+        if (response.isStale()) {
+            builder.header(PeerClient.STALE_HEADER, Long.toString(response.staleSeconds()));
+        }
+        return builder.body(response.gzipBytes());
+    }
+}
@@ -0,0 +1,214 @@
+package com.stockmarket.peer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Anillo de hashing consistente: decide qué nodo del cluster es dueño de cada símbolo
+ *
+ * CONCEPTOS APLICADOS:
+ * - Hashing consistente: Cada nodo ocupa varias posiciones (nodos virtuales) en un
+ *   anillo de 2^64 valores; el dueño de un símbolo es el primer nodo que aparece al
+ *   avanzar desde el hash del símbolo. Agregar o quitar un nodo solo mueve las claves
+ *   de los tramos vecinos (~1/N), no rehace todo el reparto como hash % N
+ * - Nodos virtuales (peer.virtual-nodes): Con una sola posición por nodo los tramos
+ *   quedan muy desparejos; con ~100 cada nodo recibe una parte similar
+ * - Dueño por símbolo, no por clave: INTRADAY/DAILY/WEEKLY/MONTHLY de un símbolo caen
+ *   en el mismo nodo, así ese nodo arma semanal y mensual desde su diaria sin llamar a la API
+ * - Todos los nodos calculan lo mismo: el hash (MD5) no depende de la JVM ni del
+ *   orden de peer.nodes, así que ningún nodo necesita preguntarle a otro quién es dueño
+ * - Nodo caído: Si un nodo no responde se salta durante peer.retry-after y sus símbolos
+ *   pasan al siguiente del anillo (ver markDown)
+ *
+ * PROPIEDADES:
+ * - peer.enabled: false (por defecto) = nodo solo, todas las claves son locales
+ * - peer.self: URL de este nodo tal como aparece en peer.nodes
+ * - peer.nodes: URLs de todos los nodos, separadas por coma (la misma lista en todos)
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden descubrir los nodos dinámicamente (ej: DNS, Kubernetes): reconstruir
+ *   positions/owners con la lista nueva (el reparto se mueve solo ~1/N)
+ * - Los nodos tienen distinta capacidad (más nodos virtuales a los más grandes)
+ * ============================================
+ */
+@Component
+public class PeerRing {
+
+    private final boolean enabled;
+    private final String self;
+    private final List<String> nodes;
+    private final Duration retryAfter;
+
+    /** Posiciones de los nodos virtuales en el anillo, ordenadas (búsqueda binaria) */
+    private final long[] positions;
+
+    /** Nodo de cada posición (mismo índice que positions) */
+    private final String[] owners;
+
+    /** Nodos que no respondieron → instante (nanoTime) hasta el que se saltan */
+    private final Map<String, Long> downUntil = new ConcurrentHashMap<>();
+
+    /**
+     * @param enabled Activa el reparto entre nodos (peer.enabled)
+     * @param self URL de este nodo (peer.self)
+     * @param nodes URLs de los nodos del cluster, separadas por coma (peer.nodes)
+     * @param virtualNodes Posiciones de cada nodo en el anillo (peer.virtual-nodes)
+     * @param retryAfter Tiempo que se salta un nodo que no respondió (peer.retry-after)
+     */
+    public PeerRing(
+            @Value("${peer.enabled:false}") boolean enabled,
+            @Value("${peer.self:http://localhost:${server.port:8080}}") String self,
+            @Value("${peer.nodes:}") String nodes,
+            @Value("${peer.virtual-nodes:100}") int virtualNodes,
+            @Value("${peer.retry-after:PT10S}") Duration retryAfter) {
+        this.self = normalize(self);
+        this.retryAfter = retryAfter;
+
+        Set<String> members = new LinkedHashSet<>();
+        for (String node : nodes.split(",")) {
+            if (!node.isBlank()) {
+                members.add(normalize(node));
+            }
+        }
+        if (enabled && members.add(this.self) && members.size() > 1) {
+            System.out.println("⚠️ peer.self (" + this.self + ") no está en peer.nodes: se agrega al anillo");
+        }
+        this.enabled = enabled && members.size() > 1;
+        this.nodes = List.copyOf(members);
+
+        // TreeMap: ordena las posiciones; una colisión (improbable) la gana el último nodo
+        TreeMap<Long, String> ring = new TreeMap<>();
+        if (this.enabled) {
+            for (String node : this.nodes) {
+                for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+                    ring.put(hash(node + "#" + i), node);
+                }
+            }
+            System.out.println("🕸️ Cache distribuido: " + this.nodes.size() + " nodos (este: " + this.self
+                + "), " + ring.size() + " posiciones en el anillo");
+        }
+        this.positions = new long[ring.size()];
+        this.owners = new String[ring.size()];
+        int i = 0;
+        for (Map.Entry<Long, String> entry : ring.entrySet()) {
+            positions[i] = entry.getKey();
+            owners[i++] = entry.getValue();
+        }
+    }
+
+    /**
+     * Nodo dueño de un símbolo, si no es este
+     *
+     * - Avanza por el anillo desde el hash del símbolo hasta el primer nodo disponible
+     * - Si todos los demás están caídos, el dueño es este nodo
+     *
+     * @param symbol Símbolo de la acción (ej: "IBM")
+     * @return URL del nodo dueño, o null si el dueño es este nodo (o el cluster está desactivado)
+     */
+    public String remoteOwnerOf(String symbol) {
+        if (!enabled) {
+            return null;
+        }
+        int start = Arrays.binarySearch(positions, hash(symbol));
+        // Sin coincidencia exacta binarySearch retorna -(punto de inserción) - 1
+        start = start >= 0 ? start : -start - 1;
+        long now = System.nanoTime();
+        for (int step = 0; step < positions.length; step++) {
+            String node = owners[(start + step) % positions.length];
+            if (node.equals(self)) {
+                return null;
+            }
+            Long until = downUntil.get(node);
+            if (until == null || now - until >= 0) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true si este nodo es dueño del símbolo (siempre true sin cluster)
+     */
+    public boolean isLocal(String symbol) {
+        return remoteOwnerOf(symbol) == null;
+    }
+
+    /**
+     * Marca un nodo como caído durante peer.retry-after (sus símbolos pasan al siguiente)
+     *
+     * NOTA: Cada nodo lo decide por su cuenta; mientras tanto dos nodos pueden
+     * considerar dueños distintos para un símbolo (a lo sumo una descarga de más)
+     */
+    public void markDown(String node) {
+        Long previous = downUntil.put(node, System.nanoTime() + retryAfter.toNanos());
+        if (previous == null || System.nanoTime() - previous >= 0) {
+            System.out.println("🔌 Nodo " + node + " no responde: se salta durante " + retryAfter.toSeconds() + "s");
+        }
+    }
+
+    /**
+     * @return true si hay más de un nodo (peer.enabled y peer.nodes)
+     */
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * @return URL de este nodo
+     */
+    public String self() {
+        return self;
+    }
+
+    /**
+     * @return Nodos disponibles ahora (incluido este)
+     */
+    public int nodesUp() {
+        if (!enabled) {
+            return 1;
+        }
+        long now = System.nanoTime();
+        int up = 0;
+        for (String node : nodes) {
+            Long until = downUntil.get(node);
+            if (until == null || now - until >= 0) {
+                up++;
+            }
+        }
+        return up;
+    }
+
+    /**
+     * Posición en el anillo: primeros 8 bytes del MD5 (igual en todos los nodos)
+     */
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 no disponible", e);  // Toda JVM lo incluye
+        }
+    }
+
+    private static String normalize(String node) {
+        String trimmed = node.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
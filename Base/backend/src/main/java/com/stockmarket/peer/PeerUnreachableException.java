@@ -0,0 +1,17 @@
+package com.stockmarket.peer;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * El nodo dueño de una clave no aceptó la conexión (caído, reiniciando o sin red)
+ *
+ * - El servicio la captura y descarga la serie localmente (ver MarketDataService.fromPeer)
+ * - Si se propagara, Spring responde 503 Service Unavailable
+ */
+public class PeerUnreachableException extends ResponseStatusException {
+
+    public PeerUnreachableException(String reason, Throwable cause) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason, cause);
+    }
+}
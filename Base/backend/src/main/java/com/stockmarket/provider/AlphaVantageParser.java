@@ -0,0 +1,170 @@
+package com.stockmarket.provider;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.stockmarket.model.TimeSeries;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Convierte el JSON de Alpha Vantage (TIME_SERIES_*) en una TimeSeries columnar
+ *
+ * CONCEPTOS APLICADOS:
+ * - Parser en streaming (Jackson JsonParser): Lee token por token, sin construir
+ *   un árbol de objetos (Map/JsonNode) del documento completo
+ * - Una sola pasada: Cada barra se copia directamente a los arreglos primitivos
+ *
+ * RESPUESTAS QUE NO SON SERIES:
+ * - Alpha Vantage responde {"Note": "..."}, {"Information": "..."} o
+ *   {"Error Message": "..."} cuando se excede la cuota o el símbolo no existe
+ * - En esos casos parse() retorna null y el servicio NO guarda nada en cache
+ *
+ * NOTA: Es pública porque el gateway responde en este mismo formato
+ * (TimeSeriesJsonWriter): MarketDataService la usa para leer las respuestas
+ * recibidas de otro nodo del cluster
+ */
+public final class AlphaVantageParser {
+
+    /** JsonFactory es thread-safe y costoso de crear: se comparte */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private AlphaVantageParser() {
+        // Clase utilitaria: no se instancia
+    }
+
+    /**
+     * Parsea una respuesta de Alpha Vantage
+     *
+     * @param json Respuesta de la API
+     * @return Serie columnar, o null si la respuesta no contiene una serie de tiempo
+     */
+    public static TimeSeries parse(String json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            List<String> metaKeys = new ArrayList<>();
+            List<String> metaValues = new ArrayList<>();
+            TimeSeries.Builder builder = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if (token == JsonToken.START_OBJECT && name.equals("Meta Data")) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        metaKeys.add(parser.getCurrentName());
+                        parser.nextToken();
+                        metaValues.add(parser.getText());
+                    }
+                } else if (token == JsonToken.START_OBJECT && name.contains("Time Series") && builder == null) {
+                    builder = parseBars(parser, name);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (builder == null) {
+                return null;
+            }
+            return builder
+                .meta(metaKeys.toArray(new String[0]), metaValues.toArray(new String[0]))
+                .build();
+        } catch (IOException | RuntimeException e) {
+            // JSON mal formado o valores no numéricos: no es una serie válida
+            return null;
+        }
+    }
+
+    /**
+     * Detecta la nota de cuota de Alpha Vantage
+     *
+     * Ejemplos:
+     * {"Note": "Thank you for using Alpha Vantage! Our standard API call frequency is 5 calls per minute..."}
+     * {"Information": "... Our standard API rate limit is 25 requests per day..."}
+     *
+     * @param json Respuesta que NO es una serie (parse() retornó null)
+     * @return true si la respuesta indica que se excedió la cuota
+     */
+    static boolean isThrottleNote(String json) {
+        return json.contains("\"Note\"")
+            || json.contains("call frequency")
+            || json.contains("rate limit");
+    }
+
+    /**
+     * Lee las barras de la serie: "fecha": {"1. open": "...", ...}
+     *
+     * NOTA: El tipo de serie (intradiaria o no) se detecta con la primera fecha:
+     * "2025-01-15" (10 caracteres) vs "2025-01-15 16:00:00"
+     */
+    private static TimeSeries.Builder parseBars(JsonParser parser, String seriesName) throws IOException {
+        TimeSeries.Builder builder = null;
+        boolean intraday = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String date = parser.getCurrentName();
+            if (builder == null) {
+                intraday = date.length() > 10;
+                builder = TimeSeries.builder(seriesName, intraday);
+            }
+            parser.nextToken();  // START_OBJECT de la barra
+
+            double open = Double.NaN, high = Double.NaN, low = Double.NaN, close = Double.NaN;
+            long volume = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (field.endsWith(". open")) {
+                    open = Double.parseDouble(parser.getText());
+                } else if (field.endsWith(". high")) {
+                    high = Double.parseDouble(parser.getText());
+                } else if (field.endsWith(". low")) {
+                    low = Double.parseDouble(parser.getText());
+                } else if (field.endsWith(". close")) {
+                    close = Double.parseDouble(parser.getText());
+                } else if (field.endsWith(". volume")) {
+                    volume = Long.parseLong(parser.getText());
+                }
+            }
+            builder.add(parseTime(date, intraday), open, high, low, close, volume);
+        }
+
+        return builder != null ? builder : TimeSeries.builder(seriesName, false);
+    }
+
+    /**
+     * "2025-01-15" → epoch-day, "2025-01-15 16:00:00" → epoch-second
+     * - Lectura por posición (más rápido que DateTimeFormatter)
+     */
+    static long parseTime(String date, boolean intraday) {
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        long epochDay = LocalDate.of(year, month, day).toEpochDay();
+        if (!intraday) {
+            return epochDay;
+        }
+        int hour = digits(date, 11, 13);
+        int minute = digits(date, 14, 16);
+        int second = date.length() >= 19 ? digits(date, 17, 19) : 0;
+        return epochDay * 86_400 + hour * 3600 + minute * 60 + second;
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Fecha inválida: " + text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,91 @@
+package com.stockmarket.provider;
+
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.service.Interval;
+import com.stockmarket.upstream.UpstreamCircuitBreaker;
+import com.stockmarket.upstream.UpstreamScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriBuilder;
+
+import java.net.URI;
+import java.util.function.Function;
+
+/**
+ * Proveedor Alpha Vantage (GET /query?function=TIME_SERIES_...)
+ *
+ * - Su JSON ya es el formato del gateway: AlphaVantageParser lo pasa a columnar tal cual
+ * - Cuota: alphavantage.rate-limit.* (plan gratis: 5 llamadas por minuto)
+ * - La nota de cuota llega con HTTP 200 ({"Note": ...}); ver AlphaVantageParser.isThrottleNote
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden otro intervalo (Interval + uri)
+ * ============================================
+ */
+public class AlphaVantageProvider extends HttpMarketDataProvider {
+
+    /** Nombre en provider.active */
+    public static final String NAME = "alphavantage";
+
+    private final String apiKey;
+
+    /**
+     * @param webClient Cliente HTTP hacia alphavantage.base-url
+     * @param scheduler Cola y cuota (alphavantage.rate-limit.*)
+     * @param circuitBreaker Circuit breaker de este proveedor
+     * @param hedge Configuración del hedging
+     * @param meterRegistry Registro de métricas
+     * @param apiKey API key (alphavantage.apikey)
+     */
+    public AlphaVantageProvider(
+            WebClient webClient,
+            UpstreamScheduler scheduler,
+            UpstreamCircuitBreaker circuitBreaker,
+            HedgePolicy hedge,
+            MeterRegistry meterRegistry,
+            String apiKey) {
+        super(NAME, webClient, scheduler, circuitBreaker, hedge, meterRegistry);
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public boolean supports(Interval interval) {
+        return true;
+    }
+
+    /**
+     * URI de la API para un intervalo y símbolo
+     * (ej: /query?function=TIME_SERIES_DAILY&symbol=IBM&outputsize=compact&apikey=...)
+     *
+     * - outputsize: "compact" (últimas 100 barras) o "full"; solo aplica a INTRADAY y DAILY
+     */
+    @Override
+    protected Function<UriBuilder, URI> uri(Interval interval, String symbol, boolean full) {
+        return uriBuilder -> {
+            uriBuilder
+                .path("/query")
+                .queryParam("function", interval.function())
+                .queryParam("symbol", symbol);
+            if (interval == Interval.INTRADAY) {
+                uriBuilder.queryParam("interval", "5min");
+            }
+            if (interval.supportsOutputSize()) {
+                uriBuilder.queryParam("outputsize", full ? "full" : "compact");
+            }
+            return uriBuilder
+                .queryParam("apikey", apiKey)
+                .build();
+        };
+    }
+
+    @Override
+    protected TimeSeries parse(Interval interval, String symbol, boolean full, String body) {
+        return AlphaVantageParser.parse(body);
+    }
+
+    @Override
+    protected boolean isThrottleNote(String body) {
+        return AlphaVantageParser.isThrottleNote(body);
+    }
+}
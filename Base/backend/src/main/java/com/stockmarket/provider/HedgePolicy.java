@@ -0,0 +1,15 @@
+package com.stockmarket.provider;
+
+import java.time.Duration;
+
+/**
+ * Configuración de las peticiones "hedged" (upstream.hedge.*), igual para todos los proveedores
+ *
+ * @param enabled Si es true, las llamadas lentas se duplican
+ * @param percentile Percentil de la latencia reciente tras el cual sale la copia (ej: 0.95)
+ * @param minDelay Demora mínima antes de la copia
+ * @param maxDelay Demora máxima (y la que se usa sin suficientes muestras)
+ * @param minSamples Llamadas exitosas necesarias para confiar en el percentil
+ */
+public record HedgePolicy(boolean enabled, double percentile, Duration minDelay, Duration maxDelay, long minSamples) {
+}
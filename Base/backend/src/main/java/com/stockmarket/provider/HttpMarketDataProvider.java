@@ -0,0 +1,333 @@
+package com.stockmarket.provider;
+
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.service.Interval;
+import com.stockmarket.upstream.RequestPriority;
+import com.stockmarket.upstream.UpstreamCircuitBreaker;
+import com.stockmarket.upstream.UpstreamScheduler;
+import com.stockmarket.upstream.UpstreamThrottledException;
+import com.stockmarket.upstream.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.DoubleStream;
+
+/**
+ * Base de los proveedores HTTP: cuota, circuit breaker, hedging y métricas
+ *
+ * CONCEPTOS APLICADOS:
+ * - Template Method: fetch() es igual para todos los proveedores; cada subclase solo
+ *   dice qué URL pedir (uri), cómo leer la respuesta (parse) y cómo reconoce una
+ *   nota de cuota en el cuerpo (isThrottleNote)
+ * - Rate limiting: Toda llamada pasa por el UpstreamScheduler de este proveedor
+ * - Circuit breaker: Con el proveedor caído o lento las llamadas fallan al instante
+ *   (y el router prueba con otro) en vez de acumularse esperando
+ * - Peticiones "hedged": Si el proveedor no respondió tras el percentil configurado
+ *   de su latencia (upstream.hedge.percentile), se envía una copia y gana la primera
+ *   respuesta. Solo si sobra cuota (nunca le quita un token a la cola)
+ * - Salud: Promedios móviles (EWMA) de latencia y tasa de error para el ProviderRouter
+ * - Métricas: upstream_request_seconds{provider,outcome} (p50/p95/p99) y
+ *   upstream_hedges_total{provider,result}
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden otro proveedor HTTP (extiende esta clase, ver YahooFinanceProvider)
+ * - Te piden ignorar algún tipo de error en el circuito (isUpstreamFailure)
+ * ============================================
+ */
+public abstract class HttpMarketDataProvider implements MarketDataProvider {
+
+    /** Peso de cada llamada nueva en los promedios móviles (≈ últimas 10 llamadas) */
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final String name;
+    private final WebClient webClient;
+    private final UpstreamScheduler scheduler;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final HedgePolicy hedge;
+
+    /**
+     * Duración de las llamadas HTTP (sin la espera en cola), por resultado
+     */
+    private final Timer upstreamSuccess;
+    private final Timer upstreamError;
+
+    /**
+     * Copias enviadas, copias que respondieron primero y copias que no se enviaron por falta de cuota
+     */
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final Counter hedgesSkipped;
+
+    // ---- Salud (solo se escriben dentro de synchronized, al terminar una llamada) ----
+    private volatile double latencyEwmaNanos;
+    private volatile double errorEwma;
+
+    /**
+     * @param name Nombre del proveedor (el de provider.active)
+     * @param webClient Cliente HTTP con su propio pool (UpstreamClientConfig.webClient)
+     * @param scheduler Cola y cuota de este proveedor
+     * @param circuitBreaker Circuit breaker de este proveedor
+     * @param hedge Configuración del hedging (upstream.hedge.*)
+     * @param meterRegistry Registro de métricas
+     */
+    protected HttpMarketDataProvider(
+            String name,
+            WebClient webClient,
+            UpstreamScheduler scheduler,
+            UpstreamCircuitBreaker circuitBreaker,
+            HedgePolicy hedge,
+            MeterRegistry meterRegistry) {
+        this.name = name;
+        this.webClient = webClient;
+        this.scheduler = scheduler;
+        this.circuitBreaker = circuitBreaker;
+        this.hedge = hedge;
+        this.upstreamSuccess = upstreamTimer(meterRegistry, name, "success", hedge.percentile());
+        this.upstreamError = upstreamTimer(meterRegistry, name, "error", hedge.percentile());
+        this.hedgesSent = hedgeCounter(meterRegistry, name, "sent");
+        this.hedgesWon = hedgeCounter(meterRegistry, name, "won");
+        this.hedgesSkipped = hedgeCounter(meterRegistry, name, "skipped");
+    }
+
+    /**
+     * Timer con histograma: Prometheus calcula percentiles agregados entre nodos
+     * (histogram_quantile) y además se publican p50/p95/p99 de este nodo
+     * (más el percentil del hedging, que se lee de este mismo Timer)
+     */
+    private static Timer upstreamTimer(MeterRegistry meterRegistry, String provider, String outcome,
+                                       double hedgePercentile) {
+        return Timer.builder("upstream.request")
+            .description("Duración de las llamadas HTTP a los proveedores")
+            .tag("provider", provider)
+            .tag("outcome", outcome)
+            .publishPercentiles(DoubleStream.of(0.5, 0.95, 0.99, hedgePercentile).distinct().sorted().toArray())
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    private static Counter hedgeCounter(MeterRegistry meterRegistry, String provider, String result) {
+        return Counter.builder("upstream.hedges")
+            .description("Copias de llamadas lentas a los proveedores (hedging)")
+            .tag("provider", provider)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    // ============================================
+    // Lo que cambia de un proveedor a otro
+    // ============================================
+
+    /**
+     * URI de la serie en la API del proveedor
+     *
+     * @param full true para la historia completa, false para las barras recientes
+     */
+    protected abstract Function<UriBuilder, URI> uri(Interval interval, String symbol, boolean full);
+
+    /**
+     * Convierte la respuesta del proveedor en una TimeSeries con el formato del gateway
+     *
+     * @return Serie normalizada, o null si la respuesta no contiene una serie
+     */
+    protected abstract TimeSeries parse(Interval interval, String symbol, boolean full, String body);
+
+    /**
+     * @param body Respuesta que no es una serie (parse retornó null)
+     * @return true si el cuerpo es un aviso de cuota excedida (con HTTP 200)
+     */
+    protected abstract boolean isThrottleNote(String body);
+
+    // ============================================
+    // Común a todos los proveedores
+    // ============================================
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Llamada HTTP al proveedor, encolada en su UpstreamScheduler
+     * - Con el circuito abierto falla al instante (sin encolarse ni gastar cuota)
+     * - El permiso del circuito se toma al despachar: la prueba del estado semiabierto
+     *   no se gasta mientras espera en cola. Si el circuito se abrió mientras tanto,
+     *   falla ahí (el token del scheduler ya se gastó: pasa solo en esa transición)
+     * - El circuit breaker mide desde que el scheduler la despacha (la espera en
+     *   cola se mide aparte: /api/upstream/stats y upstream_queue_depth) e incluye
+     *   la copia hedged: si la copia salva la llamada, no cuenta como lenta
+     * - BACKGROUND no se duplica: nadie espera esa respuesta (se sirve la stale)
+     * - Nota de cuota o HTTP 429 → se vacía el token bucket y UpstreamThrottledException
+     */
+    @Override
+    public Mono<TimeSeries> fetch(String cacheKey, Interval interval, String symbol, boolean full,
+                                  RequestPriority priority) {
+        if (!circuitBreaker.isCallPermitted()) {
+            return Mono.error(circuitOpen());
+        }
+        Function<UriBuilder, URI> uriFunction = uri(interval, symbol, full);
+        return scheduler.<String>submit(cacheKey, priority, () -> Mono.defer(() -> {
+                long permit = circuitBreaker.tryAcquirePermission();
+                if (permit == UpstreamCircuitBreaker.REJECTED) {
+                    return Mono.error(circuitOpen());
+                }
+                long start = System.nanoTime();
+                Mono<String> call = hedge.enabled() && priority != RequestPriority.BACKGROUND
+                    ? hedged(uriFunction)
+                    : request(uriFunction);
+                return call
+                    .doOnSuccess(body -> {
+                        long elapsed = System.nanoTime() - start;
+                        circuitBreaker.onSuccess(permit, elapsed);
+                        recordHealth(elapsed, false);
+                    })
+                    .doOnError(error -> {
+                        if (isUpstreamFailure(error)) {
+                            circuitBreaker.onFailure(permit);
+                            recordHealth(0, true);
+                        }
+                    });
+            }))
+            .onErrorMap(error -> error instanceof WebClientResponseException response
+                    && response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value(),
+                error -> throttled(cacheKey))
+            .flatMap(body -> {
+                TimeSeries series = parse(interval, symbol, full, body);
+                if (series != null) {
+                    return Mono.just(series);
+                }
+                if (isThrottleNote(body)) {
+                    return Mono.error(throttled(cacheKey));
+                }
+                System.out.println("⚠️ " + name + " respondió sin serie: " + cacheKey);
+                return Mono.empty();
+            });
+    }
+
+    private UpstreamUnavailableException circuitOpen() {
+        return new UpstreamUnavailableException(name + " no está respondiendo bien (circuito abierto), intenta más tarde");
+    }
+
+    private UpstreamThrottledException throttled(String cacheKey) {
+        System.out.println("🚫 Cuota de " + name + " excedida: " + cacheKey);
+        scheduler.onThrottled();
+        return new UpstreamThrottledException("Cuota de " + name + " excedida, intenta más tarde");
+    }
+
+    /**
+     * Petición "hedged": si la primera no respondió tras la demora de hedgeDelayNanos(),
+     * se envía una copia y se usa la respuesta que llegue primero
+     *
+     * - La copia solo sale si el scheduler tiene un token libre y nadie en cola
+     *   (tryAcquire); si no, se sigue esperando a la primera
+     * - firstWithSignal: gana la primera señal y la otra petición se cancela
+     *   (Reactor Netty cierra esa conexión). Un error de la copia se ignora;
+     *   un error de la primera se propaga
+     */
+    private Mono<String> hedged(Function<UriBuilder, URI> uriFunction) {
+        Mono<String> copy = Mono.delay(Duration.ofNanos(hedgeDelayNanos()))
+            .then(scheduler.tryAcquire())
+            .flatMap(acquired -> {
+                if (!acquired) {
+                    hedgesSkipped.increment();
+                    return Mono.<String>never();
+                }
+                hedgesSent.increment();
+                return request(uriFunction).doOnSuccess(body -> hedgesWon.increment());
+            })
+            .onErrorResume(error -> Mono.never());
+        return Mono.firstWithSignal(request(uriFunction), copy);
+    }
+
+    /**
+     * Demora antes de la copia: el percentil upstream.hedge.percentile de las llamadas
+     * exitosas recientes (ventana móvil del Timer), entre min-delay y max-delay
+     * - Sin muestras suficientes se usa max-delay (no se duplica a ciegas)
+     */
+    private long hedgeDelayNanos() {
+        long max = hedge.maxDelay().toNanos();
+        if (upstreamSuccess.count() < hedge.minSamples()) {
+            return max;
+        }
+        for (ValueAtPercentile value : upstreamSuccess.takeSnapshot().percentileValues()) {
+            if (value.percentile() == hedge.percentile() && value.value() > 0) {
+                return Math.min(max, Math.max(hedge.minDelay().toNanos(), (long) value.value(TimeUnit.NANOSECONDS)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Una petición HTTP al proveedor, medida desde que se suscribe (defer: la copia
+     * hedged empieza a medir cuando sale, no cuando se arma)
+     */
+    private Mono<String> request(Function<UriBuilder, URI> uriFunction) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return webClient.get()
+                .uri(uriFunction)
+                .retrieve()
+                .bodyToMono(String.class)
+                .doOnSuccess(body -> upstreamSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .doOnError(error -> upstreamError.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * @return true si el error indica que el proveedor está degradado (red, timeout, 5xx);
+     *         un 4xx es un problema de la petición (o de cuota), no del proveedor
+     */
+    private static boolean isUpstreamFailure(Throwable error) {
+        return !(error instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError());
+    }
+
+    /**
+     * Actualiza los promedios móviles (una vez por llamada HTTP: decenas por minuto)
+     */
+    private synchronized void recordHealth(long latencyNanos, boolean failure) {
+        errorEwma += EWMA_ALPHA * ((failure ? 1 : 0) - errorEwma);
+        if (!failure) {
+            latencyEwmaNanos = latencyEwmaNanos == 0
+                ? latencyNanos
+                : latencyEwmaNanos + EWMA_ALPHA * (latencyNanos - latencyEwmaNanos);
+        }
+    }
+
+    @Override
+    public long latencyNanos() {
+        return (long) latencyEwmaNanos;
+    }
+
+    @Override
+    public double errorRate() {
+        return errorEwma;
+    }
+
+    @Override
+    public UpstreamScheduler scheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public UpstreamCircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Detiene el hilo de la cola (Spring lo llama al apagar: método close() inferido)
+     */
+    public void close() {
+        scheduler.shutdown();
+    }
+}
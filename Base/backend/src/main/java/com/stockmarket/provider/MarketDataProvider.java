@@ -0,0 +1,79 @@
+package com.stockmarket.provider;
+
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.service.Interval;
+import com.stockmarket.upstream.RequestPriority;
+import com.stockmarket.upstream.UpstreamCircuitBreaker;
+import com.stockmarket.upstream.UpstreamScheduler;
+import reactor.core.publisher.Mono;
+
+/**
+ * Proveedor externo de series de tiempo (Alpha Vantage, Yahoo Finance...)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Patrón Adapter: Cada proveedor habla su propio protocolo y formato, pero entrega
+ *   la misma TimeSeries (con los nombres de serie y "Meta Data" de Alpha Vantage, el
+ *   formato del gateway). El resto del gateway no sabe de qué proveedor vino una serie
+ * - Cuota y circuito propios: Cada proveedor tiene su UpstreamScheduler (token bucket
+ *   + cola con prioridad) y su UpstreamCircuitBreaker
+ * - Salud observable: latencyNanos(), errorRate() y la espera estimada del scheduler
+ *   son lo que usa ProviderRouter para elegir
+ *
+ * RESULTADO DE fetch():
+ * - La serie normalizada
+ * - Vacío: el proveedor respondió, pero no tiene esa serie (ej: símbolo inválido)
+ * - UpstreamThrottledException: sin cuota (nota de cuota, HTTP 429 o cola llena);
+ *   el router prueba con el siguiente proveedor
+ * - UpstreamUnavailableException: circuito abierto; el router prueba con el siguiente
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden otro proveedor HTTP (extiende HttpMarketDataProvider y regístralo en ProviderConfig)
+ * - Te piden un proveedor falso en memoria para pruebas (implementa esta interfaz)
+ * ============================================
+ */
+public interface MarketDataProvider {
+
+    /**
+     * @return Nombre del proveedor (el de provider.active, ej: "alphavantage")
+     */
+    String name();
+
+    /**
+     * @return true si el proveedor tiene series de ese intervalo
+     */
+    boolean supports(Interval interval);
+
+    /**
+     * Descarga una serie, encolada en la cuota de este proveedor
+     *
+     * @param cacheKey Clave del cache (fusiona llamadas duplicadas en la cola)
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @param full true para la historia completa, false para las barras recientes
+     *             (equivalente a outputsize=compact: al menos las últimas 100)
+     * @param priority Prioridad de la llamada en la cola
+     * @return Mono con la serie normalizada, o vacío si el proveedor no la tiene
+     */
+    Mono<TimeSeries> fetch(String cacheKey, Interval interval, String symbol, boolean full, RequestPriority priority);
+
+    /**
+     * @return Cola y cuota de este proveedor
+     */
+    UpstreamScheduler scheduler();
+
+    /**
+     * @return Circuit breaker de este proveedor
+     */
+    UpstreamCircuitBreaker circuitBreaker();
+
+    /**
+     * @return Latencia típica reciente de las llamadas exitosas (0 = todavía sin datos)
+     */
+    long latencyNanos();
+
+    /**
+     * @return Fracción reciente de llamadas fallidas (0 a 1)
+     */
+    double errorRate();
+}
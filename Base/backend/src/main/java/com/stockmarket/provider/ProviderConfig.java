@@ -0,0 +1,137 @@
+package com.stockmarket.provider;
+
+import com.stockmarket.upstream.UpstreamCircuitBreaker;
+import com.stockmarket.upstream.UpstreamClientConfig;
+import com.stockmarket.upstream.UpstreamScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Crea los proveedores activos (provider.active), cada uno con su cola, su cuota,
+ * su circuit breaker y su pool de conexiones
+ *
+ * PROPIEDADES:
+ * - provider.active: proveedores en orden de preferencia (ej: alphavantage,yahoo)
+ * - alphavantage.base-url, alphavantage.apikey, alphavantage.rate-limit.*
+ * - yahoo.base-url, yahoo.rate-limit.*
+ * - Comunes (una instancia por proveedor con los mismos valores):
+ *   upstream.queue.max-size, upstream.circuit-breaker.*, upstream.hedge.*, upstream.http.*
+ *
+ * PRUEBAS SIN RED:
+ * - El stub (Base/alphavantage-stub) también responde el formato de Yahoo
+ *   (/v8/finance/chart): con dos stubs en distintos puertos, cada uno con su
+ *   latencia y su cuota, se prueba el enrutamiento y el failover (perfil "stub")
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden otro proveedor (agrega su @Bean con la misma condición)
+ * ============================================
+ */
+@Configuration
+public class ProviderConfig {
+
+    @Value("${upstream.queue.max-size:500}")
+    private int maxQueueSize;
+
+    @Value("${upstream.circuit-breaker.enabled:true}")
+    private boolean circuitEnabled;
+
+    @Value("${upstream.circuit-breaker.window-size:20}")
+    private int circuitWindowSize;
+
+    @Value("${upstream.circuit-breaker.minimum-calls:10}")
+    private int circuitMinimumCalls;
+
+    @Value("${upstream.circuit-breaker.failure-rate-threshold:0.5}")
+    private double circuitFailureRateThreshold;
+
+    @Value("${upstream.circuit-breaker.slow-call-duration:PT5S}")
+    private Duration circuitSlowCallDuration;
+
+    @Value("${upstream.circuit-breaker.open-duration:PT30S}")
+    private Duration circuitOpenDuration;
+
+    @Value("${upstream.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    @Value("${upstream.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    @Value("${upstream.hedge.min-delay:PT0.2S}")
+    private Duration hedgeMinDelay;
+
+    @Value("${upstream.hedge.max-delay:PT3S}")
+    private Duration hedgeMaxDelay;
+
+    @Value("${upstream.hedge.min-samples:20}")
+    private long hedgeMinSamples;
+
+    /**
+     * Alpha Vantage (activo por defecto)
+     *
+     * @param clients Fábrica de clientes HTTP
+     * @param meterRegistry Registro de métricas
+     * @param baseUrl URL base (alphavantage.base-url)
+     * @param apiKey API key (alphavantage.apikey)
+     * @param requestsPerMinute Cuota (alphavantage.rate-limit.per-minute; plan gratis: 5)
+     * @param burst Llamadas seguidas con el bucket lleno (alphavantage.rate-limit.burst)
+     */
+    @Bean
+    @ConditionalOnExpression("'${provider.active:alphavantage}'.contains('" + AlphaVantageProvider.NAME + "')")
+    public AlphaVantageProvider alphaVantageProvider(
+            UpstreamClientConfig clients,
+            MeterRegistry meterRegistry,
+            @Value("${alphavantage.base-url:https://www.alphavantage.co}") String baseUrl,
+            @Value("${alphavantage.apikey:demo}") String apiKey,
+            @Value("${alphavantage.rate-limit.per-minute:5}") double requestsPerMinute,
+            @Value("${alphavantage.rate-limit.burst:5}") int burst) {
+        String name = AlphaVantageProvider.NAME;
+        return new AlphaVantageProvider(
+            clients.webClient(name, baseUrl),
+            new UpstreamScheduler(name, requestsPerMinute, burst, maxQueueSize),
+            circuitBreaker(name),
+            hedgePolicy(),
+            meterRegistry,
+            apiKey);
+    }
+
+    /**
+     * Yahoo Finance (solo si aparece en provider.active)
+     *
+     * @param clients Fábrica de clientes HTTP
+     * @param meterRegistry Registro de métricas
+     * @param baseUrl URL base (yahoo.base-url)
+     * @param requestsPerMinute Cuota propia (yahoo.rate-limit.per-minute; Yahoo no la publica)
+     * @param burst Llamadas seguidas con el bucket lleno (yahoo.rate-limit.burst)
+     */
+    @Bean
+    @ConditionalOnExpression("'${provider.active:alphavantage}'.contains('" + YahooFinanceProvider.NAME + "')")
+    public YahooFinanceProvider yahooFinanceProvider(
+            UpstreamClientConfig clients,
+            MeterRegistry meterRegistry,
+            @Value("${yahoo.base-url:https://query1.finance.yahoo.com}") String baseUrl,
+            @Value("${yahoo.rate-limit.per-minute:60}") double requestsPerMinute,
+            @Value("${yahoo.rate-limit.burst:10}") int burst) {
+        String name = YahooFinanceProvider.NAME;
+        return new YahooFinanceProvider(
+            clients.webClient(name, baseUrl),
+            new UpstreamScheduler(name, requestsPerMinute, burst, maxQueueSize),
+            circuitBreaker(name),
+            hedgePolicy(),
+            meterRegistry);
+    }
+
+    private UpstreamCircuitBreaker circuitBreaker(String name) {
+        return new UpstreamCircuitBreaker(name, circuitEnabled, circuitWindowSize, circuitMinimumCalls,
+            circuitFailureRateThreshold, circuitSlowCallDuration, circuitOpenDuration);
+    }
+
+    private HedgePolicy hedgePolicy() {
+        return new HedgePolicy(hedgeEnabled, hedgePercentile, hedgeMinDelay, hedgeMaxDelay, hedgeMinSamples);
+    }
+}
@@ -0,0 +1,222 @@
+package com.stockmarket.provider;
+
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.service.Interval;
+import com.stockmarket.upstream.RequestPriority;
+import com.stockmarket.upstream.UpstreamCircuitBreaker;
+import com.stockmarket.upstream.UpstreamScheduler.UpstreamStats;
+import com.stockmarket.upstream.UpstreamThrottledException;
+import com.stockmarket.upstream.UpstreamUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Elige a qué proveedor pedir cada serie y cambia de proveedor si uno no tiene cuota
+ *
+ * CONCEPTOS APLICADOS:
+ * - Enrutamiento por costo esperado: Para cada proveedor se estima cuánto tardaría
+ *   la llamada = latencia típica / (1 - tasa de error) + espera por cuota en su cola.
+ *   Se prueba primero el más barato; con empate, el orden de provider.active
+ * - Cuota sumada: Cuando un proveedor agota su cuota su espera estimada sube y el
+ *   siguiente pasa a ser el más barato; la capacidad total es la suma de las cuotas
+ * - Failover: Si el elegido responde sin cuota (UpstreamThrottledException) o tiene el
+ *   circuito abierto (UpstreamUnavailableException), se prueba el siguiente. Otros
+ *   errores se propagan (ya pasaron por hedging y circuit breaker del proveedor)
+ * - Origen: Cada serie sale etiquetada con su proveedor (TimeSeries.source); el
+ *   refresco incremental no combina series de proveedores distintos
+ * - Exploración: Un proveedor sin mediciones cuesta 0 de latencia, así recibe
+ *   tráfico y se mide enseguida
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden otro criterio (ej: preferir siempre un proveedor: cost)
+ * - Te piden failover también ante errores 5xx (canFailOver)
+ * ============================================
+ */
+@Component
+public class ProviderRouter {
+
+    private final List<Route> routes;
+
+    /**
+     * @param providers Proveedores creados por ProviderConfig (solo los de provider.active)
+     * @param active Nombres de los proveedores activos en orden de preferencia (provider.active)
+     * @throws IllegalStateException si un nombre de provider.active no existe
+     */
+    public ProviderRouter(
+            List<MarketDataProvider> providers,
+            @Value("${provider.active:alphavantage}") String active) {
+        Map<String, MarketDataProvider> byName = new LinkedHashMap<>();
+        providers.forEach(provider -> byName.put(provider.name(), provider));
+
+        List<Route> ordered = new ArrayList<>();
+        for (String name : active.split(",")) {
+            String trimmed = name.trim().toLowerCase(Locale.ROOT);
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            MarketDataProvider provider = byName.get(trimmed);
+            if (provider == null) {
+                throw new IllegalStateException("Proveedor desconocido en provider.active: " + trimmed
+                    + " (disponibles: " + byName.keySet() + ")");
+            }
+            ordered.add(new Route(provider));
+        }
+        if (ordered.isEmpty()) {
+            throw new IllegalStateException("provider.active no tiene ningún proveedor");
+        }
+        this.routes = List.copyOf(ordered);
+        System.out.println("🔀 Proveedores activos: " + routes.stream().map(route -> route.provider.name()).toList());
+    }
+
+    /**
+     * Descarga una serie del proveedor con menor costo esperado (con failover)
+     *
+     * @param cacheKey Clave del cache (fusiona llamadas duplicadas en cada cola)
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @param full true para la historia completa, false para las barras recientes
+     * @param priority Prioridad de la llamada en la cola del proveedor
+     * @return Mono con la serie normalizada y etiquetada con su proveedor, o vacío si no la tiene
+     */
+    public Mono<TimeSeries> fetch(String cacheKey, Interval interval, String symbol, boolean full,
+                                  RequestPriority priority) {
+        return Mono.defer(() -> attempt(ranked(interval), 0, cacheKey, interval, symbol, full, priority));
+    }
+
+    private Mono<TimeSeries> attempt(List<Route> ranked, int index, String cacheKey, Interval interval,
+                                     String symbol, boolean full, RequestPriority priority) {
+        if (ranked.isEmpty()) {
+            return Mono.error(new UpstreamUnavailableException(
+                "Ningún proveedor activo tiene series " + interval.path()));
+        }
+        Route route = ranked.get(index);
+        route.selected.increment();
+        return route.provider.fetch(cacheKey, interval, symbol, full, priority)
+            .map(series -> series.withSource(route.provider.name()))
+            .onErrorResume(error -> canFailOver(error) && index + 1 < ranked.size(), error -> {
+                route.failovers.increment();
+                System.out.println("↪️ " + route.provider.name() + " no disponible para " + cacheKey
+                    + " (" + error.getMessage() + "), probando " + ranked.get(index + 1).provider.name());
+                return attempt(ranked, index + 1, cacheKey, interval, symbol, full, priority);
+            });
+    }
+
+    /**
+     * @return true si el error es del proveedor (cuota o circuito) y otro podría responder
+     */
+    private static boolean canFailOver(Throwable error) {
+        return error instanceof UpstreamThrottledException || error instanceof UpstreamUnavailableException;
+    }
+
+    /**
+     * Proveedores que sirven el intervalo, del menor al mayor costo esperado
+     * - Con el circuito abierto van al final (fallan al instante: solo si no queda otro)
+     * - List.sort es estable: con igual costo se respeta el orden de provider.active
+     */
+    private List<Route> ranked(Interval interval) {
+        List<Route> candidates = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            if (route.provider.supports(interval)) {
+                candidates.add(route);
+            }
+        }
+        if (candidates.size() > 1) {
+            candidates.sort(Comparator
+                .comparing((Route route) -> route.provider.circuitBreaker().state() == UpstreamCircuitBreaker.State.OPEN)
+                .thenComparingDouble(route -> cost(route.provider)));
+        }
+        return candidates;
+    }
+
+    /**
+     * Costo esperado (nanosegundos) de una llamada nueva a este proveedor
+     * - Latencia / (1 - tasa de error): con 50% de errores se espera pagar la latencia dos veces
+     * - Más la espera por cuota en su cola (0 si tiene tokens libres)
+     */
+    private static double cost(MarketDataProvider provider) {
+        double errorRate = Math.min(0.9, provider.errorRate());
+        return provider.latencyNanos() / (1 - errorRate) + provider.scheduler().estimatedWaitNanos();
+    }
+
+    /**
+     * Sube la prioridad de una llamada que sigue en cola (en el proveedor que la tenga)
+     */
+    public void promote(String cacheKey, RequestPriority priority) {
+        for (Route route : routes) {
+            route.provider.scheduler().promote(cacheKey, priority);
+        }
+    }
+
+    /**
+     * @return Proveedores activos, en orden de provider.active
+     */
+    public List<MarketDataProvider> providers() {
+        return routes.stream().map(route -> route.provider).toList();
+    }
+
+    /**
+     * @return Estado de cada proveedor activo (en orden de provider.active)
+     */
+    public List<ProviderStats> stats() {
+        List<ProviderStats> stats = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            MarketDataProvider provider = route.provider;
+            stats.add(new ProviderStats(
+                provider.name(),
+                provider.latencyNanos() / 1_000_000.0,
+                provider.errorRate(),
+                provider.scheduler().estimatedWaitNanos() / 1_000_000.0,
+                provider.circuitBreaker().state(),
+                route.selected.sum(),
+                route.failovers.sum(),
+                provider.scheduler().stats()));
+        }
+        return stats;
+    }
+
+    /**
+     * Un proveedor activo y sus contadores de enrutamiento
+     */
+    private static final class Route {
+        final MarketDataProvider provider;
+        final LongAdder selected = new LongAdder();
+        final LongAdder failovers = new LongAdder();
+
+        Route(MarketDataProvider provider) {
+            this.provider = provider;
+        }
+    }
+
+    /**
+     * Estado de un proveedor (GET /api/upstream/stats)
+     *
+     * @param name Nombre del proveedor
+     * @param latencyMillis Latencia típica reciente (promedio móvil)
+     * @param errorRate Fracción reciente de llamadas fallidas
+     * @param quotaWaitMillis Espera estimada en su cola para una llamada nueva
+     * @param circuit Estado de su circuit breaker
+     * @param selected Llamadas que se le asignaron
+     * @param failovers Llamadas que se pasaron al siguiente proveedor (sin cuota o circuito abierto)
+     * @param queue Métricas de su cola (UpstreamScheduler)
+     */
+    public record ProviderStats(
+        String name,
+        double latencyMillis,
+        double errorRate,
+        double quotaWaitMillis,
+        UpstreamCircuitBreaker.State circuit,
+        long selected,
+        long failovers,
+        UpstreamStats queue) {
+    }
+}
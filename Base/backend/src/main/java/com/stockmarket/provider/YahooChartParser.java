@@ -0,0 +1,316 @@
+package com.stockmarket.provider;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.service.Interval;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+
+/**
+ * Convierte la respuesta de Yahoo Finance (GET /v8/finance/chart/{symbol}) en una
+ * TimeSeries con el formato del gateway (nombres de serie y "Meta Data" de Alpha Vantage)
+ *
+ * FORMATO DE YAHOO (columnar, igual que TimeSeries):
+ * {"chart":{"result":[{"meta":{"exchangeTimezoneName":"America/New_York",...},
+ *   "timestamp":[1736951400,...],
+ *   "indicators":{"quote":[{"open":[...],"high":[...],"low":[...],"close":[...],"volume":[...]}]}}],
+ *  "error":null}}
+ *
+ * NORMALIZACIÓN:
+ * - Fechas: Yahoo usa segundos UTC del INICIO de la barra; el gateway usa la hora de
+ *   la bolsa (epoch-day o epoch-second) con los rótulos de Alpha Vantage:
+ *   5min → su inicio (igual que Yahoo: 09:30, ..., 15:55), semanal → viernes de esa semana,
+ *   mensual → último día hábil del mes (sin pasar la última sesión: la barra en curso
+ *   lleva su fecha real)
+ * - Precios: Yahoo ajusta "quote" por splits y Alpha Vantage (TIME_SERIES_*) no; no se
+ *   pueden igualar sin el historial de eventos, así que cada serie recuerda su proveedor
+ *   (TimeSeries.source) y nunca se combina con una descarga de otro (ver mergeNewer)
+ * - Valores null (minutos sin operaciones) → la barra se omite; fechas repetidas → la primera
+ * - Símbolo inexistente: "result":null y "error":{...} → null (no es una serie)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Parser en streaming (Jackson JsonParser), como AlphaVantageParser: sin árbol de objetos;
+ *   las columnas se copian directo a arreglos primitivos
+ */
+final class YahooChartParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final DateTimeFormatter INTRADAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** Zona de la bolsa si la respuesta no la trae */
+    private static final ZoneId DEFAULT_ZONE = ZoneId.of("America/New_York");
+
+    private YahooChartParser() {
+        // Clase utilitaria: no se instancia
+    }
+
+    /**
+     * @param interval Intervalo pedido (define nombre de la serie y rótulo de las fechas)
+     * @param symbol Símbolo pedido (para "Meta Data")
+     * @param full true si se pidió la historia completa (para "Output Size")
+     * @param json Respuesta de Yahoo
+     * @return Serie normalizada, o null si la respuesta no contiene barras
+     */
+    static TimeSeries parse(Interval interval, String symbol, boolean full, String json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            Chart chart = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT && name.equals("chart")) {
+                    chart = parseChart(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return chart != null ? chart.toSeries(interval, symbol, full) : null;
+        } catch (IOException | RuntimeException e) {
+            // JSON mal formado o zona horaria desconocida: no es una serie válida
+            return null;
+        }
+    }
+
+    /**
+     * "chart": {"result": [ {...} ], "error": ...} → el primer resultado
+     */
+    private static Chart parseChart(JsonParser parser) throws IOException {
+        Chart chart = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY && name.equals("result")) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    if (chart == null) {
+                        chart = parseResult(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return chart;
+    }
+
+    private static Chart parseResult(JsonParser parser) throws IOException {
+        Chart chart = new Chart();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT && name.equals("meta")) {
+                parseMeta(parser, chart);
+            } else if (token == JsonToken.START_ARRAY && name.equals("timestamp")) {
+                chart.times = readLongs(parser);
+            } else if (token == JsonToken.START_OBJECT && name.equals("indicators")) {
+                parseIndicators(parser, chart);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return chart;
+    }
+
+    private static void parseMeta(JsonParser parser, Chart chart) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (name.equals("exchangeTimezoneName") && token == JsonToken.VALUE_STRING) {
+                chart.zone = parser.getText();
+            } else if (name.equals("regularMarketTime") && token == JsonToken.VALUE_NUMBER_INT) {
+                chart.marketTime = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * "indicators": {"quote": [{"open": [...], ...}], "adjclose": [...]} → columnas de quote[0]
+     */
+    private static void parseIndicators(JsonParser parser, Chart chart) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_ARRAY || !name.equals("quote")) {
+                parser.skipChildren();
+                continue;
+            }
+            boolean first = true;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                if (!first) {
+                    parser.skipChildren();
+                    continue;
+                }
+                first = false;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String column = parser.getCurrentName();
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    switch (column) {
+                        case "open" -> chart.open = readDoubles(parser);
+                        case "high" -> chart.high = readDoubles(parser);
+                        case "low" -> chart.low = readDoubles(parser);
+                        case "close" -> chart.close = readDoubles(parser);
+                        case "volume" -> chart.volume = readLongs(parser);
+                        default -> parser.skipChildren();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee un arreglo de números (null → NaN) ya posicionado en START_ARRAY
+     */
+    private static double[] readDoubles(JsonParser parser) throws IOException {
+        double[] values = new double[64];
+        int size = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = token == JsonToken.VALUE_NULL ? Double.NaN : parser.getDoubleValue();
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Lee un arreglo de enteros (null → 0) ya posicionado en START_ARRAY
+     */
+    private static long[] readLongs(JsonParser parser) throws IOException {
+        long[] values = new long[64];
+        int size = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = token == JsonToken.VALUE_NULL ? 0 : parser.getLongValue();
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Columnas leídas de un resultado de Yahoo (todavía en segundos UTC)
+     */
+    private static final class Chart {
+        String zone;
+        long marketTime;
+        long[] times;
+        double[] open;
+        double[] high;
+        double[] low;
+        double[] close;
+        long[] volume;
+
+        TimeSeries toSeries(Interval interval, String symbol, boolean full) {
+            if (times == null || close == null || open == null || high == null || low == null) {
+                return null;
+            }
+            ZoneId zoneId = zone != null ? ZoneId.of(zone) : DEFAULT_ZONE;
+            boolean intraday = interval == Interval.INTRADAY;
+            LocalDate lastSession = marketTime > 0
+                ? Instant.ofEpochSecond(marketTime).atZone(zoneId).toLocalDate()
+                : LocalDate.MAX;
+            int size = Math.min(times.length, Math.min(close.length,
+                Math.min(open.length, Math.min(high.length, low.length))));
+
+            TimeSeries.Builder builder = TimeSeries.builder(seriesName(interval), intraday);
+            long lastTime = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                if (Double.isNaN(close[i]) || Double.isNaN(open[i])) {
+                    continue;
+                }
+                LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochSecond(times[i]), zoneId);
+                long time = intraday
+                    ? start.toEpochSecond(ZoneOffset.UTC)
+                    : periodEnd(interval, start.toLocalDate(), lastSession).toEpochDay();
+                if (time <= lastTime) {
+                    continue;  // Yahoo a veces repite la barra en curso: se queda la primera
+                }
+                long barVolume = volume != null && i < volume.length ? volume[i] : 0;
+                builder.add(time, open[i], high[i], low[i], close[i], barVolume);
+                lastTime = time;
+            }
+            if (lastTime == Long.MIN_VALUE) {
+                return null;
+            }
+            String[][] meta = meta(interval, symbol, full, lastTime, zone != null ? zone : DEFAULT_ZONE.getId());
+            return builder.meta(meta[0], meta[1]).build();
+        }
+    }
+
+    /**
+     * Fecha con la que Alpha Vantage rotula la barra que empieza en "start"
+     */
+    private static LocalDate periodEnd(Interval interval, LocalDate start, LocalDate lastSession) {
+        LocalDate end = switch (interval) {
+            case WEEKLY -> start.with(TemporalAdjusters.nextOrSame(DayOfWeek.FRIDAY));
+            case MONTHLY -> {
+                LocalDate last = start.with(TemporalAdjusters.lastDayOfMonth());
+                while (last.getDayOfWeek().getValue() > 5) {
+                    last = last.minusDays(1);
+                }
+                yield last;
+            }
+            default -> start;
+        };
+        return end.isAfter(lastSession) ? lastSession : end;
+    }
+
+    /**
+     * Mismos nombres de serie que Alpha Vantage (el frontend los usa para leer el JSON)
+     */
+    private static String seriesName(Interval interval) {
+        return switch (interval) {
+            case INTRADAY -> "Time Series (5min)";
+            case DAILY -> "Time Series (Daily)";
+            case WEEKLY -> "Weekly Time Series";
+            case MONTHLY -> "Monthly Time Series";
+        };
+    }
+
+    /**
+     * "Meta Data" con las mismas claves que Alpha Vantage para ese intervalo
+     */
+    private static String[][] meta(Interval interval, String symbol, boolean full, long lastTime, String zone) {
+        String lastRefreshed = interval == Interval.INTRADAY
+            ? LocalDateTime.ofEpochSecond(lastTime, 0, ZoneOffset.UTC).format(INTRADAY_FORMAT)
+            : LocalDate.ofEpochDay(lastTime).toString();
+        String outputSize = full ? "Full size" : "Compact";
+        return switch (interval) {
+            case INTRADAY -> new String[][] {
+                {"1. Information", "2. Symbol", "3. Last Refreshed", "4. Interval", "5. Output Size", "6. Time Zone"},
+                {"Intraday (5min) open, high, low, close prices and volume", symbol, lastRefreshed, "5min",
+                    outputSize, zone}};
+            case DAILY -> new String[][] {
+                {"1. Information", "2. Symbol", "3. Last Refreshed", "4. Output Size", "5. Time Zone"},
+                {"Daily Prices (open, high, low, close) and Volumes", symbol, lastRefreshed, outputSize, zone}};
+            case WEEKLY -> new String[][] {
+                {"1. Information", "2. Symbol", "3. Last Refreshed", "4. Time Zone"},
+                {"Weekly Prices (open, high, low, close) and Volumes", symbol, lastRefreshed, zone}};
+            case MONTHLY -> new String[][] {
+                {"1. Information", "2. Symbol", "3. Last Refreshed", "4. Time Zone"},
+                {"Monthly Prices (open, high, low, close) and Volumes", symbol, lastRefreshed, zone}};
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package com.stockmarket.provider;
+
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.service.Interval;
+import com.stockmarket.upstream.UpstreamCircuitBreaker;
+import com.stockmarket.upstream.UpstreamScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriBuilder;
+
+import java.net.URI;
+import java.util.function.Function;
+
+/**
+ * Proveedor Yahoo Finance (GET /v8/finance/chart/{symbol}?interval=1d&range=6mo)
+ *
+ * - No usa API key; la cuota no está publicada (yahoo.rate-limit.*) y al excederla
+ *   responde HTTP 429 (HttpMarketDataProvider lo convierte en UpstreamThrottledException)
+ * - YahooChartParser normaliza la respuesta al formato del gateway (Alpha Vantage)
+ * - Yahoo no pide cantidad de barras sino un rango; "compact" se aproxima con un rango
+ *   que cubre al menos 100 barras (5 días de 5min, 6 meses de diarias)
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden otro intervalo (Interval + YahooChartParser.seriesName)
+ * ============================================
+ */
+public class YahooFinanceProvider extends HttpMarketDataProvider {
+
+    /** Nombre en provider.active */
+    public static final String NAME = "yahoo";
+
+    /**
+     * @param webClient Cliente HTTP hacia yahoo.base-url
+     * @param scheduler Cola y cuota (yahoo.rate-limit.*)
+     * @param circuitBreaker Circuit breaker de este proveedor
+     * @param hedge Configuración del hedging
+     * @param meterRegistry Registro de métricas
+     */
+    public YahooFinanceProvider(
+            WebClient webClient,
+            UpstreamScheduler scheduler,
+            UpstreamCircuitBreaker circuitBreaker,
+            HedgePolicy hedge,
+            MeterRegistry meterRegistry) {
+        // Yahoo responde 429 a clientes sin User-Agent de navegador
+        super(NAME, webClient.mutate().defaultHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0").build(),
+            scheduler, circuitBreaker, hedge, meterRegistry);
+    }
+
+    @Override
+    public boolean supports(Interval interval) {
+        return true;
+    }
+
+    /**
+     * URI del gráfico (ej: /v8/finance/chart/IBM?interval=1d&range=6mo&includePrePost=true)
+     *
+     * - includePrePost=true: Alpha Vantage incluye pre y post mercado en las intradiarias
+     *   (extended_hours=true por defecto); así ambos proveedores entregan las mismas barras
+     */
+    @Override
+    protected Function<UriBuilder, URI> uri(Interval interval, String symbol, boolean full) {
+        String barSize = switch (interval) {
+            case INTRADAY -> "5m";
+            case DAILY -> "1d";
+            case WEEKLY -> "1wk";
+            case MONTHLY -> "1mo";
+        };
+        String range = switch (interval) {
+            case INTRADAY -> full ? "1mo" : "5d";
+            case DAILY -> full ? "max" : "6mo";
+            default -> "max";  // Semanal y mensual siempre completas, como en Alpha Vantage
+        };
+        return uriBuilder -> uriBuilder
+            .path("/v8/finance/chart/{symbol}")
+            .queryParam("interval", barSize)
+            .queryParam("range", range)
+            .queryParam("includePrePost", "true")
+            .build(symbol);
+    }
+
+    @Override
+    protected TimeSeries parse(Interval interval, String symbol, boolean full, String body) {
+        return YahooChartParser.parse(interval, symbol, full, body);
+    }
+
+    /**
+     * Yahoo avisa la cuota con HTTP 429, no en el cuerpo
+     */
+    @Override
+    protected boolean isThrottleNote(String body) {
+        return false;
+    }
+}
@@ -0,0 +1,325 @@
+package com.stockmarket.service;
+
+import com.stockmarket.cache.ConcurrentCache;
+import com.stockmarket.cache.ConcurrentCache.HotKey;
+import com.stockmarket.peer.PeerRing;
+import com.stockmarket.upstream.RequestPriority;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Precarga al arrancar las claves más populares (lista persistida en disco)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Lista de popularidad: Cada cache.warmup.persist-interval se guardan las top-N
+ *   claves según la frecuencia de acceso del cache (el mismo FrequencySketch de
+ *   TinyLFU: contar no agrega trabajo al camino de una petición)
+ * - Precarga en paralelo acotado: Al arrancar, las claves de la lista se piden en
+ *   orden de popularidad con a lo sumo cache.warmup.max-concurrency a la vez. Pasan
+ *   por el servicio (single-flight, agregación local desde DAILY) y por la cola de
+ *   cada proveedor con prioridad BACKGROUND: respetan la cuota y los usuarios van primero
+ * - Readiness: Este HealthIndicator está en el grupo "readiness"
+ *   (GET /actuator/health/readiness); responde OUT_OF_SERVICE hasta que esté cargada
+ *   la fracción cache.warmup.ready-fraction de la lista. Así el balanceador no manda
+ *   tráfico a una instancia con el cache frío
+ * - Complementa a CacheSnapshotter: lo restaurado del snapshot cuenta como cargado;
+ *   una instancia nueva (sin snapshot) puede usar la lista de otra (cache.warmup.path)
+ * - Cache distribuido (peer.enabled): Cada nodo precarga solo los símbolos de los que
+ *   es dueño (PeerRing); los demás los piden al dueño cuando hagan falta
+ *
+ * NUNCA BLOQUEA EL ARRANQUE:
+ * - Si la precarga termina (aunque algunas claves fallen) o pasa cache.warmup.max-wait,
+ *   la instancia se declara lista igual; lo que falte se carga con el tráfico
+ * - La lista no se sobrescribe hasta terminar la precarga (con el cache a medio
+ *   llenar se perdería el orden de popularidad de la corrida anterior)
+ *
+ * FORMATO DEL ARCHIVO (texto, editable a mano para sembrar una instancia nueva):
+ * # comentario
+ * DAILY_IBM 15
+ * INTRADAY_AAPL 12
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - La precarga gasta demasiada cuota (baja cache.warmup.top-n)
+ * - Te piden precargar desde otra fuente (ej: una lista fija): load()
+ * ============================================
+ */
+@Component
+public class CacheWarmer implements HealthIndicator {
+
+    private final ConcurrentCache cache;
+    private final ReactiveStockService stockService;
+    private final PeerRing peers;
+    private final boolean enabled;
+    private final Path path;
+    private final int topN;
+    private final int maxConcurrency;
+    private final double readyFraction;
+    private final Duration maxWait;
+
+    /** Claves de la lista leída al arrancar */
+    private volatile int total;
+
+    /** Claves de la lista que ya están en cache (restauradas o precargadas) */
+    private final AtomicInteger loaded = new AtomicInteger();
+
+    /** true cuando la instancia puede recibir tráfico */
+    private volatile boolean ready;
+
+    /** true cuando la precarga terminó (recién ahí se puede sobrescribir la lista) */
+    private volatile boolean finished;
+
+    /** Plazo máximo de la precarga (se cancela si termina antes) */
+    private volatile Disposable deadline;
+
+    /**
+     * @param cache Cache de series
+     * @param stockService Servicio que descarga las series
+     * @param peers Anillo de nodos (solo se precargan los símbolos propios)
+     * @param enabled Activa la lista de popularidad y la precarga (cache.warmup.enabled)
+     * @param path Archivo de la lista (cache.warmup.path)
+     * @param topN Claves que se guardan y se precargan (cache.warmup.top-n)
+     * @param maxConcurrency Claves pedidas a la vez durante la precarga (cache.warmup.max-concurrency)
+     * @param readyFraction Fracción de la lista cargada para declararse lista (cache.warmup.ready-fraction)
+     * @param maxWait Espera máxima antes de declararse lista igual (cache.warmup.max-wait)
+     */
+    public CacheWarmer(
+            ConcurrentCache cache,
+            ReactiveStockService stockService,
+            PeerRing peers,
+            @Value("${cache.warmup.enabled:true}") boolean enabled,
+            @Value("${cache.warmup.path:popular-keys.txt}") Path path,
+            @Value("${cache.warmup.top-n:50}") int topN,
+            @Value("${cache.warmup.max-concurrency:4}") int maxConcurrency,
+            @Value("${cache.warmup.ready-fraction:0.8}") double readyFraction,
+            @Value("${cache.warmup.max-wait:PT2M}") Duration maxWait) {
+        this.cache = cache;
+        this.stockService = stockService;
+        this.peers = peers;
+        this.enabled = enabled;
+        this.path = path;
+        this.topN = Math.max(1, topN);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.readyFraction = Math.min(1, Math.max(0, readyFraction));
+        this.maxWait = maxWait;
+        this.ready = !enabled;
+        this.finished = !enabled;
+    }
+
+    /**
+     * Lanza la precarga cuando la aplicación ya arrancó (snapshot restaurado, puerto abierto)
+     *
+     * NOTA: No bloquea: la precarga corre en segundo plano y el estado se ve en
+     * /actuator/health/readiness
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        List<String> keys = load();
+        List<String> missing = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            if (cache.containsKey(key)) {
+                loaded.incrementAndGet();
+            } else {
+                missing.add(key);
+            }
+        }
+        total = keys.size();
+        System.out.println("🔥 Precarga: " + total + " claves populares (" + loaded.get()
+            + " ya en cache, se declara lista con " + required() + ")");
+        checkReady();
+        if (missing.isEmpty()) {
+            finish();
+            return;
+        }
+
+        long start = System.nanoTime();
+        deadline = Mono.delay(maxWait)
+            .subscribe(tick -> markReady("⏱️ Precarga sin terminar tras " + maxWait.toSeconds() + "s"));
+        Flux.fromIterable(missing)
+            .flatMap(this::warm, maxConcurrency)  // Se suscribe en orden: las más populares salen primero
+            .doFinally(signal -> {
+                System.out.println("🔥 Precarga terminada: " + loaded.get() + "/" + total + " claves en "
+                    + (System.nanoTime() - start) / 1_000_000 + "ms");
+                finish();
+            })
+            .subscribe();
+    }
+
+    /**
+     * Carga una clave a través del servicio (prioridad BACKGROUND)
+     * - Un error no detiene la precarga: esa clave se cargará con el tráfico
+     */
+    private Mono<?> warm(String cacheKey) {
+        Interval interval = Interval.ofCacheKey(cacheKey);
+        return stockService.getResponse(interval, interval.symbolOf(cacheKey), RequestPriority.BACKGROUND)
+            .doOnSuccess(response -> {
+                // Una respuesta sin serie (símbolo inválido) no se guarda ni cuenta
+                if (cache.containsKey(cacheKey)) {
+                    loaded.incrementAndGet();
+                    checkReady();
+                }
+            })
+            .onErrorResume(error -> {
+                System.out.println("⚠️ No se pudo precargar " + cacheKey + ": " + error.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Claves que deben estar cargadas para declararse lista
+     */
+    private int required() {
+        return (int) Math.ceil(readyFraction * total);
+    }
+
+    private void checkReady() {
+        if (!ready && loaded.get() >= required()) {
+            markReady("✅ Cache caliente: " + loaded.get() + "/" + total + " claves populares");
+        }
+    }
+
+    private synchronized void markReady(String message) {
+        if (!ready) {
+            ready = true;
+            System.out.println(message + " - lista para recibir tráfico");
+        }
+    }
+
+    private void finish() {
+        Disposable timer = deadline;
+        if (timer != null) {
+            timer.dispose();
+        }
+        markReady("🔥 Precarga terminada con " + loaded.get() + "/" + total + " claves");
+        finished = true;
+    }
+
+    /**
+     * Estado para /actuator/health (grupo readiness): OUT_OF_SERVICE mientras precarga
+     */
+    @Override
+    public Health health() {
+        Health.Builder builder = ready ? Health.up() : Health.outOfService();
+        return builder
+            .withDetail("loaded", loaded.get())
+            .withDetail("total", total)
+            .withDetail("readyFraction", readyFraction)
+            .withDetail("finished", finished)
+            .build();
+    }
+
+    /**
+     * Lee la lista persistida (claves válidas, sin repetir, en orden de popularidad)
+     *
+     * - Con cache distribuido se descartan los símbolos de otros nodos
+     *
+     * @return Hasta topN claves, o vacía si no hay archivo o no se puede leer
+     */
+    private List<String> load() {
+        if (!Files.isRegularFile(path)) {
+            return List.of();
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                String key = trimmed.split("\\s+")[0];
+                if (isValidKey(key) && peers.isLocal(Interval.ofCacheKey(key).symbolOf(key))) {
+                    keys.add(key);
+                }
+                if (keys.size() == topN) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ No se pudo leer la lista de popularidad (" + e.getMessage() + "): " + path);
+        }
+        return List.copyOf(keys);
+    }
+
+    private static boolean isValidKey(String key) {
+        try {
+            Interval interval = Interval.ofCacheKey(key);
+            return key.length() > interval.name().length() + 1;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Guarda la lista periódicamente
+     */
+    @Scheduled(
+        initialDelayString = "${cache.warmup.persist-interval:PT5M}",
+        fixedDelayString = "${cache.warmup.persist-interval:PT5M}")
+    public void scheduledPersist() {
+        persist();
+    }
+
+    /**
+     * Guarda la lista al apagar la aplicación
+     */
+    @PreDestroy
+    public void persistOnShutdown() {
+        persist();
+    }
+
+    /**
+     * Escribe las top-N claves del cache en el archivo de la lista
+     *
+     * - Escritura atómica (archivo temporal + renombrar), como CacheSnapshotter
+     * - synchronized: el guardado periódico y el del apagado no se pisan
+     */
+    public synchronized void persist() {
+        if (!finished) {
+            return;
+        }
+        List<HotKey> popular = cache.popularKeys(topN);
+        if (popular.isEmpty()) {
+            return;  // Sin tráfico todavía: se conserva la lista anterior
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write("# Claves más pedidas (clave frecuencia 0-15), de la más a la menos popular");
+                writer.newLine();
+                for (HotKey hotKey : popular) {
+                    writer.write(hotKey.key() + " " + hotKey.frequency());
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("💾 Lista de popularidad guardada: " + popular.size() + " claves");
+        } catch (IOException e) {
+            System.out.println("❌ No se pudo guardar la lista de popularidad: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.stockmarket.service;
+
+/**
+ * Intervalos de tiempo soportados por el gateway
+ *
+ * CONCEPTOS APLICADOS:
+ * - Enum: Conjunto cerrado de valores con datos asociados (ruta y función de la API)
+ * - Evita repetir "DAILY_" + symbol, "TIME_SERIES_DAILY"... en cada método
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden agregar un intervalo (ej: HOURLY("hourly", "TIME_SERIES_INTRADAY"))
+ * ============================================
+ */
+public enum Interval {
+
+    INTRADAY("intraday", "TIME_SERIES_INTRADAY"),
+    DAILY("daily", "TIME_SERIES_DAILY"),
+    WEEKLY("weekly", "TIME_SERIES_WEEKLY"),
+    MONTHLY("monthly", "TIME_SERIES_MONTHLY");
+
+    /** Segmento de la URL del gateway (ej: /api/stocks/IBM/daily) */
+    private final String path;
+
+    /** Parámetro "function" de Alpha Vantage */
+    private final String function;
+
+    Interval(String path, String function) {
+        this.path = path;
+        this.function = function;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public String function() {
+        return function;
+    }
+
+    /**
+     * @return true si la serie se puede armar localmente desde la diaria (WEEKLY, MONTHLY)
+     */
+    public boolean derivableFromDaily() {
+        return this == WEEKLY || this == MONTHLY;
+    }
+
+    /**
+     * @return true si la API acepta outputsize=compact|full (INTRADAY, DAILY)
+     */
+    public boolean supportsOutputSize() {
+        return this == INTRADAY || this == DAILY;
+    }
+
+    /**
+     * Clave del cache para un símbolo (ej: DAILY + "IBM" → "DAILY_IBM")
+     */
+    public String cacheKey(String symbol) {
+        return name() + "_" + symbol;
+    }
+
+    /**
+     * Intervalo de una clave del cache (ej: "DAILY_IBM" → DAILY)
+     *
+     * @throws IllegalArgumentException si la clave no empieza con un intervalo
+     */
+    public static Interval ofCacheKey(String cacheKey) {
+        int separator = cacheKey.indexOf('_');
+        return valueOf(separator < 0 ? cacheKey : cacheKey.substring(0, separator));
+    }
+
+    /**
+     * Símbolo de una clave del cache de este intervalo (ej: "DAILY_IBM" → "IBM")
+     */
+    public String symbolOf(String cacheKey) {
+        return cacheKey.substring(name().length() + 1);
+    }
+
+    /**
+     * Busca el intervalo por su segmento de URL
+     *
+     * @param path Texto como "daily" o "intraday" (sin distinguir mayúsculas)
+     * @return Intervalo correspondiente
+     * @throws IllegalArgumentException si el intervalo no existe
+     */
+    public static Interval fromPath(String path) {
+        for (Interval interval : values()) {
+            if (interval.path.equalsIgnoreCase(path)) {
+                return interval;
+            }
+        }
+        throw new IllegalArgumentException("Intervalo no soportado: " + path);
+    }
+}
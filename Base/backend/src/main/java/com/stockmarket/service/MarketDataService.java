@@ -0,0 +1,700 @@
+package com.stockmarket.service;
+
+import com.stockmarket.accesslog.AccessLog;
+import com.stockmarket.cache.ConcurrentCache;
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.SeriesResponse;
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.model.TimeSeriesAggregator;
+import com.stockmarket.model.TimeSeriesJsonWriter;
+import com.stockmarket.peer.PeerClient;
+import com.stockmarket.peer.PeerRing;
+import com.stockmarket.peer.PeerUnreachableException;
+import com.stockmarket.provider.AlphaVantageParser;
+import com.stockmarket.provider.ProviderRouter;
+import com.stockmarket.upstream.RequestPriority;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implementación del servicio: cache delante de uno o varios proveedores de datos
+ * 
+ * CONCEPTOS APLICADOS:
+ * - Patrón Strategy: Implementa StockService (una de varias posibles implementaciones)
+ * - Implementa también ReactiveStockService: los métodos bloqueantes solo
+ *   esperan (block) a los reactivos, así no se duplica la lógica
+ * - Dependency Injection: Spring inyecta ConcurrentCache automáticamente
+ * - Programación Reactiva: Las descargas son Mono (no bloqueantes)
+ * - Patrón Cache: Evita llamadas repetidas a la API
+ * - Single-flight: Una sola llamada a la API por clave aunque lleguen
+ *   muchas peticiones concurrentes con el cache vacío
+ * - Varios proveedores: Las descargas pasan por ProviderRouter, que elige entre
+ *   Alpha Vantage, Yahoo... (provider.active) por latencia, errores y cuota, y cambia
+ *   de proveedor si uno se queda sin cuota. Todos entregan la misma TimeSeries
+ * - Rate limiting, circuit breaker y peticiones "hedged": por proveedor, dentro de
+ *   cada MarketDataProvider (ver HttpMarketDataProvider)
+ * - Stale-while-revalidate: Un valor recién expirado se responde al instante
+ *   y se refresca en segundo plano (prioridad BACKGROUND)
+ * - Agregación local: Semanal y mensual se arman desde la serie diaria en cache
+ *   (TimeSeriesAggregator) sin llamar a la API, solo si esa diaria es la historia
+ *   completa (descarga "full"); con una "compact" se piden a la API
+ * - Refresco incremental: Al refrescar se piden solo las últimas 100 barras
+ *   ("compact") y se combinan con la serie guardada
+ * - Access log asíncrono: Cada consulta al cache (HIT/STALE/MISS) se registra en
+ *   AccessLog sin bloquear ni concatenar Strings en el hilo de la petición
+ * - Métricas: Cada llamada HTTP se mide en su proveedor (upstream_request_seconds,
+ *   por proveedor y resultado); un HIT no toca ningún Timer
+ * - Plazo y respaldo: Un usuario espera como mucho upstream.request-deadline; si la
+ *   llamada falla o no llega a tiempo se responde la última versión guardada
+ *   (ConcurrentCache.lastKnown) marcada como desactualizada, o 503/504 si no hay ninguna
+ * - Cache distribuido (peer.enabled): Con varias instancias, cada símbolo tiene un nodo
+ *   dueño (PeerRing, hashing consistente). Solo el dueño llama a la API; los demás le
+ *   piden la respuesta por HTTP (PeerClient) y guardan una réplica corta solo de las
+ *   claves más pedidas. Si el dueño está caído, se descarga localmente
+ * 
+ * FLUJO DE CADA MÉTODO:
+ * 1. Verificar si datos están en cache
+ * 2. Si SÍ → Retornar inmediatamente (rápido: 10-50ms); si está expirado
+ *    (stale), además refrescarlo en segundo plano
+ * 3. Si NO → Pedir la serie a un proveedor (lento: 500-1000ms, sin bloquear hilos)
+ * 4. El proveedor la entrega como TimeSeries (columnar); codificarla (gzip + ETag) y guardarla en cache
+ * 5. Retornar la respuesta codificada
+ * 
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden usar otro proveedor (crear un MarketDataProvider, ver ProviderConfig)
+ * - Necesitas manejar errores específicos
+ * - Te piden más campos en el log de peticiones (AccessLog)
+ * - Necesitas transformar el JSON antes de retornar
+ * ============================================
+ */
+@Service  // Spring gestiona esta clase como un bean
+public class MarketDataService implements StockService, ReactiveStockService {
+    
+    /**
+     * Cache para evitar llamadas repetidas
+     * - Inyectado automáticamente por Spring (Dependency Injection)
+     */
+    private final ConcurrentCache cache;
+    
+    /**
+     * Elige el proveedor de cada descarga (cada uno con su cola y su cuota)
+     * - final: Inmutabilidad (no puede reasignarse)
+     */
+    private final ProviderRouter router;
+    
+    /**
+     * Llamadas a la API que están en curso, indexadas por clave de cache
+     * - Permite que peticiones concurrentes de la misma clave compartan
+     *   una única llamada (single-flight)
+     * - La entrada se elimina en cuanto la llamada termina
+     */
+    private final ConcurrentHashMap<String, Mono<EncodedResponse>> inFlight = new ConcurrentHashMap<>();
+    
+    /**
+     * Registro de consultas al cache (asíncrono y muestreado)
+     */
+    private final AccessLog accessLog;
+    
+    /**
+     * Decide qué nodo del cluster es dueño de cada símbolo
+     */
+    private final PeerRing peers;
+    
+    /**
+     * Pide las claves de otros nodos a su dueño
+     */
+    private final PeerClient peerClient;
+    
+    /**
+     * Si es true, WEEKLY/MONTHLY se arman desde DAILY cuando ya está en cache con toda la historia
+     */
+    @Value("${aggregation.derive-from-daily:true}")
+    private boolean deriveFromDaily;
+    
+    /**
+     * Tamaño de la primera descarga de INTRADAY/DAILY ("compact" o "full")
+     * - Los refrescos siempre piden "compact" y se combinan con lo guardado
+     * - Con Alpha Vantage es el outputsize; los demás proveedores lo traducen a un rango
+     */
+    @Value("${alphavantage.initial-output-size:compact}")
+    private String initialOutputSize;
+    
+    /**
+     * Máximo de barras de una serie INTRADAY/DAILY combinada con refrescos (0 = sin límite)
+     * - Sin límite, una clave que nunca sale del cache (refresh-ahead, stream) crecería
+     *   en cada refresco: más peso en cache, snapshot y respuesta gzip
+     */
+    @Value("${alphavantage.max-bars.intraday:4032}")
+    private int intradayMaxBars;
+    
+    @Value("${alphavantage.max-bars.daily:10000}")
+    private int dailyMaxBars;
+    
+    /**
+     * Espera máxima de un usuario (INTERACTIVE) por una llamada a la API, cola incluida
+     * - Al vencer se responde el respaldo (o 504); la llamada sigue y llena el cache
+     */
+    @Value("${upstream.request-deadline:PT10S}")
+    private Duration requestDeadline;
+    
+    /**
+     * Frecuencia de acceso (0-15) a partir de la cual una clave de otro nodo se
+     * replica localmente (peer.replica.min-frequency; 0 = sin réplicas)
+     */
+    @Value("${peer.replica.min-frequency:4}")
+    private int replicaMinFrequency;
+    
+    /**
+     * Vida de una réplica local (peer.replica.ttl): corta, el dueño tiene la versión buena
+     */
+    @Value("${peer.replica.ttl:PT30S}")
+    private Duration replicaTtl;
+    
+    /**
+     * Constructor con inyección de dependencias
+     * 
+     * CONCEPTO: Dependency Injection
+     * - Spring crea ConcurrentCache automáticamente
+     * - Lo inyecta en este constructor
+     * - No necesitas hacer "new ConcurrentCache()"
+     * 
+     * @param cache Cache inyectado por Spring
+     * @param router Enrutador entre proveedores inyectado por Spring
+     * @param meterRegistry Registro de métricas (Micrometer) inyectado por Spring
+     * @param accessLog Log de accesos inyectado por Spring
+     * @param peers Anillo de nodos del cluster (sin cluster, todas las claves son locales)
+     * @param peerClient Cliente hacia los demás nodos
+     */
+    public MarketDataService(
+            ConcurrentCache cache,
+            ProviderRouter router,
+            MeterRegistry meterRegistry,
+            AccessLog accessLog,
+            PeerRing peers,
+            PeerClient peerClient) {
+        this.cache = cache;
+        this.router = router;
+        this.accessLog = accessLog;
+        this.peers = peers;
+        this.peerClient = peerClient;
+        Gauge.builder("upstream.inflight", inFlight, ConcurrentHashMap::size)
+            .description("Claves con una llamada a la API en curso (single-flight)")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Obtiene datos intradiarios (cada 5 minutos)
+     * 
+     * NOTA: Versión bloqueante. Espera (block) al Mono de getIntradayDataAsync,
+     * así ambas versiones comparten cache y single-flight
+     * 
+     * @param symbol Símbolo de la acción (ej: "IBM")
+     * @return JSON con datos de la API
+     */
+    @Override
+    public String getIntradayData(String symbol) {
+        return getIntradayDataAsync(symbol).block();  // Bloquea hasta recibir respuesta
+    }
+    
+    /**
+     * Obtiene datos diarios (versión bloqueante)
+     */
+    @Override
+    public String getDailyData(String symbol) {
+        return getDailyDataAsync(symbol).block();
+    }
+    
+    /**
+     * Obtiene datos semanales (versión bloqueante)
+     */
+    @Override
+    public String getWeeklyData(String symbol) {
+        return getWeeklyDataAsync(symbol).block();
+    }
+    
+    /**
+     * Obtiene datos mensuales (versión bloqueante)
+     */
+    @Override
+    public String getMonthlyData(String symbol) {
+        return getMonthlyDataAsync(symbol).block();
+    }
+    
+    /**
+     * Obtiene datos intradiarios (cada 5 minutos) sin bloquear
+     * 
+     * @param symbol Símbolo de la acción (ej: "IBM")
+     * @return Mono que emite el JSON con datos de la API
+     */
+    @Override
+    public Mono<String> getIntradayDataAsync(String symbol) {
+        return getResponse(Interval.INTRADAY, symbol).map(EncodedResponse::toJson);
+    }
+    
+    /**
+     * Obtiene datos diarios sin bloquear
+     */
+    @Override
+    public Mono<String> getDailyDataAsync(String symbol) {
+        return getResponse(Interval.DAILY, symbol).map(EncodedResponse::toJson);
+    }
+    
+    /**
+     * Obtiene datos semanales sin bloquear
+     */
+    @Override
+    public Mono<String> getWeeklyDataAsync(String symbol) {
+        return getResponse(Interval.WEEKLY, symbol).map(EncodedResponse::toJson);
+    }
+    
+    /**
+     * Obtiene datos mensuales sin bloquear
+     */
+    @Override
+    public Mono<String> getMonthlyDataAsync(String symbol) {
+        return getResponse(Interval.MONTHLY, symbol).map(EncodedResponse::toJson);
+    }
+    
+    /**
+     * Obtiene la respuesta ya codificada (gzip + ETag) de cualquier intervalo
+     * 
+     * PATRÓN CACHE:
+     * 1. Crear clave única: "INTRADAY_IBM"
+     * 2. Verificar si existe en cache
+     * 3. Si existe → Mono con la respuesta pre-codificada (rápido)
+     * 4. Si no → llamar API (una sola vez por clave) → parsear → codificar → guardar → emitir
+     * 
+     * @param interval Intervalo (INTRADAY, DAILY, WEEKLY, MONTHLY)
+     * @param symbol Símbolo de la acción (ej: "IBM")
+     * @param priority Prioridad de la llamada a la API si hace falta
+     * @return Mono con la respuesta lista para enviarse
+     */
+    @Override
+    public Mono<EncodedResponse> getResponse(Interval interval, String symbol, RequestPriority priority) {
+        return getResponse(interval, symbol, priority, false);
+    }
+    
+    /**
+     * Respuesta para otro nodo del cluster que considera a este el dueño de la clave
+     * 
+     * NOTA: Igual que getResponse pero, si falta en cache, siempre se descarga aquí
+     * (nunca se reenvía a otro nodo: evita ciclos si los nodos no coinciden en el dueño)
+     * 
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @param priority Prioridad de la petición original
+     * @return Mono con la respuesta codificada
+     */
+    public Mono<EncodedResponse> getOwnedResponse(Interval interval, String symbol, RequestPriority priority) {
+        return getResponse(interval, symbol, priority, true);
+    }
+    
+    /**
+     * @param owned true si este nodo debe responder aunque el anillo diga otro dueño
+     */
+    private Mono<EncodedResponse> getResponse(Interval interval, String symbol, RequestPriority priority,
+                                              boolean owned) {
+        String cacheKey = interval.cacheKey(symbol);
+        // Solo el dueño agrega: si no, cada nodo guardaría su propia semanal/mensual
+        if (deriveFromDaily && interval.derivableFromDaily() && !cache.containsKey(cacheKey)
+                && (owned || peers.isLocal(symbol))) {
+            EncodedResponse derived = deriveFromDaily(interval, symbol);
+            if (derived != null) {
+                return Mono.just(derived);
+            }
+        }
+        return getOrFetch(interval, symbol, priority, owned);
+    }
+
+    /**
+     * Obtiene la serie parseada (columnar) para cálculos sobre ella (ej: indicadores)
+     *
+     * - Pasa por getResponse (cache, agregación, descarga) y luego lee la serie
+     *   guardada con lastKnown (sin contar un segundo acceso en el cache; si la API
+     *   falló, es la misma versión de respaldo que respondió getResponse)
+     * - Clave de otro nodo sin réplica local: se parsea la respuesta recibida del dueño
+     *
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @return Mono con la serie, o vacío si la API no devolvió una serie (ej: símbolo inválido)
+     */
+    @Override
+    public Mono<TimeSeries> getSeries(Interval interval, String symbol) {
+        return getSeriesResponse(interval, symbol).map(SeriesResponse::series);
+    }
+
+    /**
+     * Igual que getSeries, junto con la respuesta codificada que respondió getResponse
+     *
+     * - Si la serie guardada es la de esa respuesta se usa tal cual; si no (ej: la clave
+     *   se refrescó entre medio) se usa la respuesta recibida, así ETag y barras coinciden
+     */
+    @Override
+    public Mono<SeriesResponse> getSeriesResponse(Interval interval, String symbol, RequestPriority priority) {
+        String cacheKey = interval.cacheKey(symbol);
+        return getResponse(interval, symbol, priority)
+            .flatMap(response -> {
+                ConcurrentCache.Lookup lookup = cache.lastKnown(cacheKey);
+                if (lookup != null && lookup.encoded().etag().equals(response.etag())) {
+                    return Mono.just(new SeriesResponse(response, lookup.value()));
+                }
+                return Mono.justOrEmpty(AlphaVantageParser.parse(response.toJson()))
+                    .map(series -> new SeriesResponse(response, series));
+            });
+    }
+
+    /**
+     * Arma la serie semanal/mensual desde la diaria en cache (sin llamar a la API)
+     * 
+     * NOTA: Solo con la diaria completa (TimeSeries.isFullHistory): la API entrega
+     * WEEKLY/MONTHLY con toda la historia, y una diaria "compact" (100 sesiones)
+     * daría ~19 semanas o ~4 meses en su lugar
+     * 
+     * @return Respuesta codificada y guardada en cache, o null si no hay una diaria completa en cache
+     */
+    private EncodedResponse deriveFromDaily(Interval interval, String symbol) {
+        TimeSeries daily = cache.get(Interval.DAILY.cacheKey(symbol));
+        if (daily == null || !daily.isFullHistory()) {
+            return null;
+        }
+        TimeSeries series = interval == Interval.WEEKLY
+            ? TimeSeriesAggregator.toWeekly(daily)
+            : TimeSeriesAggregator.toMonthly(daily);
+        String cacheKey = interval.cacheKey(symbol);
+        System.out.println("🧮 Agregado desde DAILY: " + cacheKey + " (" + series.size() + " barras)");
+        return store(cacheKey, series, null);
+    }
+    
+    /**
+     * Descarga de nuevo una serie sin consultar el cache (refresh-ahead / revalidación)
+     * 
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @param priority Prioridad de la llamada a la API
+     * NOTA: La llamada se registra en inFlight recién al suscribirse (Mono.defer): un Mono
+     * que nadie se suscribe nunca termina y su clave quedaría tomada para siempre
+     *
+     * @return Mono con la respuesta recién descargada (compartido si ya había una llamada)
+     */
+    @Override
+    public Mono<EncodedResponse> refresh(Interval interval, String symbol, RequestPriority priority) {
+        String cacheKey = interval.cacheKey(symbol);
+        return Mono.defer(() -> {
+            Mono<EncodedResponse> call = inFlight.computeIfAbsent(cacheKey,
+                key -> fetch(interval, symbol, priority, false));
+            router.promote(cacheKey, priority);
+            return call;
+        });
+    }
+    
+    /**
+     * Consulta el cache y, si no está la clave, llama a la API externa
+     * 
+     * CONCEPTO: Single-flight (coalescencia de peticiones)
+     * - Si 200 peticiones piden "DAILY_IBM" con el cache vacío, solo la primera
+     *   crea la llamada a la API y la registra en inFlight
+     * - Las demás reciben el mismo Mono (.cache() comparte el resultado entre
+     *   todos los suscriptores) y no gastan cuota de Alpha Vantage
+     * - computeIfAbsent es atómico: solo se crea una llamada por clave
+     * 
+     * CONCEPTO: No bloqueante
+     * - Ningún hilo espera a la API: el resultado se emite cuando llega
+     * 
+     * CONCEPTO: Stale-while-revalidate
+     * - Si el valor expiró hace poco (cache.stale-while-revalidate), se responde
+     *   con él de inmediato y la llamada a la API corre en segundo plano;
+     *   ningún usuario paga los 500-1000ms de la API por una clave popular
+     * 
+     * CONCEPTO: Plazo + respaldo (p99 acotado aunque la API falle)
+     * - Un usuario (INTERACTIVE) espera la llamada como mucho upstream.request-deadline.
+     *   Vencer el plazo solo deja de esperarla: la llamada compartida (.cache())
+     *   sigue y guarda su resultado para las próximas peticiones
+     * - Si falla o vence, se responde la última versión guardada (ver fallback)
+     * 
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @param priority Prioridad de la llamada a la API
+     * @param owned true para descargar aquí aunque el dueño sea otro nodo
+     * @return Mono con la respuesta codificada (desde cache o recién descargada)
+     */
+    private Mono<EncodedResponse> getOrFetch(Interval interval, String symbol, RequestPriority priority,
+                                             boolean owned) {
+        long start = System.nanoTime();
+        String cacheKey = interval.cacheKey(symbol);
+        ConcurrentCache.Lookup cached = cache.lookup(cacheKey);
+        if (cached != null) {
+            if (cached.stale()) {
+                revalidate(interval, symbol);
+            }
+            EncodedResponse encoded = cached.encoded();
+            accessLog.record(cacheKey, cached.stale() ? AccessLog.Result.STALE : AccessLog.Result.HIT,
+                System.nanoTime() - start, encoded.identityLength());
+            return Mono.just(encoded);
+        }
+        
+        // Se registra al suscribirse (Mono.defer): si nadie se suscribe no queda una
+        // llamada en inFlight que nunca termina (ver doFinally en fetch)
+        return Mono.defer(() -> {
+            // Una petición de otro nodo (owned) nunca se une a una llamada que reenvía al
+            // dueño: si los nodos no coinciden en el dueño, ambos esperarían al otro
+            Mono<EncodedResponse> call = inFlight.computeIfAbsent(flightKey(cacheKey, owned), key -> {
+                // La llamada anterior pudo terminar entre nuestro get y este punto
+                if (cache.containsKey(cacheKey)) {
+                    return null;  // null = no registrar ninguna llamada
+                }
+                return fetch(interval, symbol, priority, owned);
+            });
+            
+            // Sin llamada registrada: el valor ya está en cache, volver a consultarlo
+            if (call == null) {
+                return getOrFetch(interval, symbol, priority, owned);
+            }
+            // Si la llamada sigue en cola con menor prioridad, esta petición la adelanta
+            router.promote(cacheKey, priority);
+            if (priority == RequestPriority.INTERACTIVE) {
+                call = call.timeout(requestDeadline);
+            }
+            return call
+                .doOnSuccess(response -> accessLog.record(cacheKey, AccessLog.Result.MISS,
+                    System.nanoTime() - start, response.identityLength()))
+                .onErrorResume(error -> fallback(cacheKey, error, start));
+        });
+    }
+    
+    /**
+     * Respuesta cuando la llamada a la API falló o no llegó a tiempo
+     * 
+     * - Si el cache todavía conserva una versión (aunque esté vencida hace horas,
+     *   ver cache.fallback-retention) se responde esa, marcada como desactualizada:
+     *   el controlador agrega las cabeceras Warning y X-Stale-Seconds
+     * - Si no hay nada guardado, se propaga el error (plazo vencido → 504)
+     */
+    private Mono<EncodedResponse> fallback(String cacheKey, Throwable error, long start) {
+        ConcurrentCache.Lookup last = cache.lastKnown(cacheKey);
+        if (last == null) {
+            accessLog.record(cacheKey, AccessLog.Result.ERROR, System.nanoTime() - start, 0);
+            if (error instanceof TimeoutException) {
+                return Mono.error(new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                    "La API no respondió en " + requestDeadline.toMillis() + "ms, intenta más tarde"));
+            }
+            return Mono.error(error);
+        }
+        EncodedResponse stale = last.encoded().asStale(last.expiredNanos());
+        accessLog.record(cacheKey, AccessLog.Result.FALLBACK, System.nanoTime() - start, stale.identityLength());
+        return Mono.just(stale);
+    }
+    
+    /**
+     * Lanza en segundo plano el refresco de una clave expirada
+     * 
+     * NOTA: Solo se suscribe quien registra la llamada en inFlight; las demás
+     * peticiones stale de la misma clave no agregan trabajo
+     */
+    private void revalidate(Interval interval, String symbol) {
+        String cacheKey = interval.cacheKey(symbol);
+        if (inFlight.containsKey(cacheKey)) {
+            return;
+        }
+        inFlight.computeIfAbsent(cacheKey, key -> fetch(interval, symbol, RequestPriority.BACKGROUND, false))
+            .subscribe(
+                refreshed -> { },
+                error -> System.out.println("⚠️ No se pudo refrescar " + cacheKey + ": " + error.getMessage()));
+    }
+    
+    /**
+     * Clave de una llamada en inFlight
+     * 
+     * - "own:" + clave para las descargas pedidas por otro nodo (getOwnedResponse):
+     *   siempre son locales y no comparten llamada con las que pueden reenviarse
+     * - Si ambas terminan descargando aquí, la cola del proveedor (UpstreamScheduler)
+     *   las fusiona por cacheKey mientras esperan cuota
+     */
+    private static String flightKey(String cacheKey, boolean owned) {
+        return owned ? "own:" + cacheKey : cacheKey;
+    }
+    
+    /**
+     * Crea la llamada (compartida) para una clave: al nodo dueño o a un proveedor
+     * 
+     * - doFinally: libera la clave al terminar (con éxito o con error,
+     *   para que la siguiente petición pueda reintentar)
+     * - cache(): todos los suscriptores comparten una única descarga. Un suscriptor que
+     *   se va (plazo vencido, cliente desconectado) NO cancela la descarga: sigue y guarda
+     *   su resultado en cache
+     * - Si se van todos los suscriptores antes de que termine, la clave se libera igual:
+     *   una llamada que tarda en terminar (o nunca termina) no retiene a las peticiones
+     *   siguientes, que crean una llamada nueva
+     * - remove(clave, llamada): solo se libera si la clave sigue siendo de esta llamada
+     * 
+     * @param owned true para descargar aquí aunque el dueño sea otro nodo
+     */
+    private Mono<EncodedResponse> fetch(Interval interval, String symbol, RequestPriority priority, boolean owned) {
+        String flightKey = flightKey(interval.cacheKey(symbol), owned);
+        String owner = owned ? null : peers.remoteOwnerOf(symbol);
+        Mono<EncodedResponse> call = owner != null
+            ? fromPeer(owner, interval, symbol, priority)
+            : download(interval, symbol, priority);
+        
+        AtomicReference<Mono<EncodedResponse>> self = new AtomicReference<>();
+        AtomicInteger waiting = new AtomicInteger();
+        Mono<EncodedResponse> shared = call
+            .doFinally(signal -> inFlight.remove(flightKey, self.get()))
+            .cache()
+            .doOnSubscribe(subscription -> waiting.incrementAndGet())
+            .doOnCancel(() -> {
+                if (waiting.decrementAndGet() == 0) {
+                    inFlight.remove(flightKey, self.get());
+                }
+            });
+        self.set(shared);
+        return shared;
+    }
+    
+    /**
+     * Pide la clave al nodo dueño (cache distribuido)
+     * 
+     * - El dueño responde desde su cache o descarga la serie con SU cuota; este nodo
+     *   no llama a la API (con N nodos, la cuota no se gasta N veces por símbolo)
+     * - Réplica de claves calientes: si la clave es muy pedida en este nodo
+     *   (frecuencia >= peer.replica.min-frequency) se guarda localmente durante
+     *   peer.replica.ttl; mientras tanto sus HIT no salen del nodo. Al vencer se
+     *   revalida con el dueño (stale-while-revalidate / refresh-ahead), no con la API
+     * - Dueño caído (PeerUnreachableException): se descarga aquí (falla abierta); el
+     *   anillo ya lo marcó caído y sus símbolos pasan al siguiente nodo
+     * - Otros errores del dueño (503 sin cuota, 504) se propagan a fallback()
+     */
+    private Mono<EncodedResponse> fromPeer(String owner, Interval interval, String symbol, RequestPriority priority) {
+        String cacheKey = interval.cacheKey(symbol);
+        return peerClient.fetch(owner, interval, symbol, priority)
+            .doOnNext(response -> replicate(cacheKey, response))
+            .onErrorResume(PeerUnreachableException.class, error -> {
+                System.out.println("🔌 " + error.getReason() + " - descarga local: " + cacheKey);
+                return download(interval, symbol, priority);
+            });
+    }
+    
+    /**
+     * Guarda una réplica corta de una clave caliente recibida del dueño
+     * 
+     * NOTA: No se replican respaldos (desactualizados) ni mensajes de error (sin serie)
+     */
+    private void replicate(String cacheKey, EncodedResponse response) {
+        if (replicaMinFrequency <= 0 || response.isStale() || cache.frequency(cacheKey) < replicaMinFrequency) {
+            return;
+        }
+        TimeSeries series = AlphaVantageParser.parse(response.toJson());
+        if (series != null) {
+            cache.put(cacheKey, series, response, replicaTtl);
+            System.out.println("📎 Réplica local de " + cacheKey + " (" + replicaTtl.toSeconds() + "s)");
+        }
+    }
+    
+    /**
+     * Descarga una clave de un proveedor (este nodo es el dueño)
+     * 
+     * CONCEPTO: Refresco incremental (delta)
+     * - Primera carga: se descarga con alphavantage.initial-output-size ("full" = toda la historia)
+     * - Refrescos: si ya hay una serie en cache (vigente o stale) se piden solo las barras
+     *   recientes ("compact") y se combinan con la existente (TimeSeries.mergeNewer):
+     *   se agregan las barras nuevas, se sobrescribe la barra abierta y el resto queda igual;
+     *   si pasa de alphavantage.max-bars.* se descartan las barras más viejas
+     * - Si nada cambió se conserva la respuesta codificada (mismo ETag → 304 para los clientes)
+     * - Si la descarga no se solapa con la serie guardada (hueco) o viene de otro
+     *   proveedor (failover: otros precios ajustados), se vuelve a hacer la carga
+     *   inicial completa; con initial-output-size=compact la descarga nueva reemplaza a la guardada
+     * 
+     * - router.fetch: elige proveedor; la petición espera en su cola hasta que su cuota
+     *   lo permita y llega ya parseada a TimeSeries (formato común a todos los proveedores)
+     * - map: genera la respuesta codificada (gzip + ETag) y guarda ambas en cache antes
+     *   de liberar la clave en inFlight, así una petición nueva encuentra el valor.
+     *   Si el proveedor no tiene la serie (vacío) se responde un mensaje y NO se guarda
+     */
+    private Mono<EncodedResponse> download(Interval interval, String symbol, RequestPriority priority) {
+        String cacheKey = interval.cacheKey(symbol);
+        ConcurrentCache.Lookup base = interval.supportsOutputSize() ? cache.peek(cacheKey) : null;
+        boolean fullInitial = !"compact".equals(initialOutputSize);
+        
+        return router.fetch(cacheKey, interval, symbol, base == null && fullInitial, priority)
+            .flatMap(series -> {
+                if (base != null) {
+                    int maxBars = interval == Interval.INTRADAY ? intradayMaxBars : dailyMaxBars;
+                    TimeSeries merged = base.value().mergeNewer(series, maxBars);
+                    if (merged == base.value()) {
+                        System.out.println("🟰 Sin cambios: " + cacheKey);
+                        return Mono.just(store(cacheKey, merged, base.encoded()));
+                    }
+                    if (merged != null) {
+                        System.out.println("➕ Delta combinado: " + cacheKey + " (" + merged.size() + " barras)");
+                        return Mono.just(store(cacheKey, merged, null));
+                    }
+                    if (fullInitial) {
+                        System.out.println("🕳️ Hueco o cambio de proveedor en " + cacheKey + " - Descarga completa...");
+                        return router.fetch(cacheKey, interval, symbol, true, priority)
+                            .map(full -> store(cacheKey, full, null))
+                            .switchIfEmpty(Mono.fromSupplier(() -> notFound(cacheKey, symbol)));
+                    }
+                }
+                return Mono.just(store(cacheKey, series, null));
+            })
+            .switchIfEmpty(Mono.fromSupplier(() -> notFound(cacheKey, symbol)));
+    }
+    
+    /**
+     * Guarda una serie en cache junto a su respuesta codificada
+     * 
+     * @param encoded Respuesta ya codificada de esa misma serie, o null para codificarla
+     * @return Respuesta codificada guardada
+     */
+    private EncodedResponse store(String cacheKey, TimeSeries series, EncodedResponse encoded) {
+        if (encoded == null) {
+            encoded = EncodedResponse.encode(TimeSeriesJsonWriter.toJson(series));
+        }
+        cache.put(cacheKey, series, encoded);
+        return encoded;
+    }
+    
+    /**
+     * Respuesta cuando el proveedor no tiene la serie (ej: símbolo inválido)
+     * - Mismo formato de error que Alpha Vantage; NO se guarda en cache
+     */
+    private static EncodedResponse notFound(String cacheKey, String symbol) {
+        System.out.println("⚠️ Respuesta sin serie (no se guarda): " + cacheKey);
+        return EncodedResponse.encode("{\"Error Message\":\"Invalid API call. No hay datos para "
+            + symbol.replace("\\", "").replace("\"", "") + "\"}");
+    }
+    
+    /* ============================================
+     * EXTENSIÓN: Agregar nuevo proveedor
+     * ============================================
+     * 
+     * Para agregar otro proveedor (ej: Polygon):
+     * 
+     * 1. Crear PolygonProvider extends HttpMarketDataProvider (paquete provider)
+     * 2. Implementar uri() y parse() (convertir su JSON a TimeSeries)
+     * 3. Registrar su @Bean en ProviderConfig
+     * 4. Agregarlo a provider.active=alphavantage,yahoo,polygon
+     * 
+     * ============================================
+     * EXTENSIÓN: Manejo de errores
+     * ============================================
+     * 
+     * Los errores HTTP de cada proveedor se clasifican en HttpMarketDataProvider
+     * (429 → sin cuota, 5xx/timeout → circuit breaker). Para otro caso:
+     * 
+     * .onErrorResume(WebClientResponseException.NotFound.class,
+     *     error -> Mono.empty())  // 404 = el proveedor no tiene la serie
+     */
+}
@@ -0,0 +1,149 @@
+package com.stockmarket.service;
+
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.SeriesResponse;
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.upstream.RequestPriority;
+import reactor.core.publisher.Mono;
+
+/**
+ * Variante reactiva (no bloqueante) de StockService
+ *
+ * CONCEPTOS APLICADOS:
+ * - Programación Reactiva: Cada método retorna un Mono (un valor "futuro")
+ * - No bloqueante: Ningún hilo queda esperando la respuesta de la API externa
+ * - Bajo Acoplamiento: El controlador depende de esta interfaz, no de la implementación
+ *
+ * ¿POR QUÉ Mono Y NO String?
+ * - Con String, el hilo de Tomcat espera 500-1000ms a que responda la API
+ *   → máximo de peticiones simultáneas = tamaño del pool de Tomcat (200)
+ * - Con Mono, el hilo de Tomcat se libera al instante y la respuesta se
+ *   escribe cuando llega → el límite pasa a ser la memoria, no los hilos
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Agregas métodos a StockService (agrega aquí su versión reactiva)
+ * ============================================
+ */
+public interface ReactiveStockService {
+
+    /**
+     * Obtiene datos intradiarios de una acción (cada 5 minutos)
+     *
+     * @param symbol Símbolo de la acción (ej: "MSFT", "IBM", "AAPL")
+     * @return Mono que emite el JSON con los datos de la API
+     */
+    Mono<String> getIntradayDataAsync(String symbol);
+
+    /**
+     * Obtiene datos diarios de una acción
+     *
+     * @param symbol Símbolo de la acción
+     * @return Mono que emite el JSON con los datos
+     */
+    Mono<String> getDailyDataAsync(String symbol);
+
+    /**
+     * Obtiene datos semanales de una acción
+     *
+     * @param symbol Símbolo de la acción
+     * @return Mono que emite el JSON con los datos
+     */
+    Mono<String> getWeeklyDataAsync(String symbol);
+
+    /**
+     * Obtiene datos mensuales de una acción
+     *
+     * @param symbol Símbolo de la acción
+     * @return Mono que emite el JSON con los datos
+     */
+    Mono<String> getMonthlyDataAsync(String symbol);
+    
+    /**
+     * Obtiene la respuesta lista para enviarse (JSON comprimido con gzip + ETag)
+     *
+     * NOTA: Es lo que usa el controlador; evita volver a codificar el JSON
+     * en cada petición y permite responder 304 Not Modified.
+     * La llamada a la API (si hace falta) se encola con prioridad INTERACTIVE
+     *
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @return Mono que emite la respuesta codificada
+     */
+    default Mono<EncodedResponse> getResponse(Interval interval, String symbol) {
+        return getResponse(interval, symbol, RequestPriority.INTERACTIVE);
+    }
+
+    /**
+     * Igual que getResponse(interval, symbol), indicando la prioridad con la que
+     * se encola la llamada a la API externa si el dato no está en cache
+     *
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @param priority Prioridad (INTERACTIVE, BATCH, BACKGROUND)
+     * @return Mono que emite la respuesta codificada
+     */
+    Mono<EncodedResponse> getResponse(Interval interval, String symbol, RequestPriority priority);
+
+    /**
+     * Obtiene la serie ya parseada (formato columnar) en vez del JSON
+     *
+     * NOTA: Para cálculos en el servidor (indicadores técnicos) sin volver a parsear
+     *
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @return Mono con la serie, o vacío si la API no devolvió una serie
+     */
+    Mono<TimeSeries> getSeries(Interval interval, String symbol);
+
+    /**
+     * Igual que getSeries(interval, symbol), indicando la prioridad de la llamada a la API
+     *
+     * NOTA: Para sondeos periódicos (ej: IntradayStreamHub con BATCH) que no deben
+     * adelantarse a los usuarios en la cola del proveedor
+     *
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @param priority Prioridad (INTERACTIVE, BATCH, BACKGROUND)
+     * @return Mono con la serie, o vacío si la API no devolvió una serie
+     */
+    default Mono<TimeSeries> getSeries(Interval interval, String symbol, RequestPriority priority) {
+        return getSeriesResponse(interval, symbol, priority).map(SeriesResponse::series);
+    }
+
+    /**
+     * Igual que getSeries, junto con la respuesta codificada de esa misma versión
+     *
+     * NOTA: Para ventanas (from/to/maxPoints): el ETag se deriva del de la serie
+     * y una respuesta de respaldo conserva sus cabeceras de desactualizada
+     *
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @return Mono con respuesta + serie, o vacío si la API no devolvió una serie
+     */
+    default Mono<SeriesResponse> getSeriesResponse(Interval interval, String symbol) {
+        return getSeriesResponse(interval, symbol, RequestPriority.INTERACTIVE);
+    }
+
+    /**
+     * Igual que getSeriesResponse(interval, symbol), indicando la prioridad de la llamada a la API
+     *
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @param priority Prioridad (INTERACTIVE, BATCH, BACKGROUND)
+     * @return Mono con respuesta + serie, o vacío si la API no devolvió una serie
+     */
+    Mono<SeriesResponse> getSeriesResponse(Interval interval, String symbol, RequestPriority priority);
+
+    /**
+     * Vuelve a descargar una serie aunque siga en cache (refresh-ahead)
+     *
+     * NOTA: Si ya hay una llamada en curso para esa clave, se reutiliza
+     *
+     * @param interval Intervalo de la serie
+     * @param symbol Símbolo de la acción
+     * @param priority Prioridad de la llamada a la API
+     * @return Mono que emite la respuesta recién descargada
+     */
+    Mono<EncodedResponse> refresh(Interval interval, String symbol, RequestPriority priority);
+}
@@ -0,0 +1,101 @@
+package com.stockmarket.service;
+
+import com.stockmarket.cache.ConcurrentCache;
+import com.stockmarket.upstream.RequestPriority;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Refresca las claves populares ANTES de que expiren (refresh-ahead)
+ *
+ * CONCEPTOS APLICADOS:
+ * - Refresh-ahead: Cuando una clave popular consumió gran parte de su TTL
+ *   (cache.refresh-ahead.ratio), se vuelve a descargar en segundo plano;
+ *   el usuario siempre encuentra un valor vigente (latencia de cache HIT)
+ * - Popularidad: Se usa la frecuencia del FrequencySketch del cache; las claves
+ *   raras simplemente expiran (no vale la pena gastar cuota en ellas)
+ * - Presupuesto propio: Máximo cache.refresh-ahead.max-concurrency refrescos a la vez,
+ *   y con prioridad BACKGROUND en UpstreamScheduler (los usuarios van primero)
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Se gasta demasiada cuota en refrescos (sube min-frequency o baja max-concurrency)
+ * ============================================
+ */
+@Component
+public class RefreshAheadScheduler {
+
+    private final ConcurrentCache cache;
+    private final ReactiveStockService stockService;
+    private final boolean enabled;
+    private final double ratio;
+    private final int minFrequency;
+    private final int maxConcurrency;
+
+    /** Evita que dos rondas de refresco se solapen si la anterior sigue en cola */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * @param cache Cache de series
+     * @param stockService Servicio que descarga las series
+     * @param enabled Activa el refresh-ahead (cache.refresh-ahead.enabled)
+     * @param ratio Fracción del TTL a partir de la cual se refresca (cache.refresh-ahead.ratio)
+     * @param minFrequency Frecuencia mínima de acceso (0-15) para refrescar (cache.refresh-ahead.min-frequency)
+     * @param maxConcurrency Refrescos simultáneos (cache.refresh-ahead.max-concurrency)
+     */
+    public RefreshAheadScheduler(
+            ConcurrentCache cache,
+            ReactiveStockService stockService,
+            @Value("${cache.refresh-ahead.enabled:true}") boolean enabled,
+            @Value("${cache.refresh-ahead.ratio:0.8}") double ratio,
+            @Value("${cache.refresh-ahead.min-frequency:4}") int minFrequency,
+            @Value("${cache.refresh-ahead.max-concurrency:2}") int maxConcurrency) {
+        this.cache = cache;
+        this.stockService = stockService;
+        this.enabled = enabled;
+        this.ratio = ratio;
+        this.minFrequency = minFrequency;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
+    /**
+     * Revisa periódicamente el cache y refresca las claves populares próximas a expirar
+     *
+     * NOTA: No bloquea el hilo de @Scheduled (compartido con el snapshot);
+     * la ronda corre en segundo plano y la siguiente se salta si no terminó
+     */
+    @Scheduled(
+        initialDelayString = "${cache.refresh-ahead.check-interval:PT30S}",
+        fixedDelayString = "${cache.refresh-ahead.check-interval:PT30S}")
+    public void refreshHotKeys() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        List<String> keys = cache.hotKeysNearExpiry(ratio, minFrequency);
+        if (keys.isEmpty()) {
+            running.set(false);
+            return;
+        }
+        System.out.println("🔄 Refresh-ahead: " + keys.size() + " claves populares por expirar");
+
+        Flux.fromIterable(keys)
+            .flatMap(this::refresh, maxConcurrency)
+            .doFinally(signal -> running.set(false))
+            .subscribe();
+    }
+
+    private Mono<?> refresh(String cacheKey) {
+        Interval interval = Interval.ofCacheKey(cacheKey);
+        return stockService.refresh(interval, interval.symbolOf(cacheKey), RequestPriority.BACKGROUND)
+            .onErrorResume(error -> {
+                System.out.println("⚠️ No se pudo refrescar " + cacheKey + ": " + error.getMessage());
+                return Mono.empty();
+            });
+    }
+}
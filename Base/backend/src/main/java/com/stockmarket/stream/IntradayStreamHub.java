@@ -0,0 +1,238 @@
+package com.stockmarket.stream;
+
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.model.TimeSeriesJsonWriter;
+import com.stockmarket.service.Interval;
+import com.stockmarket.service.ReactiveStockService;
+import com.stockmarket.upstream.RequestPriority;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Difunde las barras intradiarias nuevas a los clientes suscritos por SSE
+ *
+ * CONCEPTOS APLICADOS:
+ * - Un solo sondeo por símbolo: Sin importar cuántos clientes estén suscritos a "IBM",
+ *   hay UN ciclo que consulta el servicio cada stream.poll-interval (fan-out)
+ * - El sondeo pasa por el cache: Si la serie está vigente no se llama a la API; además
+ *   cada sondeo cuenta como acceso, así el símbolo es "popular" y el refresh-ahead
+ *   lo mantiene al día
+ * - Se difunde la serie que devolvió el sondeo (getSeries), comparada con la última
+ *   emitida: funciona igual si el símbolo es de otro nodo del cluster (no está en
+ *   este cache) o si la API falló y se respondió el respaldo
+ * - Multicast con la última barra (Sinks.many().replay().latest()): Cada suscriptor nuevo
+ *   recibe primero la última barra emitida y luego las siguientes; emitir a un
+ *   suscriptor lento NUNCA frena a los demás
+ * - Backpressure por suscriptor: Cada cliente tiene un buffer de stream.subscriber-buffer
+ *   eventos; si se llena se descarta el más viejo (DROP_OLDEST): el cliente lento
+ *   pierde barras intermedias pero siempre recibe la más reciente
+ * - Latido (keep-alive): Un comentario SSE periódico, compartido por todos, mantiene
+ *   abiertas las conexiones inactivas y detecta clientes desconectados
+ * - Sin hilo por cliente: Un suscriptor inactivo es solo un Subscriber de Reactor y
+ *   una conexión NIO de Tomcat (pocos KB), así un nodo soporta decenas de miles
+ *
+ * CICLO DE VIDA:
+ * - El primer suscriptor de un símbolo crea su feed y arranca el sondeo
+ * - Al irse el último suscriptor se detiene el sondeo y se elimina el feed
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Necesitas más conexiones por nodo (server.tomcat.max-connections)
+ * - Te piden WebSocket en vez de SSE (el hub no cambia: solo el endpoint)
+ * ============================================
+ */
+@Component
+public class IntradayStreamHub {
+
+    private final ReactiveStockService stockService;
+    private final Duration pollInterval;
+    private final int subscriberBuffer;
+
+    /** Feed por símbolo; el conteo de suscriptores se modifica dentro de compute() */
+    private final ConcurrentHashMap<String, SymbolFeed> feeds = new ConcurrentHashMap<>();
+
+    /** Latido compartido: un solo timer para todas las conexiones */
+    private final Flux<ServerSentEvent<String>> heartbeat;
+
+    /** Eventos descartados por clientes lentos */
+    private final LongAdder droppedEvents = new LongAdder();
+
+    /**
+     * @param stockService Servicio reactivo (consulta con cache)
+     * @param pollInterval Cada cuánto se consulta cada símbolo (stream.poll-interval)
+     * @param heartbeatInterval Cada cuánto se envía el latido (stream.heartbeat-interval)
+     * @param subscriberBuffer Eventos en espera por cliente (stream.subscriber-buffer)
+     */
+    public IntradayStreamHub(
+            ReactiveStockService stockService,
+            @Value("${stream.poll-interval:PT1M}") Duration pollInterval,
+            @Value("${stream.heartbeat-interval:PT15S}") Duration heartbeatInterval,
+            @Value("${stream.subscriber-buffer:16}") int subscriberBuffer) {
+        this.stockService = stockService;
+        this.pollInterval = pollInterval;
+        this.subscriberBuffer = Math.max(1, subscriberBuffer);
+        this.heartbeat = Flux.interval(heartbeatInterval)
+            .map(tick -> ServerSentEvent.<String>builder().comment("keep-alive").build())
+            .share();
+    }
+
+    /**
+     * Suscribe un cliente a las barras intradiarias de un símbolo
+     *
+     * - Primero recibe la última barra conocida (si la hay)
+     * - Luego cada barra nueva o actualizada (la barra abierta cambia varias veces)
+     *
+     * @param symbol Símbolo de la acción (ej: "IBM")
+     * @return Flux infinito de eventos SSE ("bar" + latidos)
+     */
+    public Flux<ServerSentEvent<String>> subscribe(String symbol) {
+        return Flux.defer(() -> {
+            SymbolFeed feed = acquire(symbol);
+            Flux<ServerSentEvent<String>> bars = feed.sink.asFlux()
+                .onBackpressureBuffer(subscriberBuffer, dropped -> droppedEvents.increment(),
+                    BufferOverflowStrategy.DROP_OLDEST);
+            return bars
+                .mergeWith(heartbeat.onBackpressureDrop())
+                .doFinally(signal -> release(symbol, feed));
+        });
+    }
+
+    /**
+     * @return Símbolos con al menos un suscriptor
+     */
+    public int activeSymbols() {
+        return feeds.size();
+    }
+
+    /**
+     * @return Clientes suscritos (todos los símbolos)
+     */
+    public int subscribers() {
+        return feeds.values().stream().mapToInt(feed -> feed.subscribers).sum();
+    }
+
+    /**
+     * @return Eventos descartados porque un cliente no los leía a tiempo
+     */
+    public long droppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        feeds.values().forEach(SymbolFeed::stop);
+        feeds.clear();
+    }
+
+    private SymbolFeed acquire(String symbol) {
+        return feeds.compute(symbol, (key, existing) -> {
+            SymbolFeed feed = existing != null ? existing : new SymbolFeed(key);
+            if (feed.subscribers++ == 0) {
+                feed.start();
+            }
+            return feed;
+        });
+    }
+
+    private void release(String symbol, SymbolFeed feed) {
+        feeds.computeIfPresent(symbol, (key, current) -> {
+            if (current != feed || --current.subscribers > 0) {
+                return current;
+            }
+            current.stop();
+            return null;  // null = eliminar el feed
+        });
+    }
+
+    /**
+     * Estado de un símbolo: sink de difusión + ciclo de sondeo
+     *
+     * NOTA: publishNewBars() solo corre en el ciclo de sondeo (concatMap: de a uno),
+     * así las emisiones al sink nunca son concurrentes
+     */
+    private final class SymbolFeed {
+        final String symbol;
+        final Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().replay().latest();
+
+        /** Se modifica dentro de feeds.compute(); volatile para leerlo en las métricas */
+        volatile int subscribers;
+        Disposable poller;
+
+        // ---- Solo en el ciclo de sondeo ----
+        TimeSeries lastSeries;
+        long lastTime = Long.MIN_VALUE;
+        String lastBarJson;
+
+        SymbolFeed(String symbol) {
+            this.symbol = symbol;
+        }
+
+        void start() {
+            poller = Flux.interval(Duration.ZERO, pollInterval)
+                .onBackpressureDrop()  // Si un sondeo tarda más que el intervalo, se salta el tick
+                .concatMap(tick -> stockService.getSeries(Interval.INTRADAY, symbol, RequestPriority.BATCH)
+                    .onErrorResume(error -> {
+                        System.out.println("⚠️ Stream " + symbol + ": " + error.getMessage());
+                        return Mono.empty();
+                    }), 1)
+                .subscribe(this::publishNewBars);
+        }
+
+        void stop() {
+            if (poller != null) {
+                poller.dispose();
+            }
+            sink.tryEmitComplete();
+        }
+
+        /**
+         * Emite las barras posteriores a la última enviada y la última barra si cambió
+         * - La primera vez solo se emite la barra más reciente (no las 100 del compact)
+         * - Una serie igual a la anterior pero en otra instancia (ej: parseada de la
+         *   respuesta del nodo dueño) no emite nada: se compara por fecha y JSON de la barra
+         *
+         * @param series Serie que devolvió el sondeo
+         */
+        void publishNewBars(TimeSeries series) {
+            if (series == lastSeries) {
+                return;  // Misma instancia (mergeNewer no cambió nada)
+            }
+            lastSeries = series;
+            int last = series.size() - 1;
+            if (last < 0) {
+                return;
+            }
+
+            int from = last;
+            if (lastTime != Long.MIN_VALUE) {
+                while (from > 0 && series.time(from - 1) >= lastTime) {
+                    from--;
+                }
+            }
+            for (int i = from; i <= last; i++) {
+                String json = TimeSeriesJsonWriter.toBarJson(symbol, series, i);
+                if (series.time(i) == lastTime && json.equals(lastBarJson)) {
+                    continue;  // La barra abierta no cambió
+                }
+                ServerSentEvent<String> event = ServerSentEvent.builder(json)
+                    .event("bar")
+                    .id(Long.toString(series.time(i)))
+                    .build();
+                lastTime = series.time(i);
+                lastBarJson = json;
+                sink.tryEmitNext(event);  // Cada suscriptor la recibe en su propio buffer
+            }
+        }
+    }
+}
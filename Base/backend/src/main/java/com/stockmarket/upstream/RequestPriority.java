@@ -0,0 +1,27 @@
+package com.stockmarket.upstream;
+
+/**
+ * Prioridad de una llamada a la API externa dentro de UpstreamScheduler
+ *
+ * - El orden de declaración ES el orden de prioridad (ordinal menor = antes)
+ * - Con la cuota agotada, un usuario esperando en pantalla no debe quedar
+ *   detrás de cientos de símbolos de un dashboard o de un refresco en segundo plano
+ */
+public enum RequestPriority {
+
+    /** Petición de un usuario a un endpoint individual (/{symbol}/daily) */
+    INTERACTIVE,
+
+    /** Símbolos pedidos a través de /batch */
+    BATCH,
+
+    /** Trabajo en segundo plano (refrescos anticipados, precarga) */
+    BACKGROUND;
+
+    /**
+     * @return true si esta prioridad va antes que la otra en la cola
+     */
+    public boolean isHigherThan(RequestPriority other) {
+        return ordinal() < other.ordinal();
+    }
+}
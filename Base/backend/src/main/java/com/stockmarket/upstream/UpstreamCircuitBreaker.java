@@ -0,0 +1,259 @@
+package com.stockmarket.upstream;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker de las llamadas a la API externa
+ *
+ * CONCEPTOS APLICADOS:
+ * - Fallar rápido: Si la API está caída o muy lenta, seguir llamándola solo agrega
+ *   peticiones colgadas (y conexiones, y cuota). Con el circuito abierto la
+ *   llamada se rechaza al instante y el servicio responde con el último valor
+ *   guardado (o 503) sin esperar
+ * - Ventana deslizante por cantidad: Se miran las últimas window-size llamadas;
+ *   con al menos minimum-calls y una fracción de fallas >= failure-rate-threshold
+ *   el circuito se abre
+ * - Llamada lenta = falla: Una respuesta que tarda más que slow-call-duration cuenta
+ *   como falla aunque llegue bien (una API degradada suele ser lenta, no caída)
+ * - Semiabierto: Pasado open-duration se deja pasar UNA llamada de prueba;
+ *   si sale bien se cierra, si falla se vuelve a abrir. Si la prueba nunca termina
+ *   (ej: se canceló), otra pasa tras otro open-duration
+ * - Generaciones: Cada cambio de estado (y cada nueva prueba) abre una generación.
+ *   El permiso es el número de generación y el resultado se informa con él: una
+ *   llamada despachada antes de abrirse el circuito, o una prueba abandonada, ya no
+ *   lo cambia cuando por fin responde
+ *
+ * ESTADOS:
+ * CLOSED ──(muchas fallas)──► OPEN ──(open-duration)──► HALF_OPEN ──(prueba OK)──► CLOSED
+ *                               ▲                            │
+ *                               └────────(prueba falla)──────┘
+ *
+ * UNO POR PROVEEDOR:
+ * - Que un proveedor esté caído no dice nada de los otros: ProviderConfig crea
+ *   una instancia por proveedor (mismas propiedades upstream.circuit-breaker.*)
+ *   y el ProviderRouter manda las llamadas al que tenga el circuito cerrado
+ *
+ * CAMINO CALIENTE:
+ * - Con el circuito cerrado, tryAcquirePermission() solo lee dos campos volatile.
+ *   El resto es synchronized, pero solo corre al terminar una llamada HTTP
+ *   (decenas por minuto como mucho)
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden otra política (ej: por tiempo en vez de por cantidad de llamadas)
+ * - Te piden ignorar algún tipo de error (HttpMarketDataProvider.isUpstreamFailure)
+ * ============================================
+ */
+public class UpstreamCircuitBreaker {
+
+    /**
+     * Estado del circuito
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Permiso negado por tryAcquirePermission() (circuito abierto)
+     */
+    public static final long REJECTED = -1;
+
+    private final String name;
+    private final boolean enabled;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    // ---- Ventana deslizante (solo dentro de synchronized) ----
+    private final boolean[] window;  // true = falla
+    private int windowNext;
+    private int windowCalls;
+    private int windowFailures;
+
+    /** Momento a partir del cual se permite la siguiente llamada de prueba */
+    private long retryAtNanos;
+
+    private volatile State state = State.CLOSED;
+
+    /** Generación actual: cambia ANTES que state en cada transición (ver tryAcquirePermission) */
+    private volatile long generation;
+
+    // ---- Métricas ----
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    /**
+     * @param name Nombre del proveedor (para los mensajes)
+     * @param enabled Si es false nunca se abre (upstream.circuit-breaker.enabled)
+     * @param windowSize Llamadas recientes que se miran (upstream.circuit-breaker.window-size)
+     * @param minimumCalls Llamadas mínimas en la ventana para poder abrirse (upstream.circuit-breaker.minimum-calls)
+     * @param failureRateThreshold Fracción de fallas que abre el circuito (upstream.circuit-breaker.failure-rate-threshold)
+     * @param slowCallDuration Duración a partir de la cual una llamada cuenta como falla (upstream.circuit-breaker.slow-call-duration)
+     * @param openDuration Tiempo abierto antes de la llamada de prueba (upstream.circuit-breaker.open-duration)
+     */
+    public UpstreamCircuitBreaker(
+            String name,
+            boolean enabled,
+            int windowSize,
+            int minimumCalls,
+            double failureRateThreshold,
+            Duration slowCallDuration,
+            Duration openDuration) {
+        this.name = name;
+        this.enabled = enabled;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Consulta si una llamada tendría permiso, sin tomarlo
+     *
+     * NOTA: Para fallar al instante antes de encolar una llamada; el permiso
+     * se toma recién al despacharla (tryAcquirePermission)
+     *
+     * @return false si el circuito está abierto (o la prueba ya salió) y aún no toca otra
+     */
+    public boolean isCallPermitted() {
+        if (!enabled || state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.CLOSED || System.nanoTime() - retryAtNanos >= 0) {
+                return true;
+            }
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Pide permiso para llamar a la API
+     *
+     * NOTA: Se llama al despachar la llamada, no al encolarla: en semiabierto la
+     * única prueba no se gasta en una llamada que espera en cola (o que nunca sale)
+     *
+     * @return Generación a la que pertenece la llamada (se pasa a onSuccess/onFailure),
+     *         o REJECTED si el circuito está abierto (la llamada debe fallar enseguida)
+     */
+    public long tryAcquirePermission() {
+        // La generación se lee antes que el estado: si cambian en medio, la llamada
+        // queda con una generación igual o más nueva que la del estado leído. Un
+        // resultado de una generación ajena se ignora (ver record), así que una llamada
+        // de CLOSED nunca llega a contar como prueba
+        long current = generation;
+        if (!enabled || state == State.CLOSED) {
+            return current;
+        }
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (state == State.CLOSED) {
+                return generation;
+            }
+            if (now - retryAtNanos >= 0) {
+                generation++;  // Nueva prueba: el resultado de una anterior ya no cuenta
+                state = State.HALF_OPEN;
+                retryAtNanos = now + openNanos;  // Una sola prueba por open-duration
+                return generation;
+            }
+        }
+        rejected.increment();
+        return REJECTED;
+    }
+
+    /**
+     * Registra una llamada que respondió (lenta = falla)
+     *
+     * @param permit Generación que devolvió tryAcquirePermission()
+     * @param durationNanos Duración de la llamada HTTP
+     */
+    public void onSuccess(long permit, long durationNanos) {
+        record(permit, durationNanos > slowCallNanos);
+    }
+
+    /**
+     * Registra una llamada que falló (error de red, timeout, 5xx)
+     *
+     * @param permit Generación que devolvió tryAcquirePermission()
+     */
+    public void onFailure(long permit) {
+        record(permit, true);
+    }
+
+    private synchronized void record(long permit, boolean failure) {
+        if (!enabled || permit != generation) {
+            return;  // Despachada antes del último cambio de estado: ya no cambia nada
+        }
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failure) {
+                    open();
+                } else {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                if (windowCalls == window.length && window[windowNext]) {
+                    windowFailures--;  // La llamada más vieja sale de la ventana
+                }
+                window[windowNext] = failure;
+                windowNext = (windowNext + 1) % window.length;
+                windowCalls = Math.min(window.length, windowCalls + 1);
+                if (failure) {
+                    windowFailures++;
+                }
+                if (windowCalls >= minimumCalls && windowFailures >= failureRateThreshold * windowCalls) {
+                    open();
+                }
+            }
+            case OPEN -> {
+                // Sin permisos de esta generación: no llega ningún resultado
+            }
+        }
+    }
+
+    private void open() {
+        generation++;
+        state = State.OPEN;
+        retryAtNanos = System.nanoTime() + openNanos;
+        resetWindow();
+        opened.increment();
+        System.out.println("🔌 Circuito hacia " + name + " ABIERTO por " + Duration.ofNanos(openNanos).toSeconds() + "s");
+    }
+
+    private void close() {
+        generation++;
+        state = State.CLOSED;
+        resetWindow();
+        System.out.println("✅ Circuito hacia " + name + " cerrado (volvió a responder)");
+    }
+
+    private void resetWindow() {
+        windowNext = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+    }
+
+    /**
+     * @return Estado actual del circuito
+     */
+    public State state() {
+        return state;
+    }
+
+    /**
+     * @return Llamadas rechazadas sin llegar a la API (circuito abierto)
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return Veces que se abrió el circuito
+     */
+    public long opened() {
+        return opened.sum();
+    }
+}
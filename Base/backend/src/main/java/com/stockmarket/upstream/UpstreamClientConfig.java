@@ -0,0 +1,144 @@
+package com.stockmarket.upstream;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Clientes HTTP hacia los proveedores (Alpha Vantage, Yahoo o el stub local),
+ * configurables desde application.properties
+ *
+ * CONCEPTOS APLICADOS:
+ * - Pool de conexiones (Reactor Netty ConnectionProvider): Las conexiones TCP/TLS se
+ *   reutilizan (keep-alive); abrir una conexión HTTPS cuesta varios round-trips, más
+ *   que la propia petición cuando la API responde rápido
+ * - Un pool por proveedor: Un proveedor lento no ocupa las conexiones de los demás
+ *   (cada uno con los mismos límites upstream.http.*)
+ * - Límites explícitos: máximo de conexiones y de peticiones esperando una conexión
+ *   (pending-acquire); si se supera, la petición falla enseguida en vez de acumularse
+ * - Timeouts: de conexión y de respuesta; sin ellos una API colgada deja peticiones
+ *   (y en modo bloqueante, hilos) esperando para siempre
+ * - HTTP/2 (solo con https): varias peticiones comparten una conexión (multiplexado)
+ * - Límite del cuerpo en memoria: el default de Spring (256 KB) es menor que una
+ *   respuesta "full" (~1 MB la diaria de 20 años); se sube o se desactiva (-1)
+ *
+ * PROPIEDADES (prefijo upstream.http.):
+ * - max-connections, max-idle-time, max-life-time
+ * - pending-acquire-max-count, pending-acquire-timeout
+ * - connect-timeout, response-timeout
+ * - http2, compress, max-in-memory-size
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Te piden un proxy o TLS propio (agrégalo a HttpClient.create(...))
+ * - Un proveedor necesita otros límites (agrega propiedades con su prefijo en ProviderConfig)
+ * ============================================
+ */
+@Component
+public class UpstreamClientConfig {
+
+    private final int maxConnections;
+    private final Duration maxIdleTime;
+    private final Duration maxLifeTime;
+    private final int pendingAcquireMaxCount;
+    private final Duration pendingAcquireTimeout;
+    private final Duration connectTimeout;
+    private final Duration responseTimeout;
+    private final boolean http2;
+    private final boolean compress;
+    private final DataSize maxInMemorySize;
+
+    /**
+     * @param maxConnections Conexiones abiertas como máximo hacia cada proveedor
+     * @param maxIdleTime Una conexión inactiva más tiempo que esto se cierra
+     * @param maxLifeTime Vida máxima de una conexión (reparte la carga si la API rota IPs)
+     * @param pendingAcquireMaxCount Peticiones esperando conexión libre (-1 = sin límite)
+     * @param pendingAcquireTimeout Espera máxima por una conexión libre
+     * @param connectTimeout Timeout para abrir la conexión TCP
+     * @param responseTimeout Timeout entre enviar la petición y recibir la respuesta
+     * @param http2 Si es true y la URL es https, negocia HTTP/2 (con HTTP/1.1 de respaldo)
+     * @param compress Si es true pide gzip (Accept-Encoding) y descomprime
+     * @param maxInMemorySize Tamaño máximo del cuerpo en memoria (-1 = sin límite)
+     */
+    public UpstreamClientConfig(
+            @Value("${upstream.http.max-connections:50}") int maxConnections,
+            @Value("${upstream.http.max-idle-time:PT30S}") Duration maxIdleTime,
+            @Value("${upstream.http.max-life-time:PT5M}") Duration maxLifeTime,
+            @Value("${upstream.http.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+            @Value("${upstream.http.pending-acquire-timeout:PT5S}") Duration pendingAcquireTimeout,
+            @Value("${upstream.http.connect-timeout:PT3S}") Duration connectTimeout,
+            @Value("${upstream.http.response-timeout:PT15S}") Duration responseTimeout,
+            @Value("${upstream.http.http2:true}") boolean http2,
+            @Value("${upstream.http.compress:true}") boolean compress,
+            @Value("${upstream.http.max-in-memory-size:16MB}") DataSize maxInMemorySize) {
+        this.maxConnections = maxConnections;
+        this.maxIdleTime = maxIdleTime;
+        this.maxLifeTime = maxLifeTime;
+        this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        this.pendingAcquireTimeout = pendingAcquireTimeout;
+        this.connectTimeout = connectTimeout;
+        this.responseTimeout = responseTimeout;
+        this.http2 = http2;
+        this.compress = compress;
+        this.maxInMemorySize = maxInMemorySize;
+    }
+
+    /**
+     * WebClient de un proveedor, con su propio pool de conexiones
+     *
+     * @param name Nombre del proveedor (nombre del pool en las métricas)
+     * @param baseUrl URL base (ej: alphavantage.base-url)
+     * @return WebClient con el pool y los timeouts configurados
+     */
+    public WebClient webClient(String name, String baseUrl) {
+        ConnectionProvider pool = ConnectionProvider.builder("upstream-" + name)
+            .maxConnections(maxConnections)
+            .maxIdleTime(maxIdleTime)
+            .maxLifeTime(maxLifeTime)
+            .pendingAcquireMaxCount(pendingAcquireMaxCount)
+            .pendingAcquireTimeout(pendingAcquireTimeout)
+            .evictInBackground(maxIdleTime)
+            .metrics(true)  // reactor_netty_connection_provider_* en /actuator/prometheus
+            .build();
+
+        return create(baseUrl, pool, connectTimeout, responseTimeout, http2, compress, maxInMemorySize);
+    }
+
+    /**
+     * Arma el WebClient sobre un pool dado (también lo usan los benchmarks)
+     */
+    public static WebClient create(
+            String baseUrl,
+            ConnectionProvider pool,
+            Duration connectTimeout,
+            Duration responseTimeout,
+            boolean http2,
+            boolean compress,
+            DataSize maxInMemorySize) {
+
+        HttpClient httpClient = HttpClient.create(pool)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .responseTimeout(responseTimeout)
+            .keepAlive(true)
+            .compress(compress);
+        if (http2 && baseUrl.startsWith("https")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+
+        int codecLimit = maxInMemorySize.toBytes() < 0 ? -1 : (int) Math.min(Integer.MAX_VALUE, maxInMemorySize.toBytes());
+        return WebClient.builder()
+            .baseUrl(baseUrl)
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(codecLimit))
+            .build();
+    }
+}
@@ -0,0 +1,359 @@
+package com.stockmarket.upstream;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Planificador central de llamadas a la API externa
+ *
+ * CONCEPTOS APLICADOS:
+ * - Token bucket: Se permiten "burst" llamadas seguidas y luego una cada
+ *   60s / per-minute (la cuota de Alpha Vantage). Sin tokens, las llamadas esperan
+ *   en cola en vez de gastar la cuota y recibir una nota de límite
+ * - Cola de prioridad: INTERACTIVE antes que BATCH antes que BACKGROUND;
+ *   dentro de la misma prioridad, en orden de llegada (FIFO)
+ * - Fusión de duplicados: Si la misma clave ya está en cola, la nueva petición
+ *   espera el mismo resultado (y sube la prioridad de la tarea si es mayor)
+ * - Modelo actor: Toda la cola vive en UN hilo ("upstream-<proveedor>"); los demás
+ *   hilos solo le envían tareas. Así no se necesitan locks
+ *
+ * UNO POR PROVEEDOR:
+ * - Cada proveedor (ver com.stockmarket.provider) tiene su propia cuota, así que
+ *   ProviderConfig crea una instancia por proveedor; quien la crea la apaga (shutdown)
+ * - estimatedWaitNanos() le dice al ProviderRouter cuánto esperaría una llamada nueva
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Tienes una API key premium (sube alphavantage.rate-limit.per-minute)
+ * ============================================
+ */
+public class UpstreamScheduler {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    /** Hilo único que administra la cola y los tokens */
+    private final ScheduledExecutorService dispatcher;
+
+    /** Reloj de los tokens y esperas (System::nanoTime; las pruebas usan uno falso) */
+    private final LongSupplier clock;
+
+    // ---- Estado del actor: SOLO se toca desde el hilo dispatcher ----
+    private final PriorityQueue<Task> queue = new PriorityQueue<>(
+        Comparator.comparing((Task task) -> task.priority).thenComparingLong(task -> task.sequence));
+    private final Map<String, Task> queuedByKey = new HashMap<>();
+    private long sequence;
+    private double tokens;
+    private long lastRefillNanos;
+    private boolean wakeupScheduled;
+
+    // ---- Configuración ----
+    private final double capacity;
+    private final double tokensPerNano;
+    private final int maxQueueSize;
+
+    // ---- Métricas (se leen desde cualquier hilo) ----
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder throttled = new LongAdder();
+
+    // ---- Copia de los tokens para estimatedWaitNanos() (la escribe solo el dispatcher) ----
+    private volatile double tokensView;
+    private volatile long tokensViewNanos;
+
+    /**
+     * @param name Nombre del proveedor (para el nombre del hilo)
+     * @param requestsPerMinute Llamadas por minuto permitidas (ej: alphavantage.rate-limit.per-minute)
+     * @param burst Llamadas seguidas permitidas con el bucket lleno (ej: alphavantage.rate-limit.burst)
+     * @param maxQueueSize Máximo de tareas en cola (upstream.queue.max-size)
+     */
+    public UpstreamScheduler(String name, double requestsPerMinute, int burst, int maxQueueSize) {
+        this(name, requestsPerMinute, burst, maxQueueSize, System::nanoTime);
+    }
+
+    /**
+     * Constructor con reloj propio (pruebas: el reloj se adelanta a mano, ver drainNow)
+     */
+    UpstreamScheduler(String name, double requestsPerMinute, int burst, int maxQueueSize, LongSupplier clock) {
+        this.clock = clock;
+        this.lastRefillNanos = clock.getAsLong();
+        this.tokensViewNanos = lastRefillNanos;
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upstream-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.capacity = Math.max(1, burst);
+        this.tokensPerNano = requestsPerMinute / NANOS_PER_MINUTE;
+        this.maxQueueSize = maxQueueSize;
+        this.tokens = capacity;
+        this.tokensView = capacity;
+    }
+
+    /**
+     * Encola una llamada a la API externa
+     *
+     * NOTA: La llamada (call) se crea recién cuando hay un token disponible;
+     * hasta entonces no se abre ninguna conexión
+     *
+     * @param key Clave de la llamada (ej: "DAILY_IBM"); se usa para fusionar duplicados
+     * @param priority Prioridad de la llamada
+     * @param call Crea el Mono que hace la llamada HTTP
+     * @return Mono con el resultado de la llamada (compartido con los duplicados)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> submit(String key, RequestPriority priority, Supplier<? extends Mono<? extends T>> call) {
+        return Mono.create(sink -> dispatcher.execute(
+            () -> enqueue(key, priority, (Supplier<Mono<?>>) (Supplier<?>) call, (MonoSink<Object>) (MonoSink<?>) sink)));
+    }
+
+    /**
+     * Toma un token solo si hay uno libre y ninguna llamada espera en cola
+     *
+     * NOTA: Para llamadas opcionales (ej: la copia de una petición "hedged"):
+     * nunca esperan ni le quitan cuota a las llamadas encoladas
+     *
+     * @return Mono con true si se tomó el token (la llamada cuenta como despachada)
+     */
+    public Mono<Boolean> tryAcquire() {
+        return Mono.create(sink -> dispatcher.execute(() -> {
+            refill();
+            boolean acquired = queue.isEmpty() && tokens >= 1;
+            if (acquired) {
+                tokens -= 1;
+                recordWait(0);
+            }
+            publishTokens();
+            sink.success(acquired);
+        }));
+    }
+
+    /**
+     * Sube la prioridad de una tarea que sigue en cola (si existe)
+     *
+     * @param key Clave de la tarea
+     * @param priority Nueva prioridad (solo se aplica si es mayor)
+     */
+    public void promote(String key, RequestPriority priority) {
+        dispatcher.execute(() -> {
+            Task task = queuedByKey.get(key);
+            if (task != null) {
+                promote(task, priority);
+            }
+        });
+    }
+
+    /**
+     * Avisa que la API respondió con una nota de cuota: se vacía el bucket
+     * para no seguir enviando llamadas que también serían rechazadas
+     */
+    public void onThrottled() {
+        throttled.increment();
+        dispatcher.execute(() -> {
+            tokens = 0;
+            lastRefillNanos = clock.getAsLong();
+            publishTokens();
+        });
+    }
+
+    /**
+     * Estimación de cuánto esperaría en cola una llamada nueva
+     *
+     * NOTA: Se lee desde cualquier hilo (sin pasar por el dispatcher), con la última
+     * copia de los tokens y la cola actual; es una estimación, no una reserva
+     *
+     * @return 0 si hay un token libre y nadie en cola; si no, el tiempo hasta
+     *         que se generen los tokens de las llamadas en cola más esta
+     */
+    public long estimatedWaitNanos() {
+        double available = Math.min(capacity, tokensView + (clock.getAsLong() - tokensViewNanos) * tokensPerNano);
+        double missing = queueDepth.get() + 1 - available;
+        if (missing <= 0) {
+            return 0;
+        }
+        return tokensPerNano > 0 ? (long) (missing / tokensPerNano) : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return Métricas actuales del planificador
+     */
+    public UpstreamStats stats() {
+        long count = dispatched.sum();
+        return new UpstreamStats(
+            queueDepth.get(),
+            count,
+            throttled.sum(),
+            count == 0 ? 0 : totalWaitNanos.sum() / count / 1_000_000.0,
+            maxWaitNanos.get() / 1_000_000.0);
+    }
+
+    /**
+     * Detiene el hilo del dispatcher (lo llama el proveedor dueño al apagarse)
+     */
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Despacha lo que permitan los tokens en este momento y espera a que termine
+     *
+     * NOTA: Para pruebas con reloj falso: tras adelantar el reloj no hace falta
+     * esperar el despertar programado (que usa tiempo real)
+     *
+     * @return Tareas que siguen en cola
+     */
+    int drainNow() throws InterruptedException, ExecutionException {
+        return dispatcher.submit(() -> {
+            drain();
+            return queue.size();
+        }).get();
+    }
+
+    // ============================================
+    // Métodos del actor (solo en el hilo dispatcher)
+    // ============================================
+
+    private void enqueue(String key, RequestPriority priority, Supplier<Mono<?>> call, MonoSink<Object> sink) {
+        Task existing = queuedByKey.get(key);
+        if (existing != null) {
+            existing.sinks.add(sink);
+            promote(existing, priority);
+            return;
+        }
+        if (queue.size() >= maxQueueSize) {
+            sink.error(new UpstreamThrottledException("Cola de llamadas a la API llena"));
+            return;
+        }
+        Task task = new Task(key, priority, call, sequence++, clock.getAsLong());
+        task.sinks.add(sink);
+        queue.add(task);
+        queuedByKey.put(key, task);
+        queueDepth.set(queue.size());
+        drain();
+    }
+
+    private void promote(Task task, RequestPriority priority) {
+        if (priority.isHigherThan(task.priority)) {
+            queue.remove(task);  // La posición en la cola depende de la prioridad
+            task.priority = priority;
+            queue.add(task);
+        }
+    }
+
+    /**
+     * Despacha tareas mientras haya tokens; si se acaban, programa un despertar
+     * para cuando se genere el siguiente token
+     */
+    private void drain() {
+        refill();
+        while (!queue.isEmpty() && tokens >= 1) {
+            Task task = queue.poll();
+            queuedByKey.remove(task.key);
+            tokens -= 1;
+            recordWait(clock.getAsLong() - task.enqueuedNanos);
+            run(task);
+        }
+        queueDepth.set(queue.size());
+        publishTokens();
+
+        if (!queue.isEmpty() && !wakeupScheduled) {
+            long nanosUntilToken = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            wakeupScheduled = true;
+            dispatcher.schedule(() -> {
+                wakeupScheduled = false;
+                drain();
+            }, Math.max(1, nanosUntilToken), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+
+    private void publishTokens() {
+        tokensViewNanos = lastRefillNanos;
+        tokensView = tokens;
+    }
+
+    /**
+     * Ejecuta la llamada y entrega el resultado a todas las peticiones fusionadas
+     *
+     * NOTA: Después de poll() nadie más agrega sinks a la tarea, así la lista
+     * se puede recorrer desde el hilo que completa la llamada
+     */
+    private void run(Task task) {
+        Mono<?> mono;
+        try {
+            mono = task.call.get();
+        } catch (RuntimeException e) {
+            task.sinks.forEach(sink -> sink.error(e));
+            return;
+        }
+        mono.subscribe(
+            value -> task.sinks.forEach(sink -> sink.success(value)),
+            error -> task.sinks.forEach(sink -> sink.error(error)),
+            () -> task.sinks.forEach(MonoSink::success));
+    }
+
+    private void recordWait(long waitNanos) {
+        dispatched.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Tarea en cola: una llamada a la API + todas las peticiones que esperan su resultado
+     */
+    private static final class Task {
+        final String key;
+        final Supplier<Mono<?>> call;
+        final long sequence;
+        final long enqueuedNanos;
+        final List<MonoSink<Object>> sinks = new ArrayList<>(1);
+        RequestPriority priority;
+
+        Task(String key, RequestPriority priority, Supplier<Mono<?>> call, long sequence, long enqueuedNanos) {
+            this.key = key;
+            this.priority = priority;
+            this.call = call;
+            this.sequence = sequence;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    /**
+     * Métricas del planificador
+     *
+     * @param queueDepth Tareas esperando un token
+     * @param dispatched Llamadas enviadas a la API
+     * @param throttled Notas de cuota recibidas
+     * @param avgWaitMillis Espera promedio en cola
+     * @param maxWaitMillis Espera máxima en cola
+     */
+    public record UpstreamStats(
+        int queueDepth,
+        long dispatched,
+        long throttled,
+        double avgWaitMillis,
+        double maxWaitMillis) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.stockmarket.upstream;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * La API externa rechazó la petición por cuota, o la cola local está llena
+ *
+ * - Extiende ResponseStatusException: Spring responde 503 Service Unavailable
+ *   sin necesidad de un @ControllerAdvice
+ * - Reemplaza el comportamiento anterior, donde la nota de cuota de Alpha Vantage
+ *   ({"Note": "..."}) se enviaba al cliente como si fueran datos
+ */
+public class UpstreamThrottledException extends ResponseStatusException {
+
+    public UpstreamThrottledException(String reason) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+    }
+}
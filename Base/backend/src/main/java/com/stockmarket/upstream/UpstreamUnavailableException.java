@@ -0,0 +1,17 @@
+package com.stockmarket.upstream;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * La API externa está degradada (circuito abierto) y no hay un valor guardado para responder
+ *
+ * - Igual que UpstreamThrottledException: Spring responde 503 Service Unavailable
+ * - Se lanza al instante, sin esperar a la API (ver UpstreamCircuitBreaker)
+ */
+public class UpstreamUnavailableException extends ResponseStatusException {
+
+    public UpstreamUnavailableException(String reason) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+    }
+}
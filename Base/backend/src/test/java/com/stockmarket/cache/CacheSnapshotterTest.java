@@ -0,0 +1,85 @@
+package com.stockmarket.cache;
+
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.TestSeries;
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.model.TimeSeriesJsonWriter;
+import com.stockmarket.service.ServiceFixture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Snapshot → reinicio → restauración, incluidas las entradas ya expiradas que el cache conserva
+ *
+ * - Cache de ServiceFixture: ventana stale de 30 minutos y respaldo de 24 horas
+ * - Una entrada expirada vuelve expirada (stale o de respaldo), con el mismo tiempo de expiración
+ */
+class CacheSnapshotterTest {
+
+    private static final TimeSeries SERIES = TestSeries.daily("IBM", LocalDate.of(2025, 1, 17), 50);
+    private static final EncodedResponse ENCODED = EncodedResponse.encode(TimeSeriesJsonWriter.toJson(SERIES));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripKeepsFreshStaleAndFallbackEntries() {
+        ConcurrentCache before = ServiceFixture.cache();
+        before.put("DAILY_FRESH", SERIES, ENCODED);
+        before.put("DAILY_STALE", SERIES, ENCODED, Duration.ofMinutes(-10));
+        before.put("DAILY_FALLBACK", SERIES, ENCODED, Duration.ofHours(-3));
+        before.put("DAILY_GONE", SERIES, ENCODED, Duration.ofHours(-30));
+        Path path = directory.resolve("cache-snapshot.bin");
+        new CacheSnapshotter(before, true, path).snapshot();
+
+        ConcurrentCache after = ServiceFixture.cache();
+        new CacheSnapshotter(after, true, path).restore();
+
+        ConcurrentCache.Lookup fresh = after.lookup("DAILY_FRESH");
+        assertThat(fresh.stale()).isFalse();
+        assertThat(fresh.value().size()).isEqualTo(SERIES.size());
+        assertThat(fresh.encoded().etag()).isEqualTo(ENCODED.etag());
+
+        // Dentro de la ventana stale: se sirve y se refresca, igual que antes del reinicio
+        ConcurrentCache.Lookup stale = after.lookup("DAILY_STALE");
+        assertThat(Duration.ofNanos(stale.expiredNanos())).isBetween(Duration.ofMinutes(10), Duration.ofMinutes(11));
+
+        // Pasada la ventana stale: solo como respaldo si la API falla
+        assertThat(after.lastKnown("DAILY_FALLBACK").expiredNanos()).isGreaterThan(Duration.ofHours(3).toNanos());
+        assertThat(after.lookup("DAILY_FALLBACK")).isNull();
+
+        // Pasado también el respaldo: ni se guarda ni se restaura
+        assertThat(after.lastKnown("DAILY_GONE")).isNull();
+    }
+
+    @Test
+    void entriesPastTheirRetentionWhileOnDiskAreDropped() {
+        ConcurrentCache before = new ConcurrentCache(64L << 20, Duration.ofMinutes(5), Duration.ofHours(1),
+            Duration.ofHours(12), Duration.ofDays(1), Duration.ofMillis(100), Duration.ofMillis(100));
+        before.put("DAILY_IBM", SERIES, ENCODED, Duration.ofMillis(-150));
+        Path path = directory.resolve("cache-snapshot.bin");
+        new CacheSnapshotter(before, true, path).snapshot();
+
+        // Se restaura con la misma retención, pero el reinicio la dejó pasar
+        ConcurrentCache after = new ConcurrentCache(64L << 20, Duration.ofMinutes(5), Duration.ofHours(1),
+            Duration.ofHours(12), Duration.ofDays(1), Duration.ofMillis(100), Duration.ofMillis(100));
+        sleep(Duration.ofMillis(100));
+        new CacheSnapshotter(after, true, path).restore();
+
+        assertThat(after.lastKnown("DAILY_IBM")).isNull();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.stockmarket.cache;
+
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.TestSeries;
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.model.TimeSeriesJsonWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache acotado con desalojo/admisión TinyLFU
+ *
+ * - Todas las entradas pesan lo mismo (misma serie, claves del mismo largo):
+ *   la capacidad se expresa en número de entradas
+ */
+class ConcurrentCacheTest {
+
+    private static final int CAPACITY = 500;
+    private static final int KEY_SPACE = 10_000;
+
+    private TimeSeries series;
+    private EncodedResponse encoded;
+    private long entryWeight;
+
+    @BeforeEach
+    void setUp() {
+        series = TestSeries.daily("K", LocalDate.of(2025, 1, 17), 50);
+        encoded = EncodedResponse.encode(TimeSeriesJsonWriter.toJson(series));
+        ConcurrentCache probe = cacheFor(1_000_000);
+        probe.put(key(0), series, encoded);
+        entryWeight = probe.weightBytes();
+    }
+
+    @Test
+    void zipfWorkloadHitRatioBeatsLru() {
+        ConcurrentCache cache = cacheFor(CAPACITY);
+        LruBaseline lru = new LruBaseline(CAPACITY);
+        Zipf zipf = new Zipf(KEY_SPACE, 1.0, new Random(42));
+
+        int requests = 200_000;
+        int hits = 0;
+        int lruHits = 0;
+        for (int i = 0; i < requests; i++) {
+            String key = key(zipf.next());
+            if (cache.get(key) != null) {
+                hits++;
+            } else {
+                cache.put(key, series, encoded);
+            }
+            if (lru.get(key) != null) {
+                lruHits++;
+            } else {
+                lru.put(key, Boolean.TRUE);
+            }
+        }
+        double hitRatio = (double) hits / requests;
+        double lruHitRatio = (double) lruHits / requests;
+
+        // Con 5% de las claves en cache, Zipf(1.0) acota el óptimo en ~0.69 (H(500)/H(10000))
+        assertThat(cache.size()).isLessThanOrEqualTo(CAPACITY);
+        assertThat(cache.weightBytes()).isLessThanOrEqualTo(CAPACITY * entryWeight);
+        assertThat(hitRatio).isGreaterThan(lruHitRatio + 0.03);
+        assertThat(hitRatio).isGreaterThan(0.6);
+    }
+
+    @Test
+    void scanOfNewKeysDoesNotFlushPopularEntries() {
+        ConcurrentCache cache = cacheFor(CAPACITY);
+        for (int round = 0; round < 10; round++) {
+            for (int k = 0; k < CAPACITY; k++) {
+                if (cache.get(key(k)) == null) {
+                    cache.put(key(k), series, encoded);
+                }
+            }
+        }
+        // Escaneo: el doble de claves que la capacidad, cada una pedida una sola vez
+        for (int k = CAPACITY; k < 3 * CAPACITY; k++) {
+            cache.get(key(k));
+            cache.put(key(k), series, encoded);
+        }
+
+        int survivors = 0;
+        for (int k = 0; k < CAPACITY; k++) {
+            if (cache.containsKey(key(k))) {
+                survivors++;
+            }
+        }
+        assertThat(survivors).isGreaterThan(CAPACITY * 9 / 10);
+    }
+
+    @Test
+    void refreshOfExistingKeyIsAlwaysAdmitted() {
+        ConcurrentCache cache = cacheFor(3);
+        // Dos claves muy populares y una fría, cache lleno
+        for (int i = 0; i < 10; i++) {
+            cache.get(key(1));
+            cache.get(key(2));
+        }
+        cache.put(key(1), series, encoded);
+        cache.put(key(2), series, encoded);
+        cache.put(key(3), series, encoded);
+
+        // El refresco de la clave fría llega con una serie algo más grande: hay que desalojar
+        TimeSeries larger = TestSeries.daily("K", LocalDate.of(2025, 1, 17), 51);
+        cache.put(key(3), larger, EncodedResponse.encode(TimeSeriesJsonWriter.toJson(larger)));
+
+        assertThat(cache.get(key(3))).isSameAs(larger);
+        assertThat(cache.weightBytes()).isLessThanOrEqualTo(3 * entryWeight);
+        assertThat(cache.statistic("DAILY", ConcurrentCache.Statistic.EVICTION)).isEqualTo(1);
+    }
+
+    @Test
+    void newColdKeyIsRejectedWhenVictimIsMorePopular() {
+        ConcurrentCache cache = cacheFor(2);
+        for (int i = 0; i < 10; i++) {
+            cache.get(key(1));
+            cache.get(key(2));
+        }
+        cache.put(key(1), series, encoded);
+        cache.put(key(2), series, encoded);
+
+        cache.put(key(3), series, encoded);
+
+        assertThat(cache.containsKey(key(3))).isFalse();
+        assertThat(cache.containsKey(key(1))).isTrue();
+        assertThat(cache.containsKey(key(2))).isTrue();
+    }
+
+    private ConcurrentCache cacheFor(long entries) {
+        long weight = entryWeight == 0 ? entries * 1_000_000 : entries * entryWeight;
+        return new ConcurrentCache(weight, Duration.ofMinutes(5), Duration.ofHours(1),
+            Duration.ofHours(12), Duration.ofDays(1), Duration.ofMinutes(30), Duration.ofHours(24));
+    }
+
+    private static String key(int id) {
+        return String.format("DAILY_K%05d", id);
+    }
+
+    /**
+     * LRU clásico de referencia (LinkedHashMap en orden de acceso)
+     */
+    private static final class LruBaseline extends LinkedHashMap<String, Boolean> {
+        private final int capacity;
+
+        LruBaseline(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * Generador Zipf por inversión de la distribución acumulada
+     */
+    private static final class Zipf {
+        private final double[] cumulative;
+        private final Random random;
+
+        Zipf(int n, double exponent, Random random) {
+            this.random = random;
+            this.cumulative = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next() {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+        }
+    }
+}
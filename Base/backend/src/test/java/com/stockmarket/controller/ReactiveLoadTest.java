@@ -0,0 +1,158 @@
+package com.stockmarket.controller;
+
+import com.stockmarket.provider.FakeAlphaVantageServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga del camino reactivo: concurrencia muy por encima del pool de Tomcat
+ *
+ * - Tomcat con 8 hilos; la API falsa tarda 3 s por llamada
+ * - 2 oleadas de 400 peticiones simultáneas, todas MISS (símbolos distintos)
+ * - Con el camino bloqueante la API vería como mucho 8 llamadas a la vez y cada
+ *   oleada tardaría 400 / 8 x 3 s = 150 s; con el reactivo están en vuelo a la vez
+ *   (el techo lo pone la CPU para aceptar y responder, no los hilos)
+ * - Hilos y memoria: no crecen con las peticiones en vuelo (no hay un hilo por petición).
+ *   La memoria se compara entre oleadas: la primera abre los pools de conexiones
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.threads.virtual.enabled=false",
+    "server.tomcat.threads.max=8",
+    "server.tomcat.threads.min-spare=8",
+    "alphavantage.rate-limit.per-minute=600000",
+    "alphavantage.rate-limit.burst=1000",
+    "upstream.queue.max-size=2000",
+    "upstream.http.max-connections=1000",
+    "upstream.http.pending-acquire-max-count=2000",
+    "upstream.request-deadline=60s",
+    "upstream.hedge.enabled=false",
+    "upstream.circuit-breaker.enabled=false",
+    "cache.refresh-ahead.enabled=false",
+    "cache.snapshot.enabled=false",
+    "cache.warmup.enabled=false",
+    "access-log.enabled=false"
+})
+class ReactiveLoadTest {
+
+    private static final int TOMCAT_THREADS = 8;
+    private static final int CONCURRENT_REQUESTS = 400;
+    private static final Duration UPSTREAM_LATENCY = Duration.ofSeconds(3);
+
+    private static final FakeAlphaVantageServer UPSTREAM = startUpstream();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void upstreamUrl(DynamicPropertyRegistry registry) {
+        registry.add("alphavantage.base-url", UPSTREAM::baseUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        UPSTREAM.close();
+    }
+
+    @Test
+    void concurrentMissesFarBeyondTomcatPoolWithFlatThreadsAndMemory() throws Exception {
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(clientExecutor)
+            .build();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        try {
+            // Calentamiento: primera petición (JIT, pools) fuera de la medición
+            assertThat(send(client, "WARM").join().statusCode()).isEqualTo(200);
+            threads.resetPeakThreadCount();
+            int threadsBefore = threads.getThreadCount();
+
+            Duration firstWave = wave(client, "A");
+            long heapAfterFirstWave = usedHeapAfterGc(memory);
+            Duration secondWave = wave(client, "B");
+            long heapAfterSecondWave = usedHeapAfterGc(memory);
+
+            assertThat(UPSTREAM.calls()).isEqualTo(2 * CONCURRENT_REQUESTS + 1);
+
+            // La API vio muchas más llamadas a la vez que hilos tiene Tomcat
+            assertThat(UPSTREAM.maxInFlight()).isGreaterThan(TOMCAT_THREADS * 10);
+            Duration blockingBound = UPSTREAM_LATENCY.multipliedBy(CONCURRENT_REQUESTS / TOMCAT_THREADS);
+            assertThat(firstWave).isLessThan(blockingBound.dividedBy(5));
+            assertThat(secondWave).isLessThan(blockingBound.dividedBy(5));
+
+            // Los hilos no crecen con las peticiones en vuelo
+            assertThat(threads.getPeakThreadCount() - threadsBefore).isLessThan(50);
+
+            // Memoria plana: la segunda oleada solo suma sus 400 series al cache (~10 KB c/u)
+            assertThat(heapAfterSecondWave - heapAfterFirstWave).isLessThan(32L << 20);
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Lanza CONCURRENT_REQUESTS peticiones a la vez (símbolos nuevos) y espera todas
+     *
+     * @return Tiempo hasta la última respuesta
+     */
+    private Duration wave(HttpClient client, String prefix) throws Exception {
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>(CONCURRENT_REQUESTS);
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            responses.add(send(client, prefix + i));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        for (CompletableFuture<HttpResponse<byte[]>> response : responses) {
+            assertThat(response.join().statusCode()).isEqualTo(200);
+        }
+        return elapsed;
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(HttpClient client, String symbol) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/stocks/" + symbol + "/daily"))
+            .timeout(Duration.ofSeconds(60))
+            .header("Accept-Encoding", "gzip")
+            .GET()
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+        System.gc();
+        Thread.sleep(200);
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static FakeAlphaVantageServer startUpstream() {
+        try {
+            return new FakeAlphaVantageServer().withDelay(UPSTREAM_LATENCY);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
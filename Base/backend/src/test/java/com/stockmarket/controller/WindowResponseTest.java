@@ -0,0 +1,111 @@
+package com.stockmarket.controller;
+
+import com.stockmarket.cache.ConcurrentCache;
+import com.stockmarket.indicator.IndicatorEngine;
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.TestSeries;
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.model.TimeSeriesJsonWriter;
+import com.stockmarket.provider.FakeProvider;
+import com.stockmarket.service.MarketDataService;
+import com.stockmarket.service.ServiceFixture;
+import com.stockmarket.upstream.UpstreamUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ventanas (from/to/maxPoints): ETag derivado del de la serie y cabeceras de respaldo
+ */
+class WindowResponseTest {
+
+    private static final LocalDate LAST_SESSION = LocalDate.of(2025, 1, 17);
+
+    private FakeProvider upstream;
+    private ConcurrentCache cache;
+    private StockController controller;
+
+    @BeforeEach
+    void setUp() {
+        upstream = new FakeProvider("fake")
+            .respondWith((interval, symbol, full) -> Mono.just(TestSeries.daily(symbol, LAST_SESSION, 300)));
+        // Sin ventana de stale-while-revalidate: una clave vencida que no se puede refrescar es un respaldo
+        cache = new ConcurrentCache(64L << 20, Duration.ofMinutes(5), Duration.ofHours(1),
+            Duration.ofHours(12), Duration.ofDays(1), Duration.ZERO, Duration.ofHours(24));
+        MarketDataService service = ServiceFixture.service(cache, upstream);
+        controller = new StockController(service, null, new IndicatorEngine(100), false, 8, 200);
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+    }
+
+    @Test
+    void windowEtagDependsOnSeriesVersionAndWindow() {
+        ResponseEntity<byte[]> first = daily("2024-12-01", null, 20, null);
+        ResponseEntity<byte[]> again = daily("2024-12-01", null, 20, null);
+        ResponseEntity<byte[]> otherWindow = daily("2024-12-01", null, 10, null);
+        ResponseEntity<byte[]> full = daily(null, null, null, null);
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getHeaders().getETag()).startsWith("W/\"").isEqualTo(again.getHeaders().getETag());
+        assertThat(otherWindow.getHeaders().getETag()).isNotEqualTo(first.getHeaders().getETag());
+        // Deriva del ETag de la serie completa (sin hashear el JSON de la ventana)
+        String seriesEtag = full.getHeaders().getETag();
+        assertThat(first.getHeaders().getETag()).contains(seriesEtag.substring(1, seriesEtag.length() - 1));
+
+        // Nueva versión de la serie → otro ETag para la misma ventana
+        TimeSeries changed = TestSeries.withLastClose(TestSeries.daily("IBM", LAST_SESSION, 300), 999.5);
+        cache.put("DAILY_IBM", changed, EncodedResponse.encode(TimeSeriesJsonWriter.toJson(changed)));
+        assertThat(daily("2024-12-01", null, 20, null).getHeaders().getETag())
+            .isNotEqualTo(first.getHeaders().getETag());
+    }
+
+    @Test
+    void matchingIfNoneMatchReturns304WithoutBody() {
+        String etag = daily(null, "2024-12-31", 50, null).getHeaders().getETag();
+
+        ResponseEntity<byte[]> notModified = daily(null, "2024-12-31", 50, etag);
+
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getBody()).isNull();
+        assertThat(notModified.getHeaders().getETag()).isEqualTo(etag);
+    }
+
+    @Test
+    void staleFallbackWindowCarriesWarningHeaders() throws InterruptedException {
+        TimeSeries series = TestSeries.daily("IBM", LAST_SESSION, 300);
+        EncodedResponse encoded = EncodedResponse.encode(TimeSeriesJsonWriter.toJson(series));
+        cache.put("DAILY_IBM", series, encoded, Duration.ofMillis(1));
+        Thread.sleep(20);
+        upstream.respondWith((interval, symbol, full) -> Mono.error(new UpstreamUnavailableException("caída")));
+
+        ResponseEntity<byte[]> window = daily("2024-12-01", null, 20, null);
+
+        assertThat(window.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(window.getHeaders().getFirst(HttpHeaders.WARNING)).isEqualTo("110 - \"Response is Stale\"");
+        assertThat(window.getHeaders().getFirst("X-Stale-Seconds")).isEqualTo("1");
+
+        ResponseEntity<byte[]> notModified = daily("2024-12-01", null, 20, window.getHeaders().getETag());
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getHeaders().getFirst(HttpHeaders.WARNING)).isNotNull();
+    }
+
+    private ResponseEntity<byte[]> daily(String from, String to, Integer maxPoints, String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return controller.getDaily("IBM", from, to, maxPoints, headers).block(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,124 @@
+package com.stockmarket.indicator;
+
+import com.stockmarket.model.TestSeries;
+import com.stockmarket.model.TimeSeries;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Cálculo incremental (memo + barras nuevas) contra un cálculo desde cero sobre la serie combinada
+ *
+ * - Serie en cache: las primeras N sesiones del fixture, con la última barra "abierta"
+ *   (otro cierre); la descarga nueva la corrige y agrega k sesiones (mergeNewer)
+ * - Todos los indicadores, incluidos los que guardan estado (RSI, MACD)
+ */
+class IndicatorEngineTest {
+
+    private static final TimeSeries DAILY_FULL = TestSeries.load("/alphavantage/IBM-daily-full.json");
+    private static final double TOLERANCE = 1e-9;
+
+    private static final List<IndicatorSpec> SPECS = IndicatorSpec.parseAll(query(
+        "sma", "5,20,50",
+        "ema", "12,26",
+        "rsi", "14,2",
+        "macd", "12:26:9",
+        "vwap", "20",
+        "bbands", "20:2"));
+
+    @Test
+    void incrementalUpdateMatchesAFullRecompute() {
+        for (int cached : new int[] {30, 120, 200, 251}) {
+            TimeSeries base = TestSeries.withLastClose(head(DAILY_FULL, cached), 1.0);
+            TimeSeries merged = base.mergeNewer(TestSeries.compact(DAILY_FULL, DAILY_FULL.size() - cached + 1));
+            assertThat(merged.size()).isEqualTo(DAILY_FULL.size());
+
+            IndicatorEngine engine = new IndicatorEngine(100);
+            for (IndicatorSpec spec : SPECS) {
+                engine.columns("DAILY_IBM", base, spec);
+            }
+            for (IndicatorSpec spec : SPECS) {
+                double[][] incremental = engine.columns("DAILY_IBM", merged, spec);
+                double[][] fresh = new IndicatorEngine(100).columns("DAILY_IBM", merged, spec);
+                assertSameColumns(spec.key() + " con " + cached + " barras en cache", incremental, fresh);
+            }
+            assertThat(engine.incrementalComputations()).isEqualTo(SPECS.size());
+        }
+    }
+
+    @Test
+    void repeatedSingleBarUpdatesMatchAFullRecompute() {
+        IndicatorEngine engine = new IndicatorEngine(100);
+        TimeSeries series = head(DAILY_FULL, 60);
+        for (IndicatorSpec spec : SPECS) {
+            engine.columns("DAILY_IBM", series, spec);
+        }
+
+        // Una sesión por vez, como los refrescos del día a día
+        for (int size = 61; size <= DAILY_FULL.size(); size++) {
+            series = series.mergeNewer(TestSeries.compact(head(DAILY_FULL, size), 2));
+            for (IndicatorSpec spec : SPECS) {
+                engine.columns("DAILY_IBM", series, spec);
+            }
+        }
+
+        for (IndicatorSpec spec : SPECS) {
+            double[][] fresh = new IndicatorEngine(100).columns("DAILY_IBM", series, spec);
+            assertSameColumns(spec.key(), engine.columns("DAILY_IBM", series, spec), fresh);
+        }
+        assertThat(engine.fullComputations()).isEqualTo(SPECS.size());
+    }
+
+    @Test
+    void sameSeriesInstanceIsServedFromTheMemo() {
+        IndicatorEngine engine = new IndicatorEngine(100);
+        IndicatorSpec sma = SPECS.get(0);
+
+        double[][] first = engine.columns("DAILY_IBM", DAILY_FULL, sma);
+
+        assertThat(engine.columns("DAILY_IBM", DAILY_FULL, sma)).isSameAs(first);
+        assertThat(engine.hits()).isEqualTo(1);
+    }
+
+    /**
+     * Columnas iguales valor por valor (NaN = NaN en el calentamiento)
+     */
+    private static void assertSameColumns(String description, double[][] actual, double[][] expected) {
+        assertThat(actual.length).isEqualTo(expected.length);
+        for (int c = 0; c < expected.length; c++) {
+            assertThat(actual[c].length).isEqualTo(expected[c].length);
+            for (int i = 0; i < expected[c].length; i++) {
+                String where = description + ", columna " + c + ", barra " + i;
+                if (Double.isNaN(expected[c][i])) {
+                    assertThat(actual[c][i]).as(where).isNaN();
+                } else {
+                    assertThat(actual[c][i]).as(where).isCloseTo(expected[c][i], within(TOLERANCE));
+                }
+            }
+        }
+    }
+
+    /**
+     * Primeras "bars" barras de una serie (la serie guardada antes de los refrescos)
+     */
+    private static TimeSeries head(TimeSeries series, int bars) {
+        TimeSeries.Builder builder = TimeSeries.builder(series.seriesName(), series.isIntraday());
+        for (int i = 0; i < bars; i++) {
+            builder.add(series.time(i), series.open(i), series.high(i), series.low(i), series.close(i), series.volume(i));
+        }
+        return builder.build();
+    }
+
+    private static Map<String, List<String>> query(String... nameValues) {
+        Map<String, List<String>> query = new LinkedHashMap<>();
+        for (int i = 0; i < nameValues.length; i += 2) {
+            query.put(nameValues[i], List.of(nameValues[i + 1]));
+        }
+        return query;
+    }
+}
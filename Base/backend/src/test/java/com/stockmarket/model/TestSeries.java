@@ -0,0 +1,122 @@
+package com.stockmarket.model;
+
+import com.stockmarket.provider.AlphaVantageParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * Series de prueba con el mismo formato que entrega AlphaVantageParser
+ *
+ * - Precios deterministas (dependen solo de la fecha): dos series que cubren el mismo
+ *   día tienen la misma barra, como dos descargas reales de la API
+ */
+public final class TestSeries {
+
+    public static final String DAILY_NAME = "Time Series (Daily)";
+
+    private TestSeries() {
+    }
+
+    /**
+     * Serie diaria de "sessions" sesiones (lunes a viernes) que termina en lastSession
+     */
+    public static TimeSeries daily(String symbol, LocalDate lastSession, int sessions) {
+        TimeSeries.Builder builder = TimeSeries.builder(DAILY_NAME, false)
+            .meta(new String[] {"1. Information", "2. Symbol", "3. Last Refreshed"},
+                new String[] {"Daily Prices (open, high, low, close) and Volumes", symbol, lastSession.toString()});
+        LocalDate day = lastSession;
+        for (int added = 0; added < sessions; day = day.minusDays(1)) {
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            long epochDay = day.toEpochDay();
+            double open = 100 + (epochDay % 37);
+            builder.add(epochDay, open, open + 2, open - 1, open + 0.5, 1_000 + epochDay % 500);
+            added++;
+        }
+        return builder.build();
+    }
+
+    /**
+     * JSON de Alpha Vantage guardado en src/test/resources (ej: "/alphavantage/IBM-weekly.json")
+     */
+    public static String json(String resource) {
+        try (InputStream in = TestSeries.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No existe el recurso " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Serie parseada desde un JSON de Alpha Vantage en src/test/resources
+     */
+    public static TimeSeries load(String resource) {
+        return AlphaVantageParser.parse(json(resource));
+    }
+
+    /**
+     * Últimas "bars" barras de una serie, como una descarga "compact" de la API
+     */
+    public static TimeSeries compact(TimeSeries full, int bars) {
+        TimeSeries.Builder builder = TimeSeries.builder(full.seriesName(), full.isIntraday());
+        String[] keys = new String[full.metaSize()];
+        String[] values = new String[full.metaSize()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = full.metaKey(i);
+            values[i] = keys[i].endsWith(". Output Size") ? "Compact" : full.metaValue(i);
+        }
+        builder.meta(keys, values);
+        for (int i = Math.max(0, full.size() - bars); i < full.size(); i++) {
+            builder.add(full.time(i), full.open(i), full.high(i), full.low(i), full.close(i), full.volume(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Misma serie que daily(...) pero con otro cierre en la última sesión (barra abierta)
+     */
+    public static TimeSeries withLastClose(TimeSeries series, double close) {
+        TimeSeries.Builder builder = TimeSeries.builder(series.seriesName(), series.isIntraday());
+        String[] keys = new String[series.metaSize()];
+        String[] values = new String[series.metaSize()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = series.metaKey(i);
+            values[i] = series.metaValue(i);
+        }
+        builder.meta(keys, values);
+        int last = series.size() - 1;
+        for (int i = 0; i < series.size(); i++) {
+            builder.add(series.time(i), series.open(i), series.high(i), series.low(i),
+                i == last ? close : series.close(i), series.volume(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Misma serie con los precios multiplicados por "factor" (ej: 0.5 = ajustada por un split 2:1)
+     */
+    public static TimeSeries scaled(TimeSeries series, double factor) {
+        TimeSeries.Builder builder = TimeSeries.builder(series.seriesName(), series.isIntraday());
+        String[] keys = new String[series.metaSize()];
+        String[] values = new String[series.metaSize()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = series.metaKey(i);
+            values[i] = series.metaValue(i);
+        }
+        builder.meta(keys, values);
+        for (int i = 0; i < series.size(); i++) {
+            builder.add(series.time(i), series.open(i) * factor, series.high(i) * factor,
+                series.low(i) * factor, series.close(i) * factor, series.volume(i));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.stockmarket.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Semanal/mensual derivadas de la diaria contra las series semanal/mensual de la API
+ *
+ * - Fixtures en src/test/resources/alphavantage (formato Alpha Vantage): IBM 2024 con el
+ *   calendario real de la bolsa (feriados incluidos, ej: Viernes Santo → semana al jueves)
+ * - Las barras esperadas se calcularon aparte, no con TimeSeriesAggregator
+ */
+class TimeSeriesAggregatorTest {
+
+    private static final TimeSeries DAILY_FULL = TestSeries.load("/alphavantage/IBM-daily-full.json");
+    private static final TimeSeries WEEKLY = TestSeries.load("/alphavantage/IBM-weekly.json");
+    private static final TimeSeries MONTHLY = TestSeries.load("/alphavantage/IBM-monthly.json");
+
+    @Test
+    void weeklyFromFullDailyMatchesApiWeekly() {
+        assertThat(DAILY_FULL.isFullHistory()).isTrue();
+
+        TimeSeries weekly = TimeSeriesAggregator.toWeekly(DAILY_FULL);
+
+        assertThat(weekly.seriesName()).isEqualTo("Weekly Time Series");
+        assertThat(weekly.size()).isEqualTo(53);
+        assertSameBars(weekly, WEEKLY, 0);
+        assertThat(LocalDate.ofEpochDay(weekly.time(0))).isEqualTo(LocalDate.of(2024, 1, 5));
+    }
+
+    @Test
+    void monthlyFromFullDailyMatchesApiMonthly() {
+        TimeSeries monthly = TimeSeriesAggregator.toMonthly(DAILY_FULL);
+
+        assertThat(monthly.seriesName()).isEqualTo("Monthly Time Series");
+        assertThat(monthly.size()).isEqualTo(12);
+        assertSameBars(monthly, MONTHLY, 0);
+    }
+
+    @Test
+    void compactDailyDropsThePartialFirstBucket() {
+        TimeSeries compact = TestSeries.compact(DAILY_FULL, 100);
+        assertThat(compact.isFullHistory()).isFalse();
+
+        TimeSeries weekly = TimeSeriesAggregator.toWeekly(compact);
+        TimeSeries monthly = TimeSeriesAggregator.toMonthly(compact);
+
+        // Las 100 sesiones empiezan el viernes 2024-08-09: esa semana y agosto quedan fuera
+        // (incompletos); el resto coincide barra por barra con la API
+        assertThat(LocalDate.ofEpochDay(compact.time(0))).isEqualTo(LocalDate.of(2024, 8, 9));
+        assertThat(weekly.size()).isEqualTo(21);
+        assertThat(monthly.size()).isEqualTo(4);
+        assertSameBars(weekly, WEEKLY, WEEKLY.size() - weekly.size());
+        assertSameBars(monthly, MONTHLY, MONTHLY.size() - monthly.size());
+        assertThat(weekly.time(0)).isGreaterThan(compact.time(0));
+    }
+
+    /**
+     * Cada barra de "actual" igual a la de "expected" desde el índice "offset"
+     */
+    private static void assertSameBars(TimeSeries actual, TimeSeries expected, int offset) {
+        assertThat(offset + actual.size()).isEqualTo(expected.size());
+        for (int i = 0; i < actual.size(); i++) {
+            int j = offset + i;
+            String bar = "barra " + LocalDate.ofEpochDay(expected.time(j));
+            assertThat(actual.time(i)).as(bar).isEqualTo(expected.time(j));
+            assertThat(actual.open(i)).as(bar).isEqualTo(expected.open(j));
+            assertThat(actual.high(i)).as(bar).isEqualTo(expected.high(j));
+            assertThat(actual.low(i)).as(bar).isEqualTo(expected.low(j));
+            assertThat(actual.close(i)).as(bar).isEqualTo(expected.close(j));
+            assertThat(actual.volume(i)).as(bar).isEqualTo(expected.volume(j));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.stockmarket.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TimeSeries.mergeNewer: historia en cache + descarga "compact" más reciente
+ *
+ * - Sin cambios → la misma instancia (conserva el ETag)
+ * - Solapada → prefijo propio + barras de la descarga
+ * - Con hueco o de otro proveedor → null (hay que recargar la historia completa)
+ * - Con límite de barras → se descartan las más viejas (la serie no crece sin fin)
+ */
+class TimeSeriesMergeTest {
+
+    private static final LocalDate FRIDAY = LocalDate.of(2025, 1, 10);
+    private static final LocalDate NEXT_FRIDAY = LocalDate.of(2025, 1, 17);
+
+    @Test
+    void sameBarsReturnTheSameInstance() {
+        TimeSeries full = TestSeries.load("/alphavantage/IBM-daily-full.json");
+
+        assertThat(full.mergeNewer(TestSeries.compact(full, 100))).isSameAs(full);
+    }
+
+    @Test
+    void overlapAppendsNewBarsAndKeepsTheOlderHistory() {
+        TimeSeries cached = TestSeries.daily("IBM", FRIDAY, 300);
+        TimeSeries newer = TestSeries.daily("IBM", NEXT_FRIDAY, 100);
+
+        TimeSeries merged = cached.mergeNewer(newer);
+
+        assertThat(merged.size()).isEqualTo(305);
+        assertThat(merged.time(0)).isEqualTo(cached.time(0));
+        assertThat(merged.time(merged.size() - 1)).isEqualTo(NEXT_FRIDAY.toEpochDay());
+        assertThat(merged.firstDifference(cached)).isEqualTo(cached.size());
+        assertThat(merged.firstDifference(TestSeries.daily("IBM", NEXT_FRIDAY, 305))).isEqualTo(-1);
+    }
+
+    @Test
+    void overlapOverwritesTheOpenBarAndKeepsTheOutputSize() {
+        TimeSeries full = TestSeries.load("/alphavantage/IBM-daily-full.json");
+        TimeSeries newer = TestSeries.withLastClose(TestSeries.compact(full, 100), 999.5);
+
+        TimeSeries merged = full.mergeNewer(newer);
+
+        assertThat(merged).isNotSameAs(full);
+        assertThat(merged.size()).isEqualTo(full.size());
+        assertThat(merged.firstDifference(full)).isEqualTo(full.size() - 1);
+        assertThat(merged.close(merged.size() - 1)).isEqualTo(999.5);
+        // La descarga es "Compact", pero la serie combinada sigue siendo la historia completa
+        assertThat(merged.isFullHistory()).isTrue();
+    }
+
+    @Test
+    void gapBetweenCachedAndNewerCannotBeMerged() {
+        TimeSeries cached = TestSeries.daily("IBM", FRIDAY, 300);
+        TimeSeries newer = TestSeries.daily("IBM", FRIDAY.plusMonths(6), 100);
+
+        assertThat(cached.mergeNewer(newer)).isNull();
+    }
+
+    @Test
+    void intradayAndDailyAreNeverMerged() {
+        TimeSeries daily = TestSeries.daily("IBM", FRIDAY, 10);
+        TimeSeries intraday = TimeSeries.builder("Time Series (5min)", true)
+            .add(FRIDAY.toEpochDay() * 86_400, 1, 2, 0.5, 1.5, 100)
+            .build();
+
+        assertThat(daily.mergeNewer(intraday)).isNull();
+    }
+
+    @Test
+    void seriesFromDifferentProvidersAreNeverMerged() {
+        TimeSeries full = TestSeries.load("/alphavantage/IBM-daily-full.json").withSource("alphavantage");
+        TimeSeries yahoo = TestSeries.scaled(TestSeries.compact(full, 100), 0.5).withSource("yahoo");
+        TimeSeries sameProvider = TestSeries.compact(full, 100).withSource("alphavantage");
+
+        assertThat(full.mergeNewer(yahoo)).isNull();
+        assertThat(full.mergeNewer(sameProvider)).isSameAs(full);
+        assertThat(full.mergeNewer(TestSeries.compact(full, 100))).isNull();  // Sin origen: no se sabe
+    }
+
+    @Test
+    void repeatedRefreshesStayWithinMaxBars() {
+        TimeSeries series = TestSeries.daily("IBM", FRIDAY, 300);
+        LocalDate lastSession = FRIDAY;
+
+        // Un año de refrescos semanales con la descarga "compact" (100 sesiones)
+        for (int week = 1; week <= 52; week++) {
+            lastSession = FRIDAY.plusWeeks(week);
+            series = series.mergeNewer(TestSeries.daily("IBM", lastSession, 100), 320);
+            assertThat(series.size()).isLessThanOrEqualTo(320);
+        }
+
+        assertThat(series.size()).isEqualTo(320);
+        assertThat(series.time(series.size() - 1)).isEqualTo(lastSession.toEpochDay());
+        assertThat(series.firstDifference(TestSeries.daily("IBM", lastSession, 320))).isEqualTo(-1);
+    }
+
+    @Test
+    void trimmedSeriesIsNoLongerTheFullHistory() {
+        TimeSeries full = TestSeries.load("/alphavantage/IBM-daily-full.json");
+        TimeSeries compact = TestSeries.withLastClose(TestSeries.compact(full, 100), 999.5);
+
+        TimeSeries untrimmed = full.mergeNewer(compact, full.size());
+        TimeSeries trimmed = full.mergeNewer(compact, 200);
+
+        assertThat(untrimmed.size()).isEqualTo(full.size());
+        assertThat(untrimmed.isFullHistory()).isTrue();
+        assertThat(trimmed.size()).isEqualTo(200);
+        assertThat(trimmed.time(0)).isEqualTo(full.time(full.size() - 200));
+        assertThat(trimmed.isFullHistory()).isFalse();
+    }
+
+    @Test
+    void newerBarsAreNeverDropped() {
+        TimeSeries cached = TestSeries.daily("IBM", FRIDAY, 300);
+
+        TimeSeries merged = cached.mergeNewer(TestSeries.daily("IBM", NEXT_FRIDAY, 100), 50);
+
+        // La descarga entera se conserva aunque pase del límite
+        assertThat(merged.size()).isEqualTo(100);
+        assertThat(merged.firstDifference(TestSeries.daily("IBM", NEXT_FRIDAY, 100))).isEqualTo(-1);
+    }
+}
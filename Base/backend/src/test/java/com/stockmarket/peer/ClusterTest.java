@@ -0,0 +1,191 @@
+package com.stockmarket.peer;
+
+import com.stockmarket.StockMarketApplication;
+import com.stockmarket.provider.FakeAlphaVantageServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dos instancias del gateway (dos contextos de Spring en puertos distintos) con el
+ * cache repartido por PeerRing, contra una misma API falsa
+ *
+ * - Cada símbolo lo descarga UNA vez su dueño, sin importar a qué nodo llegue la petición
+ * - Los nodos usan distinto peer.virtual-nodes a propósito: para algunos símbolos cada
+ *   uno cree que el dueño es el otro (como durante un cambio de la lista de nodos).
+ *   Aun así las peticiones terminan: la petición reenviada (owned) nunca espera a un reenvío
+ * - El stream intradiario funciona en un nodo que no es el dueño (no tiene la serie en su cache)
+ */
+class ClusterTest {
+
+    private static final Duration UPSTREAM_LATENCY = Duration.ofMillis(500);
+    private static final int VIRTUAL_NODES_A = 100;
+    private static final int VIRTUAL_NODES_B = 7;
+
+    private static FakeAlphaVantageServer upstream;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static String urlA;
+    private static String urlB;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeAll
+    static void startCluster() throws IOException {
+        upstream = new FakeAlphaVantageServer().withDelay(UPSTREAM_LATENCY);
+        int portA = freePort();
+        int portB = freePort();
+        urlA = "http://127.0.0.1:" + portA;
+        urlB = "http://127.0.0.1:" + portB;
+        nodeA = start(portA, urlA, VIRTUAL_NODES_A);
+        nodeB = start(portB, urlB, VIRTUAL_NODES_B);
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        nodeA.close();
+        nodeB.close();
+        upstream.close();
+    }
+
+    @Test
+    void eachSymbolIsDownloadedOnceByItsOwner() throws Exception {
+        PeerRing ringA = ring(urlA, VIRTUAL_NODES_A);
+        PeerRing ringB = ring(urlB, VIRTUAL_NODES_B);
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; symbols.size() < 20; i++) {
+            String symbol = "AGREE" + i;
+            if (ringA.isLocal(symbol) != ringB.isLocal(symbol)) {
+                symbols.add(symbol);  // Ambos nodos coinciden en el dueño
+            }
+        }
+        int before = upstream.calls();
+
+        for (String symbol : symbols) {
+            HttpResponse<String> fromA = get(urlA, symbol).get(10, TimeUnit.SECONDS);
+            HttpResponse<String> fromB = get(urlB, symbol).get(10, TimeUnit.SECONDS);
+            assertThat(fromA.statusCode()).isEqualTo(200);
+            assertThat(fromB.statusCode()).isEqualTo(200);
+            assertThat(fromA.headers().firstValue("ETag")).isEqualTo(fromB.headers().firstValue("ETag"));
+        }
+
+        assertThat(upstream.calls() - before).isEqualTo(symbols.size());
+    }
+
+    @Test
+    void nodesThatDisagreeOnTheOwnerDoNotWaitForEachOther() throws Exception {
+        String symbol = disputedSymbol();
+        int before = upstream.calls();
+
+        // A reenvía a B y B reenvía a A al mismo tiempo; cada reenvío se atiende como owned
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> fromA = get(urlA, symbol);
+        CompletableFuture<HttpResponse<String>> fromB = get(urlB, symbol);
+        assertThat(fromA.get(15, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+        assertThat(fromB.get(15, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Sin el bloqueo mutuo ambos terminan en ~1 llamada a la API, no en peer.http.response-timeout
+        assertThat(elapsed).isLessThan(UPSTREAM_LATENCY.multipliedBy(8));
+        assertThat(upstream.calls() - before).isBetween(1, 2);
+    }
+
+    @Test
+    void intradayStreamOnANodeThatIsNotTheOwnerPublishesBars() throws Exception {
+        PeerRing ringA = ring(urlA, VIRTUAL_NODES_A);
+        PeerRing ringB = ring(urlB, VIRTUAL_NODES_B);
+        String symbol = null;
+        for (int i = 0; symbol == null; i++) {
+            if (!ringA.isLocal("STREAM" + i) && ringB.isLocal("STREAM" + i)) {
+                symbol = "STREAM" + i;  // Dueño: B; el cliente se conecta a A
+            }
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(urlA + "/api/stocks/" + symbol + "/intraday/stream"))
+            .header("Accept", "text/event-stream")
+            .GET()
+            .build();
+
+        // El primer evento "bar" llega por el primer sondeo (stream.poll-interval empieza en 0)
+        CompletableFuture<String> firstBar = client.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+            .thenApply(response -> response.body()
+                .dropWhile(line -> !line.equals("event:bar"))
+                .skip(1)
+                .findFirst()
+                .orElse(""));
+
+        assertThat(firstBar.get(15, TimeUnit.SECONDS)).startsWith("data:").contains("\"symbol\":\"" + symbol + "\"");
+    }
+
+    /**
+     * Símbolo que A cree de B y B cree de A (anillos con distinto número de nodos virtuales)
+     */
+    private static String disputedSymbol() {
+        PeerRing ringA = ring(urlA, VIRTUAL_NODES_A);
+        PeerRing ringB = ring(urlB, VIRTUAL_NODES_B);
+        for (int i = 0; i < 100_000; i++) {
+            String symbol = "DISPUTED" + i;
+            if (!ringA.isLocal(symbol) && !ringB.isLocal(symbol)) {
+                return symbol;
+            }
+        }
+        throw new IllegalStateException("Ningún símbolo en disputa entre los dos anillos");
+    }
+
+    private static PeerRing ring(String self, int virtualNodes) {
+        return new PeerRing(true, self, urlA + "," + urlB, virtualNodes, Duration.ofSeconds(10));
+    }
+
+    private CompletableFuture<HttpResponse<String>> get(String node, String symbol) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + "/api/stocks/" + symbol + "/daily"))
+            .timeout(Duration.ofSeconds(60))
+            .GET()
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static ConfigurableApplicationContext start(int port, String self, int virtualNodes) {
+        // Como argumentos de línea de comandos: .properties() del builder son valores por
+        // defecto y application.properties los pisaría (ej: server.port=8080)
+        return new SpringApplicationBuilder(StockMarketApplication.class).run(
+            "--server.port=" + port,
+            "--peer.enabled=true",
+            "--peer.self=" + self,
+            "--peer.nodes=" + urlA + "," + urlB,
+            "--peer.virtual-nodes=" + virtualNodes,
+            "--peer.http.response-timeout=PT30S",
+            "--peer.replica.min-frequency=0",
+            "--alphavantage.base-url=" + upstream.baseUrl(),
+            "--alphavantage.rate-limit.per-minute=600000",
+            "--alphavantage.rate-limit.burst=1000",
+            "--upstream.request-deadline=60s",
+            "--upstream.hedge.enabled=false",
+            "--upstream.circuit-breaker.enabled=false",
+            "--cache.refresh-ahead.enabled=false",
+            "--cache.snapshot.enabled=false",
+            "--cache.warmup.enabled=false",
+            "--access-log.enabled=false",
+            "--spring.jmx.enabled=false");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
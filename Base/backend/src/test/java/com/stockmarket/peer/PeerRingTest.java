@@ -0,0 +1,127 @@
+package com.stockmarket.peer;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Anillo de hashing consistente: un dueño por símbolo, reparto parejo y ~1/N de
+ * claves movidas al agregar o perder un nodo
+ */
+class PeerRingTest {
+
+    private static final String A = "http://node-a:8080";
+    private static final String B = "http://node-b:8080";
+    private static final String C = "http://node-c:8080";
+    private static final String D = "http://node-d:8080";
+    private static final int SYMBOLS = 3_000;
+
+    @Test
+    void disabledRingOwnsEverySymbolLocally() {
+        PeerRing ring = new PeerRing(false, A, A + "," + B, 100, Duration.ofSeconds(10));
+
+        assertThat(ring.enabled()).isFalse();
+        assertThat(ring.remoteOwnerOf("IBM")).isNull();
+        assertThat(ring.nodesUp()).isEqualTo(1);
+    }
+
+    @Test
+    void everyNodeAgreesOnTheSingleOwnerOfEachSymbol() {
+        List<PeerRing> rings = List.of(ring(A, A, B, C), ring(B, C, A, B), ring(C, B, C, A));
+
+        for (int i = 0; i < SYMBOLS; i++) {
+            String symbol = symbol(i);
+            String owner = ownerSeenBy(rings.get(0), symbol);
+            int localOwners = 0;
+            for (PeerRing ring : rings) {
+                assertThat(ownerSeenBy(ring, symbol)).as(symbol).isEqualTo(owner);
+                localOwners += ring.isLocal(symbol) ? 1 : 0;
+            }
+            assertThat(localOwners).as(symbol).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void virtualNodesSpreadSymbolsEvenly() {
+        Map<String, Integer> owned = owners(ring(A, A, B, C));
+
+        assertThat(owned).containsOnlyKeys(A, B, C);
+        owned.values().forEach(count -> assertThat(count).isBetween(SYMBOLS / 5, SYMBOLS / 2));
+    }
+
+    @Test
+    void addingANodeOnlyMovesSymbolsToTheNewNode() {
+        PeerRing three = ring(A, A, B, C);
+        PeerRing four = ring(A, A, B, C, D);
+
+        int moved = 0;
+        for (int i = 0; i < SYMBOLS; i++) {
+            String before = ownerSeenBy(three, symbol(i));
+            String after = ownerSeenBy(four, symbol(i));
+            if (!before.equals(after)) {
+                assertThat(after).isEqualTo(D);
+                moved++;
+            }
+        }
+        // ~1/4 de los símbolos pasa al nodo nuevo; hash % N movería ~3/4
+        assertThat(moved).isBetween(SYMBOLS / 8, SYMBOLS * 3 / 8);
+    }
+
+    @Test
+    void symbolsOfANodeMarkedDownMoveToTheOthersAndComeBack() throws InterruptedException {
+        PeerRing ring = new PeerRing(true, A, A + "," + B + "," + C, 100, Duration.ofMillis(300));
+        Map<String, String> before = new HashMap<>();
+        for (int i = 0; i < SYMBOLS; i++) {
+            before.put(symbol(i), ownerSeenBy(ring, symbol(i)));
+        }
+
+        ring.markDown(B);
+        assertThat(ring.nodesUp()).isEqualTo(2);
+        before.forEach((symbol, owner) -> {
+            String now = ownerSeenBy(ring, symbol);
+            if (owner.equals(B)) {
+                assertThat(now).isIn(A, C);
+            } else {
+                assertThat(now).isEqualTo(owner);  // Los demás símbolos no se mueven
+            }
+        });
+
+        Thread.sleep(400);
+        assertThat(ring.nodesUp()).isEqualTo(3);
+        before.forEach((symbol, owner) -> assertThat(ownerSeenBy(ring, symbol)).isEqualTo(owner));
+    }
+
+    @Test
+    void selfMissingFromNodesIsAddedToTheRing() {
+        PeerRing ring = new PeerRing(true, C + "/", A + "," + B, 100, Duration.ofSeconds(10));
+
+        assertThat(ring.self()).isEqualTo(C);
+        assertThat(owners(ring)).containsOnlyKeys(A, B, C);
+    }
+
+    private static PeerRing ring(String self, String... nodes) {
+        return new PeerRing(true, self, String.join(",", nodes), 100, Duration.ofSeconds(10));
+    }
+
+    private static String ownerSeenBy(PeerRing ring, String symbol) {
+        String remote = ring.remoteOwnerOf(symbol);
+        return remote != null ? remote : ring.self();
+    }
+
+    private static Map<String, Integer> owners(PeerRing ring) {
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < SYMBOLS; i++) {
+            owned.merge(ownerSeenBy(ring, symbol(i)), 1, Integer::sum);
+        }
+        return owned;
+    }
+
+    private static String symbol(int i) {
+        return "SYM" + i;
+    }
+}
@@ -0,0 +1,93 @@
+package com.stockmarket.provider;
+
+import com.stockmarket.cache.ConcurrentCache;
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.service.Interval;
+import com.stockmarket.service.MarketDataService;
+import com.stockmarket.service.ServiceFixture;
+import com.stockmarket.upstream.RequestPriority;
+import com.stockmarket.upstream.UpstreamCircuitBreaker;
+import com.stockmarket.upstream.UpstreamScheduler;
+import com.stockmarket.upstream.UpstreamThrottledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Proveedor Alpha Vantage contra la API falsa local (FakeAlphaVantageServer)
+ *
+ * - La nota de cuota llega con HTTP 200: no debe tratarse (ni guardarse) como datos
+ */
+class AlphaVantageProviderTest {
+
+    private static final String THROTTLE_NOTE = "{\"Note\": \"Thank you for using Alpha Vantage! Our standard API "
+        + "call frequency is 5 calls per minute and 500 calls per day.\"}";
+
+    private FakeAlphaVantageServer upstream;
+    private AlphaVantageProvider provider;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        upstream = new FakeAlphaVantageServer();
+        provider = new AlphaVantageProvider(
+            WebClient.builder().baseUrl(upstream.baseUrl()).build(),
+            new UpstreamScheduler("alphavantage", 5, 5, 100),
+            new UpstreamCircuitBreaker("alphavantage", false, 20, 10, 0.5, Duration.ofSeconds(5), Duration.ofSeconds(30)),
+            new HedgePolicy(false, 0.95, Duration.ofMillis(200), Duration.ofSeconds(3), 20),
+            new SimpleMeterRegistry(),
+            "demo");
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.scheduler().shutdown();
+        upstream.close();
+    }
+
+    @Test
+    void parsesSeriesFromTheFakeApi() {
+        TimeSeries series = provider.fetch("DAILY_IBM", Interval.DAILY, "IBM", false, RequestPriority.INTERACTIVE)
+            .block(Duration.ofSeconds(5));
+
+        assertThat(series).isNotNull();
+        assertThat(series.size()).isEqualTo(100);
+        assertThat(upstream.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void throttleNoteFailsAndEmptiesTheBucket() {
+        upstream.respondWith(query -> THROTTLE_NOTE);
+
+        assertThatThrownBy(() -> provider.fetch("DAILY_IBM", Interval.DAILY, "IBM", false, RequestPriority.INTERACTIVE)
+                .block(Duration.ofSeconds(5)))
+            .isInstanceOf(UpstreamThrottledException.class);
+        assertThat(provider.scheduler().stats().throttled()).isEqualTo(1);
+        // Bucket vacío: la siguiente llamada esperaría un token (12 s con 5 por minuto).
+        // onThrottled vacía el bucket en el hilo dispatcher: se espera a que lo publique
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (provider.scheduler().estimatedWaitNanos() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(provider.scheduler().estimatedWaitNanos()).isGreaterThan(Duration.ofSeconds(10).toNanos());
+    }
+
+    @Test
+    void throttleNoteIsNeverCachedAsData() {
+        upstream.respondWith(query -> THROTTLE_NOTE);
+        ConcurrentCache cache = ServiceFixture.cache();
+        MarketDataService service = ServiceFixture.service(cache, provider);
+
+        assertThatThrownBy(() -> service.getResponse(Interval.DAILY, "IBM", RequestPriority.INTERACTIVE)
+                .block(Duration.ofSeconds(5)))
+            .isInstanceOf(UpstreamThrottledException.class);
+        assertThat(cache.containsKey("DAILY_IBM")).isFalse();
+        assertThat(cache.lastKnown("DAILY_IBM")).isNull();
+    }
+}
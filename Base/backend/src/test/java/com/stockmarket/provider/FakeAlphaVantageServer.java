@@ -0,0 +1,129 @@
+package com.stockmarket.provider;
+
+import com.stockmarket.model.TestSeries;
+import com.stockmarket.model.TimeSeriesJsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * API de Alpha Vantage falsa sobre HTTP (GET /query), para pruebas con el gateway completo
+ *
+ * - La demora se simula con un temporizador, no durmiendo un hilo: el servidor
+ *   sostiene cientos de llamadas "en vuelo" con 2 hilos (como la API real, lenta pero sin límite de conexiones)
+ * - Cuenta las llamadas y el máximo de llamadas simultáneas (lo que ve la API)
+ * - Por defecto responde una serie diaria de 100 sesiones (TestSeries) en formato Alpha Vantage
+ */
+public class FakeAlphaVantageServer implements AutoCloseable {
+
+    public static final LocalDate LAST_SESSION = LocalDate.of(2025, 1, 17);
+
+    private final HttpServer server;
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+    private final ScheduledExecutorService timer = Executors.newScheduledThreadPool(1);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile IntFunction<Duration> delay = call -> Duration.ZERO;
+    private volatile Function<Map<String, String>, String> responder =
+        query -> TimeSeriesJsonWriter.toJson(TestSeries.daily(query.get("symbol"), LAST_SESSION, 100));
+
+    public FakeAlphaVantageServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        server.setExecutor(dispatcher);
+        server.createContext("/query", this::handle);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public FakeAlphaVantageServer withDelay(Duration delay) {
+        return withDelay(call -> delay);
+    }
+
+    /**
+     * @param delay Número de llamada (1, 2, ...) → demora de esa respuesta
+     */
+    public FakeAlphaVantageServer withDelay(IntFunction<Duration> delay) {
+        this.delay = delay;
+        return this;
+    }
+
+    /**
+     * @param responder Parámetros de la query (function, symbol, outputsize...) → cuerpo JSON
+     */
+    public FakeAlphaVantageServer respondWith(Function<Map<String, String>, String> responder) {
+        this.responder = responder;
+        return this;
+    }
+
+    public int calls() {
+        return calls.get();
+    }
+
+    public int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    private void handle(HttpExchange exchange) {
+        int call = calls.incrementAndGet();
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        byte[] body = responder.apply(query(exchange)).getBytes(StandardCharsets.UTF_8);
+        // El intercambio se completa después, desde el temporizador; este hilo queda libre
+        timer.schedule(() -> respond(exchange, body), delay.apply(call).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void respond(HttpExchange exchange, byte[] body) {
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            out.write(body);
+        } catch (IOException e) {
+            // El cliente cerró la conexión: no afecta a la prueba
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        timer.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+}
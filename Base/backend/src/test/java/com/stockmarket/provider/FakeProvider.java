@@ -0,0 +1,135 @@
+package com.stockmarket.provider;
+
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.service.Interval;
+import com.stockmarket.upstream.RequestPriority;
+import com.stockmarket.upstream.UpstreamCircuitBreaker;
+import com.stockmarket.upstream.UpstreamScheduler;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proveedor falso en memoria (ver MarketDataProvider: "MODIFICAR SI ... pruebas")
+ *
+ * - Cuenta cada llamada a fetch(): es la "API externa" de las pruebas
+ * - La respuesta se define por prueba con respondWith (serie, error, vacío, demora...)
+ * - Cola y circuito reales, con cuota alta y circuito desactivado: no interfieren
+ */
+public class FakeProvider implements MarketDataProvider {
+
+    /**
+     * Respuesta de la API falsa para una llamada
+     */
+    @FunctionalInterface
+    public interface Upstream {
+        Mono<TimeSeries> fetch(Interval interval, String symbol, boolean full);
+    }
+
+    private final String name;
+    private final UpstreamScheduler scheduler;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger fullCalls = new AtomicInteger();
+    private final Map<Interval, AtomicInteger> callsByInterval = new ConcurrentHashMap<>();
+    private volatile Set<Interval> intervals = Set.of(Interval.values());
+    private volatile Upstream upstream = (interval, symbol, full) -> Mono.empty();
+    private volatile long latencyNanos;
+    private volatile double errorRate;
+
+    public FakeProvider(String name) {
+        this.name = name;
+        this.scheduler = new UpstreamScheduler(name, 600_000, 1_000, 500);
+        this.circuitBreaker = new UpstreamCircuitBreaker(name, false, 20, 10, 0.5,
+            Duration.ofSeconds(5), Duration.ofSeconds(30));
+    }
+
+    public FakeProvider respondWith(Upstream upstream) {
+        this.upstream = upstream;
+        return this;
+    }
+
+    public FakeProvider supporting(Interval... supported) {
+        this.intervals = Set.of(supported);
+        return this;
+    }
+
+    public FakeProvider withHealth(Duration latency, double errorRate) {
+        this.latencyNanos = latency.toNanos();
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * @return Llamadas recibidas (cada una sería una llamada a la API)
+     */
+    public int calls() {
+        return calls.get();
+    }
+
+    /**
+     * @return Llamadas recibidas para un intervalo
+     */
+    public int calls(Interval interval) {
+        AtomicInteger count = callsByInterval.get(interval);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @return Llamadas que pidieron la historia completa (full=true)
+     */
+    public int fullCalls() {
+        return fullCalls.get();
+    }
+
+    public void close() {
+        scheduler.shutdown();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public boolean supports(Interval interval) {
+        return intervals.contains(interval);
+    }
+
+    @Override
+    public Mono<TimeSeries> fetch(String cacheKey, Interval interval, String symbol, boolean full,
+                                  RequestPriority priority) {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            callsByInterval.computeIfAbsent(interval, key -> new AtomicInteger()).incrementAndGet();
+            if (full) {
+                fullCalls.incrementAndGet();
+            }
+            return upstream.fetch(interval, symbol, full);
+        });
+    }
+
+    @Override
+    public UpstreamScheduler scheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public UpstreamCircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public long latencyNanos() {
+        return latencyNanos;
+    }
+
+    @Override
+    public double errorRate() {
+        return errorRate;
+    }
+}
@@ -0,0 +1,134 @@
+package com.stockmarket.provider;
+
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.service.Interval;
+import com.stockmarket.upstream.RequestPriority;
+import com.stockmarket.upstream.UpstreamCircuitBreaker;
+import com.stockmarket.upstream.UpstreamScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hedging y circuit breaker de HttpMarketDataProvider contra la API falsa local
+ *
+ * - Sin muestras de latencia la copia sale a los max-delay (300ms)
+ * - Un filtro del WebClient cuenta las peticiones canceladas (la que pierde la carrera)
+ */
+class HedgedRequestTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(300);
+    private static final Duration SLOW = Duration.ofSeconds(3);
+
+    private final AtomicInteger cancelled = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FakeAlphaVantageServer upstream;
+    private AlphaVantageProvider provider;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        upstream = new FakeAlphaVantageServer();
+        provider = provider(new UpstreamScheduler("alphavantage", 5, 5, 100),
+            new UpstreamCircuitBreaker("alphavantage", false, 20, 10, 0.5, Duration.ofSeconds(5), Duration.ofSeconds(30)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.scheduler().shutdown();
+        upstream.close();
+    }
+
+    @Test
+    void copyIsSentAfterTheDelayAndTheSlowRequestIsCancelled() {
+        upstream.withDelay(call -> call == 1 ? SLOW : Duration.ZERO);
+
+        long start = System.nanoTime();
+        TimeSeries series = fetch(RequestPriority.INTERACTIVE);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(series).isNotNull();
+        assertThat(elapsed).isBetween(HEDGE_DELAY, SLOW.minusSeconds(1));
+        assertThat(upstream.calls()).isEqualTo(2);
+        assertThat(hedges("sent")).isEqualTo(1);
+        assertThat(hedges("won")).isEqualTo(1);
+        assertThat(cancelled.get()).isEqualTo(1);
+    }
+
+    @Test
+    void noCopyWhenTheFirstRequestAnswersBeforeTheDelay() {
+        upstream.withDelay(Duration.ofMillis(50));
+
+        assertThat(fetch(RequestPriority.INTERACTIVE)).isNotNull();
+
+        assertThat(upstream.calls()).isEqualTo(1);
+        assertThat(hedges("sent")).isZero();
+        assertThat(cancelled.get()).isZero();
+    }
+
+    @Test
+    void backgroundRequestsAreNotHedged() {
+        upstream.withDelay(call -> call == 1 ? HEDGE_DELAY.multipliedBy(2) : Duration.ZERO);
+
+        assertThat(fetch(RequestPriority.BACKGROUND)).isNotNull();
+
+        assertThat(upstream.calls()).isEqualTo(1);
+        assertThat(hedges("sent")).isZero();
+    }
+
+    @Test
+    void halfOpenProbeIsTakenWhenTheCallIsDispatchedNotWhenItIsQueued() {
+        provider.scheduler().shutdown();
+        // Un token y el siguiente en 10 s; el circuito se abre con una sola llamada lenta
+        UpstreamCircuitBreaker breaker = new UpstreamCircuitBreaker(
+            "alphavantage", true, 1, 1, 1.0, Duration.ofMillis(50), Duration.ofMillis(50));
+        provider = provider(new UpstreamScheduler("alphavantage", 6, 1, 100), breaker);
+        upstream.withDelay(Duration.ofMillis(100));
+        fetch(RequestPriority.BACKGROUND);
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+        sleep(Duration.ofMillis(60));
+
+        // Toca la prueba, pero la llamada queda en cola esperando un token
+        Disposable queued = provider.fetch("DAILY_IBM", Interval.DAILY, "IBM", false, RequestPriority.BACKGROUND)
+            .subscribe();
+        sleep(Duration.ofMillis(100));
+
+        assertThat(provider.scheduler().stats().queueDepth()).isEqualTo(1);
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isNotEqualTo(UpstreamCircuitBreaker.REJECTED);
+        queued.dispose();
+    }
+
+    private AlphaVantageProvider provider(UpstreamScheduler scheduler, UpstreamCircuitBreaker breaker) {
+        WebClient webClient = WebClient.builder()
+            .baseUrl(upstream.baseUrl())
+            .filter((request, next) -> next.exchange(request).doOnCancel(cancelled::incrementAndGet))
+            .build();
+        return new AlphaVantageProvider(webClient, scheduler, breaker,
+            new HedgePolicy(true, 0.95, Duration.ofMillis(100), HEDGE_DELAY, 20),
+            meterRegistry, "demo");
+    }
+
+    private TimeSeries fetch(RequestPriority priority) {
+        return provider.fetch("DAILY_IBM", Interval.DAILY, "IBM", false, priority).block(Duration.ofSeconds(10));
+    }
+
+    private double hedges(String result) {
+        return meterRegistry.get("upstream.hedges").tag("result", result).counter().count();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.stockmarket.provider;
+
+import com.stockmarket.cache.ConcurrentCache;
+import com.stockmarket.model.TestSeries;
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.service.Interval;
+import com.stockmarket.service.MarketDataService;
+import com.stockmarket.service.ServiceFixture;
+import com.stockmarket.upstream.RequestPriority;
+import com.stockmarket.upstream.UpstreamThrottledException;
+import com.stockmarket.upstream.UpstreamUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ProviderRouter: orden por costo, failover sin cuota o con el circuito abierto y origen de cada serie
+ *
+ * - "yahoo" entrega precios ajustados (la mitad): simula el ajuste por splits de Yahoo
+ * - Cambiar de proveedor nunca mezcla precios: se recarga la historia completa del nuevo
+ */
+class ProviderRouterTest {
+
+    private static final TimeSeries DAILY_FULL = TestSeries.load("/alphavantage/IBM-daily-full.json");
+
+    private final FakeProvider alpha = new FakeProvider("alphavantage")
+        .respondWith((interval, symbol, full) -> Mono.just(full ? DAILY_FULL : TestSeries.compact(DAILY_FULL, 100)));
+    private final FakeProvider yahoo = new FakeProvider("yahoo")
+        .respondWith((interval, symbol, full) -> Mono.just(TestSeries.scaled(
+            full ? DAILY_FULL : TestSeries.compact(DAILY_FULL, 100), 0.5)));
+
+    @AfterEach
+    void tearDown() {
+        alpha.close();
+        yahoo.close();
+    }
+
+    @Test
+    void throttledProviderFailsOverToTheNextOne() {
+        alpha.respondWith((interval, symbol, full) -> Mono.error(new UpstreamThrottledException("sin cuota")));
+        ProviderRouter router = router(alpha, yahoo);
+
+        TimeSeries series = fetch(router, Interval.DAILY);
+
+        assertThat(series.source()).isEqualTo("yahoo");
+        assertThat(alpha.calls()).isEqualTo(1);
+        assertThat(yahoo.calls()).isEqualTo(1);
+        assertThat(router.stats().get(0).failovers()).isEqualTo(1);
+    }
+
+    @Test
+    void openCircuitFailsOverToTheNextOne() {
+        alpha.respondWith((interval, symbol, full) -> Mono.error(new UpstreamUnavailableException("circuito abierto")));
+
+        assertThat(fetch(router(alpha, yahoo), Interval.DAILY).source()).isEqualTo("yahoo");
+    }
+
+    @Test
+    void otherErrorsAreNotRetriedOnAnotherProvider() {
+        alpha.respondWith((interval, symbol, full) -> Mono.error(new IllegalStateException("JSON inválido")));
+        ProviderRouter router = router(alpha, yahoo);
+
+        assertThatThrownBy(() -> fetch(router, Interval.DAILY)).hasMessageContaining("JSON inválido");
+        assertThat(yahoo.calls()).isZero();
+    }
+
+    @Test
+    void lastProviderErrorIsPropagated() {
+        alpha.respondWith((interval, symbol, full) -> Mono.error(new UpstreamThrottledException("sin cuota")));
+        yahoo.respondWith((interval, symbol, full) -> Mono.error(new UpstreamThrottledException("sin cuota")));
+
+        assertThatThrownBy(() -> fetch(router(alpha, yahoo), Interval.DAILY))
+            .isInstanceOf(UpstreamThrottledException.class);
+    }
+
+    @Test
+    void providersThatDoNotServeTheIntervalAreSkipped() {
+        alpha.supporting(Interval.DAILY, Interval.WEEKLY, Interval.MONTHLY);
+        yahoo.supporting(Interval.DAILY);
+        ProviderRouter router = router(alpha, yahoo);
+
+        assertThat(fetch(router, Interval.WEEKLY).source()).isEqualTo("alphavantage");
+        assertThat(yahoo.calls()).isZero();
+        assertThatThrownBy(() -> fetch(router, Interval.INTRADAY))
+            .isInstanceOf(UpstreamUnavailableException.class);
+    }
+
+    @Test
+    void cheapestProviderIsTriedFirst() {
+        // Empate (sin mediciones): manda el orden de provider.active
+        assertThat(fetch(router(alpha, yahoo), Interval.DAILY).source()).isEqualTo("alphavantage");
+
+        alpha.withHealth(Duration.ofMillis(400), 0);
+        yahoo.withHealth(Duration.ofMillis(300), 0.5);  // 300 / (1 - 0.5) = 600ms esperados
+        assertThat(fetch(router(alpha, yahoo), Interval.DAILY).source()).isEqualTo("alphavantage");
+
+        yahoo.withHealth(Duration.ofMillis(100), 0);
+        assertThat(fetch(router(alpha, yahoo), Interval.DAILY).source()).isEqualTo("yahoo");
+    }
+
+    @Test
+    void providerChangeReloadsTheFullHistoryInsteadOfMerging() {
+        ConcurrentCache cache = ServiceFixture.cache();
+        MarketDataService service = ServiceFixture.service(cache, alpha, yahoo);
+        ReflectionTestUtils.setField(service, "initialOutputSize", "full");
+        service.getResponse(Interval.DAILY, "IBM", RequestPriority.INTERACTIVE).block(Duration.ofSeconds(5));
+        assertThat(cache.peek("DAILY_IBM").value().source()).isEqualTo("alphavantage");
+
+        alpha.respondWith((interval, symbol, full) -> Mono.error(new UpstreamThrottledException("sin cuota")));
+        service.refresh(Interval.DAILY, "IBM", RequestPriority.BACKGROUND).block(Duration.ofSeconds(5));
+
+        // El delta "compact" de yahoo no se combina: se descarga su historia completa
+        TimeSeries cached = cache.peek("DAILY_IBM").value();
+        assertThat(yahoo.calls()).isEqualTo(2);
+        assertThat(yahoo.fullCalls()).isEqualTo(1);
+        assertThat(cached.source()).isEqualTo("yahoo");
+        assertThat(cached.size()).isEqualTo(DAILY_FULL.size());
+        assertThat(cached.close(0)).isEqualTo(DAILY_FULL.close(0) * 0.5);
+        assertThat(cached.close(cached.size() - 1)).isEqualTo(DAILY_FULL.close(DAILY_FULL.size() - 1) * 0.5);
+    }
+
+    private static ProviderRouter router(FakeProvider... providers) {
+        return new ProviderRouter(List.of(providers), "alphavantage,yahoo");
+    }
+
+    private static TimeSeries fetch(ProviderRouter router, Interval interval) {
+        return router.fetch(interval.cacheKey("IBM"), interval, "IBM", false, RequestPriority.INTERACTIVE)
+            .block(Duration.ofSeconds(5));
+    }
+}
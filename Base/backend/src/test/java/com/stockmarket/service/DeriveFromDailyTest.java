@@ -0,0 +1,94 @@
+package com.stockmarket.service;
+
+import com.stockmarket.cache.ConcurrentCache;
+import com.stockmarket.model.TestSeries;
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.provider.FakeProvider;
+import com.stockmarket.upstream.RequestPriority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Semanal/mensual desde la diaria en cache: solo si la diaria es la historia completa
+ *
+ * - Con una diaria "compact" (100 sesiones) se llama a la API: derivar daría ~19 semanas
+ * - Las series de la API falsa son los fixtures de src/test/resources/alphavantage
+ */
+class DeriveFromDailyTest {
+
+    private static final TimeSeries DAILY_FULL = TestSeries.load("/alphavantage/IBM-daily-full.json");
+    private static final TimeSeries WEEKLY = TestSeries.load("/alphavantage/IBM-weekly.json");
+    private static final TimeSeries MONTHLY = TestSeries.load("/alphavantage/IBM-monthly.json");
+
+    private FakeProvider upstream;
+    private ConcurrentCache cache;
+    private MarketDataService service;
+
+    @BeforeEach
+    void setUp() {
+        upstream = new FakeProvider("fake").respondWith((interval, symbol, full) -> Mono.just(switch (interval) {
+            case WEEKLY -> WEEKLY;
+            case MONTHLY -> MONTHLY;
+            default -> full ? DAILY_FULL : TestSeries.compact(DAILY_FULL, 100);
+        }));
+        cache = ServiceFixture.cache();
+        service = ServiceFixture.service(cache, upstream);
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+    }
+
+    @Test
+    void compactDailyInCacheDoesNotDeriveWeeklyOrMonthly() {
+        assertThat(series(Interval.DAILY).size()).isEqualTo(100);
+
+        TimeSeries weekly = series(Interval.WEEKLY);
+        TimeSeries monthly = series(Interval.MONTHLY);
+
+        assertThat(upstream.calls(Interval.WEEKLY)).isEqualTo(1);
+        assertThat(upstream.calls(Interval.MONTHLY)).isEqualTo(1);
+        assertThat(weekly.size()).isEqualTo(WEEKLY.size());
+        assertThat(monthly.size()).isEqualTo(MONTHLY.size());
+    }
+
+    @Test
+    void fullDailyInCacheDerivesWithoutCallingTheApi() {
+        ReflectionTestUtils.setField(service, "initialOutputSize", "full");
+        assertThat(series(Interval.DAILY).size()).isEqualTo(DAILY_FULL.size());
+
+        TimeSeries weekly = series(Interval.WEEKLY);
+        TimeSeries monthly = series(Interval.MONTHLY);
+
+        assertThat(upstream.calls()).isEqualTo(1);
+        assertThat(weekly.size()).isEqualTo(WEEKLY.size());
+        assertThat(monthly.size()).isEqualTo(MONTHLY.size());
+        assertThat(weekly.time(0)).isEqualTo(WEEKLY.time(0));
+        assertThat(weekly.close(weekly.size() - 1)).isEqualTo(WEEKLY.close(WEEKLY.size() - 1));
+        assertThat(monthly.volume(0)).isEqualTo(MONTHLY.volume(0));
+    }
+
+    @Test
+    void derivationCanBeTurnedOff() {
+        ReflectionTestUtils.setField(service, "initialOutputSize", "full");
+        ReflectionTestUtils.setField(service, "deriveFromDaily", false);
+        series(Interval.DAILY);
+
+        series(Interval.WEEKLY);
+
+        assertThat(upstream.calls(Interval.WEEKLY)).isEqualTo(1);
+    }
+
+    private TimeSeries series(Interval interval) {
+        service.getResponse(interval, "IBM", RequestPriority.INTERACTIVE).block(Duration.ofSeconds(5));
+        return service.getSeries(interval, "IBM").block(Duration.ofSeconds(5));
+    }
+}
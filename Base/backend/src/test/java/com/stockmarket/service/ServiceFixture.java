@@ -0,0 +1,58 @@
+package com.stockmarket.service;
+
+import com.stockmarket.accesslog.AccessLog;
+import com.stockmarket.cache.ConcurrentCache;
+import com.stockmarket.peer.PeerClient;
+import com.stockmarket.peer.PeerRing;
+import com.stockmarket.provider.MarketDataProvider;
+import com.stockmarket.provider.ProviderRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Arma un MarketDataService sin contexto de Spring (como HitPathBenchmark)
+ *
+ * - Los campos @Value se fijan con los valores de application.properties
+ * - Sin cluster (PeerRing desactivado) salvo que se pase otro anillo
+ */
+public final class ServiceFixture {
+
+    private ServiceFixture() {
+    }
+
+    /**
+     * Cache con los TTL de application.properties y 64 MB
+     */
+    public static ConcurrentCache cache() {
+        return new ConcurrentCache(64L << 20, Duration.ofMinutes(5), Duration.ofHours(1),
+            Duration.ofHours(12), Duration.ofDays(1), Duration.ofMinutes(30), Duration.ofHours(24));
+    }
+
+    public static MarketDataService service(ConcurrentCache cache, MarketDataProvider... providers) {
+        PeerRing standalone = new PeerRing(false, "http://localhost:8080", "", 100, Duration.ofSeconds(10));
+        return service(cache, standalone, providers);
+    }
+
+    public static MarketDataService service(ConcurrentCache cache, PeerRing peers, MarketDataProvider... providers) {
+        List<MarketDataProvider> list = List.of(providers);
+        ProviderRouter router = new ProviderRouter(list,
+            list.stream().map(MarketDataProvider::name).collect(Collectors.joining(",")));
+        PeerClient peerClient = new PeerClient(peers, 10, Duration.ofMillis(500), Duration.ofSeconds(10),
+            DataSize.ofMegabytes(16));
+        MarketDataService service = new MarketDataService(cache, router, new SimpleMeterRegistry(),
+            new AccessLog(false, 0, 16, ""), peers, peerClient);
+        ReflectionTestUtils.setField(service, "deriveFromDaily", true);
+        ReflectionTestUtils.setField(service, "initialOutputSize", "compact");
+        ReflectionTestUtils.setField(service, "intradayMaxBars", 4032);
+        ReflectionTestUtils.setField(service, "dailyMaxBars", 10000);
+        ReflectionTestUtils.setField(service, "requestDeadline", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(service, "replicaMinFrequency", 4);
+        ReflectionTestUtils.setField(service, "replicaTtl", Duration.ofSeconds(30));
+        return service;
+    }
+}
@@ -0,0 +1,182 @@
+package com.stockmarket.service;
+
+import com.stockmarket.cache.ConcurrentCache;
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.TestSeries;
+import com.stockmarket.provider.FakeProvider;
+import com.stockmarket.upstream.RequestPriority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Single-flight: N peticiones concurrentes con el cache vacío = UNA llamada a la API
+ */
+class SingleFlightTest {
+
+    private static final int CLIENTS = 200;
+    private static final LocalDate LAST_SESSION = LocalDate.of(2025, 1, 17);
+
+    private FakeProvider upstream;
+    private ConcurrentCache cache;
+    private MarketDataService service;
+    private ExecutorService clients;
+
+    @BeforeEach
+    void setUp() {
+        upstream = new FakeProvider("fake");
+        cache = ServiceFixture.cache();
+        service = ServiceFixture.service(cache, upstream);
+        clients = Executors.newFixedThreadPool(CLIENTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.shutdownNow();
+        upstream.close();
+    }
+
+    @Test
+    void parallelMissesOnOneKeyMakeExactlyOneUpstreamCall() throws Exception {
+        // La API tarda lo suficiente para que las 200 peticiones lleguen con la llamada en curso
+        upstream.respondWith((interval, symbol, full) -> Mono.delay(Duration.ofMillis(300))
+            .map(tick -> TestSeries.daily(symbol, LAST_SESSION, 120)));
+
+        List<EncodedResponse> responses = runConcurrently(
+            () -> service.getResponse(Interval.DAILY, "IBM", RequestPriority.INTERACTIVE).block());
+
+        assertThat(upstream.calls()).isEqualTo(1);
+        Set<String> etags = new HashSet<>();
+        responses.forEach(response -> etags.add(response.etag()));
+        assertThat(etags).hasSize(1);
+        assertThat(cache.containsKey("DAILY_IBM")).isTrue();
+    }
+
+    @Test
+    void blockingApiSharesTheSameCall() throws Exception {
+        upstream.respondWith((interval, symbol, full) -> Mono.delay(Duration.ofMillis(300))
+            .map(tick -> TestSeries.daily(symbol, LAST_SESSION, 120)));
+
+        List<String> bodies = runConcurrently(() -> service.getDailyData("IBM"));
+
+        assertThat(upstream.calls()).isEqualTo(1);
+        assertThat(new HashSet<>(bodies)).hasSize(1);
+        assertThat(bodies.get(0)).contains("\"Time Series (Daily)\"");
+    }
+
+    @Test
+    void distinctKeysAreNotCoalesced() {
+        upstream.respondWith((interval, symbol, full) -> Mono.delay(Duration.ofMillis(100))
+            .map(tick -> TestSeries.daily(symbol, LAST_SESSION, 120)));
+
+        Mono.when(
+            service.getResponse(Interval.DAILY, "IBM", RequestPriority.INTERACTIVE),
+            service.getResponse(Interval.DAILY, "MSFT", RequestPriority.INTERACTIVE),
+            service.getResponse(Interval.DAILY, "IBM", RequestPriority.INTERACTIVE)).block();
+
+        assertThat(upstream.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void failedCallIsSharedAndTheNextRequestRetries() throws Exception {
+        upstream.respondWith((interval, symbol, full) -> Mono.delay(Duration.ofMillis(300))
+            .then(Mono.error(new IllegalStateException("API caída"))));
+
+        List<Future<Object>> waiters = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < 50; i++) {
+            waiters.add(clients.submit(() -> {
+                start.await();
+                return service.getResponse(Interval.DAILY, "IBM", RequestPriority.INTERACTIVE).block();
+            }));
+        }
+        start.countDown();
+        for (Future<Object> waiter : waiters) {
+            assertThatThrownBy(() -> waiter.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("API caída");
+        }
+        assertThat(upstream.calls()).isEqualTo(1);
+
+        // La clave se liberó de inFlight: la siguiente petición vuelve a intentar
+        upstream.respondWith((interval, symbol, full) -> Mono.just(TestSeries.daily(symbol, LAST_SESSION, 120)));
+        assertThat(service.getResponse(Interval.DAILY, "IBM", RequestPriority.INTERACTIVE).block()).isNotNull();
+        assertThat(upstream.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void refreshThatIsNeverSubscribedDoesNotHoldTheKey() {
+        upstream.respondWith((interval, symbol, full) -> Mono.just(TestSeries.daily(symbol, LAST_SESSION, 120)));
+
+        service.refresh(Interval.DAILY, "IBM", RequestPriority.BACKGROUND);  // Sin suscribirse
+
+        assertThat(service.getResponse(Interval.DAILY, "IBM", RequestPriority.INTERACTIVE)
+            .block(Duration.ofSeconds(5))).isNotNull();
+        assertThat(upstream.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void keyIsReleasedWhenEveryWaiterCancels() {
+        // La primera llamada no termina nunca y quien la pidió se va
+        upstream.respondWith((interval, symbol, full) -> Mono.never());
+        service.refresh(Interval.DAILY, "IBM", RequestPriority.BACKGROUND).subscribe().dispose();
+
+        // La siguiente petición no se une a esa llamada: crea una nueva
+        upstream.respondWith((interval, symbol, full) -> Mono.just(TestSeries.daily(symbol, LAST_SESSION, 120)));
+        assertThat(service.getResponse(Interval.DAILY, "IBM", RequestPriority.INTERACTIVE)
+            .block(Duration.ofSeconds(5))).isNotNull();
+        assertThat(upstream.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void waiterThatLeavesDoesNotReleaseTheKeyForTheOthers() {
+        upstream.respondWith((interval, symbol, full) -> Mono.delay(Duration.ofMillis(300))
+            .map(tick -> TestSeries.daily(symbol, LAST_SESSION, 120)));
+        Mono<EncodedResponse> stays = service.getResponse(Interval.DAILY, "IBM", RequestPriority.INTERACTIVE).cache();
+        stays.subscribe();
+        service.getResponse(Interval.DAILY, "IBM", RequestPriority.INTERACTIVE).subscribe().dispose();
+
+        assertThat(service.getResponse(Interval.DAILY, "IBM", RequestPriority.INTERACTIVE)
+            .block(Duration.ofSeconds(5))).isNotNull();
+        assertThat(stays.block(Duration.ofSeconds(5))).isNotNull();
+        assertThat(upstream.calls()).isEqualTo(1);
+    }
+
+    /**
+     * Lanza CLIENTS tareas que arrancan a la vez (mismo latch) y espera sus resultados
+     */
+    private <T> List<T> runConcurrently(Callable<T> request) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            futures.add(clients.submit(() -> {
+                start.await();
+                return request.call();
+            }));
+        }
+        start.countDown();
+        List<T> results = new ArrayList<>(CLIENTS);
+        for (Future<T> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+}
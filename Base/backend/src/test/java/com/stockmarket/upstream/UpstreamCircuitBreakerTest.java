@@ -0,0 +1,135 @@
+package com.stockmarket.upstream;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Estados del circuit breaker: apertura por tasa de fallas, una sola prueba y generaciones
+ *
+ * - Ventana de 10 llamadas, mínimo 4, se abre con la mitad fallando
+ * - open-duration corto (50ms): las pruebas esperan con sleep
+ */
+class UpstreamCircuitBreakerTest {
+
+    private static final Duration SLOW_CALL = Duration.ofSeconds(1);
+    private static final Duration OPEN = Duration.ofMillis(50);
+
+    private final UpstreamCircuitBreaker breaker =
+        new UpstreamCircuitBreaker("test", true, 10, 4, 0.5, SLOW_CALL, OPEN);
+
+    @Test
+    void opensWhenTheFailureRateReachesTheThreshold() {
+        breaker.onSuccess(breaker.tryAcquirePermission(), 0);
+        breaker.onSuccess(breaker.tryAcquirePermission(), 0);
+        breaker.onFailure(breaker.tryAcquirePermission());
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.CLOSED);  // 3 < minimum-calls
+
+        breaker.onFailure(breaker.tryAcquirePermission());  // 2 de 4
+
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+        assertThat(breaker.opened()).isEqualTo(1);
+        assertThat(breaker.isCallPermitted()).isFalse();
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(UpstreamCircuitBreaker.REJECTED);
+        assertThat(breaker.rejected()).isEqualTo(2);
+    }
+
+    @Test
+    void slowCallsCountAsFailures() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess(breaker.tryAcquirePermission(), SLOW_CALL.toNanos() + 1);
+        }
+
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void halfOpenLetsASingleProbeThroughAndClosesOnSuccess() {
+        open();
+        sleep(OPEN.plusMillis(10));
+        assertThat(breaker.isCallPermitted()).isTrue();
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);  // Consultar no toma la prueba
+
+        long probe = breaker.tryAcquirePermission();
+
+        assertThat(probe).isNotEqualTo(UpstreamCircuitBreaker.REJECTED);
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.isCallPermitted()).isFalse();
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(UpstreamCircuitBreaker.REJECTED);
+
+        breaker.onSuccess(probe, 0);
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquirePermission()).isNotEqualTo(UpstreamCircuitBreaker.REJECTED);
+    }
+
+    @Test
+    void failedProbeReopensTheCircuit() {
+        open();
+        sleep(OPEN.plusMillis(10));
+
+        breaker.onFailure(breaker.tryAcquirePermission());
+
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+        assertThat(breaker.opened()).isEqualTo(2);
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(UpstreamCircuitBreaker.REJECTED);
+    }
+
+    @Test
+    void resultsFromCallsDispatchedBeforeTheCircuitOpenedAreIgnored() {
+        long inFlight = breaker.tryAcquirePermission();
+        open();
+        sleep(OPEN.plusMillis(10));
+        long probe = breaker.tryAcquirePermission();
+
+        // La llamada vieja responde bien mientras la prueba sigue en vuelo: no cierra el circuito
+        breaker.onSuccess(inFlight, 0);
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.HALF_OPEN);
+
+        breaker.onFailure(probe);
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void abandonedProbeIsReplacedAndItsLateResultIgnored() {
+        open();
+        sleep(OPEN.plusMillis(10));
+        long abandoned = breaker.tryAcquirePermission();
+        sleep(OPEN.plusMillis(10));
+        long probe = breaker.tryAcquirePermission();
+        assertThat(probe).isNotEqualTo(UpstreamCircuitBreaker.REJECTED);
+
+        breaker.onFailure(abandoned);
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.HALF_OPEN);
+
+        breaker.onSuccess(probe, 0);
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void disabledBreakerNeverOpens() {
+        UpstreamCircuitBreaker disabled = new UpstreamCircuitBreaker("test", false, 10, 4, 0.5, SLOW_CALL, OPEN);
+        for (int i = 0; i < 10; i++) {
+            disabled.onFailure(disabled.tryAcquirePermission());
+        }
+
+        assertThat(disabled.state()).isEqualTo(UpstreamCircuitBreaker.State.CLOSED);
+        assertThat(disabled.tryAcquirePermission()).isNotEqualTo(UpstreamCircuitBreaker.REJECTED);
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(breaker.tryAcquirePermission());
+        }
+        assertThat(breaker.state()).isEqualTo(UpstreamCircuitBreaker.State.OPEN);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
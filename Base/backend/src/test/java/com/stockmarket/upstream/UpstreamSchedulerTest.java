@@ -0,0 +1,158 @@
+package com.stockmarket.upstream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Token bucket, cola de prioridad y fusión de duplicados con un reloj falso
+ *
+ * - El reloj solo avanza con advance(); drainNow() despacha lo que permitan los tokens
+ * - Cada llamada "a la API" solo anota su clave en dispatched (orden de despacho)
+ */
+class UpstreamSchedulerTest {
+
+    /** 60 por minuto = un token por segundo del reloj falso */
+    private static final double PER_MINUTE = 60;
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final List<String> dispatched = new CopyOnWriteArrayList<>();
+    private UpstreamScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void burstThenOneCallPerTokenInterval() throws Exception {
+        scheduler = scheduler(3, 100);
+        for (int i = 0; i < 5; i++) {
+            submit("K" + i, RequestPriority.INTERACTIVE).subscribe();
+        }
+
+        assertThat(scheduler.drainNow()).isEqualTo(2);
+        assertThat(dispatched).containsExactly("K0", "K1", "K2");
+
+        advance(Duration.ofMillis(999));
+        assertThat(scheduler.drainNow()).isEqualTo(2);
+
+        advance(Duration.ofMillis(1));
+        assertThat(scheduler.drainNow()).isEqualTo(1);
+        assertThat(dispatched).containsExactly("K0", "K1", "K2", "K3");
+
+        advance(Duration.ofSeconds(1));
+        assertThat(scheduler.drainNow()).isZero();
+
+        // Tras un minuto sin llamadas el bucket se llena solo hasta burst
+        advance(Duration.ofMinutes(1));
+        for (int i = 5; i < 10; i++) {
+            submit("K" + i, RequestPriority.INTERACTIVE).subscribe();
+        }
+        assertThat(scheduler.drainNow()).isEqualTo(2);
+        assertThat(dispatched).hasSize(8);
+        assertThat(scheduler.stats().dispatched()).isEqualTo(8);
+        assertThat(scheduler.stats().queueDepth()).isEqualTo(2);
+    }
+
+    @Test
+    void interactiveBeforeBatchBeforeBackgroundFifoWithinPriority() throws Exception {
+        scheduler = scheduler(1, 100);
+        submit("FIRST", RequestPriority.BACKGROUND).subscribe();  // Toma el único token
+        submit("BG", RequestPriority.BACKGROUND).subscribe();
+        submit("BATCH", RequestPriority.BATCH).subscribe();
+        submit("USER1", RequestPriority.INTERACTIVE).subscribe();
+        submit("USER2", RequestPriority.INTERACTIVE).subscribe();
+        assertThat(scheduler.drainNow()).isEqualTo(4);
+
+        for (int i = 0; i < 4; i++) {
+            advance(Duration.ofSeconds(1));
+            scheduler.drainNow();
+        }
+
+        assertThat(dispatched).containsExactly("FIRST", "USER1", "USER2", "BATCH", "BG");
+    }
+
+    @Test
+    void queuedDuplicatesMergeIntoOneCallAndRaisePriority() throws Exception {
+        scheduler = scheduler(1, 100);
+        submit("FIRST", RequestPriority.INTERACTIVE).subscribe();
+        Mono<String> background = submit("DAILY_IBM", RequestPriority.BACKGROUND);
+        Mono<String> batch = submit("DAILY_MSFT", RequestPriority.BATCH);
+        Mono<String> interactive = submit("DAILY_IBM", RequestPriority.INTERACTIVE);
+        List<String> results = new CopyOnWriteArrayList<>();
+        background.subscribe(results::add);
+        batch.subscribe(results::add);
+        interactive.subscribe(results::add);
+        assertThat(scheduler.drainNow()).isEqualTo(2);
+
+        advance(Duration.ofSeconds(1));
+        scheduler.drainNow();
+
+        // La petición INTERACTIVE subió la tarea de IBM por encima de la BATCH de MSFT
+        assertThat(dispatched).containsExactly("FIRST", "DAILY_IBM");
+        assertThat(results).containsExactly("DAILY_IBM", "DAILY_IBM");
+
+        advance(Duration.ofSeconds(1));
+        scheduler.drainNow();
+        assertThat(dispatched).containsExactly("FIRST", "DAILY_IBM", "DAILY_MSFT");
+        assertThat(scheduler.stats().dispatched()).isEqualTo(3);
+    }
+
+    @Test
+    void fullQueueRejectsNewCallsWithThrottledException() throws Exception {
+        scheduler = scheduler(1, 2);
+        submit("FIRST", RequestPriority.INTERACTIVE).subscribe();
+        submit("Q1", RequestPriority.INTERACTIVE).subscribe();
+        submit("Q2", RequestPriority.INTERACTIVE).subscribe();
+        scheduler.drainNow();
+
+        assertThatThrownBy(() -> submit("Q3", RequestPriority.INTERACTIVE).block(Duration.ofSeconds(5)))
+            .isInstanceOf(UpstreamThrottledException.class);
+        // Un duplicado de una clave en cola no ocupa lugar: se fusiona
+        submit("Q1", RequestPriority.INTERACTIVE).subscribe();
+        assertThat(scheduler.drainNow()).isEqualTo(2);
+    }
+
+    @Test
+    void throttleNoteEmptiesTheBucketAndEstimatesTheWait() throws Exception {
+        scheduler = scheduler(5, 100);
+        assertThat(scheduler.estimatedWaitNanos()).isZero();
+
+        scheduler.onThrottled();
+        submit("K", RequestPriority.INTERACTIVE).subscribe();
+        assertThat(scheduler.drainNow()).isEqualTo(1);
+        assertThat(dispatched).isEmpty();
+        // Una llamada en cola + la nueva = 2 tokens = 2 s
+        assertThat(scheduler.estimatedWaitNanos()).isBetween(Duration.ofMillis(1999).toNanos(), Duration.ofSeconds(2).toNanos());
+
+        advance(Duration.ofSeconds(1));
+        assertThat(scheduler.drainNow()).isZero();
+        assertThat(dispatched).containsExactly("K");
+        assertThat(scheduler.stats().throttled()).isEqualTo(1);
+        assertThat(scheduler.stats().maxWaitMillis()).isEqualTo(1000.0);
+    }
+
+    private UpstreamScheduler scheduler(int burst, int maxQueueSize) {
+        return new UpstreamScheduler("test", PER_MINUTE, burst, maxQueueSize, now::get);
+    }
+
+    private Mono<String> submit(String key, RequestPriority priority) {
+        return scheduler.submit(key, priority, () -> {
+            dispatched.add(key);
+            return Mono.just(key);
+        });
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,56 @@
+package com.stockmarket.benchmark;
+
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.model.TimeSeriesAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agregación local (TimeSeriesAggregator): lo que cuesta armar weekly/monthly
+ * sin llamar a la API
+ *
+ * - Diaria de 20 años → semanal / mensual
+ * - Intradiaria de 5 minutos (un mes de barras) → 15 minutos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationBenchmark {
+
+    TimeSeries daily;
+    TimeSeries intraday;
+
+    @Setup
+    public void setUp() {
+        daily = Payloads.daily("IBM", Payloads.TWENTY_YEARS_OF_SESSIONS);
+        intraday = Payloads.intraday("IBM", 21 * 78);  // 21 sesiones de 78 barras
+    }
+
+    @Benchmark
+    public TimeSeries weekly() {
+        return TimeSeriesAggregator.toWeekly(daily);
+    }
+
+    @Benchmark
+    public TimeSeries monthly() {
+        return TimeSeriesAggregator.toMonthly(daily);
+    }
+
+    @Benchmark
+    public TimeSeries intraday15min() {
+        return TimeSeriesAggregator.toIntraday(intraday, 15);
+    }
+}
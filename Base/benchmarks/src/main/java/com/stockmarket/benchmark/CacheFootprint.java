@@ -0,0 +1,92 @@
+package com.stockmarket.benchmark;
+
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.TimeSeries;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Memoria del cache por símbolo: JSON crudo (String) contra TimeSeries + EncodedResponse
+ *
+ * MIDE (para la misma cantidad de símbolos):
+ * - JSON: el String de Alpha Vantage que guardaba el cache antes de las columnas
+ * - Columnas: la TimeSeries (long[]/double[]) + la respuesta ya comprimida que guarda hoy
+ *   cada entrada de ConcurrentCache
+ * - JOL (GraphLayout): bytes del grafo de objetos alcanzable, cada objeto una sola vez
+ * - Delta de heap: memoria usada (tras System.gc()) antes y después de crear las
+ *   entradas; verificación gruesa de JOL con el heap real
+ *
+ * No es un benchmark JMH (mide bytes, no tiempo): se corre con su propio main
+ *
+ * USO:
+ *   java -Djdk.attach.allowAttachSelf -XX:+EnableDynamicAgentLoading \
+ *       -cp target/benchmarks.jar com.stockmarket.benchmark.CacheFootprint [símbolos]
+ */
+public final class CacheFootprint {
+
+    private static final int DEFAULT_SYMBOLS = 200;
+
+    private CacheFootprint() {
+        // Solo main
+    }
+
+    public static void main(String[] args) {
+        int symbols = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SYMBOLS;
+        System.out.println("Símbolos por fila: " + symbols + " (bytes por símbolo)");
+        System.out.println();
+        System.out.printf("%-26s %12s %12s %12s %12s %12s %12s %8s %8s%n", "Serie",
+            "JSON (JOL)", "Cols (JOL)", "TimeSeries", "gzip+ETag", "JSON (heap)", "Cols (heap)", "JOL", "heap");
+
+        measure("Diaria compact (100)", symbols, i -> Payloads.daily("S" + i, Payloads.COMPACT_BARS));
+        measure("Diaria full (5040)", symbols, i -> Payloads.daily("S" + i, Payloads.TWENTY_YEARS_OF_SESSIONS));
+        measure("5min compact (100)", symbols, i -> Payloads.intraday("S" + i, Payloads.COMPACT_BARS));
+        measure("5min 21 sesiones (1638)", symbols, i -> Payloads.intraday("S" + i, 21 * 78));
+    }
+
+    private static void measure(String label, int symbols, IntFunction<TimeSeries> seriesFor) {
+        List<String> json = new ArrayList<>(symbols);
+        List<TimeSeries> series = new ArrayList<>(symbols);
+        List<EncodedResponse> encoded = new ArrayList<>(symbols);
+
+        long before = usedHeap();
+        for (int i = 0; i < symbols; i++) {
+            json.add(Payloads.json(seriesFor.apply(i)));
+        }
+        long jsonHeap = usedHeap() - before;
+
+        before = usedHeap();
+        for (int i = 0; i < symbols; i++) {
+            series.add(seriesFor.apply(i));
+            encoded.add(EncodedResponse.encode(Payloads.json(series.get(i))));
+        }
+        long columnarHeap = usedHeap() - before;
+
+        long jsonJol = GraphLayout.parseInstance(json.toArray()).totalSize();
+        long seriesJol = GraphLayout.parseInstance(series.toArray()).totalSize();
+        long encodedJol = GraphLayout.parseInstance(encoded.toArray()).totalSize();
+        long columnarJol = seriesJol + encodedJol;
+        System.out.printf("%-26s %12d %12d %12d %12d %12d %12d %7.1fx %7.1fx%n", label,
+            jsonJol / symbols, columnarJol / symbols, seriesJol / symbols, encodedJol / symbols,
+            jsonHeap / symbols, columnarHeap / symbols,
+            (double) jsonJol / columnarJol, (double) jsonHeap / columnarHeap);
+
+        Reference.reachabilityFence(json);
+        Reference.reachabilityFence(series);
+        Reference.reachabilityFence(encoded);
+    }
+
+    /**
+     * Heap usado tras varias recolecciones (la primera puede no liberar todo)
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,48 @@
+package com.stockmarket.benchmark;
+
+import com.stockmarket.service.Interval;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construcción y lectura de claves del cache ("DAILY_IBM")
+ *
+ * - Se hace en cada petición (antes de tocar el cache), así que cualquier
+ *   asignación extra aquí se paga en todos los HIT
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+    String symbol = "MSFT";
+    String key = "INTRADAY_MSFT";
+    Interval interval = Interval.DAILY;
+
+    @Benchmark
+    public String cacheKey() {
+        return interval.cacheKey(symbol);
+    }
+
+    @Benchmark
+    public Interval ofCacheKey() {
+        return Interval.ofCacheKey(key);
+    }
+
+    @Benchmark
+    public String symbolOf() {
+        return Interval.INTRADAY.symbolOf(key);
+    }
+}
@@ -0,0 +1,102 @@
+package com.stockmarket.benchmark;
+
+import com.stockmarket.cache.ConcurrentCache;
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.TimeSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ConcurrentCache bajo contención: lecturas y escrituras desde varios hilos
+ *
+ * - Claves con distribución de Zipf (exponent = 1: pocas claves calientes,
+ *   como los símbolos populares) o uniforme (exponent = 0)
+ * - Los hilos se eligen al correr: java -jar target/benchmarks.jar ConcurrentCache -t 64
+ *   (el baseline se tomó con -t 1, -t 8 y -t 64)
+ *
+ * MIDE:
+ * - get: HIT de get() (incluye el registro de frecuencia en el sketch)
+ * - lookup: HIT de lookup(), el que usa el servicio (serie + respuesta codificada)
+ * - mixed: 90% get / 10% put sobre las mismas claves (reemplazos con ajuste de peso)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentCacheBenchmark {
+
+    @Param({"10000"})
+    int keys;
+
+    @Param({"1.0", "0.0"})
+    double exponent;
+
+    ConcurrentCache cache;
+    String[] keyNames;
+    TimeSeries series;
+    EncodedResponse encoded;
+
+    /** Semilla distinta para cada hilo */
+    private final AtomicLong seeds = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        // 1 GB: todas las claves caben, se mide el acceso y no la expulsión
+        cache = new ConcurrentCache(1L << 30, Duration.ofHours(1), Duration.ofHours(1),
+            Duration.ofHours(1), Duration.ofHours(1), Duration.ofMinutes(30), Duration.ofHours(24));
+        series = Payloads.daily("IBM", Payloads.COMPACT_BARS);
+        encoded = EncodedResponse.encode(Payloads.json(series));
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "DAILY_SYM" + i;
+            cache.put(keyNames[i], series, encoded);
+        }
+    }
+
+    /** Secuencia de claves propia de cada hilo */
+    @State(Scope.Thread)
+    public static class ThreadKeys {
+        ZipfKeys sequence;
+        int operations;
+
+        @Setup
+        public void setUp(ConcurrentCacheBenchmark shared) {
+            sequence = new ZipfKeys(shared.keys, shared.exponent, 1 << 16, shared.seeds.incrementAndGet());
+        }
+    }
+
+    @Benchmark
+    public TimeSeries get(ThreadKeys thread) {
+        return cache.get(keyNames[thread.sequence.next()]);
+    }
+
+    @Benchmark
+    public ConcurrentCache.Lookup lookup(ThreadKeys thread) {
+        return cache.lookup(keyNames[thread.sequence.next()]);
+    }
+
+    @Benchmark
+    public Object mixed(ThreadKeys thread) {
+        String key = keyNames[thread.sequence.next()];
+        if (++thread.operations % 10 == 0) {
+            cache.put(key, series, encoded);
+            return key;
+        }
+        return cache.get(key);
+    }
+}
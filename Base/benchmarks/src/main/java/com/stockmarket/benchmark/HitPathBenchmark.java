@@ -0,0 +1,125 @@
+package com.stockmarket.benchmark;
+
+import com.stockmarket.accesslog.AccessLog;
+import com.stockmarket.cache.ConcurrentCache;
+import com.stockmarket.controller.StockController;
+import com.stockmarket.indicator.IndicatorEngine;
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.peer.PeerClient;
+import com.stockmarket.peer.PeerRing;
+import com.stockmarket.provider.AlphaVantageProvider;
+import com.stockmarket.provider.HedgePolicy;
+import com.stockmarket.provider.ProviderRouter;
+import com.stockmarket.service.Interval;
+import com.stockmarket.service.MarketDataService;
+import com.stockmarket.stream.IntradayStreamHub;
+import com.stockmarket.upstream.UpstreamCircuitBreaker;
+import com.stockmarket.upstream.UpstreamScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camino completo de un cache HIT: StockController → MarketDataService → ConcurrentCache
+ *
+ * - Los objetos se crean a mano (sin contexto de Spring ni Tomcat): se mide el
+ *   código del gateway, no el servidor HTTP
+ * - Es lo que paga cada petición repetida; una regresión aquí afecta a todas
+ *
+ * MIDE:
+ * - dailyGzip: 200 con los bytes gzip guardados (Accept-Encoding: gzip)
+ * - dailyNotModified: 304 por If-None-Match con el ETag vigente
+ * - dailyWindow: ventana de 3 meses (from/to) escrita desde la serie de 20 años
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HitPathBenchmark {
+
+    private static final String SYMBOL = "IBM";
+
+    AlphaVantageProvider provider;
+    AccessLog accessLog;
+    StockController controller;
+    HttpHeaders gzipHeaders;
+    HttpHeaders conditionalHeaders;
+
+    @Setup
+    public void setUp() {
+        ConcurrentCache cache = new ConcurrentCache(1L << 30, Duration.ofHours(1), Duration.ofHours(1),
+            Duration.ofHours(1), Duration.ofHours(1), Duration.ofMinutes(30), Duration.ofHours(24));
+        TimeSeries daily = Payloads.daily(SYMBOL, Payloads.TWENTY_YEARS_OF_SESSIONS);
+        EncodedResponse encoded = EncodedResponse.encode(Payloads.json(daily));
+        cache.put(Interval.DAILY.cacheKey(SYMBOL), daily, encoded);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        provider = new AlphaVantageProvider(
+            WebClient.create("http://localhost:8099"),
+            new UpstreamScheduler(AlphaVantageProvider.NAME, 5, 5, 500),
+            new UpstreamCircuitBreaker(AlphaVantageProvider.NAME, true, 20, 10, 0.5,
+                Duration.ofSeconds(5), Duration.ofSeconds(30)),
+            new HedgePolicy(true, 0.95, Duration.ofMillis(200), Duration.ofSeconds(3), 20),
+            meterRegistry,
+            "demo");
+        ProviderRouter router = new ProviderRouter(List.of(provider), AlphaVantageProvider.NAME);
+        // Mismo muestreo que application.properties (el costo del log entra en la medición)
+        accessLog = new AccessLog(true, 0.1, 8192, "target/hitpath-access.log");
+        // Un solo nodo (peer.enabled=false): todas las claves son locales
+        PeerRing peers = new PeerRing(false, "http://localhost:8080", "", 100, Duration.ofSeconds(10));
+        PeerClient peerClient = new PeerClient(peers, 100, Duration.ofMillis(500), Duration.ofMinutes(1),
+            DataSize.ofMegabytes(16));
+        MarketDataService service = new MarketDataService(cache, router, meterRegistry, accessLog,
+            peers, peerClient);
+        IntradayStreamHub hub = new IntradayStreamHub(service,
+            Duration.ofMinutes(1), Duration.ofSeconds(15), 16);
+        controller = new StockController(service, hub, new IndicatorEngine(100), false, 8, 200);
+
+        gzipHeaders = new HttpHeaders();
+        gzipHeaders.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+        conditionalHeaders = new HttpHeaders();
+        conditionalHeaders.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        conditionalHeaders.setIfNoneMatch(encoded.etag());
+    }
+
+    @TearDown
+    public void tearDown() {
+        provider.close();
+        accessLog.shutdown();
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> dailyGzip() {
+        return controller.getDaily(SYMBOL, null, null, null, gzipHeaders).block();
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> dailyNotModified() {
+        return controller.getDaily(SYMBOL, null, null, null, conditionalHeaders).block();
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> dailyWindow() {
+        return controller.getDaily(SYMBOL, "2024-10-01", "2024-12-31", null, gzipHeaders).block();
+    }
+}
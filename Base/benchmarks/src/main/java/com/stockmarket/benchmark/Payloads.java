@@ -0,0 +1,103 @@
+package com.stockmarket.benchmark;
+
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.model.TimeSeriesJsonWriter;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Datos representativos para los benchmarks (sin llamar a Alpha Vantage)
+ *
+ * - Series con el mismo formato y tamaño que las respuestas reales:
+ *   compact = 100 barras, full diaria = 20 años (~5040 sesiones)
+ * - Precios con paseo aleatorio y semilla fija: cada corrida mide los mismos datos
+ */
+public final class Payloads {
+
+    /** Sesiones bursátiles en 20 años (252 por año) */
+    public static final int TWENTY_YEARS_OF_SESSIONS = 20 * 252;
+
+    /** Barras de una respuesta "compact" */
+    public static final int COMPACT_BARS = 100;
+
+    private Payloads() {
+        // Clase utilitaria: no se instancia
+    }
+
+    /**
+     * Serie diaria de "bars" sesiones (lunes a viernes) que termina el 2025-01-15
+     */
+    public static TimeSeries daily(String symbol, int bars) {
+        TimeSeries.Builder builder = TimeSeries.builder("Time Series (Daily)", false)
+            .meta(new String[] {"1. Information", "2. Symbol", "3. Last Refreshed", "4. Output Size", "5. Time Zone"},
+                new String[] {"Daily Prices (open, high, low, close) and Volumes", symbol, "2025-01-15",
+                    bars > COMPACT_BARS ? "Full size" : "Compact", "US/Eastern"});
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDate day = LocalDate.of(2025, 1, 15);
+        long[] days = new long[bars];
+        for (int i = bars - 1; i >= 0; i--) {
+            while (day.getDayOfWeek().getValue() > 5) {
+                day = day.minusDays(1);
+            }
+            days[i] = day.toEpochDay();
+            day = day.minusDays(1);
+        }
+        double price = 150;
+        for (int i = 0; i < bars; i++) {
+            price = addBar(builder, random, days[i], price);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Serie intradiaria de 5 minutos ("bars" barras consecutivas)
+     */
+    public static TimeSeries intraday(String symbol, int bars) {
+        TimeSeries.Builder builder = TimeSeries.builder("Time Series (5min)", true)
+            .meta(new String[] {"1. Information", "2. Symbol", "3. Last Refreshed", "4. Interval", "5. Output Size", "6. Time Zone"},
+                new String[] {"Intraday (5min) open, high, low, close prices and volume", symbol,
+                    "2025-01-15 16:00:00", "5min", "Compact", "US/Eastern"});
+        SplittableRandom random = new SplittableRandom(7);
+        long start = LocalDate.of(2025, 1, 15).toEpochDay() * 86_400 + 16 * 3600 - (long) (bars - 1) * 300;
+        double price = 150;
+        for (int i = 0; i < bars; i++) {
+            price = addBar(builder, random, start + i * 300L, price);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Las primeras "bars" barras de una serie (ej: la versión anterior a la última barra)
+     */
+    public static TimeSeries prefix(TimeSeries series, int bars) {
+        TimeSeries.Builder builder = TimeSeries.builder(series.seriesName(), series.isIntraday());
+        String[] keys = new String[series.metaSize()];
+        String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = series.metaKey(i);
+            values[i] = series.metaValue(i);
+        }
+        builder.meta(keys, values);
+        for (int i = 0; i < bars; i++) {
+            builder.add(series.time(i), series.open(i), series.high(i), series.low(i), series.close(i), series.volume(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * JSON en el formato de Alpha Vantage (el mismo que escribe el gateway)
+     */
+    public static String json(TimeSeries series) {
+        return TimeSeriesJsonWriter.toJson(series);
+    }
+
+    private static double addBar(TimeSeries.Builder builder, SplittableRandom random, long time, double price) {
+        double open = price;
+        double close = Math.max(1, open + random.nextDouble(-2, 2));
+        double high = Math.max(open, close) + random.nextDouble(0, 1);
+        double low = Math.min(open, close) - random.nextDouble(0, 1);
+        builder.add(time, open, high, low, close, 1_000_000 + random.nextLong(5_000_000));
+        return close;
+    }
+}
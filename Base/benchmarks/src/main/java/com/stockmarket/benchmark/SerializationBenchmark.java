@@ -0,0 +1,65 @@
+package com.stockmarket.benchmark;
+
+import com.stockmarket.model.EncodedResponse;
+import com.stockmarket.model.TimeSeries;
+import com.stockmarket.model.TimeSeriesJsonWriter;
+import com.stockmarket.model.TimeSeriesWindow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escritura de respuestas: TimeSeries → JSON → gzip + ETag
+ *
+ * MIDE:
+ * - toJson: JSON de la serie completa (se hace una vez por MISS)
+ * - encode: gzip + ETag del JSON (también una vez por MISS)
+ * - window800: ventana con maxPoints=800 (LTTB), que se escribe en cada petición con ventana
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "5040"})
+    int bars;
+
+    TimeSeries series;
+    String json;
+    TimeSeriesWindow window;
+
+    @Setup
+    public void setUp() {
+        series = Payloads.daily("IBM", bars);
+        json = Payloads.json(series);
+        window = TimeSeriesWindow.parse(null, null, 800);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return TimeSeriesJsonWriter.toJson(series);
+    }
+
+    @Benchmark
+    public EncodedResponse encode() {
+        return EncodedResponse.encode(json);
+    }
+
+    @Benchmark
+    public String window800() {
+        return window.toJson(series);
+    }
+}
@@ -0,0 +1,85 @@
+package com.stockmarket.benchmark;
+
+import com.stockmarket.stub.AlphaVantageStub;
+import com.stockmarket.stub.StubOptions;
+import com.stockmarket.upstream.UpstreamClientConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cliente HTTP hacia la API (UpstreamClientConfig) contra el stub local, en el mismo proceso
+ *
+ * MIDE (SampleTime: reporta p50 / p99 / p99.9 además del promedio):
+ * - fetch: GET de una serie diaria, compact (~20 KB) o full (20 años, ~1 MB)
+ * - pool=pooled: pool de conexiones con keep-alive (configuración del backend)
+ * - pool=unpooled: una conexión TCP nueva por petición (sin pool)
+ *
+ * Al terminar imprime peticiones / conexiones vistas por el stub: con pool deben ser
+ * pocas conexiones (a lo sumo una por hilo de JMH)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpstreamClientBenchmark {
+
+    @Param({"pooled", "unpooled"})
+    String pool;
+
+    @Param({"compact", "full"})
+    String outputSize;
+
+    AlphaVantageStub stub;
+    ConnectionProvider provider;
+    WebClient client;
+
+    @Setup
+    public void setUp() throws Exception {
+        stub = new AlphaVantageStub(StubOptions.parse(new String[] {"--port=0"}));
+        stub.start();
+        provider = "pooled".equals(pool)
+            ? ConnectionProvider.builder("benchmark").maxConnections(50).maxIdleTime(Duration.ofSeconds(30)).build()
+            : ConnectionProvider.newConnection();
+        client = UpstreamClientConfig.create("http://localhost:" + stub.port(), provider,
+            Duration.ofSeconds(3), Duration.ofSeconds(15), false, false, DataSize.ofMegabytes(16));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%n[stub] %d peticiones en %d conexiones (pool=%s)%n",
+            stub.requests(), stub.connections(), pool);
+        provider.dispose();
+        stub.stop();
+    }
+
+    @Benchmark
+    public String fetch() {
+        return client.get()
+            .uri(uri -> uri.path("/query")
+                .queryParam("function", "TIME_SERIES_DAILY")
+                .queryParam("symbol", "IBM")
+                .queryParam("outputsize", outputSize)
+                .build())
+            .retrieve()
+            .bodyToMono(String.class)
+            .block();
+    }
+}
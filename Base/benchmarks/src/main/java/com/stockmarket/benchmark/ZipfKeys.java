@@ -0,0 +1,48 @@
+package com.stockmarket.benchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * Secuencia de índices con distribución de Zipf (pocas claves muy populares)
+ *
+ * - exponent = 0 → uniforme; exponent = 1 → la clave 0 es ~10x más pedida que la 9
+ * - Se precalcula (tamaño potencia de 2) para no medir el generador aleatorio
+ */
+final class ZipfKeys {
+
+    private final int[] sequence;
+    private final int mask;
+    private int position;
+
+    ZipfKeys(int keys, double exponent, int length, long seed) {
+        double[] cumulative = new double[keys];
+        double sum = 0;
+        for (int k = 0; k < keys; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        int size = Integer.highestOneBit(length);
+        sequence = new int[size];
+        mask = size - 1;
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < size; i++) {
+            double target = random.nextDouble() * sum;
+            int low = 0;
+            int high = keys - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            sequence[i] = low;
+        }
+    }
+
+    /** @return Siguiente índice (el estado es por hilo: sin sincronización) */
+    int next() {
+        return sequence[position++ & mask];
+    }
+}
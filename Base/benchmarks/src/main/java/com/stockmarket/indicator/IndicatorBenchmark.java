@@ -0,0 +1,79 @@
+package com.stockmarket.indicator;
+
+import com.stockmarket.benchmark.Payloads;
+import com.stockmarket.model.TimeSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indicadores técnicos sobre 20 años de datos diarios (~5040 sesiones)
+ *
+ * NOTA: Está en el paquete indicator para usar Indicator.compute y
+ * IndicatorEngine.columns (package-private)
+ *
+ * MIDE:
+ * - full: cálculo completo en los arreglos primitivos (memo vacío)
+ * - incremental: IndicatorEngine alternando la misma clave entre la serie y la serie
+ *   sin su última barra; solo se calcula la barra nueva, pero se paga la comparación
+ *   (firstDifference) y la copia del resultado anterior
+ * - memoHit: misma versión de la serie (sin cálculo)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndicatorBenchmark {
+
+    /** Indicador con la sintaxis de la query (ej: "sma=200") */
+    @Param({"sma=200", "ema=50", "rsi=14", "macd=12:26:9", "vwap=20", "bbands=20:2"})
+    String indicator;
+
+    IndicatorSpec spec;
+    TimeSeries series;
+    TimeSeries previous;
+    double[][] out;
+    IndicatorEngine engine;
+    boolean flip;
+
+    @Setup
+    public void setUp() {
+        String[] query = indicator.split("=");
+        spec = IndicatorSpec.parseAll(Map.of(query[0], List.of(query[1]))).get(0);
+        series = Payloads.daily("IBM", Payloads.TWENTY_YEARS_OF_SESSIONS);
+        previous = Payloads.prefix(series, series.size() - 1);
+        out = new double[spec.indicator().columns()][series.size()];
+        engine = new IndicatorEngine(100);
+    }
+
+    @Benchmark
+    public double[][] full() {
+        spec.indicator().compute(series, spec.params(), out, 0);
+        return out;
+    }
+
+    @Benchmark
+    public double[][] incremental() {
+        flip = !flip;
+        return engine.columns("DAILY_IBM_VERSIONS", flip ? series : previous, spec);
+    }
+
+    @Benchmark
+    public double[][] memoHit() {
+        return engine.columns("DAILY_IBM", series, spec);
+    }
+}
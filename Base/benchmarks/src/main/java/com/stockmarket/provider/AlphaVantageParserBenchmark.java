@@ -0,0 +1,56 @@
+package com.stockmarket.provider;
+
+import com.stockmarket.benchmark.Payloads;
+import com.stockmarket.model.TimeSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parseo del JSON de Alpha Vantage a TimeSeries (el costo de cada MISS)
+ *
+ * NOTA: Está en el paquete provider porque AlphaVantageParser es package-private
+ *
+ * PAYLOADS:
+ * - DAILY_COMPACT: 100 sesiones (~13 KB)
+ * - DAILY_FULL: 20 años de sesiones (~650 KB)
+ * - INTRADAY_COMPACT: 100 barras de 5 minutos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlphaVantageParserBenchmark {
+
+    @Param({"DAILY_COMPACT", "DAILY_FULL", "INTRADAY_COMPACT"})
+    String payload;
+
+    String json;
+
+    @Setup
+    public void setUp() {
+        TimeSeries series = switch (payload) {
+            case "DAILY_COMPACT" -> Payloads.daily("IBM", Payloads.COMPACT_BARS);
+            case "DAILY_FULL" -> Payloads.daily("IBM", Payloads.TWENTY_YEARS_OF_SESSIONS);
+            default -> Payloads.intraday("IBM", Payloads.COMPACT_BARS);
+        };
+        json = Payloads.json(series);
+    }
+
+    @Benchmark
+    public TimeSeries parse() {
+        return AlphaVantageParser.parse(json);
+    }
+}
@@ -0,0 +1,222 @@
+package com.stockmarket.client;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Genera carga HTTP contra la API y mide la latencia con HdrHistogram
+ *
+ * CONCEPTOS APLICADOS:
+ * - Modelo abierto (--mode=open): Las peticiones llegan a tasa constante (--rps) sin
+ *   importar si el servidor responde o no, como usuarios reales independientes.
+ *   La petición i tiene una hora de envío planificada: inicio + i / rps
+ * - Corrección de "coordinated omission": La latencia se mide desde la hora
+ *   PLANIFICADA, no desde el envío real. Si el servidor se frena 2 s, las peticiones
+ *   que debían salir en ese lapso registran esa espera (en un cliente cerrado simplemente
+ *   no se envían y la pausa desaparece de los percentiles)
+ * - Modelo cerrado (--mode=closed): N hilos en bucle (como el cliente anterior);
+ *   solo sirve para ver el throughput máximo, sus percentiles no están corregidos
+ * - HdrHistogram: Registra cada latencia con 3 dígitos significativos en memoria fija;
+ *   los percentiles (p99, p99.9) son exactos, no un promedio
+ * - java.net.http.HttpClient: Un único cliente reutiliza las conexiones (keep-alive)
+ *   y las peticiones del modo open son asíncronas (sendAsync): un hilo planifica,
+ *   ninguno espera respuestas
+ *
+ * HISTOGRAMAS:
+ * - responseTime: desde la hora planificada hasta la respuesta (lo que ve el usuario)
+ * - serviceTime: desde el envío real hasta la respuesta (lo que tarda el servidor)
+ *   Si responseTime >> serviceTime el servidor (o este cliente) no sostiene la tasa
+ *
+ * ============================================
+ * MODIFICAR SI:
+ * - Necesitas probar otros endpoints (cambia uriFor)
+ * - Te piden más de ~20.000 rps (usa varios procesos: un solo hilo planificador)
+ * ============================================
+ */
+public class LoadGenerator {
+
+    private final LoadOptions options;
+    private final SymbolSampler sampler;
+    private final HttpClient client;
+    private final ExecutorService callbacks;
+
+    // Resultados de la fase medida
+    private final Histogram responseTime = new ConcurrentHistogram(3);
+    private final Histogram serviceTime = new ConcurrentHistogram(3);
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+
+    public LoadGenerator(LoadOptions options) {
+        this.options = options;
+        this.sampler = new SymbolSampler(options.symbols(), options.distribution(), options.zipfExponent());
+        // Hilos para procesar respuestas (daemon: no impiden terminar el programa)
+        this.callbacks = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()),
+            runnable -> {
+                Thread thread = new Thread(runnable, "load-callbacks");
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(options.timeout())
+            .executor(callbacks)
+            .build();
+    }
+
+    /**
+     * Ejecuta el calentamiento (sin medir) y luego la fase medida
+     *
+     * @return Resultado de la fase medida
+     */
+    public LoadResult run() throws InterruptedException {
+        if (!options.warmup().isZero()) {
+            System.out.println("🔥 Calentamiento: " + options.warmup().toSeconds() + "s");
+            runPhase(options.warmup().toNanos(), false);
+        }
+        System.out.println("📏 Midiendo: " + options.duration().toSeconds() + "s");
+        long start = System.nanoTime();
+        runPhase(options.duration().toNanos(), true);
+        long elapsedNanos = System.nanoTime() - start;
+
+        Map<Integer, Long> statuses = new TreeMap<>();
+        statusCounts.forEach((status, count) -> statuses.put(status, count.sum()));
+        callbacks.shutdown();
+        return new LoadResult(options, elapsedNanos, sent.sum(), failures.sum(), dropped.sum(),
+            bytes.sum(), statuses, responseTime.copy(), serviceTime.copy(), "open".equals(options.mode()));
+    }
+
+    private void runPhase(long durationNanos, boolean measure) throws InterruptedException {
+        if ("open".equals(options.mode())) {
+            runOpen(durationNanos, measure);
+        } else {
+            runClosed(durationNanos, measure);
+        }
+    }
+
+    /**
+     * Modelo abierto: un hilo envía cada petición en su hora planificada
+     * - Si va atrasado (GC, CPU) envía de inmediato las pendientes; su latencia
+     *   incluye el atraso porque se mide desde la hora planificada
+     * - Si hay maxInFlight peticiones sin respuesta la nueva se descarta (cuenta como
+     *   "dropped"): el cliente no se queda sin memoria si el servidor deja de responder
+     */
+    private void runOpen(long durationNanos, boolean measure) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(options.maxInFlight());
+        double nanosPerRequest = 1_000_000_000.0 / options.rps();
+        long start = System.nanoTime();
+
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * nanosPerRequest);
+            if (intended - start >= durationNanos) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                if (measure) {
+                    dropped.increment();
+                }
+                continue;
+            }
+            long sentAt = System.nanoTime();
+            client.sendAsync(nextRequest(), HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, error) -> {
+                    record(intended, sentAt, response, error, measure);
+                    inFlight.release();
+                });
+            if (measure) {
+                sent.increment();
+            }
+        }
+
+        // Esperar las respuestas pendientes (como mucho el timeout de una petición)
+        if (inFlight.tryAcquire(options.maxInFlight(), options.timeout().toMillis() + 1_000, TimeUnit.MILLISECONDS)) {
+            inFlight.release(options.maxInFlight());
+        }
+    }
+
+    /**
+     * Modelo cerrado: concurrency hilos, cada uno envía la siguiente petición al
+     * recibir la anterior (la hora planificada es la del envío: sin corrección)
+     */
+    private void runClosed(long durationNanos, boolean measure) throws InterruptedException {
+        long end = System.nanoTime() + durationNanos;
+        Thread[] workers = new Thread[options.concurrency()];
+        for (int w = 0; w < workers.length; w++) {
+            workers[w] = new Thread(() -> {
+                while (System.nanoTime() - end < 0) {
+                    long sentAt = System.nanoTime();
+                    HttpResponse<byte[]> response = null;
+                    Throwable error = null;
+                    try {
+                        response = client.send(nextRequest(), HttpResponse.BodyHandlers.ofByteArray());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        error = e;
+                    }
+                    if (measure) {
+                        sent.increment();
+                    }
+                    record(sentAt, sentAt, response, error, measure);
+                }
+            }, "load-worker-" + w);
+            workers[w].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void record(long intended, long sentAt, HttpResponse<byte[]> response, Throwable error, boolean measure) {
+        if (!measure) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (error != null || response == null) {
+            failures.increment();
+            return;
+        }
+        responseTime.recordValue(now - intended);
+        serviceTime.recordValue(now - sentAt);
+        bytes.add(response.body().length);
+        statusCounts.computeIfAbsent(response.statusCode(), status -> new LongAdder()).increment();
+    }
+
+    private HttpRequest nextRequest() {
+        String interval = options.intervals().get(ThreadLocalRandom.current().nextInt(options.intervals().size()));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uriFor(sampler.next(), interval))
+            .timeout(options.timeout())
+            .GET();
+        if (options.gzip()) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+        return builder.build();
+    }
+
+    private URI uriFor(String symbol, String interval) {
+        return URI.create(options.baseUrl() + "/" + symbol + "/" + interval);
+    }
+}
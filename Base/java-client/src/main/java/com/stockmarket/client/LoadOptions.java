@@ -0,0 +1,171 @@
+package com.stockmarket.client;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Opciones de una corrida de carga (leídas de la línea de comandos)
+ *
+ * Formato: --nombre=valor (ver USAGE o ejecutar con --help)
+ *
+ * @param baseUrl URL base de la API (ej: http://localhost:8080/api/stocks)
+ * @param mode "open" (tasa de llegada constante) o "closed" (N hilos en bucle)
+ * @param rps Peticiones por segundo objetivo (modo open)
+ * @param concurrency Hilos del modo closed
+ * @param duration Duración de la medición
+ * @param warmup Carga previa sin medir (calienta JIT, conexiones y cache)
+ * @param symbols Símbolos a pedir
+ * @param distribution "uniform" o "zipf"
+ * @param zipfExponent Exponente de Zipf (1.0 = pocos símbolos muy populares)
+ * @param intervals Intervalos a pedir (daily, weekly, ...), elegidos uniformemente
+ * @param maxInFlight Máximo de peticiones sin respuesta (modo open); las que excedan se descartan
+ * @param timeout Timeout de cada petición
+ * @param gzip Si es true envía Accept-Encoding: gzip
+ * @param out Archivo JSON con el resultado (null = solo consola)
+ */
+public record LoadOptions(
+        String baseUrl,
+        String mode,
+        double rps,
+        int concurrency,
+        Duration duration,
+        Duration warmup,
+        List<String> symbols,
+        String distribution,
+        double zipfExponent,
+        List<String> intervals,
+        int maxInFlight,
+        Duration timeout,
+        boolean gzip,
+        Path out) {
+
+    public static final String USAGE = String.join("\n",
+        "Uso: mvn exec:java -Dexec.args=\"[opciones]\"",
+        "  --base-url=URL           (http://localhost:8080/api/stocks)",
+        "  --mode=open|closed       (open: tasa constante; closed: N hilos en bucle)",
+        "  --rps=N                  (modo open, 50)",
+        "  --concurrency=N          (modo closed, 20)",
+        "  --duration=30s           (s, m o ISO-8601: PT30S)",
+        "  --warmup=5s              (0s = sin calentamiento)",
+        "  --symbols=IBM,MSFT,AAPL  (o --symbols-file=ruta, un símbolo por línea)",
+        "  --distribution=zipf|uniform",
+        "  --zipf-exponent=1.0",
+        "  --intervals=daily,weekly,monthly",
+        "  --max-in-flight=10000",
+        "  --timeout=10s",
+        "  --gzip=true|false        (true)",
+        "  --out=resultado.json     (resultado para comparar corridas)");
+
+    /**
+     * @param args Argumentos de la línea de comandos
+     * @return Opciones (valores por defecto para las que no aparecen)
+     * @throws IllegalArgumentException Si una opción no existe o su valor no es válido
+     */
+    public static LoadOptions parse(String[] args) {
+        String baseUrl = "http://localhost:8080/api/stocks";
+        String mode = "open";
+        double rps = 50;
+        int concurrency = 20;
+        Duration duration = Duration.ofSeconds(30);
+        Duration warmup = Duration.ofSeconds(5);
+        List<String> symbols = List.of("IBM", "MSFT", "AAPL");
+        String distribution = "zipf";
+        double zipfExponent = 1.0;
+        List<String> intervals = List.of("daily", "weekly", "monthly");
+        int maxInFlight = 10_000;
+        Duration timeout = Duration.ofSeconds(10);
+        boolean gzip = true;
+        Path out = null;
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Opción inválida: " + arg);
+            }
+            String name = arg.substring(2, equals);
+            String value = arg.substring(equals + 1).trim();
+            switch (name) {
+                case "base-url" -> baseUrl = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "mode" -> mode = oneOf(name, value, "open", "closed");
+                case "rps" -> rps = positive(name, Double.parseDouble(value));
+                case "concurrency" -> concurrency = (int) positive(name, Integer.parseInt(value));
+                case "duration" -> duration = parseDuration(value);
+                case "warmup" -> warmup = parseDuration(value);
+                case "symbols" -> symbols = splitList(value);
+                case "symbols-file" -> symbols = readSymbols(Path.of(value));
+                case "distribution" -> distribution = oneOf(name, value, "zipf", "uniform");
+                case "zipf-exponent" -> zipfExponent = Double.parseDouble(value);
+                case "intervals" -> intervals = splitList(value);
+                case "max-in-flight" -> maxInFlight = (int) positive(name, Integer.parseInt(value));
+                case "timeout" -> timeout = parseDuration(value);
+                case "gzip" -> gzip = Boolean.parseBoolean(value);
+                case "out" -> out = Path.of(value);
+                default -> throw new IllegalArgumentException("Opción desconocida: --" + name);
+            }
+        }
+        if (symbols.isEmpty() || intervals.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos un símbolo y un intervalo");
+        }
+        return new LoadOptions(baseUrl, mode, rps, concurrency, duration, warmup, symbols,
+            distribution, zipfExponent, intervals, maxInFlight, timeout, gzip, out);
+    }
+
+    /**
+     * "30s", "2m", "500ms" o ISO-8601 ("PT30S")
+     */
+    static Duration parseDuration(String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("pt")) {
+            return Duration.parse(value);
+        }
+        if (lower.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(lower.substring(0, lower.length() - 2)));
+        }
+        if (lower.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(lower.substring(0, lower.length() - 1)));
+        }
+        if (lower.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(lower.substring(0, lower.length() - 1)));
+        }
+        throw new IllegalArgumentException("Duración inválida (usa 30s, 2m, 500ms o PT30S): " + value);
+    }
+
+    private static List<String> splitList(String value) {
+        return Arrays.stream(value.split(","))
+            .map(String::trim)
+            .filter(item -> !item.isEmpty())
+            .toList();
+    }
+
+    private static List<String> readSymbols(Path path) {
+        try {
+            return Files.readAllLines(path).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .toList();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo leer " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static String oneOf(String name, String value, String... allowed) {
+        for (String option : allowed) {
+            if (option.equalsIgnoreCase(value)) {
+                return option;
+            }
+        }
+        throw new IllegalArgumentException("--" + name + " debe ser " + String.join(" o ", allowed));
+    }
+
+    private static double positive(String name, double value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("--" + name + " debe ser mayor que 0");
+        }
+        return value;
+    }
+}
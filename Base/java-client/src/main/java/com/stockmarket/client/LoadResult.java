@@ -0,0 +1,148 @@
+package com.stockmarket.client;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resultado de la fase medida de una corrida
+ *
+ * Se imprime como tabla y se guarda como JSON (--out) para comparar corridas:
+ * misma máquina, mismas opciones, distinto código o configuración del backend
+ *
+ * @param options Opciones de la corrida
+ * @param elapsedNanos Duración real de la fase medida (incluye esperar las últimas respuestas)
+ * @param sent Peticiones enviadas
+ * @param failures Peticiones sin respuesta (timeout, conexión rechazada...)
+ * @param dropped Peticiones no enviadas por superar maxInFlight (solo modo open)
+ * @param bytes Bytes de cuerpo recibidos
+ * @param statuses Respuestas por código HTTP
+ * @param responseTime Latencia desde la hora planificada (nanosegundos)
+ * @param serviceTime Latencia desde el envío real (nanosegundos)
+ * @param corrected true si responseTime está corregido por coordinated omission
+ */
+public record LoadResult(
+        LoadOptions options,
+        long elapsedNanos,
+        long sent,
+        long failures,
+        long dropped,
+        long bytes,
+        Map<Integer, Long> statuses,
+        Histogram responseTime,
+        Histogram serviceTime,
+        boolean corrected) {
+
+    /** Percentiles reportados */
+    private static final double[] PERCENTILES = {50, 75, 90, 95, 99, 99.9, 99.99};
+
+    /**
+     * @return Respuestas recibidas por segundo
+     */
+    public double achievedRps() {
+        return responseTime.getTotalCount() / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * Imprime el resumen en consola
+     */
+    public void print() {
+        System.out.println("─────────────────────────────────────────────────────────");
+        System.out.printf(Locale.ROOT, "📨 Enviadas: %d | Respuestas: %d | Fallidas: %d | Descartadas: %d%n",
+            sent, responseTime.getTotalCount(), failures, dropped);
+        System.out.printf(Locale.ROOT, "🚀 Throughput: %.1f rps (objetivo: %s)%n", achievedRps(),
+            "open".equals(options.mode()) ? String.format(Locale.ROOT, "%.1f rps", options.rps()) : "máximo");
+        System.out.println("📋 Códigos HTTP: " + statuses);
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-10s %16s %16s%n", "Percentil",
+            corrected ? "Respuesta (ms)" : "Respuesta* (ms)", "Servicio (ms)");
+        for (double percentile : PERCENTILES) {
+            System.out.printf(Locale.ROOT, "p%-9s %16.3f %16.3f%n", format(percentile),
+                millis(responseTime.getValueAtPercentile(percentile)),
+                millis(serviceTime.getValueAtPercentile(percentile)));
+        }
+        System.out.printf(Locale.ROOT, "%-10s %16.3f %16.3f%n", "max",
+            millis(responseTime.getMaxValue()), millis(serviceTime.getMaxValue()));
+        if (!corrected) {
+            System.out.println("* Modo closed: sin corrección de coordinated omission");
+        }
+    }
+
+    /**
+     * Guarda el resultado como JSON en options.out() (si se indicó)
+     */
+    public void write() throws IOException {
+        if (options.out() == null) {
+            return;
+        }
+        Files.writeString(options.out(), toJson(), StandardCharsets.UTF_8);
+        System.out.println("💾 Resultado guardado en " + options.out());
+    }
+
+    /**
+     * @return JSON con opciones, contadores y percentiles (en milisegundos)
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n  \"options\": {")
+            .append("\"baseUrl\": \"").append(options.baseUrl()).append('"')
+            .append(", \"mode\": \"").append(options.mode()).append('"')
+            .append(", \"rps\": ").append(options.rps())
+            .append(", \"concurrency\": ").append(options.concurrency())
+            .append(", \"durationSeconds\": ").append(options.duration().toSeconds())
+            .append(", \"warmupSeconds\": ").append(options.warmup().toSeconds())
+            .append(", \"symbols\": ").append(options.symbols().size())
+            .append(", \"distribution\": \"").append(options.distribution()).append('"')
+            .append(", \"zipfExponent\": ").append(options.zipfExponent())
+            .append(", \"intervals\": \"").append(String.join(",", options.intervals())).append('"')
+            .append(", \"gzip\": ").append(options.gzip())
+            .append("},\n");
+        json.append("  \"elapsedSeconds\": ").append(String.format(Locale.ROOT, "%.3f", elapsedNanos / 1e9)).append(",\n")
+            .append("  \"sent\": ").append(sent).append(",\n")
+            .append("  \"responses\": ").append(responseTime.getTotalCount()).append(",\n")
+            .append("  \"failures\": ").append(failures).append(",\n")
+            .append("  \"dropped\": ").append(dropped).append(",\n")
+            .append("  \"bytes\": ").append(bytes).append(",\n")
+            .append("  \"achievedRps\": ").append(String.format(Locale.ROOT, "%.1f", achievedRps())).append(",\n")
+            .append("  \"statuses\": {");
+        boolean first = true;
+        for (Map.Entry<Integer, Long> status : statuses.entrySet()) {
+            json.append(first ? "" : ", ").append('"').append(status.getKey()).append("\": ").append(status.getValue());
+            first = false;
+        }
+        json.append("},\n")
+            .append("  \"coordinatedOmissionCorrected\": ").append(corrected).append(",\n")
+            .append("  \"responseTimeMillis\": ");
+        appendHistogram(json, responseTime);
+        json.append(",\n  \"serviceTimeMillis\": ");
+        appendHistogram(json, serviceTime);
+        return json.append("\n}\n").toString();
+    }
+
+    private static void appendHistogram(StringBuilder json, Histogram histogram) {
+        json.append('{')
+            .append("\"count\": ").append(histogram.getTotalCount())
+            .append(", \"mean\": ").append(String.format(Locale.ROOT, "%.3f", histogram.getMean() / 1e6));
+        for (double percentile : PERCENTILES) {
+            json.append(", \"p").append(format(percentile)).append("\": ")
+                .append(String.format(Locale.ROOT, "%.3f", millis(histogram.getValueAtPercentile(percentile))));
+        }
+        json.append(", \"max\": ").append(String.format(Locale.ROOT, "%.3f", millis(histogram.getMaxValue())))
+            .append('}');
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /** 50 → "50", 99.9 → "99.9" */
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile)
+            ? Long.toString((long) percentile)
+            : Double.toString(percentile);
+    }
+}
@@ -0,0 +1,58 @@
+package com.stockmarket.client;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Elige el símbolo de cada petición según una distribución de popularidad
+ *
+ * CONCEPTOS APLICADOS:
+ * - Zipf: El símbolo de rango k se pide con probabilidad proporcional a 1/k^s
+ *   (con s=1.0 el primero se pide el doble que el segundo, el triple que el
+ *   tercero...); así se ve el tráfico real: pocas acciones concentran casi todo
+ * - Distribución acumulada + búsqueda binaria: O(n) al crear, O(log n) por muestra
+ *
+ * El orden de --symbols es el ranking: el primero es el más popular
+ */
+public final class SymbolSampler {
+
+    private final String[] symbols;
+    /** cumulative[i] = P(rango <= i); null = uniforme */
+    private final double[] cumulative;
+
+    /**
+     * @param symbols Símbolos ordenados de más a menos popular
+     * @param distribution "zipf" o "uniform"
+     * @param exponent Exponente de Zipf (0 = uniforme)
+     */
+    public SymbolSampler(List<String> symbols, String distribution, double exponent) {
+        this.symbols = symbols.toArray(String[]::new);
+        if (!"zipf".equals(distribution) || exponent == 0) {
+            this.cumulative = null;
+            return;
+        }
+        double[] weights = new double[this.symbols.length];
+        double total = 0;
+        for (int rank = 0; rank < weights.length; rank++) {
+            total += 1.0 / Math.pow(rank + 1, exponent);
+            weights[rank] = total;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] /= total;
+        }
+        this.cumulative = weights;
+    }
+
+    /**
+     * @return Símbolo elegido (thread-safe)
+     */
+    public String next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (cumulative == null) {
+            return symbols[random.nextInt(symbols.length)];
+        }
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return symbols[Math.min(symbols.length - 1, index >= 0 ? index : -index - 1)];
+    }
+}